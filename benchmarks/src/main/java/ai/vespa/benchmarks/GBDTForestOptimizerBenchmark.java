@@ -0,0 +1,129 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.benchmarks;
+
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.ArrayContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.Context;
+import com.yahoo.searchlib.rankingexpression.evaluation.ExpressionCompiler;
+import com.yahoo.searchlib.rankingexpression.evaluation.ExpressionOptimizer;
+import com.yahoo.searchlib.rankingexpression.evaluation.MapContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.OptimizationReport;
+import com.yahoo.searchlib.rankingexpression.parser.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of optimizing and evaluating a generated gradient boosted decision tree model,
+ * interpreted, as optimized by the GBDT forest optimizer, and compiled.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GBDTForestOptimizerBenchmark {
+
+    private static final int featureCount = 20;
+
+    @Param({"100", "1000"})
+    public int trees;
+
+    @Param({"6"})
+    public int depth;
+
+    private String gbdtString;
+
+    private MapContext mapContext;
+    private RankingExpression gbdt;
+
+    private ArrayContext forestContext;
+    private RankingExpression forestOptimizedGbdt;
+
+    private ArrayContext compiledContext;
+    private RankingExpression compiledGbdt;
+
+    @Setup
+    public void setup() throws ParseException {
+        gbdtString = generateGbdt(trees, depth, new Random(1));
+
+        mapContext = new MapContext();
+        gbdt = new RankingExpression(gbdtString);
+        bind(mapContext);
+
+        forestOptimizedGbdt = new RankingExpression(gbdtString);
+        forestContext = new ArrayContext(forestOptimizedGbdt);
+        ExpressionOptimizer optimizer = new ExpressionOptimizer();
+        optimizer.getOptimizer(ExpressionCompiler.class).setEnabled(false);
+        optimizer.optimize(forestOptimizedGbdt, forestContext);
+        bind(forestContext);
+
+        compiledGbdt = new RankingExpression(gbdtString);
+        compiledContext = new ArrayContext(compiledGbdt);
+        new ExpressionOptimizer().optimize(compiledGbdt, compiledContext);
+        bind(compiledContext);
+    }
+
+    @Benchmark
+    public OptimizationReport optimize() throws ParseException {
+        RankingExpression expression = new RankingExpression(gbdtString);
+        return new ExpressionOptimizer().optimize(expression, new ArrayContext(expression));
+    }
+
+    @Benchmark
+    public double evaluateInterpreted() {
+        return gbdt.evaluate(mapContext).asDouble();
+    }
+
+    @Benchmark
+    public double evaluateForestOptimized() {
+        return forestOptimizedGbdt.evaluate(forestContext).asDouble();
+    }
+
+    @Benchmark
+    public double evaluateCompiled() {
+        return compiledGbdt.evaluate(compiledContext).asDouble();
+    }
+
+    private void bind(Context context) {
+        for (int i = 0; i < featureCount; i++)
+            context.put("f" + i, i / (double)featureCount);
+    }
+
+    private static String generateGbdt(int trees, int depth, Random random) {
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < trees; i++) {
+            if (i > 0)
+                b.append(" + ");
+            generateTree(depth, random, b);
+        }
+        return b.toString();
+    }
+
+    private static void generateTree(int depth, Random random, StringBuilder b) {
+        if (depth == 0) {
+            b.append(random.nextDouble() - 0.5);
+            return;
+        }
+        b.append("if (f").append(random.nextInt(featureCount)).append(" < ").append(random.nextDouble()).append(", ");
+        generateTree(depth - 1, random, b);
+        b.append(", ");
+        generateTree(depth - 1, random, b);
+        b.append(")");
+    }
+
+}
@@ -0,0 +1,80 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.benchmarks;
+
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.ArrayContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.Context;
+import com.yahoo.searchlib.rankingexpression.evaluation.ExpressionOptimizer;
+import com.yahoo.searchlib.rankingexpression.evaluation.MapContext;
+import com.yahoo.searchlib.rankingexpression.parser.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of parsing and evaluating a ranking expression of the kind typically written by hand.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RankingExpressionBenchmark {
+
+    private static final String expressionString =
+            "0.3 * bm25_title + 0.7 * if (freshness > 0.5, log(1 + clicks) / 3, sqrt(freshness)) " +
+            "+ max(0, popularity - 2) * 0.1 + if (category in [1, 3, 7], 1.5, 0)";
+
+    private MapContext mapContext;
+    private RankingExpression expression;
+
+    private ArrayContext arrayContext;
+    private RankingExpression optimizedExpression;
+
+    @Setup
+    public void setup() throws ParseException {
+        mapContext = new MapContext();
+        expression = new RankingExpression(expressionString);
+        optimizedExpression = new RankingExpression(expressionString);
+        arrayContext = new ArrayContext(optimizedExpression);
+        new ExpressionOptimizer().optimize(optimizedExpression, arrayContext);
+        bind(mapContext);
+        bind(arrayContext);
+    }
+
+    private void bind(Context context) {
+        context.put("bm25_title", 12.5);
+        context.put("freshness", 0.8);
+        context.put("clicks", 1000);
+        context.put("popularity", 4.2);
+        context.put("category", 3);
+    }
+
+    @Benchmark
+    public RankingExpression parse() throws ParseException {
+        return new RankingExpression(expressionString);
+    }
+
+    @Benchmark
+    public double evaluateInterpreted() {
+        return expression.evaluate(mapContext).asDouble();
+    }
+
+    @Benchmark
+    public double evaluateOptimized() {
+        return optimizedExpression.evaluate(arrayContext).asDouble();
+    }
+
+}
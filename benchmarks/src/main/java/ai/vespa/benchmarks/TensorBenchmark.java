@@ -0,0 +1,104 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.benchmarks;
+
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.evaluation.MapEvaluationContext;
+import com.yahoo.tensor.evaluation.VariableTensor;
+import com.yahoo.tensor.functions.Join;
+import com.yahoo.tensor.functions.Reduce;
+import com.yahoo.tensor.functions.ScalarFunctions;
+import com.yahoo.tensor.functions.TensorFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the tensor functions on dense, sparse and mixed tensors.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TensorBenchmark {
+
+    @Param({"dense", "sparse", "mixed"})
+    public Tensors.Kind kind;
+
+    @Param({"10", "100"})
+    public int size;
+
+    private Tensor matrix;
+    private Tensor otherMatrix;
+    private Tensor vector;
+
+    private TensorFunction matrixVectorProductFunction;
+    private MapEvaluationContext context;
+
+    @Setup
+    public void setup() {
+        matrix = Tensors.matrix(kind, size, 1);
+        otherMatrix = Tensors.matrix(kind, size, 2);
+        vector = Tensors.vector(kind, size, 3);
+
+        matrixVectorProductFunction = new Reduce(new Join(new VariableTensor("matrix"), new VariableTensor("vector"),
+                                                          ScalarFunctions.multiply()),
+                                                 Reduce.Aggregator.sum, "y");
+        context = new MapEvaluationContext();
+        context.put("matrix", matrix);
+        context.put("vector", vector);
+    }
+
+    /** Join of tensors with the same dimensions */
+    @Benchmark
+    public Tensor joinSameSpace() {
+        return matrix.multiply(otherMatrix);
+    }
+
+    /** Join of a tensor into a tensor having a superset of its dimensions */
+    @Benchmark
+    public Tensor joinSubspace() {
+        return matrix.multiply(vector);
+    }
+
+    @Benchmark
+    public Tensor reduceOneDimension() {
+        return matrix.sum("y");
+    }
+
+    @Benchmark
+    public Tensor reduceAll() {
+        return matrix.sum();
+    }
+
+    /** Matrix-vector product: reduce(join(matrix, vector, f(a,b)(a * b)), sum, y), creating the joined tensor */
+    @Benchmark
+    public Tensor matrixVectorProduct() {
+        return matrix.multiply(vector).sum("y");
+    }
+
+    /** Matrix-vector product evaluated as a tensor function, which joins and reduces in one pass where possible */
+    @Benchmark
+    public Tensor matrixVectorProductFunction() {
+        return matrixVectorProductFunction.evaluate(context);
+    }
+
+    @Benchmark
+    public Tensor map() {
+        return matrix.map(value -> value * 2);
+    }
+
+}
@@ -0,0 +1,50 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.benchmarks;
+
+import com.yahoo.tensor.Tensor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of tensor concat. This is separate from {@link TensorBenchmark} as concat
+ * is only supported for dense tensors.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TensorConcatBenchmark {
+
+    @Param({"10", "100"})
+    public int size;
+
+    private Tensor matrix;
+    private Tensor otherMatrix;
+
+    @Setup
+    public void setup() {
+        matrix = Tensors.matrix(Tensors.Kind.dense, size, 1);
+        otherMatrix = Tensors.matrix(Tensors.Kind.dense, size, 2);
+    }
+
+    @Benchmark
+    public Tensor concat() {
+        return matrix.concat(otherMatrix, "x");
+    }
+
+}
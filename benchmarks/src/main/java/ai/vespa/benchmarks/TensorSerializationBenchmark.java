@@ -0,0 +1,72 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.benchmarks;
+
+import com.yahoo.io.GrowableByteBuffer;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.serialization.TypedBinaryFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of converting tensors to and from their binary and string forms.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TensorSerializationBenchmark {
+
+    @Param({"dense", "sparse", "mixed"})
+    public Tensors.Kind kind;
+
+    @Param({"10", "100"})
+    public int size;
+
+    private Tensor tensor;
+    private byte[] encoded;
+    private String string;
+
+    @Setup
+    public void setup() {
+        tensor = Tensors.matrix(kind, size, 1);
+        encoded = TypedBinaryFormat.encode(tensor);
+        string = tensor.toString();
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return TypedBinaryFormat.encode(tensor);
+    }
+
+    @Benchmark
+    public Tensor decode() {
+        return TypedBinaryFormat.decode(Optional.of(tensor.type()), GrowableByteBuffer.wrap(encoded));
+    }
+
+    @Benchmark
+    public Tensor parse() {
+        return Tensor.from(string);
+    }
+
+    @Benchmark
+    public String toStandardString() {
+        return tensor.toString();
+    }
+
+}
@@ -0,0 +1,54 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.benchmarks;
+
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+
+import java.util.Random;
+
+/**
+ * Creates tensors with random values for benchmarking. The same arguments always produce the same tensor.
+ *
+ * @author agent
+ */
+public class Tensors {
+
+    /** The kinds of tensors benchmarked, determining whether the dimensions are indexed, mapped or both */
+    public enum Kind {
+
+        dense("x[%d]", "y[%d]"),
+        sparse("x{}", "y{}"),
+        mixed("x{}", "y[%d]");
+
+        private final String xDimension, yDimension;
+
+        Kind(String xDimension, String yDimension) {
+            this.xDimension = xDimension;
+            this.yDimension = yDimension;
+        }
+
+    }
+
+    /** Returns a tensor with dimensions x and y, each having the given size */
+    static Tensor matrix(Kind kind, int size, long seed) {
+        TensorType type = TensorType.fromSpec("tensor(" + String.format(kind.xDimension, size) + "," +
+                                              String.format(kind.yDimension, size) + ")");
+        Random random = new Random(seed);
+        Tensor.Builder builder = Tensor.Builder.of(type);
+        for (int x = 0; x < size; x++)
+            for (int y = 0; y < size; y++)
+                builder.cell().label("x", x).label("y", y).value(random.nextDouble());
+        return builder.build();
+    }
+
+    /** Returns a tensor with dimension y having the given size */
+    static Tensor vector(Kind kind, int size, long seed) {
+        TensorType type = TensorType.fromSpec("tensor(" + String.format(kind.yDimension, size) + ")");
+        Random random = new Random(seed);
+        Tensor.Builder builder = Tensor.Builder.of(type);
+        for (int y = 0; y < size; y++)
+            builder.cell().label("y", y).value(random.nextDouble());
+        return builder.build();
+    }
+
+}
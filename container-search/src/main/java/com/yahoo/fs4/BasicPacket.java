@@ -77,26 +77,33 @@ public abstract class BasicPacket {
         if (isCompressed) {
             int uncompressedSize = buffer.getInt();
             int compressedSize = packetLength - 4;
-            int offset = 0;
-            byte[] compressedData;
+            byte[] body;
             if (buffer.hasArray()) {
-                compressedData = buffer.array();
-                offset = buffer.arrayOffset() + buffer.position();
+                body = compressor.decompress(CompressionType.valueOf(compressionType), buffer.array(),
+                                             buffer.arrayOffset() + buffer.position(),
+                                             uncompressedSize, Optional.of(compressedSize));
                 buffer.position(buffer.position() + compressedSize);
-            } else {
-                compressedData = new byte[compressedSize];
-                buffer.get(compressedData);
+            } else { // decompress straight from the (direct) buffer without copying the compressed data
+                body = compressor.decompress(CompressionType.valueOf(compressionType), buffer,
+                                             uncompressedSize, compressedSize);
             }
-            byte[] body = compressor.decompress(CompressionType.valueOf(compressionType), compressedData, offset,
-                                                uncompressedSize, Optional.of(compressedSize));
             ByteBuffer bodyBuffer = ByteBuffer.wrap(body);
             length += uncompressedSize - (compressedSize + 4);
-            decodeBody(bodyBuffer);
+            decodeOwnedBody(bodyBuffer);
         } else {
             decodeBody(buffer);
         }
     }
 
+    /**
+     * Decodes the body of this package from a byte buffer which is owned by this packet,
+     * such that subclasses may keep slices of it instead of copying data out of it.
+     * This default implementation calls decodeBody.
+     */
+    protected void decodeOwnedBody(ByteBuffer buffer) {
+        decodeBody(buffer);
+    }
+
     /**
      * Decodes the body of this package from a byte buffer
      * positioned at the first byte of the package.
@@ -4,6 +4,7 @@ package com.yahoo.fs4;
 import com.yahoo.document.GlobalId;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
  * An "extended query result" packet. This is the query result
@@ -16,8 +17,15 @@ public class DocsumPacket extends Packet {
 
     private GlobalId globalId = new GlobalId(new byte[GlobalId.LENGTH]);
 
+    /** The array holding the docsum data of this. This may be shared with other packets decoded from the same buffer. */
     private byte[] data;
 
+    /** The offset of the docsum data of this in the data array */
+    private int dataOffset = 0;
+
+    /** The number of bytes of docsum data in the data array */
+    private int dataLength = 0;
+
     private DocsumPacket() {
     }
 
@@ -26,6 +34,7 @@ public class DocsumPacket extends Packet {
      */
     public DocsumPacket(byte[] buffer) {
         data = buffer.clone();
+        dataLength = data.length;
     }
 
     public static DocsumPacket create() {
@@ -39,20 +48,60 @@ public class DocsumPacket extends Packet {
      * first byte of the packet
      */
     public void decodeBody(ByteBuffer buffer) {
+        decodeGlobalId(buffer);
+        dataLength = getLength() - 12 - GlobalId.LENGTH;
+        data = new byte[dataLength];
+        buffer.get(data);
+    }
+
+    /** Decodes the body of this, keeping the docsum data as a slice of the given owned buffer without copying it */
+    @Override
+    protected void decodeOwnedBody(ByteBuffer buffer) {
+        if ( ! buffer.hasArray()) {
+            decodeBody(buffer);
+            return;
+        }
+        decodeGlobalId(buffer);
+        dataLength = getLength() - 12 - GlobalId.LENGTH;
+        data = buffer.array();
+        dataOffset = buffer.arrayOffset() + buffer.position();
+        buffer.position(buffer.position() + dataLength);
+    }
+
+    private void decodeGlobalId(ByteBuffer buffer) {
         byte[] rawGid = new byte[GlobalId.LENGTH];
         buffer.get(rawGid);
         globalId = new GlobalId(rawGid);
-        data=new byte[getLength()-12-GlobalId.LENGTH];
-        buffer.get(data);
     }
 
     public GlobalId getGlobalId() { return globalId; }
 
-    public byte[] getData() { return data; }
+    /**
+     * Returns the docsum data of this as an array.
+     * This makes a copy if the data is a slice of a larger array - use getDataBuffer to avoid that.
+     */
+    public byte[] getData() {
+        if (data == null) return null;
+        if (dataOffset == 0 && dataLength == data.length) return data;
+        return Arrays.copyOfRange(data, dataOffset, dataOffset + dataLength);
+    }
+
+    /**
+     * Returns a buffer wrapping the docsum data of this without copying it.
+     * The buffer is positioned at the start of the data and has the data length as its remaining bytes.
+     * The content of the buffer must not be modified.
+     */
+    public ByteBuffer getDataBuffer() {
+        if (data == null) return null;
+        return ByteBuffer.wrap(data, dataOffset, dataLength);
+    }
+
+    /** Returns the length of the docsum data of this in bytes */
+    public int getDataLength() { return dataLength; }
 
     public String toString() {
         return "docsum packet [globalId: " + globalId.toString() +
-               ", size: " + (data==null ? "(no data)" : data.length + " bytes") + " ]";
+               ", size: " + (data==null ? "(no data)" : dataLength + " bytes") + " ]";
     }
 
 }
@@ -27,7 +27,7 @@ public class DocumentInfo implements Cloneable {
         distributionKey = owner.getMldFeature() ? buffer.getInt() : 0;
     }
 
-    public DocumentInfo(GlobalId globalId, int metric, int partId, int distributionKey) {
+    public DocumentInfo(GlobalId globalId, double metric, int partId, int distributionKey) {
         this.globalId = globalId;
         this.metric = metric;
         this.partId = partId;
@@ -27,6 +27,9 @@ public class QueryPacket extends Packet {
 
     private final Query query;
 
+    /** The hit window requested by this, overriding that of the query, or null to use the query window */
+    private int[] hitWindow = null;
+
     private QueryPacketData queryPacketData;
     private int sessionOffset = 0; // Start of sessionKey ignore section for cache key
     private int sessionSize = 0; // Length of sessionKey ignore section for cache key
@@ -52,9 +55,20 @@ public class QueryPacket extends Packet {
     }
 
 
+    /**
+     * Sets the window of hits requested by this packet, overriding the offset and hits of the query.
+     * This is used when the packet is sent to multiple search nodes whose results are merged
+     * before the window requested by the query is selected.
+     * Any encoding of this made before this is called is discarded.
+     */
+    public void setHitWindow(int offset, int hits) {
+        this.hitWindow = new int[] { offset, hits };
+        encodingBuffer = null;
+    }
+
     /** Returns the first offset requested */
     public int getOffset() {
-        return query.getOffset();
+        return hitWindow != null ? hitWindow[0] : query.getOffset();
     }
 
     /**
@@ -67,7 +81,7 @@ public class QueryPacket extends Packet {
 
     /** Returns the number of hits requested */
     public int getHits() {
-        return query.getHits();
+        return hitWindow != null ? hitWindow[1] : query.getHits();
     }
 
     private byte[] getSummaryClassAsUtf8() {
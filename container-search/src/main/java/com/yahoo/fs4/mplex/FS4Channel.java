@@ -15,6 +15,7 @@ import com.yahoo.fs4.BasicPacket;
 import com.yahoo.fs4.ChannelTimeoutException;
 import com.yahoo.fs4.Packet;
 import com.yahoo.search.Query;
+import com.yahoo.search.dispatch.ResponseMonitor;
 
 /**
  * This class is used to represent a "channel" in the FS4 protocol.
@@ -35,6 +36,7 @@ public class FS4Channel {
     volatile private BlockingQueue<BasicPacket> responseQueue;
     private Query query;
     private boolean isPingChannel = false;
+    volatile private ResponseMonitor<FS4Channel> monitor = null;
 
     /** for unit testing.  do not use */
     protected FS4Channel () {
@@ -62,6 +64,14 @@ public class FS4Channel {
         return query;
     }
 
+    /**
+     * Sets a monitor which will be notified each time a packet is added to the response queue of this channel.
+     * This allows a single thread to wait for responses on multiple channels.
+     */
+    public void setResponseMonitor(ResponseMonitor<FS4Channel> monitor) {
+        this.monitor = monitor;
+    }
+
     /** Returns the (fs4) channel id */
     public Integer getChannelId () {
         return channelId;
@@ -77,6 +87,7 @@ public class FS4Channel {
         BlockingQueue<BasicPacket> q = responseQueue;
         responseQueue = null;
         query = null;
+        monitor = null;
         if (isPingChannel) {
             backend.removePingChannel();
         } else {
@@ -201,6 +212,14 @@ public class FS4Channel {
         throws InterruptedException, InvalidChannelException
     {
         ensureValidQ().put(packet);
+        notifyMonitor();
+    }
+
+    /** Notifies the response monitor of this, if any, that a response is available */
+    protected void notifyMonitor() {
+        ResponseMonitor<FS4Channel> monitor = this.monitor;
+        if (monitor != null)
+            monitor.responseAvailable(this);
     }
 
     /**
@@ -24,6 +24,7 @@ import com.yahoo.prelude.fastsearch.CacheParams;
 import com.yahoo.prelude.fastsearch.ClusterParams;
 import com.yahoo.prelude.fastsearch.DocumentdbInfoConfig;
 import com.yahoo.prelude.fastsearch.FastSearcher;
+import com.yahoo.prelude.fastsearch.PacketCache;
 import com.yahoo.prelude.fastsearch.SummaryParameters;
 import com.yahoo.prelude.fastsearch.VespaBackEndSearcher;
 import com.yahoo.search.Query;
@@ -33,6 +34,9 @@ import com.yahoo.search.config.ClusterConfig;
 import com.yahoo.search.query.ParameterParser;
 import com.yahoo.search.result.ErrorMessage;
 import com.yahoo.search.searchchain.Execution;
+import com.yahoo.statistics.Callback;
+import com.yahoo.statistics.Counter;
+import com.yahoo.statistics.Handle;
 import com.yahoo.statistics.Statistics;
 import com.yahoo.statistics.Value;
 import com.yahoo.vespa.config.search.DispatchConfig;
@@ -52,6 +56,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.LongSupplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -130,7 +135,10 @@ public class ClusterSearcher extends Searcher {
         maxQueryCacheTimeout = ParameterParser.asMilliSeconds(clusterConfig.maxQueryCacheTimeout(),
                                                               DEFAULT_MAX_QUERY_CACHE_TIMEOUT);
 
-        CacheParams cacheParams = new CacheParams(createCache(clusterConfig, clusterModelName));
+        CacheControl cacheControl = createCache(clusterConfig, clusterModelName);
+        if (cacheControl.packetCache() != null)
+            addPacketCacheCounters(cacheControl.packetCache(), manager);
+        CacheParams cacheParams = new CacheParams(cacheControl);
         SummaryParameters docSumParams = new SummaryParameters(qrsConfig
                 .com().yahoo().prelude().fastsearch().FastSearcher().docsum()
                 .defaultclass());
@@ -250,6 +258,15 @@ public class ClusterSearcher extends Searcher {
         return new CacheControl(config.cacheSize(), config.cacheTimeout());
     }
 
+    /** Emits the hit, miss, eviction and rejection counts of the given packet cache as counters */
+    private void addPacketCacheCounters(PacketCache packetCache, Statistics manager) {
+        String prefix = clusterModelName + ".packet_cache_";
+        new Counter(prefix + "hits", manager, false, new PacketCacheCount(packetCache::hitCount), false);
+        new Counter(prefix + "misses", manager, false, new PacketCacheCount(packetCache::missCount), false);
+        new Counter(prefix + "evictions", manager, false, new PacketCacheCount(packetCache::evictionCount), false);
+        new Counter(prefix + "rejections", manager, false, new PacketCacheCount(packetCache::rejectionCount), false);
+    }
+
     ClusterMonitor getMonitor() {
         return monitor;
     }
@@ -539,6 +556,23 @@ public class ClusterSearcher extends Searcher {
         return fs4ResourcePool.getScheduledExecutor();
     }
 
+    /** Sets a counter to a count kept by a packet cache right before it is logged */
+    static class PacketCacheCount implements Callback {
+
+        private final LongSupplier count;
+
+        PacketCacheCount(LongSupplier count) {
+            this.count = count;
+        }
+
+        @Override
+        public void run(Handle handle, boolean firstTime) {
+            Counter counter = (Counter)handle;
+            counter.increment(count.getAsLong() - counter.get());
+        }
+
+    }
+
     private class Pinger implements Runnable {
 
         private final Searcher searcher;
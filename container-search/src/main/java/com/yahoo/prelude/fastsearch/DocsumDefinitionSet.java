@@ -3,6 +3,7 @@ package com.yahoo.prelude.fastsearch;
 
 import com.google.common.collect.ImmutableMap;
 import com.yahoo.slime.BinaryFormat;
+import com.yahoo.slime.BinaryView;
 import com.yahoo.data.access.Inspector;
 import com.yahoo.slime.Slime;
 import com.yahoo.data.access.slime.SlimeAdapter;
@@ -80,15 +81,37 @@ public final class DocsumDefinitionSet {
      * @throws ConfigurationException if the summary class of this hit is missing
      */
     public final String lazyDecode(String summaryClass, byte[] data, FastHit hit) {
-        ByteBuffer buffer = ByteBuffer.wrap(data);
+        return lazyDecode(summaryClass, ByteBuffer.wrap(data), hit);
+    }
+
+    /**
+     * Makes data available for decoding for the given hit.
+     *
+     * @param summaryClass the requested summary class
+     * @param data docsum data from backend, from the position to the limit of this heap buffer.
+     *             The data is read directly from the array backing the buffer, and the buffer is not modified.
+     *             The hit keeps reading from this array as fields are accessed, so it must not be reused
+     * @param hit the Hit corresponding to this document summary
+     * @return Error message or null on success.
+     * @throws ConfigurationException if the summary class of this hit is missing
+     */
+    public final String lazyDecode(String summaryClass, ByteBuffer data, FastHit hit) {
+        ByteBuffer buffer = data.duplicate();
         buffer.order(ByteOrder.LITTLE_ENDIAN);
         long docsumClassId = buffer.getInt();
         if (docsumClassId != SLIME_MAGIC_ID) {
             throw new IllegalArgumentException("Only expecting SchemaLess docsums - summary class:" + summaryClass + " hit:" + hit);
         }
         DocsumDefinition docsumDefinition = getDocsum(summaryClass);
-        Slime value = BinaryFormat.decode(buffer.array(), buffer.arrayOffset()+buffer.position(), buffer.remaining());
-        Inspector docsum = new SlimeAdapter(value.get());
+        Inspector docsum;
+        try {
+            // Fields are read from the binary data when accessed rather than decoded up front
+            docsum = new SlimeAdapter(BinaryView.inspect(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining()));
+        }
+        catch (IllegalArgumentException e) { // decode to get the partial result and error message
+            Slime value = BinaryFormat.decode(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            docsum = new SlimeAdapter(value.get());
+        }
         if (docsum.type() != OBJECT) {
             return "Hit " + hit + " failed: " + docsum.asString();
         }
@@ -23,6 +23,7 @@ import com.yahoo.processing.request.CompoundName;
 import com.yahoo.search.Query;
 import com.yahoo.search.Result;
 import com.yahoo.search.dispatch.Dispatcher;
+import com.yahoo.search.dispatch.MergedResult;
 import com.yahoo.search.dispatch.SearchCluster;
 import com.yahoo.search.grouping.GroupingRequest;
 import com.yahoo.search.grouping.request.GroupingOperation;
@@ -34,7 +35,11 @@ import com.yahoo.search.searchchain.Execution;
 import edu.umd.cs.findbugs.annotations.NonNull;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 
 import static com.yahoo.container.util.Util.quote;
@@ -56,6 +61,12 @@ public class FastSearcher extends VespaBackEndSearcher {
     /** If this is turned on this will make search queries directly to the local search node when possible */
     private final static CompoundName dispatchDirect = new CompoundName("dispatch.direct");
 
+    /**
+     * If this is turned on this will make search queries directly to all the nodes of a group in parallel
+     * and merge their results, rather than going through a dispatch node, when possible
+     */
+    private final static CompoundName dispatchInternal = new CompoundName("dispatch.internal");
+
     /** Unless turned off this will fill summaries by dispatching directly to search nodes over RPC when possible */
     private final static CompoundName dispatchSummaries = new CompoundName("dispatch.summaries");
 
@@ -168,6 +179,12 @@ public class FastSearcher extends VespaBackEndSearcher {
 
     @Override
     public Result doSearch2(Query query, QueryPacket queryPacket, CacheKey cacheKey, Execution execution) {
+        if (query.properties().getBoolean(dispatchInternal, false)) {
+            Optional<MergedResult> mergedResult = dispatcher.search(query, queryPacket);
+            if (mergedResult.isPresent())
+                return toResult(mergedResult.get(), query, queryPacket, cacheKey);
+        }
+
         FS4Channel channel = null;
         try {
             if (dispatcher.searchCluster().groupSize() == 1)
@@ -201,6 +218,21 @@ public class FastSearcher extends VespaBackEndSearcher {
         }
     }
     
+    private Result toResult(MergedResult mergedResult, Query query, QueryPacket queryPacket, CacheKey cacheKey) {
+        if (mergedResult.error().isPresent())
+            return new Result(query, mergedResult.error().get());
+
+        if (query.getPresentation().getSummary() == null)
+            query.getPresentation().setSummary(getDefaultDocsumClass());
+
+        Result result = new Result(query);
+        result.setTotalHitCount(mergedResult.totalHitCount());
+        result.setCoverage(mergedResult.coverage());
+        addUnfilledHits(result, mergedResult.documents(), false,
+                        queryPacket.getQueryPacketData(), cacheKey, Optional.empty());
+        return result;
+    }
+
     /** When we only search a single node, doing all grouping in one pass is more efficient */
     private void forceSinglePassGrouping(Query query) {
         for (GroupingRequest groupingRequest : GroupingRequest.getRequests(query))
@@ -270,38 +302,119 @@ public class FastSearcher extends VespaBackEndSearcher {
             packetWrapper = cacheLookupTwoPhase(cacheKey, result, summaryClass);
         }
 
-        FS4Channel channel = chooseBackend(query).openChannel();
-        channel.setQuery(query);
-        Packet[] receivedPackets;
-        try {
-            DocsumPacketKey[] packetKeys;
-
-            if (countFastHits(result) > 0) {
-                packetKeys = getPacketKeys(result, summaryClass, false);
-                if (packetKeys.length == 0) {
-                    receivedPackets = new Packet[0];
-                } else {
-                    try {
-                        receivedPackets = fetchSummaries(channel, result, summaryClass);
-                    } catch (InvalidChannelException e) {
-                        result.hits().addError(ErrorMessage.createBackendCommunicationError("Invalid channel " + getName() + " (summary fetch)"));
-                        return;
-                    } catch (ChannelTimeoutException e) {
-                        result.hits().addError(ErrorMessage.createTimeout("timeout waiting for summaries from " + getName()));
-                        return;
-                    } catch (IOException e) {
-                        result.hits().addError(ErrorMessage.createBackendCommunicationError(
-                                "IO error while talking on channel " + getName() + " (summary fetch): " + e.getMessage()));
-                        return;
+        if (query.properties().getBoolean(dispatchInternal, false)) {
+            Optional<Map<SearchCluster.Node, Result>> resultsByNode = partitionByNode(result);
+            if (resultsByNode.isPresent()) { // fetch from the node which produced each hit
+                // Send all requests before waiting for any response, such that the nodes produce summaries in parallel
+                List<SummaryRequest> requests = new ArrayList<>(resultsByNode.get().size());
+                try {
+                    for (Map.Entry<SearchCluster.Node, Result> nodeResult : resultsByNode.get().entrySet()) {
+                        SearchCluster.Node node = nodeResult.getKey();
+                        requests.add(sendSummaryRequest(fs4ResourcePool.getBackend(node.hostname(), node.fs4port(), Optional.of(node.key())),
+                                                        nodeResult.getValue(), summaryClass));
                     }
-                    if (receivedPackets.length == 0) {
-                        result.hits().addError(ErrorMessage.createBackendCommunicationError(getName() + " got no packets back (summary fetch)"));
-                        return;
+                    for (SummaryRequest request : requests) {
+                        receiveSummaries(request, cacheKey, packetWrapper);
+                        mergeErrorsInto(result, request.result);
                     }
                 }
-            } else {
-                packetKeys = new DocsumPacketKey[0];
-                receivedPackets = new Packet[0];
+                finally { // close the channels of the requests not received if we fail
+                    for (SummaryRequest request : requests)
+                        request.channel.close();
+                }
+                result.analyzeHits();
+                return;
+            }
+        }
+
+        fillFrom(chooseBackend(query), result, summaryClass, cacheKey, packetWrapper);
+    }
+
+    /**
+     * Returns the unfilled hits of this result partitioned into a result per search node,
+     * or empty if some hit is not known to come from a node in the search cluster of the dispatcher
+     */
+    private Optional<Map<SearchCluster.Node, Result>> partitionByNode(Result result) {
+        if (dispatcher.searchCluster() == null) return Optional.empty();
+
+        Map<SearchCluster.Node, Result> resultsByNode = new LinkedHashMap<>();
+        for (Iterator<Hit> i = hitIterator(result); i.hasNext(); ) {
+            Hit hit = i.next();
+            if ( ! (hit instanceof FastHit)) continue;
+            FastHit fastHit = (FastHit)hit;
+
+            Optional<SearchCluster.Node> node = dispatcher.searchCluster().node(fastHit.getDistributionKey());
+            if ( ! node.isPresent()) return Optional.empty();
+            resultsByNode.computeIfAbsent(node.get(), __ -> new Result(result.getQuery())).hits().add(fastHit);
+        }
+        return Optional.of(resultsByNode);
+    }
+
+    /** Fills the hits of the given result by fetching summaries over fs4 from the given backend */
+    private void fillFrom(Backend backend, Result result, String summaryClass, CacheKey cacheKey, PacketWrapper packetWrapper) {
+        receiveSummaries(sendSummaryRequest(backend, result, summaryClass), cacheKey, packetWrapper);
+    }
+
+    /**
+     * Sends a request for the summaries of the unfilled hits of the given result to the given backend,
+     * without waiting for the response
+     */
+    private SummaryRequest sendSummaryRequest(Backend backend, Result result, String summaryClass) {
+        FS4Channel channel = backend.openChannel();
+        try {
+            channel.setQuery(result.getQuery());
+            SummaryRequest request = new SummaryRequest(channel, result, summaryClass);
+            if (countFastHits(result) == 0) return request;
+
+            request.packetKeys = getPacketKeys(result, summaryClass, false);
+            if (request.packetKeys.length == 0) return request;
+
+            try {
+                request.expectedPackets = sendSummaryPacket(channel, result, summaryClass);
+            } catch (InvalidChannelException e) {
+                request.error = ErrorMessage.createBackendCommunicationError("Invalid channel " + getName() + " (summary fetch)");
+            } catch (IOException e) {
+                request.error = ErrorMessage.createBackendCommunicationError(
+                        "IO error while talking on channel " + getName() + " (summary fetch): " + e.getMessage());
+            }
+            return request;
+        }
+        catch (RuntimeException e) { // the caller will not get a request to close
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for the response to the given request within the time left of the query,
+     * and fills the hits of the request from it
+     */
+    private void receiveSummaries(SummaryRequest request, CacheKey cacheKey, PacketWrapper packetWrapper) {
+        Result result = request.result;
+        String summaryClass = request.summaryClass;
+        Query query = result.getQuery();
+        try {
+            if (request.error != null) {
+                result.hits().addError(request.error);
+                return;
+            }
+
+            Packet[] receivedPackets = new Packet[0];
+            if (request.expectedPackets > 0) {
+                try {
+                    receivedPackets = convertBasicPackets(request.channel.receivePackets(query.getTimeLeft(),
+                                                                                         request.expectedPackets));
+                } catch (InvalidChannelException e) {
+                    result.hits().addError(ErrorMessage.createBackendCommunicationError("Invalid channel " + getName() + " (summary fetch)"));
+                    return;
+                } catch (ChannelTimeoutException e) {
+                    result.hits().addError(ErrorMessage.createTimeout("timeout waiting for summaries from " + getName()));
+                    return;
+                }
+                if (receivedPackets.length == 0) {
+                    result.hits().addError(ErrorMessage.createBackendCommunicationError(getName() + " got no packets back (summary fetch)"));
+                    return;
+                }
             }
 
             int skippedHits;
@@ -320,7 +433,7 @@ public class FastSearcher extends VespaBackEndSearcher {
                 return;
             }
             if (skippedHits == 0 && packetWrapper != null) {
-                cacheControl.updateCacheEntry(cacheKey, query, packetKeys, receivedPackets);
+                cacheControl.updateCacheEntry(cacheKey, query, request.packetKeys, receivedPackets);
             }
 
             if ( skippedHits > 0 )
@@ -341,7 +454,7 @@ public class FastSearcher extends VespaBackEndSearcher {
                 }
             }
         } finally {
-            channel.close();
+            request.channel.close();
         }
     }
 
@@ -453,10 +566,10 @@ public class FastSearcher extends VespaBackEndSearcher {
         return packets;
     }
 
-    private Packet[] fetchSummaries(FS4Channel channel, Result result, String summaryClass)
-            throws InvalidChannelException, ChannelTimeoutException, ClassCastException, IOException {
+    /** Sends a request for summaries and returns the number of packets to expect in the response */
+    private int sendSummaryPacket(FS4Channel channel, Result result, String summaryClass)
+            throws InvalidChannelException, IOException {
 
-        BasicPacket[] receivedPackets;
         boolean summaryNeedsQuery = summaryNeedsQuery(result.getQuery());
         if (result.getQuery().getTraceLevel() >=3)
             result.getQuery().trace((summaryNeedsQuery ? "Resending " : "Not resending ") + "query during document summary fetching", 3);
@@ -470,15 +583,37 @@ public class FastSearcher extends VespaBackEndSearcher {
 
         boolean couldSend = channel.sendPacket(docsumsPacket);
         if ( ! couldSend) throw new IOException("Could not successfully send GetDocSumsPacket.");
-        receivedPackets = channel.receivePackets(result.getQuery().getTimeLeft(), docsumsPacket.getNumDocsums() + 1);
-
-        return convertBasicPackets(receivedPackets);
+        return docsumsPacket.getNumDocsums() + 1;
     }
 
     public String toString() {
         return "fast searcher (" + getName() + ") " + dispatchBackend;
     }
 
+    /** A request for summaries sent to a backend, for which the response is not yet processed */
+    private static class SummaryRequest {
+
+        final FS4Channel channel;
+        final Result result;
+        final String summaryClass;
+
+        /** The keys of the hits requested */
+        DocsumPacketKey[] packetKeys = new DocsumPacketKey[0];
+
+        /** The number of packets to receive in the response, or 0 if no request was sent */
+        int expectedPackets = 0;
+
+        /** The error which prevented sending the request, or null if none */
+        ErrorMessage error = null;
+
+        SummaryRequest(FS4Channel channel, Result result, String summaryClass) {
+            this.channel = channel;
+            this.result = result;
+            this.summaryClass = summaryClass;
+        }
+
+    }
+
     /**
      * Returns an array of the hits contained in this result
      *
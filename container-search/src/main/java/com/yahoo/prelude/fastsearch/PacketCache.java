@@ -1,53 +1,62 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.prelude.fastsearch;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Logger;
 
 import com.yahoo.log.LogLevel;
 
 
 /**
- * An LRU cache using number of hits cached inside the results as
+ * A thread safe LRU cache using number of bytes of the packets cached as
  * size limiting factor. Directly modelled after com.yahoo.collections.Cache.
+ * <p>
+ * The cache is divided into a number of segments, each an LRU cache guarded by its own lock,
+ * such that concurrent queries contend only when their keys fall in the same segment.
+ * Caches of less than 2 megabytes use a single segment, which makes eviction order exactly LRU.
+ * <p>
+ * If admission filtering is turned on, an entry which would cause another entry to be evicted
+ * is only admitted if its key has been looked up more frequently recently than the key of the entry
+ * it would replace, as estimated by a small frequency sketch per segment (as in TinyLFU).
+ * This prevents a burst of unique queries from flushing out the frequently used entries.
  *
  * @author Steinar Knutsen
  * @author bratseth
  */
 // TODO: Remove packet cache as it timed out a long time ago.
 // 1 - It does not work with grouping, 2 the packet protocol is eroding away.
-public class PacketCache extends LinkedHashMap<CacheKey, PacketWrapper> {
+public class PacketCache {
 
-    private static final long serialVersionUID = -7403077211906108356L;
+    /** The maximum number of segments of a cache */
+    private static final int maxSegments = 16;
 
-    /** The <i>current</i> number of bytes of packets in this cache */
-    private int totalSize;
+    /** The minimum number of bytes in a segment */
+    private static final int minSegmentCapacity = 1 << 20;
 
     /** The maximum number of bytes of packets in this cache */
     private final int capacity;
 
     /** The max size of a cached item compared to the total size */
-    private int maxCacheItemPercentage = 1;
+    private volatile int maxCacheItemPercentage = 1;
+
+    /** Whether new entries must be more frequently used than the entries they replace to be admitted */
+    private volatile boolean admissionFiltering = false;
 
     /** The max age for a valid cache entry, 0 mean infinite */
     private final long maxAge;
 
-    private static final Logger log = Logger.getLogger(PacketCache.class.getName());
+    private final Segment[] segments;
 
-    public void clear() {
-        super.clear();
-        totalSize = 0;
-    }
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
 
-    /**
-     * Sets the max size of a cached item compared to the total size
-     * Cache requests for larger objects will be ignored
-     */
-    public void setMaxCacheItemPercentage(int maxCapacityPercentage) {
-        maxCacheItemPercentage = maxCapacityPercentage;
-    }
+    private static final Logger log = Logger.getLogger(PacketCache.class.getName());
 
     /**
      * Creates a cache with a size given by
@@ -58,9 +67,6 @@ public class PacketCache extends LinkedHashMap<CacheKey, PacketWrapper> {
      * @param maxAge seconds a cache entry is valid, 0 or less are illegal arguments
      */
     public PacketCache(int capacityMegaBytes,int capacityBytes,double maxAge) {
-        // hardcoded inital entry capacity, won't matter much anyway
-        // after a while
-        super(12500, 1.0f, true);
         if (maxAge <= 0.0d) {
             throw new IllegalArgumentException("maxAge <= 0 not legal on 5.1, use some very large number for no timeout.");
         }
@@ -74,32 +80,29 @@ public class PacketCache extends LinkedHashMap<CacheKey, PacketWrapper> {
             throw new IllegalArgumentException("Total cache size set to 0 or less bytes. If no caching is desired, avoid creating this object instead.");
         }
         this.maxAge = (long) (maxAge * 1000.0d);
+
+        int segmentCount = 1;
+        while (segmentCount < maxSegments && capacity / (segmentCount * 2) >= minSegmentCapacity)
+            segmentCount *= 2;
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++)
+            segments[i] = new Segment(capacity / segmentCount);
     }
 
     /**
-     * Overrides LinkedHashMap.removeEldestEntry as suggested to implement LRU cache.
+     * Sets the max size of a cached item compared to the total size
+     * Cache requests for larger objects will be ignored
      */
-    protected boolean removeEldestEntry(Map.Entry<CacheKey, PacketWrapper> eldest)
-    {
-        if (totalSize > capacity) {
-            totalSize -= eldest.getValue().getPacketsSize();
-            return true;
-        }
-        return false;
+    public void setMaxCacheItemPercentage(int maxCapacityPercentage) {
+        maxCacheItemPercentage = maxCapacityPercentage;
     }
 
-    private void removeOverflow() {
-        if (totalSize < capacity) return;
-
-        for (Iterator<PacketWrapper> i = values().iterator(); i.hasNext();) {
-            PacketWrapper eldestEntry = i.next();
-            totalSize -= eldestEntry.getPacketsSize();
-
-            i.remove();
-            if (totalSize < capacity) {
-                break;
-            }
-        }
+    /**
+     * Sets whether entries which would cause eviction of another entry should only be admitted
+     * if they are estimated to be more frequently used than the entry they replace. Default is false.
+     */
+    public void setAdmissionFiltering(boolean admissionFiltering) {
+        this.admissionFiltering = admissionFiltering;
     }
 
     public int getCapacity() {
@@ -132,22 +135,13 @@ public class PacketCache extends LinkedHashMap<CacheKey, PacketWrapper> {
             result.setTimestamp(timestamp);
         }
 
+        Segment segment = segmentOf(key);
         // don't insert if it is too big
-        if (size * 100 > capacity * maxCacheItemPercentage) {
+        if ((long)size * 100 > (long)capacity * maxCacheItemPercentage) {
             // removeField the old one since that is now stale.
-            return remove(key);
-        }
-
-        totalSize += size;
-        PacketWrapper previous = super.put(key, result);
-        if (previous != null) {
-            totalSize -= previous.getPacketsSize();
+            return segment.remove(key);
         }
-        if (totalSize > (capacity * 1.1)) {
-            removeOverflow();
-        }
-
-        return previous;
+        return segment.put(key, result, size);
     }
 
     public PacketWrapper get(CacheKey key) {
@@ -155,33 +149,239 @@ public class PacketCache extends LinkedHashMap<CacheKey, PacketWrapper> {
     }
 
     public PacketWrapper get(CacheKey key, long now) {
-        PacketWrapper result = super.get(key);
+        PacketWrapper result = segmentOf(key).get(key, now);
+        if (result == null)
+            misses.increment();
+        else
+            hits.increment();
+        return result;
+    }
+
+    public PacketWrapper remove(CacheKey key) {
+        return segmentOf(key).remove(key);
+    }
+
+    public void clear() {
+        for (Segment segment : segments)
+            segment.clearAll();
+    }
+
+    /** Returns the number of entries in this cache */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments)
+            size += segment.entryCount();
+        return size;
+    }
+
+    public int totalPacketSize() {
+        long totalSize = 0;
+        for (Segment segment : segments)
+            totalSize += segment.totalSize();
+        return (int)Math.min(totalSize, Integer.MAX_VALUE);
+    }
+
+    /** Returns the number of lookups which found a valid entry since this was created */
+    public long hitCount() { return hits.sum(); }
+
+    /** Returns the number of lookups which found no valid entry since this was created */
+    public long missCount() { return misses.sum(); }
+
+    /** Returns the number of entries removed to make room for others or because they expired */
+    public long evictionCount() { return evictions.sum(); }
+
+    /** Returns the number of entries not admitted to this cache by admission filtering */
+    public long rejectionCount() { return rejections.sum(); }
+
+    /** Returns the number of segments this cache is divided into */
+    public int segmentCount() { return segments.length; }
+
+    private Segment segmentOf(CacheKey key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    /** An LRU cache guarded by its own lock, holding the entries of a subset of the keys */
+    private class Segment extends LinkedHashMap<CacheKey, PacketWrapper> {
+
+        private static final long serialVersionUID = -7403077211906108356L;
+
+        /** The maximum number of bytes of packets in this segment */
+        private final int segmentCapacity;
+
+        /** The estimated recent access frequency of keys in this segment */
+        private final FrequencySketch sketch;
+
+        /** The <i>current</i> number of bytes of packets in this segment */
+        private long totalSize = 0;
 
-        if (result == null) {
-            return result;
+        Segment(int segmentCapacity) {
+            // hardcoded inital entry capacity, won't matter much anyway
+            // after a while
+            super(12500 / maxSegments, 1.0f, true);
+            this.segmentCapacity = segmentCapacity;
+            this.sketch = new FrequencySketch(segmentCapacity);
         }
 
-        long timestamp = result.getTimestamp();
+        synchronized PacketWrapper get(CacheKey key, long now) {
+            sketch.increment(key.hashCode());
+            PacketWrapper result = super.get(key);
 
-        if ((now - timestamp) > maxAge) {
-            remove(key);
-            return null;
-        } else {
-            return result;
+            if (result == null) {
+                return result;
+            }
+
+            if (isExpired(result, now)) {
+                evictions.increment();
+                remove(key);
+                return null;
+            } else {
+                return result;
+            }
         }
-    }
 
-    public PacketWrapper remove(CacheKey key) {
-        PacketWrapper removed = super.remove(key);
+        synchronized PacketWrapper put(CacheKey key, PacketWrapper result, int size) {
+            if (admissionFiltering && ! containsKey(key) && ! isEmpty() && totalSize + size > segmentCapacity) {
+                Map.Entry<CacheKey, PacketWrapper> victim = entrySet().iterator().next();
+                if ( ! isExpired(victim.getValue(), System.currentTimeMillis())
+                     && sketch.frequency(key.hashCode()) <= sketch.frequency(victim.getKey().hashCode())) {
+                    rejections.increment();
+                    return null;
+                }
+            }
+
+            totalSize += size;
+            PacketWrapper previous = super.put(key, result);
+            if (previous != null) {
+                totalSize -= previous.getPacketsSize();
+            }
+            if (totalSize > (segmentCapacity * 1.1)) {
+                removeOverflow();
+            }
+            return previous;
+        }
+
+        synchronized PacketWrapper remove(CacheKey key) {
+            PacketWrapper removed = super.remove(key);
+
+            if (removed != null) {
+                totalSize -= removed.getPacketsSize();
+            }
+            return removed;
+        }
+
+        synchronized void clearAll() {
+            super.clear();
+            sketch.clear();
+            totalSize = 0;
+        }
 
-        if (removed != null) {
-            totalSize -= removed.getPacketsSize();
+        synchronized int entryCount() { return super.size(); }
+
+        synchronized long totalSize() { return totalSize; }
+
+        /**
+         * Overrides LinkedHashMap.removeEldestEntry as suggested to implement LRU cache.
+         */
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CacheKey, PacketWrapper> eldest) {
+            if (totalSize > segmentCapacity) {
+                totalSize -= eldest.getValue().getPacketsSize();
+                evictions.increment();
+                return true;
+            }
+            return false;
         }
-        return removed;
+
+        private void removeOverflow() {
+            if (totalSize < segmentCapacity) return;
+
+            for (Iterator<PacketWrapper> i = values().iterator(); i.hasNext();) {
+                PacketWrapper eldestEntry = i.next();
+                totalSize -= eldestEntry.getPacketsSize();
+
+                i.remove();
+                evictions.increment();
+                if (totalSize < segmentCapacity) {
+                    break;
+                }
+            }
+        }
+
+        private boolean isExpired(PacketWrapper entry, long now) {
+            return (now - entry.getTimestamp()) > maxAge;
+        }
+
     }
 
-    public int totalPacketSize() {
-        return totalSize;
+    /**
+     * A count-min sketch of 4-bit counters estimating how often keys have been accessed recently.
+     * All counters are halved periodically such that the estimates reflect recent usage.
+     * This is not thread safe.
+     */
+    private static class FrequencySketch {
+
+        /** The estimated average number of bytes of a cache entry, used to size the sketch */
+        private static final int estimatedEntrySize = 2048;
+
+        private static final int[] seeds = { 0x97cb3127, 0xb7f1ad4b, 0x5c9b8f35, 0xc13d7b2f };
+
+        /** Each long holds 16 4-bit counters */
+        private final long[] table;
+
+        /** The number of increments after which all counters are halved */
+        private final int sampleSize;
+
+        private int additions = 0;
+
+        FrequencySketch(int capacity) {
+            int expectedEntries = Math.max(16, Math.min(1 << 20, capacity / estimatedEntrySize));
+            table = new long[Integer.highestOneBit(expectedEntries - 1) << 1];
+            sampleSize = 10 * expectedEntries;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int i = 0; i < seeds.length; i++) {
+                int h = rehash(hash, i);
+                int index = h & (table.length - 1);
+                int offset = ((h >>> 24) & 15) << 2;
+                if (((table[index] >>> offset) & 0xfL) != 0xfL) {
+                    table[index] += 1L << offset;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize)
+                reset();
+        }
+
+        int frequency(int hash) {
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < seeds.length; i++) {
+                int h = rehash(hash, i);
+                int count = (int)((table[h & (table.length - 1)] >>> (((h >>> 24) & 15) << 2)) & 0xfL);
+                frequency = Math.min(frequency, count);
+            }
+            return frequency;
+        }
+
+        void clear() {
+            Arrays.fill(table, 0L);
+            additions = 0;
+        }
+
+        /** Halves all counters */
+        private void reset() {
+            for (int i = 0; i < table.length; i++)
+                table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+            additions /= 2;
+        }
+
+        private static int rehash(int hash, int i) {
+            int h = hash * seeds[i];
+            return h ^ (h >>> 17);
+        }
+
     }
 
 }
@@ -310,7 +310,7 @@ public abstract class VespaBackEndSearcher extends PingableSearcher {
         }
     }
 
-    private void mergeErrorsInto(Result destination, Result source) {
+    protected void mergeErrorsInto(Result destination, Result source) {
         ErrorHit eh = source.hits().getErrorHit();
         if (eh != null) {
             for (ErrorMessage error : eh.errors())
@@ -442,9 +442,8 @@ public abstract class VespaBackEndSearcher extends PingableSearcher {
     }
     private FillHitResult fillHit(FastHit hit, DocsumPacket packet, String summaryClass) {
         if (packet != null) {
-            byte[] docsumdata = packet.getData();
-            if (docsumdata.length > 0) {
-                return new FillHitResult(true, decodeSummary(summaryClass, hit, docsumdata));
+            if (packet.getDataLength() > 0) {
+                return new FillHitResult(true, decodeSummary(summaryClass, hit, packet.getDataBuffer()));
             }
         }
         return new FillHitResult(false);
@@ -529,10 +528,8 @@ public abstract class VespaBackEndSearcher extends PingableSearcher {
             DocsumPacket docsum = (DocsumPacket) packetWrapper.getPacket(document.getGlobalId(), document.getPartId(), summaryClass);
 
             if (docsum != null) {
-                byte[] docsumdata = docsum.getData();
-
-                if (docsumdata.length > 0) {
-                    String error = decodeSummary(summaryClass, hit, docsumdata);
+                if (docsum.getDataLength() > 0) {
+                    String error = decodeSummary(summaryClass, hit, docsum.getDataBuffer());
                     if (error != null) {
                         filledAllOfEm = false;
                     }
@@ -595,13 +592,13 @@ public abstract class VespaBackEndSearcher extends PingableSearcher {
         return db.getDocsumDefinitionSet();
     }
 
-    private String decodeSummary(String summaryClass, FastHit hit, byte[] docsumdata) {
+    private String decodeSummary(String summaryClass, FastHit hit, ByteBuffer docsumdata) {
         DocumentDatabase db = getDocumentDatabase(hit.getQuery());
         hit.setField(Hit.SDDOCNAME_FIELD, db.getName());
         return decodeSummary(summaryClass, hit, docsumdata, db.getDocsumDefinitionSet());
     }
 
-    private String decodeSummary(String summaryClass, FastHit hit, byte[] docsumdata, DocsumDefinitionSet docsumSet) {
+    private String decodeSummary(String summaryClass, FastHit hit, ByteBuffer docsumdata, DocsumDefinitionSet docsumSet) {
         String error = docsumSet.lazyDecode(summaryClass, docsumdata, hit);
         if (error == null) {
             hit.setFilled(summaryClass);
@@ -217,7 +217,7 @@ public abstract class CompositeItem extends Item {
     public CompositeItem clone() {
         CompositeItem copy = (CompositeItem) super.clone();
 
-        copy.subitems = new java.util.ArrayList<>();
+        copy.subitems = new java.util.ArrayList<>(subitems.size());
         for (Item subItem : subitems) {
             Item subItemCopy = subItem.clone();
             copy.adding(subItemCopy);
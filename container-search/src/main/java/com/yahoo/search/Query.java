@@ -163,17 +163,20 @@ public class Query extends com.yahoo.processing.Request implements Cloneable {
 
     //--------------- Owned sub-objects containing query properties ----------------
 
+    // These are created in the constructors rather than here such that copying a query
+    // does not create instances which are immediately replaced by copies
+
     /** The ranking requested in this query */
-    private Ranking ranking = new Ranking(this);
+    private Ranking ranking;
 
     /** The query query and/or query program declaration */
-    private Model model = new Model(this);
+    private Model model;
 
     /** How results of this query should be presented */
-    private Presentation presentation = new Presentation(this);
+    private Presentation presentation;
 
     /** The selection of where-clause and grouping */
-    private Select select = new Select(this);
+    private Select select;
 
     //---------------- Tracing ----------------------------------------------------
 
@@ -326,6 +329,10 @@ public class Query extends com.yahoo.processing.Request implements Cloneable {
     public Query(HttpRequest request, Map<String, String> requestMap, CompiledQueryProfile queryProfile) {
         super(new QueryPropertyAliases(propertyAliases));
         this.httpRequest = request;
+        this.ranking = new Ranking(this);
+        this.model = new Model(this);
+        this.presentation = new Presentation(this);
+        this.select = new Select(this);
         init(requestMap, queryProfile);
     }
 
@@ -372,6 +379,7 @@ public class Query extends com.yahoo.processing.Request implements Cloneable {
         this.startTime = startTime;
         this.httpRequest = query.httpRequest;
         query.copyPropertiesTo(this);
+        this.select = new Select(this); // after copying, as this uses the model of this query
     }
 
     /**
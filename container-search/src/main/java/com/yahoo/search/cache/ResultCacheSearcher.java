@@ -0,0 +1,208 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.cache;
+
+import com.google.inject.Inject;
+import com.yahoo.metrics.simple.Counter;
+import com.yahoo.metrics.simple.MetricReceiver;
+import com.yahoo.processing.request.CompoundName;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.Searcher;
+import com.yahoo.search.grouping.GroupingRequest;
+import com.yahoo.search.query.profile.QueryProfileProperties;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.search.result.Hit;
+import com.yahoo.search.searchchain.Execution;
+
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Caches filled results of queries, such that repeated queries are answered without going to the backends.
+ * <p>
+ * Two queries share a cached result if they have the same canonical query tree, sources and restrict,
+ * ranking settings, presentation settings, hit window and query profile, and the same values of all
+ * request properties except those listed in the excludedProperties config and the properties which never
+ * change the result (timeout, tracing and the cache control properties). Queries with grouping requests
+ * are not cached.
+ * <p>
+ * A cached result is returned until it is older than the configured time to live. A configuration change
+ * creates a new instance of this and therefore also discards all cached results.
+ * <p>
+ * Results are only cached if they have no errors and full coverage. They are filled with the summary class
+ * requested by the query before they are cached. The hits of a result returned from this cache are marked as cached.
+ * <p>
+ * This takes these query parameter arguments:
+ * <ul>
+ *     <li>nocache - (Boolean) do not use the cache for this query
+ *     <li>nocachewrite - (Boolean) do not write the result of this query to the cache
+ * </ul>
+ * <p>
+ * Metrics: This emits the count metrics resultCacheHits and resultCacheMisses.
+ *
+ * @author agent
+ */
+public class ResultCacheSearcher extends Searcher {
+
+    public static final CompoundName nocachewrite = new CompoundName("nocachewrite");
+
+    private static final String hitsMetricName = "resultCacheHits";
+    private static final String missesMetricName = "resultCacheMisses";
+
+    private final long timeToLive;
+    private final Set<String> excludedProperties;
+    private final Clock clock;
+
+    private final Counter hitsCounter;
+    private final Counter missesCounter;
+
+    /** The cached results. Access to this must be synchronized on it. */
+    private final ResultMap cache;
+
+    @Inject
+    public ResultCacheSearcher(ResultCacheConfig config, MetricReceiver metric) {
+        this(config, metric, Clock.systemUTC());
+    }
+
+    /** For testing - allows injection of a timer to avoid depending on the system clock */
+    public ResultCacheSearcher(ResultCacheConfig config, MetricReceiver metric, Clock clock) {
+        this.timeToLive = (long)(config.timeToLive() * 1000);
+        this.excludedProperties = new HashSet<>(Arrays.asList("timeout", "tracelevel", "trace.level",
+                                                              "trace.timestamps", "nocache", "nocachewrite"));
+        config.excludedProperties().forEach(property -> excludedProperties.add(property.toLowerCase()));
+        this.clock = clock;
+        this.cache = new ResultMap(config.maxEntries());
+        this.hitsCounter = metric.declareCounter(hitsMetricName);
+        this.missesCounter = metric.declareCounter(missesMetricName);
+    }
+
+    @Override
+    public Result search(Query query, Execution execution) {
+        if ( ! isCacheable(query)) return execution.search(query);
+
+        String key = keyOf(query);
+        long now = clock.millis();
+        CachedResult cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+        if (cached != null && now - cached.timestamp <= timeToLive) {
+            hitsCounter.add(1);
+            query.trace("Returning cached result", false, 3);
+            return cached.resultFor(query);
+        }
+
+        missesCounter.add(1);
+        Result result = execution.search(query);
+        if ( ! isCacheable(result)) return result;
+
+        execution.fill(result, query.getPresentation().getSummary());
+        if (query.properties().getBoolean(nocachewrite) || result.hits().getError() != null) return result;
+
+        CachedResult entry = new CachedResult(result.clone(), now);
+        synchronized (cache) {
+            cache.put(key, entry);
+        }
+        return result;
+    }
+
+    /** Returns the number of results currently cached */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private boolean isCacheable(Query query) {
+        if (cache.maxEntries <= 0) return false;
+        if (query.getNoCache()) return false;
+        if ( ! GroupingRequest.getRequests(query).isEmpty()) return false;
+        return true;
+    }
+
+    private boolean isCacheable(Result result) {
+        if (result.hits().getError() != null) return false;
+        if (result.getCoverage(false) != null && ! result.getCoverage(false).getFull()) return false;
+        return true;
+    }
+
+    /** Returns a string which is equal for queries which should share a cached result */
+    private String keyOf(Query query) {
+        StringBuilder b = new StringBuilder();
+        b.append(query.getModel().getQueryTree()).append('\n');
+        b.append(query.getModel().getSources()).append(' ').append(query.getModel().getRestrict()).append('\n');
+        b.append(query.getRanking().getProfile()).append(' ');
+        b.append(query.getRanking().getSorting()).append(' ');
+        b.append(query.getRanking().getLocation()).append(' ');
+        b.append(query.getRanking().getFeatures()).append(' ');
+        b.append(query.getRanking().getProperties()).append('\n');
+        b.append(query.getPresentation().getSummary()).append(' ');
+        b.append(query.getPresentation().getBolding()).append(' ');
+        b.append(query.getPresentation().getSummaryFields()).append('\n');
+        b.append(query.getOffset()).append(' ').append(query.getHits()).append('\n');
+        QueryProfileProperties profileProperties = query.properties().getInstance(QueryProfileProperties.class);
+        if (profileProperties != null)
+            b.append(profileProperties.getQueryProfile().getId()).append('\n');
+        if (query.getHttpRequest() != null) {
+            for (Map.Entry<String, String> property : new TreeMap<>(query.getHttpRequest().propertyMap()).entrySet()) {
+                if (excludedProperties.contains(property.getKey().toLowerCase())) continue;
+                b.append(property.getKey()).append('=').append(property.getValue()).append('\n');
+            }
+        }
+        return b.toString();
+    }
+
+    private static class CachedResult {
+
+        /** The cached result. This is never modified. */
+        private final Result result;
+        private final long timestamp;
+
+        CachedResult(Result result, long timestamp) {
+            this.result = result;
+            this.timestamp = timestamp;
+        }
+
+        /** Returns a copy of the cached result for the given query */
+        Result resultFor(Query query) {
+            Result copy = result.clone();
+            copy.setQuery(query);
+            if (result.getCoverage(false) != null) {
+                Coverage coverage = new Coverage(0L, 0, true, 0);
+                coverage.merge(result.getCoverage(false));
+                copy.setCoverage(coverage);
+            }
+            for (Iterator<Hit> i = copy.hits().deepIterator(); i.hasNext(); )
+                i.next().setCached(true);
+            copy.analyzeHits();
+            return copy;
+        }
+
+    }
+
+    /** An LRU map of cached results */
+    private static class ResultMap extends LinkedHashMap<String, CachedResult> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxEntries;
+
+        ResultMap(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+            return size() > maxEntries;
+        }
+
+    }
+
+}
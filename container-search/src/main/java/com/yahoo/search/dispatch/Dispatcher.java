@@ -8,6 +8,7 @@ import com.yahoo.compress.CompressionType;
 import com.yahoo.compress.Compressor;
 import com.yahoo.container.handler.VipStatus;
 import com.yahoo.container.protect.Error;
+import com.yahoo.fs4.QueryPacket;
 import com.yahoo.prelude.fastsearch.DocumentDatabase;
 import com.yahoo.slime.ArrayTraverser;
 import com.yahoo.data.access.slime.SlimeAdapter;
@@ -16,6 +17,8 @@ import com.yahoo.prelude.fastsearch.FastHit;
 import com.yahoo.prelude.fastsearch.TimeoutException;
 import com.yahoo.search.Query;
 import com.yahoo.search.Result;
+import com.yahoo.search.grouping.vespa.GroupingExecutor;
+import com.yahoo.search.query.Model;
 import com.yahoo.search.query.SessionId;
 import com.yahoo.search.result.ErrorMessage;
 import com.yahoo.search.result.Hit;
@@ -28,6 +31,7 @@ import com.yahoo.vespa.config.search.DispatchConfig;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -37,7 +41,8 @@ import java.util.logging.Logger;
 /**
  * A dispatcher communicates with search nodes to perform queries and fill hits.
  *
- * This is currently not functionally complete: Queries can only be dispatched to a single node,
+ * This is currently not functionally complete: Queries can only be dispatched to all the nodes of a group
+ * when they do not need grouping or sorting to be merged,
  * and summaries can only be requested when they do not need the query.
  *
  * This class is multithread safe.
@@ -57,9 +62,16 @@ public class Dispatcher extends AbstractComponent {
 
     private final Compressor compressor = new Compressor();
 
+    // Only needed until query requests are moved to rpc
+    private final FS4ResourcePool fs4ResourcePool;
+
+    private final DispatchConfig dispatchConfig;
+
     public Dispatcher(DispatchConfig dispatchConfig, FS4ResourcePool fs4ResourcePool,
                       int containerClusterSize, VipStatus vipStatus) {
         this.client = new RpcClient();
+        this.fs4ResourcePool = fs4ResourcePool;
+        this.dispatchConfig = dispatchConfig;
         this.searchCluster = new SearchCluster(dispatchConfig, fs4ResourcePool, containerClusterSize, vipStatus);
 
         // Create node rpc connections, indexed by the node distribution key
@@ -73,6 +85,8 @@ public class Dispatcher extends AbstractComponent {
     /** For testing */
     public Dispatcher(Map<Integer, Client.NodeConnection> nodeConnections, Client client) {
         this.searchCluster = null;
+        this.fs4ResourcePool = null;
+        this.dispatchConfig = null;
         this.nodeConnections = ImmutableMap.copyOf(nodeConnections);
         this.client = client;
     }
@@ -80,6 +94,28 @@ public class Dispatcher extends AbstractComponent {
     /** Returns the search cluster this dispatches to */
     public SearchCluster searchCluster() { return searchCluster; }
 
+    /**
+     * Searches all the nodes of a group in parallel and returns their merged result,
+     * or empty if this query cannot be dispatched by this, in which case it should be sent to a dispatch node.
+     *
+     * @param query the query to search
+     * @param queryPacket the serialized query, which will be sent to each node in the selected group
+     */
+    public Optional<MergedResult> search(Query query, QueryPacket queryPacket) {
+        if (searchCluster == null) return Optional.empty();
+        if ( ! GroupingExecutor.getGroupingList(query).isEmpty()) return Optional.empty(); // grouping is merged by fdispatch
+        if (query.getRanking().getSorting() != null) return Optional.empty(); // sort data is not decoded
+        if (query.properties().getBoolean(Model.ESTIMATE)) return Optional.empty();
+
+        Optional<SearchCluster.Group> group = searchCluster.groupForQuery();
+        if ( ! group.isPresent()) return Optional.empty();
+
+        query.trace(false, 2, "Dispatching to all nodes of ", group.get());
+        return Optional.of(new InterleavedSearchInvoker(fs4ResourcePool, dispatchConfig).search(query,
+                                                                                                queryPacket,
+                                                                                                group.get().nodes()));
+    }
+
     /** Fills the given summary class by sending RPC requests to the right search nodes */
     public void fill(Result result, String summaryClass, DocumentDatabase documentDb, CompressionType compression) {
         try {
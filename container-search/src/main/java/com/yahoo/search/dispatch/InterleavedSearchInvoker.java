@@ -0,0 +1,270 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.fs4.BasicPacket;
+import com.yahoo.fs4.ChannelTimeoutException;
+import com.yahoo.fs4.DocumentInfo;
+import com.yahoo.fs4.ErrorPacket;
+import com.yahoo.fs4.QueryPacket;
+import com.yahoo.fs4.QueryResultPacket;
+import com.yahoo.fs4.mplex.FS4Channel;
+import com.yahoo.fs4.mplex.InvalidChannelException;
+import com.yahoo.prelude.fastsearch.FS4ResourcePool;
+import com.yahoo.search.Query;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.search.result.ErrorMessage;
+import com.yahoo.vespa.config.search.DispatchConfig;
+import com.yahoo.yolean.Exceptions;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sends a query to all the nodes of a group in parallel over fs4, and merges the hits
+ * of the responses as they arrive into a single list of the top hits.
+ *
+ * When a minimum search coverage below 100% is configured, this stops waiting for the remaining nodes
+ * some time after the minimum coverage is reached, and returns a result with degraded coverage instead.
+ * The time waited is between minWaitAfterCoverageFactor and maxWaitAfterCoverageFactor of the time left
+ * of the query when the minimum coverage was reached, shrinking towards the minimum as fewer nodes are outstanding.
+ *
+ * An instance of this is used for a single query only. Responses are signalled by the network threads
+ * through responseAvailable, while all processing happens in the thread calling search.
+ *
+ * @author agent
+ */
+class InterleavedSearchInvoker implements ResponseMonitor<FS4Channel> {
+
+    private static final Logger log = Logger.getLogger(InterleavedSearchInvoker.class.getName());
+
+    private final FS4ResourcePool fs4ResourcePool;
+    private final DispatchConfig dispatchConfig;
+
+    /** Channels which have a response ready for processing */
+    private final BlockingQueue<FS4Channel> availableForProcessing = new LinkedBlockingQueue<>();
+
+    /** The nodes we have sent the query to and are still awaiting a response from */
+    private final Map<FS4Channel, SearchCluster.Node> pending = new IdentityHashMap<>();
+
+    /** The top hits received so far, in descending relevance order */
+    private List<DocumentInfo> merged = Collections.emptyList();
+
+    /** The time at which we started sending the query to the nodes */
+    private long startTime;
+
+    private int askedNodes = 0;
+    private int answeredNodes = 0;
+    private long totalHitCount = 0;
+    private long coverageDocs = 0;
+    private long activeDocs = 0;
+    private long soonActiveDocs = 0;
+    private int degradedReason = 0;
+
+    /** The errors returned by nodes, other than timeouts */
+    private final List<String> nodeErrors = new ArrayList<>();
+
+    /** The time at which we will stop waiting for the remaining nodes, or -1 if minimum coverage is not reached */
+    private long adaptiveDeadline = -1;
+    private long adaptiveMinWait;
+    private long adaptiveMaxWait;
+    private long minimumCoverageReachedAt;
+
+    InterleavedSearchInvoker(FS4ResourcePool fs4ResourcePool, DispatchConfig dispatchConfig) {
+        this.fs4ResourcePool = fs4ResourcePool;
+        this.dispatchConfig = dispatchConfig;
+    }
+
+    /**
+     * Sends the query to all the given nodes, and returns the merged result when all have responded,
+     * or on timeout.
+     *
+     * @param query the query to search
+     * @param queryPacket the serialized query. Its hit window is changed by this to request all hits up to
+     *                    the last hit requested by the query from each node
+     * @param nodes the nodes to search, which should together contain a full copy of the corpus
+     */
+    MergedResult search(Query query, QueryPacket queryPacket, List<SearchCluster.Node> nodes) {
+        int hitsToMerge = query.getOffset() + query.getHits();
+        queryPacket.setHitWindow(0, hitsToMerge);
+        startTime = System.currentTimeMillis();
+        try {
+            for (SearchCluster.Node node : nodes)
+                send(query, queryPacket, node);
+
+            if (askedNodes == 0)
+                return new MergedResult(ErrorMessage.createBackendCommunicationError("Could not reach any node in " +
+                                                                                     "the group dispatched to"));
+
+            while ( ! pending.isEmpty()) {
+                long timeout = nextTimeout(query);
+                if (timeout <= 0) break;
+                FS4Channel channel = availableForProcessing.poll(timeout, TimeUnit.MILLISECONDS);
+                if (channel == null) break;
+                SearchCluster.Node node = pending.remove(channel);
+                if (node == null) continue; // already processed
+                process(channel, node, query, hitsToMerge);
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            for (Map.Entry<FS4Channel, SearchCluster.Node> pendingNode : pending.entrySet()) {
+                pendingNode.getKey().close();
+                pendingNode.getValue().load().completed(System.currentTimeMillis() - startTime);
+            }
+        }
+
+        if ( ! pending.isEmpty())
+            degradedReason |= adaptiveDeadline >= 0 ? Coverage.DEGRADED_BY_ADAPTIVE_TIMEOUT : Coverage.DEGRADED_BY_TIMEOUT;
+        for (SearchCluster.Node node : pending.values())
+            addUnansweredNode(node);
+
+        if (answeredNodes == 0 && ! nodeErrors.isEmpty())
+            return new MergedResult(ErrorMessage.createBackendCommunicationError("Error response from " +
+                                                                                 nodeErrors.size() + " of the " +
+                                                                                 askedNodes + " nodes queried: " +
+                                                                                 String.join(", ", nodeErrors)));
+        if (answeredNodes == 0)
+            return new MergedResult(ErrorMessage.createTimeout("No answer from any of the " + askedNodes +
+                                                               " nodes queried in " + query.getTimeout() + " ms"));
+
+        List<DocumentInfo> window = merged.size() > query.getOffset()
+                                    ? merged.subList(query.getOffset(), merged.size())
+                                    : Collections.emptyList();
+        Coverage coverage = new Coverage(coverageDocs, activeDocs, answeredNodes);
+        coverage.setSoonActive(soonActiveDocs);
+        coverage.setDegradedReason(degradedReason);
+        coverage.setNodesTried(nodes.size());
+        return new MergedResult(window, totalHitCount, coverage);
+    }
+
+    @Override
+    public void responseAvailable(FS4Channel from) {
+        availableForProcessing.add(from);
+    }
+
+    private void send(Query query, QueryPacket queryPacket, SearchCluster.Node node) {
+        if ( ! node.isWorking()) {
+            addUnansweredNode(node);
+            return;
+        }
+
+        FS4Channel channel = fs4ResourcePool.getBackend(node.hostname(), node.fs4port(), Optional.of(node.key()))
+                                            .openChannel();
+        channel.setQuery(query);
+        channel.setResponseMonitor(this);
+        try {
+            if (channel.sendPacket(queryPacket)) {
+                node.load().started();
+                pending.put(channel, node);
+                askedNodes++;
+                return;
+            }
+            log.log(Level.FINE, () -> "Could not send query to " + node);
+        }
+        catch (InvalidChannelException | IOException | IllegalStateException e) {
+            log.log(Level.FINE, () -> "Could not send query to " + node + ": " + Exceptions.toMessageString(e));
+        }
+        channel.close();
+        addUnansweredNode(node);
+    }
+
+    private void process(FS4Channel channel, SearchCluster.Node node, Query query, int hitsToMerge) {
+        node.load().completed(System.currentTimeMillis() - startTime);
+        try {
+            BasicPacket[] packets = channel.receivePackets(Math.max(0, query.getTimeLeft()), 1);
+            if (packets.length == 0 || ! (packets[0] instanceof QueryResultPacket)) {
+                log.log(Level.FINE, () -> "Unexpected response from " + node + ": " +
+                                          (packets.length == 0 ? "no packets" : packets[0]));
+                if (packets.length > 0 && packets[0] instanceof ErrorPacket) {
+                    if (((ErrorPacket)packets[0]).getErrorCode() == 8)
+                        degradedReason |= Coverage.DEGRADED_BY_TIMEOUT;
+                    else
+                        nodeErrors.add(node + ": " + packets[0]);
+                }
+                addUnansweredNode(node);
+                return;
+            }
+
+            QueryResultPacket resultPacket = (QueryResultPacket)packets[0];
+            answeredNodes++;
+            totalHitCount += resultPacket.getTotalDocumentCount();
+            coverageDocs += resultPacket.getCoverageDocs();
+            activeDocs += resultPacket.getActiveDocs();
+            soonActiveDocs += resultPacket.getSoonActiveDocs();
+            degradedReason |= resultPacket.getDegradedReason();
+            merged = merge(merged, resultPacket.getDocuments(), node.key(), hitsToMerge);
+        }
+        catch (InvalidChannelException | ChannelTimeoutException e) {
+            addUnansweredNode(node);
+        }
+        finally {
+            channel.close();
+        }
+    }
+
+    /** Accounts for the documents of a node which did not produce a response in the coverage */
+    private void addUnansweredNode(SearchCluster.Node node) {
+        activeDocs += node.getActiveDocuments();
+        soonActiveDocs += node.getActiveDocuments();
+    }
+
+    /**
+     * Merges two lists sorted by descending relevance into a new list containing the top hits of both.
+     * The documents of the new list are tagged with the given distribution key.
+     */
+    static List<DocumentInfo> merge(List<DocumentInfo> current, List<DocumentInfo> received,
+                                    int receivedFromKey, int maxHits) {
+        List<DocumentInfo> result = new ArrayList<>(Math.min(maxHits, current.size() + received.size()));
+        int i = 0;
+        int j = 0;
+        while (result.size() < maxHits && (i < current.size() || j < received.size())) {
+            if (j >= received.size() || (i < current.size() && current.get(i).getMetric() >= received.get(j).getMetric()))
+                result.add(current.get(i++));
+            else
+                result.add(tag(received.get(j++), receivedFromKey));
+        }
+        return result;
+    }
+
+    private static DocumentInfo tag(DocumentInfo document, int distributionKey) {
+        return new DocumentInfo(document.getGlobalId(), document.getMetric(), document.getPartId(), distributionKey);
+    }
+
+    /** Returns the time in milliseconds to wait for the next response, or 0 or less to stop waiting */
+    private long nextTimeout(Query query) {
+        long timeLeft = query.getTimeLeft();
+        double minimumCoverage = dispatchConfig.minSearchCoverage();
+        if (minimumCoverage >= 100.0) return timeLeft;
+
+        int minimumResponses = (int)Math.ceil(askedNodes * minimumCoverage / 100.0);
+        if (answeredNodes < minimumResponses) return timeLeft;
+
+        long now = System.currentTimeMillis();
+        if (adaptiveDeadline < 0) {
+            minimumCoverageReachedAt = now;
+            adaptiveMinWait = (long)(timeLeft * dispatchConfig.minWaitAfterCoverageFactor());
+            adaptiveMaxWait = (long)(timeLeft * dispatchConfig.maxWaitAfterCoverageFactor());
+        }
+
+        // Wait longer when many nodes are missing, down to the minimum wait when only one is
+        int maxMissing = askedNodes - minimumResponses;
+        long wait = adaptiveMinWait;
+        if (maxMissing > 1)
+            wait += (adaptiveMaxWait - adaptiveMinWait) * (pending.size() - 1) / (maxMissing - 1);
+        adaptiveDeadline = minimumCoverageReachedAt + wait;
+        return Math.min(adaptiveDeadline - now, timeLeft);
+    }
+
+}
@@ -0,0 +1,54 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.google.common.collect.ImmutableList;
+import com.yahoo.fs4.DocumentInfo;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.search.result.ErrorMessage;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The result of searching all the nodes of a group and merging their responses.
+ * This class is immutable.
+ *
+ * @author agent
+ */
+public class MergedResult {
+
+    private final ImmutableList<DocumentInfo> documents;
+    private final long totalHitCount;
+    private final Coverage coverage;
+    private final Optional<ErrorMessage> error;
+
+    MergedResult(List<DocumentInfo> documents, long totalHitCount, Coverage coverage) {
+        this.documents = ImmutableList.copyOf(documents);
+        this.totalHitCount = totalHitCount;
+        this.coverage = coverage;
+        this.error = Optional.empty();
+    }
+
+    MergedResult(ErrorMessage error) {
+        this.documents = ImmutableList.of();
+        this.totalHitCount = 0;
+        this.coverage = null;
+        this.error = Optional.of(error);
+    }
+
+    /**
+     * Returns the documents in the hit window requested by the query, in descending relevance order.
+     * The distribution key of each document is set to that of the node which returned it.
+     */
+    public ImmutableList<DocumentInfo> documents() { return documents; }
+
+    /** Returns the sum of the total hit counts returned by the nodes which responded */
+    public long totalHitCount() { return totalHitCount; }
+
+    /** Returns the coverage of this, including the nodes which did not respond, or null if this is an error */
+    public Coverage coverage() { return coverage; }
+
+    /** Returns the error causing this to have no result, or empty if this is not an error */
+    public Optional<ErrorMessage> error() { return error; }
+
+}
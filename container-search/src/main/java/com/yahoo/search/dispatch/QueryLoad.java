@@ -0,0 +1,91 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the number of queries in flight to a target and an exponentially weighted
+ * moving average of the latency of the queries which have completed.
+ * <p>
+ * The average is only updated when queries to the target complete, so it decays with the time since the last update,
+ * halving every latencyHalfLife. A target which is avoided because of a latency spike is therefore
+ * eventually selected again, and as the weight of the old average decays in the same way, the first
+ * new latency samples then dominate the average.
+ * This class is multithread safe.
+ *
+ * @author agent
+ */
+class QueryLoad {
+
+    /** The weight given to each new latency sample in the moving average when the average is fresh */
+    private static final double latencyWeight = 0.1;
+
+    /** The time in milliseconds it takes for the average latency and its weight to decay to half */
+    private static final double latencyHalfLife = 5000;
+
+    private final Clock clock;
+
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+
+    /** The average latency in milliseconds at lastUpdate, or 0 if no queries have completed. Guarded by this. */
+    private double averageLatency = 0;
+
+    /** The time in milliseconds when the average latency was last updated. Guarded by this. */
+    private long lastUpdate = 0;
+
+    QueryLoad() {
+        this(Clock.systemUTC());
+    }
+
+    /** For testing - allows injection of a clock to avoid depending on the system clock */
+    QueryLoad(Clock clock) {
+        this.clock = clock;
+    }
+
+    /** Call this when a query is sent to the target */
+    void started() {
+        inFlight.incrementAndGet();
+    }
+
+    /** Call this when a query which is started completes, successfully or not */
+    void completed(long latencyMillis) {
+        inFlight.decrementAndGet();
+        long now = clock.millis();
+        synchronized (this) {
+            double oldWeight = (1 - latencyWeight) * decay(now);
+            averageLatency = oldWeight * averageLatency + (1 - oldWeight) * latencyMillis;
+            lastUpdate = now;
+        }
+    }
+
+    /** Returns the number of queries sent to the target which have not completed */
+    int inFlight() { return inFlight.get(); }
+
+    /**
+     * Returns the moving average of the latency of completed queries in milliseconds, decayed by the time since
+     * it was last updated, or 0 if none are completed
+     */
+    double averageLatency() {
+        long now = clock.millis();
+        synchronized (this) {
+            return averageLatency * decay(now);
+        }
+    }
+
+    /**
+     * Returns a measure of the load on the target which is proportional to the expected time
+     * until a new query would complete: The queries in flight including the new one,
+     * times the average latency.
+     */
+    double load() {
+        return (inFlight() + 1) * Math.max(1.0, averageLatency());
+    }
+
+    /** Returns the factor by which the average latency has decayed at the given time. Must be called synchronized. */
+    private double decay(long now) {
+        if (averageLatency == 0) return 0;
+        return Math.pow(0.5, Math.max(0, now - lastUpdate) / latencyHalfLife);
+    }
+
+}
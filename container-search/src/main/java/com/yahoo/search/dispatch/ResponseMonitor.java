@@ -0,0 +1,16 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+/**
+ * Classes implementing ResponseMonitor can be informed by monitored objects
+ * that a response is available for processing. The responseAvailable method
+ * must be thread-safe.
+ *
+ * @author agent
+ */
+public interface ResponseMonitor<T> {
+
+    /** Called by the monitored object, typically from a network thread, when a response is available */
+    void responseAvailable(T from);
+
+}
@@ -31,6 +31,7 @@ import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -50,8 +51,13 @@ public class SearchCluster implements NodeManager<SearchCluster.Node> {
     private final int size;
     private final ImmutableMap<Integer, Group> groups;
     private final ImmutableMultimap<String, Node> nodesByHost;
+    private final ImmutableMap<Integer, Node> nodesByKey;
     private final ClusterMonitor<Node> clusterMonitor;
     private final VipStatus vipStatus;
+    private final DispatchConfig.DistributionPolicy.Enum distributionPolicy;
+
+    /** Used to select groups in round robin order, and to rotate between groups having the same load */
+    private final AtomicInteger nextGroup = new AtomicInteger(0);
 
     /**
      * A search node on this local machine having the entire corpus, which we therefore
@@ -68,13 +74,21 @@ public class SearchCluster implements NodeManager<SearchCluster.Node> {
 
     public SearchCluster(DispatchConfig dispatchConfig, FS4ResourcePool fs4ResourcePool,
                          int containerClusterSize, VipStatus vipStatus) {
-        this(dispatchConfig.minActivedocsPercentage(), toNodes(dispatchConfig), fs4ResourcePool,
-             containerClusterSize, vipStatus);
+        this(dispatchConfig.minActivedocsPercentage(), dispatchConfig.distributionPolicy(), toNodes(dispatchConfig),
+             fs4ResourcePool, containerClusterSize, vipStatus);
     }
 
     public SearchCluster(double minActivedocsCoverage, List<Node> nodes, FS4ResourcePool fs4ResourcePool,
                          int containerClusterSize, VipStatus vipStatus) {
+        this(minActivedocsCoverage, DispatchConfig.DistributionPolicy.ADAPTIVE, nodes, fs4ResourcePool,
+             containerClusterSize, vipStatus);
+    }
+
+    public SearchCluster(double minActivedocsCoverage, DispatchConfig.DistributionPolicy.Enum distributionPolicy,
+                         List<Node> nodes, FS4ResourcePool fs4ResourcePool,
+                         int containerClusterSize, VipStatus vipStatus) {
         this.minActivedocsCoveragePercentage = minActivedocsCoverage;
+        this.distributionPolicy = distributionPolicy;
         this.size = nodes.size();
         this.fs4ResourcePool = fs4ResourcePool;
         this.vipStatus = vipStatus;
@@ -91,6 +105,12 @@ public class SearchCluster implements NodeManager<SearchCluster.Node> {
             nodesByHostBuilder.put(node.hostname(), node);
         this.nodesByHost = nodesByHostBuilder.build();
 
+        // Index nodes by distribution key
+        ImmutableMap.Builder<Integer, Node> nodesByKeyBuilder = new ImmutableMap.Builder<>();
+        for (Node node : nodes)
+            nodesByKeyBuilder.put(node.key(), node);
+        this.nodesByKey = nodesByKeyBuilder.build();
+
         this.directDispatchTarget = findDirectDispatchTarget(HostName.getLocalhost(), size, containerClusterSize,
                                                              nodesByHost, groups);
 
@@ -159,6 +179,9 @@ public class SearchCluster implements NodeManager<SearchCluster.Node> {
      */
     public ImmutableMultimap<String, Node> nodesByHost() { return nodesByHost; }
 
+    /** Returns the node having the given distribution key, or empty if there is no such node in this cluster */
+    public Optional<Node> node(int key) { return Optional.ofNullable(nodesByKey.get(key)); }
+
     /**
      * Returns the recipient we should dispatch queries directly to (bypassing fdispatch),
      * or empty if we should not dispatch directly.
@@ -176,6 +199,41 @@ public class SearchCluster implements NodeManager<SearchCluster.Node> {
         return directDispatchTarget;
     }
 
+    /**
+     * Returns the group which should receive the next query dispatched to all the nodes of a group,
+     * or empty if there are no groups with working nodes.
+     *
+     * With the adaptive distribution policy this is the group with the least load among the groups
+     * having sufficient coverage and all nodes working. If there is no such group, we fall back to the groups
+     * with sufficient coverage, and then to the group with the most active documents, such that
+     * queries still get the best possible coverage when the groups are uneven.
+     * With the round robin policy, the groups with sufficient coverage are selected in turn.
+     */
+    public Optional<Group> groupForQuery() {
+        ImmutableList<Group> groupList = groups.values().asList();
+        int start = nextGroup.getAndIncrement() & Integer.MAX_VALUE;
+        Group best = null;
+        for (int i = 0; i < groupList.size(); i++) {
+            Group group = groupList.get((start + i) % groupList.size());
+            if (group.workingNodes() == 0) continue;
+            if (distributionPolicy == DispatchConfig.DistributionPolicy.ROUNDROBIN && group.hasSufficientCoverage())
+                return Optional.of(group);
+            if (best == null || isBetterForQuery(group, best))
+                best = group;
+        }
+        return Optional.ofNullable(best);
+    }
+
+    private static boolean isBetterForQuery(Group group, Group other) {
+        if (group.hasSufficientCoverage() != other.hasSufficientCoverage())
+            return group.hasSufficientCoverage();
+        if ( ! group.hasSufficientCoverage()) // fallback
+            return group.getActiveDocuments() > other.getActiveDocuments();
+        if (group.isFullyWorking() != other.isFullyWorking())
+            return group.isFullyWorking();
+        return group.load() < other.load();
+    }
+
     /** Used by the cluster monitor to manage node status */
     @Override
     public void working(Node node) {
@@ -317,6 +375,36 @@ public class SearchCluster implements NodeManager<SearchCluster.Node> {
         /** Returns the nodes in this group as an immutable list */
         public ImmutableList<Node> nodes() { return nodes; }
 
+        /** Returns the number of nodes in this group which are currently responding to requests */
+        public int workingNodes() {
+            int workingNodes = 0;
+            for (Node node : nodes)
+                if (node.isWorking())
+                    workingNodes++;
+            return workingNodes;
+        }
+
+        /** Returns whether all the nodes in this group are currently responding to requests */
+        public boolean isFullyWorking() { return workingNodes() == nodes.size(); }
+
+        /** Returns the largest number of queries sent to a node in this group which have not completed */
+        public int inFlightQueries() {
+            return nodes.stream().mapToInt(Node::inFlightQueries).max().orElse(0);
+        }
+
+        /** Returns the largest moving average of the latency of queries to a node in this group, or 0 if unknown */
+        public double averageLatency() {
+            return nodes.stream().mapToDouble(Node::averageLatency).max().orElse(0);
+        }
+
+        /**
+         * Returns the load of the most loaded node in this group,
+         * as queries to this group are not complete until all its nodes have responded
+         */
+        double load() {
+            return nodes.stream().mapToDouble(node -> node.load().load()).max().orElse(0);
+        }
+
         /**
          * Returns whether this group has sufficient active documents
          * (compared to other groups) that is should receive traffic
@@ -367,6 +455,7 @@ public class SearchCluster implements NodeManager<SearchCluster.Node> {
 
         private final AtomicBoolean working = new AtomicBoolean(true);
         private final AtomicLong activeDocuments = new AtomicLong(0);
+        private final QueryLoad load = new QueryLoad();
 
         public Node(int key, String hostname, int fs4port, int group) {
             this.key = key;
@@ -402,6 +491,14 @@ public class SearchCluster implements NodeManager<SearchCluster.Node> {
             return this.activeDocuments.get();
         }
 
+        /** Returns the number of queries sent to this node which have not completed */
+        public int inFlightQueries() { return load.inFlight(); }
+
+        /** Returns the moving average of the latency of queries to this node in milliseconds, or 0 if unknown */
+        public double averageLatency() { return load.averageLatency(); }
+
+        QueryLoad load() { return load; }
+
         @Override
         public int hashCode() { return Objects.hash(hostname, fs4port); }
 
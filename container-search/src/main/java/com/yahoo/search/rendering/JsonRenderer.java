@@ -11,7 +11,6 @@ import com.yahoo.data.JsonProducer;
 import com.yahoo.data.access.Inspectable;
 import com.yahoo.data.access.Inspector;
 import com.yahoo.data.access.Type;
-import com.yahoo.data.access.simple.JsonRender;
 import com.yahoo.data.access.simple.Value;
 import com.yahoo.document.datatypes.FieldValue;
 import com.yahoo.document.datatypes.StringFieldValue;
@@ -43,6 +42,7 @@ import com.yahoo.search.result.Hit;
 import com.yahoo.search.result.HitGroup;
 import com.yahoo.search.result.NanNumber;
 import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
 import com.yahoo.yolean.trace.TraceNode;
 import com.yahoo.yolean.trace.TraceVisitor;
 import org.json.JSONArray;
@@ -61,6 +61,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -122,11 +123,17 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
     private static final String GROUPING_VALUE = "value";
     private static final String VESPA_HIDDEN_FIELD_PREFIX = "$";
 
+    /** The number of hits to render between each time rendered data is flushed to the client */
+    private static final int hitsPerFlush = 100;
+
     private final JsonFactory generatorFactory;
 
     private JsonGenerator generator;
     private FieldConsumer fieldConsumer;
     private Deque<Integer> renderedChildren;
+    /** The lists currently being rendered, innermost first */
+    private Deque<DataList<?>> renderedLists;
+    private int hitsSinceFlush;
     private boolean debugRendering;
     private LongSupplier timeSource;
     private OutputStream stream;
@@ -300,6 +307,8 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
         debugRendering = false;
         setGenerator(null, debugRendering);
         renderedChildren = null;
+        renderedLists = null;
+        hitsSinceFlush = 0;
         timeSource = System::currentTimeMillis;
         stream = null;
     }
@@ -310,6 +319,7 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
         debugRendering = getDebugRendering(getResult().getQuery());
         setGenerator(generatorFactory.createGenerator(stream, JsonEncoding.UTF8), debugRendering);
         renderedChildren = new ArrayDeque<>();
+        renderedLists = new ArrayDeque<>();
         generator.writeStartObject();
         renderTrace(getExecution().trace());
         renderTiming();
@@ -363,6 +373,8 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
                                     list.getClass());
         moreChildren();
         renderHitGroupHead((HitGroup) list);
+        renderedLists.push(list);
+        flushIfIncomplete(list);
     }
 
     protected void moreChildren() throws IOException {
@@ -578,14 +590,34 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
                                     "Expected subclass of com.yahoo.search.result.Hit, got %s.",
                                     data.getClass());
         renderHit((Hit) data);
+        if (++hitsSinceFlush >= hitsPerFlush)
+            flush();
+        else
+            flushIfIncomplete(renderedLists.peek());
     }
 
     @Override
     public void endList(DataList<?> list) throws IOException {
+        renderedLists.pop();
         lessChildren();
         generator.writeEndObject();
     }
 
+    /**
+     * Flushes what is rendered so far to the client if the given list is still receiving data,
+     * such that the client receives it before the renderer waits for more
+     */
+    private void flushIfIncomplete(DataList<?> list) throws IOException {
+        if (list != null && ! list.incoming().isComplete())
+            flush();
+    }
+
+    /** Writes the data buffered by the generator to the stream, and flushes the stream to the client */
+    private void flush() throws IOException {
+        generator.flush();
+        hitsSinceFlush = 0;
+    }
+
     @Override
     public void endResponse() throws IOException {
         generator.close();
@@ -667,6 +699,8 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
      */
     private static class FieldConsumer implements Hit.RawUtf8Consumer {
 
+        private static final char[] hexDigits = "0123456789ABCDEF".toCharArray();
+
         private final JsonGenerator generator;
         private final boolean debugRendering;
 
@@ -762,14 +796,62 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
         }
 
         private void renderInspector(Inspector data) throws IOException {
-            StringBuilder intermediate = new StringBuilder();
             Inspector asMap = wrapAsMap(data);
-            if (asMap != null) {
-                JsonRender.render(asMap, intermediate, true);
-            } else {
-                JsonRender.render(data, intermediate, true);
+            renderInspectorDirect(asMap != null ? asMap : data);
+        }
+
+        /** Renders the given data directly to the generator, without rendering it to an intermediate string first */
+        private void renderInspectorDirect(Inspector data) throws IOException {
+            switch (data.type()) {
+                case EMPTY:
+                    generator.writeNull();
+                    break;
+                case BOOL:
+                    generator.writeBoolean(data.asBool());
+                    break;
+                case LONG:
+                    generator.writeNumber(data.asLong());
+                    break;
+                case DOUBLE:
+                    double value = data.asDouble();
+                    if (Double.isFinite(value))
+                        generator.writeNumber(value);
+                    else
+                        generator.writeNull();
+                    break;
+                case STRING:
+                    byte[] utf8 = data.asUtf8();
+                    generator.writeUTF8String(utf8, 0, utf8.length);
+                    break;
+                case DATA:
+                    generator.writeString(toHexString(data.asData()));
+                    break;
+                case ARRAY:
+                    generator.writeStartArray();
+                    for (Inspector entry : data.entries())
+                        renderInspectorDirect(entry);
+                    generator.writeEndArray();
+                    break;
+                case OBJECT:
+                    generator.writeStartObject();
+                    for (Map.Entry<String, Inspector> field : data.fields()) {
+                        generator.writeFieldName(field.getKey());
+                        renderInspectorDirect(field.getValue());
+                    }
+                    generator.writeEndObject();
+                    break;
+            }
+        }
+
+        private static String toHexString(byte[] data) {
+            char[] hex = new char[2 + data.length * 2];
+            hex[0] = '0';
+            hex[1] = 'x';
+            for (int i = 0; i < data.length; i++) {
+                hex[2 + i * 2] = hexDigits[(data[i] >> 4) & 0xf];
+                hex[3 + i * 2] = hexDigits[data[i] & 0xf];
             }
-            generator.writeRawValue(intermediate.toString());
+            return new String(hex);
         }
 
         private void renderFieldContents(Object field) throws IOException {
@@ -830,6 +912,7 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
             generator.writeStartObject();
             generator.writeArrayFieldStart("cells");
             if (tensor.isPresent()) {
+                List<TensorType.Dimension> dimensions = tensor.get().type().dimensions();
                 for (Iterator<Tensor.Cell> i = tensor.get().cellIterator(); i.hasNext(); ) {
                     Tensor.Cell cell = i.next();
 
@@ -837,10 +920,10 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
 
                     generator.writeObjectFieldStart("address");
                     for (int d = 0; d < cell.getKey().size(); d++)
-                        generator.writeObjectField(tensor.get().type().dimensions().get(d).name(), cell.getKey().label(d));
+                        generator.writeStringField(dimensions.get(d).name(), cell.getKey().label(d));
                     generator.writeEndObject();
 
-                    generator.writeObjectField("value", cell.getValue());
+                    generator.writeNumberField("value", cell.getValue());
 
                     generator.writeEndObject();
                 }
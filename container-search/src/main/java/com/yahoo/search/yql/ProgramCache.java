@@ -0,0 +1,69 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.yql;
+
+import org.antlr.v4.runtime.RecognitionException;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A thread safe LRU cache of parsed YQL programs, keyed on the program text.
+ * <p>
+ * Query values are usually passed to YQL programs as references to query properties (e.g userInput(@myInput)),
+ * which are resolved when the query tree is built rather than when the program is parsed,
+ * so the same program text is usually repeated across many queries.
+ * <p>
+ * The programs returned by this are shared between queries and must not be modified.
+ *
+ * @author agent
+ */
+final class ProgramCache {
+
+    /** Programs longer than this are not cached, as they are unlikely to be repeated */
+    static final int maxProgramLength = 4096;
+
+    private final int maxEntries;
+
+    /** The cached programs. Access to this must be synchronized on it. */
+    private final Map<String, OperatorNode<StatementOperator>> programs;
+
+    ProgramCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.programs = new LinkedHashMap<String, OperatorNode<StatementOperator>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, OperatorNode<StatementOperator>> eldest) {
+                return size() > ProgramCache.this.maxEntries;
+            }
+        };
+    }
+
+    /** Returns the parsed form of the given program, which is parsed and cached if it is not already */
+    OperatorNode<StatementOperator> parse(String program) throws IOException, RecognitionException {
+        boolean cacheable = maxEntries > 0 && program.length() <= maxProgramLength;
+        if (cacheable) {
+            synchronized (programs) {
+                OperatorNode<StatementOperator> cached = programs.get(program);
+                if (cached != null) return cached;
+            }
+        }
+
+        OperatorNode<StatementOperator> parsed = new ProgramParser().parse("query", program);
+        if (cacheable) {
+            synchronized (programs) {
+                programs.put(program, parsed);
+            }
+        }
+        return parsed;
+    }
+
+    /** Returns the number of programs currently cached */
+    int size() {
+        synchronized (programs) {
+            return programs.size();
+        }
+    }
+
+}
@@ -181,6 +181,9 @@ public class YqlParser implements Parser {
     static final String WEIGHTED_SET = "weightedSet";
     static final String WEIGHT = "weight";
 
+    /** The parsed YQL programs shared by all instances of this */
+    private static final ProgramCache programCache = new ProgramCache(1000);
+
     private final IndexFacts indexFacts;
     private final List<ConnectedItem> connectedItems = new ArrayList<>();
     private final List<VespaGroupingStep> groupingSteps = new ArrayList<>();
@@ -760,7 +763,7 @@ public class YqlParser implements Parser {
     private OperatorNode<?> parseYqlProgram() {
         OperatorNode<?> ast;
         try {
-            ast = new ProgramParser().parse("query", currentlyParsing.getQuery());
+            ast = programCache.parse(currentlyParsing.getQuery());
         } catch (Exception e) {
             throw new IllegalArgumentException(e);
         }
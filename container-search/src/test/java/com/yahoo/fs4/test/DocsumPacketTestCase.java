@@ -0,0 +1,90 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.fs4.test;
+
+import com.yahoo.compress.CompressionType;
+import com.yahoo.compress.Compressor;
+import com.yahoo.document.GlobalId;
+import com.yahoo.fs4.DocsumPacket;
+import com.yahoo.fs4.PacketDecoder;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests decoding of docsum packets
+ *
+ * @author agent
+ */
+public class DocsumPacketTestCase {
+
+    private static final byte[] gid = new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12 };
+
+    @Test
+    public void testDecodingFromDirectBuffer() {
+        byte[] docsum = docsum(100);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+        buffer.putInt(4 + 4 + gid.length + docsum.length); // length-4
+        buffer.putInt(205);
+        buffer.putInt(7); // channel
+        buffer.put(gid);
+        buffer.put(docsum);
+        buffer.putInt(0xdeadbeef);
+        buffer.flip();
+
+        DocsumPacket packet = (DocsumPacket)PacketDecoder.decode(buffer);
+        assertEquals(0xdeadbeef, buffer.getInt());
+        assertEquals(new GlobalId(gid), packet.getGlobalId());
+        assertEquals(docsum.length, packet.getDataLength());
+        assertArrayEquals(docsum, packet.getData());
+        assertArrayEquals(docsum, toArray(packet.getDataBuffer()));
+    }
+
+    @Test
+    public void testDecodingCompressedPacketFromDirectBuffer() {
+        byte[] docsum = docsum(1000);
+        byte[] body = new byte[gid.length + docsum.length];
+        System.arraycopy(gid, 0, body, 0, gid.length);
+        System.arraycopy(docsum, 0, body, gid.length, docsum.length);
+        Compressor.Compression compressed = new Compressor().compress(CompressionType.LZ4, body);
+        assertTrue(compressed.data().length < body.length);
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(2048);
+        buffer.putInt(4 + 4 + 4 + compressed.data().length); // length-4
+        buffer.putInt(205 | (CompressionType.LZ4.getCode() << 24));
+        buffer.putInt(7); // channel
+        buffer.putInt(body.length);
+        buffer.put(compressed.data());
+        buffer.putInt(0xdeadbeef);
+        buffer.flip();
+
+        DocsumPacket packet = (DocsumPacket)PacketDecoder.decode(buffer);
+        assertEquals(0xdeadbeef, buffer.getInt());
+        assertEquals(new GlobalId(gid), packet.getGlobalId());
+        assertEquals(docsum.length, packet.getDataLength());
+
+        ByteBuffer data = packet.getDataBuffer();
+        assertEquals("The docsum is a slice of the decompressed packet body", gid.length, data.position());
+        assertArrayEquals(docsum, toArray(data));
+        assertArrayEquals(docsum, packet.getData());
+    }
+
+    private static byte[] docsum(int length) {
+        byte[] docsum = new byte[length];
+        Arrays.fill(docsum, (byte)'a');
+        docsum[0] = 'b';
+        docsum[length - 1] = 'c';
+        return docsum;
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] array = new byte[buffer.remaining()];
+        buffer.duplicate().get(array);
+        return array;
+    }
+
+}
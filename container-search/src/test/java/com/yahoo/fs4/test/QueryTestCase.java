@@ -228,6 +228,21 @@ public class QueryTestCase {
         assertEqualArrays(encoded2, encoded1);
     }
 
+    @Test
+    public void testSetHitWindowAfterEncoding() {
+        Query query = new Query("/?query=chain&timeout=0");
+        query.setWindow(2, 8);
+        QueryPacket packet = QueryPacket.create(query);
+        packet.allocateAndEncode(0);
+        packet.setHitWindow(0, 10);
+
+        ByteBuffer buffer = packet.grantEncodingBuffer(0);
+        byte[] encoded = new byte[buffer.limit()];
+        buffer.get(encoded);
+        assertEquals(0, encoded[16]); // offset
+        assertEquals(10, encoded[17]); // hits
+    }
+
     @Test
     public void testPatchInChannelId() {
         Query query = new Query("/?query=chain&timeout=0");
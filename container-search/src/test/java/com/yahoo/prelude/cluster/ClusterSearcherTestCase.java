@@ -14,6 +14,7 @@ import com.yahoo.prelude.fastsearch.CacheKey;
 import com.yahoo.prelude.fastsearch.DocumentdbInfoConfig;
 import com.yahoo.prelude.fastsearch.FS4ResourcePool;
 import com.yahoo.prelude.fastsearch.FastHit;
+import com.yahoo.prelude.fastsearch.PacketCache;
 import com.yahoo.prelude.fastsearch.VespaBackEndSearcher;
 import com.yahoo.search.Query;
 import com.yahoo.search.config.ClusterConfig;
@@ -21,6 +22,7 @@ import com.yahoo.search.result.Hit;
 import com.yahoo.search.searchchain.Execution;
 import com.yahoo.container.handler.VipStatus;
 import com.yahoo.container.protect.Error;
+import com.yahoo.statistics.Counter;
 import com.yahoo.statistics.Statistics;
 import com.yahoo.vespa.config.search.DispatchConfig;
 import org.junit.Test;
@@ -48,6 +50,21 @@ import static org.junit.Assert.assertTrue;
  */
 public class ClusterSearcherTestCase {
 
+    @Test
+    public void testPacketCacheCounts() {
+        PacketCache cache = new PacketCache(1, 0, 60);
+        Counter misses = new Counter("misses", Statistics.nullImplementation, false,
+                                     new ClusterSearcher.PacketCacheCount(cache::missCount), false);
+        cache.get(new CacheKey(QueryPacket.create(new Query("?query=a"))));
+        cache.get(new CacheKey(QueryPacket.create(new Query("?query=b"))));
+        assertEquals(0, misses.get());
+        misses.runCallback();
+        assertEquals(2, misses.get());
+        cache.get(new CacheKey(QueryPacket.create(new Query("?query=a"))));
+        misses.runCallback();
+        assertEquals(3, misses.get());
+    }
+
     @Test
     public void testNoBackends() {
         ClusterSearcher cluster = new ClusterSearcher(new LinkedHashSet<>(Arrays.asList("dummy")));
@@ -2,6 +2,8 @@
 package com.yahoo.prelude.fastsearch.test;
 
 import com.google.common.util.concurrent.MoreExecutors;
+import com.yahoo.component.chain.Chain;
+import com.yahoo.config.subscription.ConfigGetter;
 import com.yahoo.container.handler.VipStatus;
 import com.yahoo.net.HostName;
 import com.yahoo.prelude.fastsearch.CacheParams;
@@ -54,7 +56,7 @@ class FastSearcherTester {
                                         new SummaryParameters(null),
                                         new ClusterParams("testhittype"),
                                         new CacheParams(100, 1e64),
-                                        new DocumentdbInfoConfig(new DocumentdbInfoConfig.Builder()));
+                                        new ConfigGetter<>(DocumentdbInfoConfig.class).getConfig("file:src/test/java/com/yahoo/prelude/fastsearch/test/documentdb-info.cfg"));
     }
 
     private static List<SearchCluster.Node> toNodes(String... hostAndPortAndGroupStrings) {
@@ -73,6 +75,11 @@ class FastSearcherTester {
         return result;
     }
 
+    /** Fills the given result with the default summary class */
+    public void fill(Result result) {
+        new Execution(new Chain<>(fastSearcher), Execution.Context.createContextStub()).fill(result);
+    }
+
     /** Returns the number of times a backend for this hostname and port has been requested */
     public int requestCount(String hostname, int port) {
         return mockFS4ResourcePool.requestCount(hostname, port);
@@ -0,0 +1,94 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.prelude.fastsearch.test;
+
+import com.yahoo.prelude.fastsearch.FastHit;
+import com.yahoo.search.Result;
+import com.yahoo.search.result.Hit;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that FastSearcher will search all the nodes of a group and merge the results
+ * when dispatch.internal is turned on
+ *
+ * @author agent
+ */
+public class InterleavedSearchTestCase {
+
+    @Test
+    public void testSearchesAllNodesInGroup() {
+        FastSearcherTester tester = new FastSearcherTester(1, "host0:9999:0", "host1:9999:0");
+        Result result = tester.search("?query=test&dispatch.internal=true");
+        assertEquals(1, tester.requestCount("host0", 9999));
+        assertEquals(1, tester.requestCount("host1", 9999));
+
+        assertEquals(4, result.getHitCount());
+        assertEquals(4, result.getTotalHitCount());
+        assertEquals(2, result.getCoverage(false).getNodes());
+        assertEquals(2, result.getCoverage(false).getNodesTried());
+
+        Set<Integer> distributionKeys = new HashSet<>();
+        double previousRelevance = Double.MAX_VALUE;
+        for (Hit hit : result.hits()) {
+            assertTrue("Hits are sorted by relevance", hit.getRelevance().getScore() <= previousRelevance);
+            previousRelevance = hit.getRelevance().getScore();
+            distributionKeys.add(((FastHit)hit).getDistributionKey());
+        }
+        assertEquals("Hits are tagged with the node producing them", 2, distributionKeys.size());
+    }
+
+    @Test
+    public void testOffsetIsAppliedAfterMerging() {
+        FastSearcherTester tester = new FastSearcherTester(1, "host0:9999:0", "host1:9999:0");
+        Result result = tester.search("?query=test&dispatch.internal=true&offset=1&hits=2");
+        assertEquals(2, result.getHitCount());
+        assertEquals(2003, result.hits().get(0).getRelevance().getScore(), 0.0001);
+        assertEquals(1855, result.hits().get(1).getRelevance().getScore(), 0.0001);
+    }
+
+    @Test
+    public void testNodeWhichIsDownReducesCoverage() {
+        FastSearcherTester tester = new FastSearcherTester(1, "host0:9999:0", "host1:9999:0");
+        tester.setResponding("host1", false);
+        Result result = tester.search("?query=test&dispatch.internal=true&nocache");
+        assertEquals(1, tester.requestCount("host0", 9999));
+        assertEquals(2, result.getHitCount());
+        assertEquals(1, result.getCoverage(false).getNodes());
+        assertEquals(2, result.getCoverage(false).getNodesTried());
+    }
+
+    @Test
+    public void testSummariesAreFetchedFromAllNodesInGroup() {
+        FastSearcherTester tester = new FastSearcherTester(1, "host0:9999:0", "host1:9999:0");
+        Result result = tester.search("?query=test&dispatch.internal=true&dispatch.summaries=false&nocache");
+        tester.fill(result);
+        assertEquals("Search and fill requests", 2, tester.requestCount("host0", 9999));
+        assertEquals("Search and fill requests", 2, tester.requestCount("host1", 9999));
+        assertEquals(null, result.hits().getError());
+        assertEquals(4, result.getHitCount());
+        for (Hit hit : result.hits())
+            assertEquals("Arts/Celebrities/Madonna", hit.getField("TOPIC"));
+    }
+
+    @Test
+    public void testSortedQueriesAreSentToDispatchNode() {
+        FastSearcherTester tester = new FastSearcherTester(1, "host0:9999:0", "host1:9999:0");
+        tester.search("?query=test&dispatch.internal=true&sorting=-myfield");
+        assertEquals(0, tester.requestCount("host0", 9999));
+        assertEquals(0, tester.requestCount("host1", 9999));
+    }
+
+    @Test
+    public void testInterleavedSearchIsOffByDefault() {
+        FastSearcherTester tester = new FastSearcherTester(1, "host0:9999:0", "host1:9999:0");
+        tester.search("?query=test");
+        assertEquals(0, tester.requestCount("host0", 9999));
+        assertEquals(0, tester.requestCount("host1", 9999));
+    }
+
+}
@@ -171,6 +171,71 @@ public class PacketCacheTestCase {
         assertEquals(Integer.MAX_VALUE, cache.getByteCapacity());
     }
 
+    @Test
+    public void testStatistics() throws BufferTooSmallException {
+        PacketCache cache = new PacketCache(0, length * 2, 1e64);
+        cache.setMaxCacheItemPercentage(50);
+
+        cache.put(key1, createCacheEntry());
+        cache.get(key1);
+        cache.get(key2);
+        cache.put(key2, createCacheEntry());
+        cache.put(key3, createCacheEntry()); // evicts key1
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertEquals(1, cache.evictionCount());
+        assertEquals(0, cache.rejectionCount());
+    }
+
+    @Test
+    public void testAdmissionFiltering() throws BufferTooSmallException {
+        // room for two entries
+        PacketCache cache = new PacketCache(0, length * 2, 1e64);
+        cache.setMaxCacheItemPercentage(50);
+        cache.setAdmissionFiltering(true);
+
+        cache.put(key1, createCacheEntry());
+        cache.put(key2, createCacheEntry());
+        for (int i = 0; i < 3; i++) {
+            assertNotNull(cache.get(key1));
+            assertNotNull(cache.get(key2));
+        }
+
+        // A key never looked up before does not replace the frequently used ones
+        cache.put(key3, createCacheEntry());
+        assertEquals(1, cache.rejectionCount());
+        assertNotNull(cache.get(key1));
+        assertNotNull(cache.get(key2));
+
+        // ... but is admitted once it is looked up more often than the least recently used entry
+        for (int i = 0; i < 6; i++)
+            assertNull(cache.get(key3));
+        cache.put(key3, createCacheEntry());
+        assertNull(cache.get(key1));
+        assertNotNull(cache.get(key2));
+        assertNotNull(cache.get(key3));
+        assertEquals(length * 2, cache.totalPacketSize());
+    }
+
+    @Test
+    public void testSegmentation() throws BufferTooSmallException {
+        assertEquals(1, new PacketCache(1, 0, 1e64).segmentCount());
+        assertEquals(4, new PacketCache(4, 0, 1e64).segmentCount());
+        assertEquals(16, new PacketCache(100, 0, 1e64).segmentCount());
+
+        PacketCache cache = new PacketCache(100, 0, 1e64);
+        CacheKey[] keys = { key1, key2, key3, key4 };
+        for (CacheKey key : keys)
+            cache.put(key, createCacheEntry(key));
+        for (CacheKey key : keys)
+            assertNotNull(cache.get(key));
+        assertEquals(4, cache.size());
+        assertEquals(4 * (length + key1.byteSize()), cache.totalPacketSize());
+        cache.remove(key2);
+        assertEquals(3, cache.size());
+        assertEquals(3 * (length + key1.byteSize()), cache.totalPacketSize());
+    }
+
     /** Creates a 64-byte packet in an array wrapped in a PacketWrapper */
     private PacketWrapper createCacheEntry(CacheKey key) throws BufferTooSmallException {
         ByteBuffer data = ByteBuffer.allocate(length);
@@ -59,6 +59,7 @@ public class MockFSChannel extends FS4Channel {
             lastQueryPacket = (QueryPacket) packet;
 
         lastReceived = packet;
+        notifyMonitor();
         return true;
     }
 
@@ -122,11 +123,11 @@ public class MockFSChannel extends FS4Channel {
 
     /** Adds the number of docsums requested in queryPacket.getHits() */
     private void addDocsums(List packets, QueryPacket queryPacket) {
-        int numHits = queryPacket.getHits();
-
-        if (lastReceived instanceof GetDocSumsPacket) {
+        int numHits;
+        if (lastReceived instanceof GetDocSumsPacket)
             numHits = ((GetDocSumsPacket) lastReceived).getNumDocsums();
-        }
+        else
+            numHits = queryPacket.getHits();
         for (int i = 0; i < numHits; i++) {
             ByteBuffer buffer;
 
@@ -0,0 +1,169 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.cache.test;
+
+import com.yahoo.component.chain.Chain;
+import com.yahoo.metrics.simple.MetricReceiver;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.Searcher;
+import com.yahoo.search.cache.ResultCacheConfig;
+import com.yahoo.search.cache.ResultCacheSearcher;
+import com.yahoo.search.result.ErrorMessage;
+import com.yahoo.search.result.Hit;
+import com.yahoo.search.searchchain.Execution;
+import com.yahoo.test.ManualClock;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent
+ */
+public class ResultCacheSearcherTestCase {
+
+    @Test
+    public void testCaching() {
+        ManualClock clock = new ManualClock();
+        CountingSearcher backend = new CountingSearcher();
+        ResultCacheSearcher cache = new ResultCacheSearcher(config(10, 60), new MetricReceiver.MockReceiver(), clock);
+        Chain<Searcher> chain = new Chain<>(cache, backend);
+
+        Result result = execute(chain, "?query=test");
+        assertEquals(1, backend.searches);
+        assertEquals(2, result.getHitCount());
+        assertFalse(result.isCached());
+        assertEquals("The result is filled before it is cached", 1, backend.fills);
+
+        result = execute(chain, "?query=test");
+        assertEquals(1, backend.searches);
+        assertEquals(2, result.getHitCount());
+        assertTrue(result.isCached());
+        assertEquals(1, backend.fills);
+
+        execute(chain, "?query=test&hits=1");
+        assertEquals("A different hit window is a different result", 2, backend.searches);
+        execute(chain, "?query=test&ranking=other");
+        assertEquals("A different rank profile is a different result", 3, backend.searches);
+        execute(chain, "?query=other");
+        assertEquals("A different query is a different result", 4, backend.searches);
+        execute(chain, "?query=test&nocache");
+        assertEquals("nocache bypasses the cache", 5, backend.searches);
+        assertEquals(4, cache.size());
+
+        clock.advance(Duration.ofSeconds(61));
+        execute(chain, "?query=test");
+        assertEquals("The cached result is expired", 6, backend.searches);
+        execute(chain, "?query=test");
+        assertEquals(6, backend.searches);
+        execute(chain, "?query=test&timeout=5s&tracelevel=1");
+        assertEquals("Timeout and tracing do not change the result", 6, backend.searches);
+    }
+
+    @Test
+    public void testCachedResultsAreNotModifiedByCallers() {
+        CountingSearcher backend = new CountingSearcher();
+        Chain<Searcher> chain = new Chain<>(new ResultCacheSearcher(config(10, 60), new MetricReceiver.MockReceiver(),
+                                                                    new ManualClock()),
+                                            backend);
+
+        execute(chain, "?query=test").hits().remove(0);
+        Result result = execute(chain, "?query=test");
+        result.hits().remove(0);
+        assertEquals(1, backend.searches);
+        assertEquals(2, execute(chain, "?query=test").getHitCount());
+    }
+
+    @Test
+    public void testErrorsAreNotCached() {
+        CountingSearcher backend = new CountingSearcher();
+        backend.error = true;
+        Chain<Searcher> chain = new Chain<>(new ResultCacheSearcher(config(10, 60), new MetricReceiver.MockReceiver(),
+                                                                    new ManualClock()),
+                                            backend);
+        execute(chain, "?query=test");
+        execute(chain, "?query=test");
+        assertEquals(2, backend.searches);
+    }
+
+    @Test
+    public void testExcludedProperties() {
+        CountingSearcher backend = new CountingSearcher();
+        ResultCacheConfig.Builder config = new ResultCacheConfig.Builder();
+        config.excludedProperties("otherProperty");
+        Chain<Searcher> chain = new Chain<>(new ResultCacheSearcher(new ResultCacheConfig(config),
+                                                                    new MetricReceiver.MockReceiver(),
+                                                                    new ManualClock()),
+                                            backend);
+        execute(chain, "?query=test&myProperty=1&otherProperty=1");
+        execute(chain, "?query=test&myProperty=1&otherProperty=2");
+        assertEquals(1, backend.searches);
+        execute(chain, "?query=test&myProperty=2&otherProperty=1");
+        assertEquals("Properties which are not excluded are part of the key", 2, backend.searches);
+        execute(chain, "?query=test&otherProperty=1");
+        assertEquals(3, backend.searches);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedResultsAreEvicted() {
+        CountingSearcher backend = new CountingSearcher();
+        ResultCacheSearcher cache = new ResultCacheSearcher(config(2, 60), new MetricReceiver.MockReceiver(),
+                                                            new ManualClock());
+        Chain<Searcher> chain = new Chain<>(cache, backend);
+        execute(chain, "?query=a");
+        execute(chain, "?query=b");
+        execute(chain, "?query=a");
+        execute(chain, "?query=c");
+        assertEquals(3, backend.searches);
+        assertEquals(2, cache.size());
+        execute(chain, "?query=a");
+        assertEquals(3, backend.searches);
+        execute(chain, "?query=b");
+        assertEquals(4, backend.searches);
+    }
+
+    private ResultCacheConfig config(int maxEntries, double timeToLive) {
+        ResultCacheConfig.Builder config = new ResultCacheConfig.Builder();
+        config.maxEntries(maxEntries);
+        config.timeToLive(timeToLive);
+        return new ResultCacheConfig(config);
+    }
+
+    private Result execute(Chain<Searcher> chain, String queryString) {
+        return new Execution(chain, Execution.Context.createContextStub()).search(new Query(queryString));
+    }
+
+    private static class CountingSearcher extends Searcher {
+
+        int searches = 0;
+        int fills = 0;
+        boolean error = false;
+
+        @Override
+        public Result search(Query query, Execution execution) {
+            searches++;
+            if (error)
+                return new Result(query, ErrorMessage.createBackendCommunicationError("Backend down"));
+
+            Result result = new Result(query);
+            for (int i = 0; i < 2; i++) {
+                Hit hit = new Hit("hit:" + i, 1.0 / (i + 1));
+                hit.setFillable();
+                result.hits().add(hit);
+            }
+            return result;
+        }
+
+        @Override
+        public void fill(Result result, String summaryClass, Execution execution) {
+            fills++;
+            for (Hit hit : result.hits())
+                hit.setFilled(summaryClass);
+        }
+
+    }
+
+}
@@ -0,0 +1,44 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.document.GlobalId;
+import com.yahoo.fs4.DocumentInfo;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author agent
+ */
+public class InterleavedSearchInvokerTestCase {
+
+    @Test
+    public void testMerging() {
+        List<DocumentInfo> merged = InterleavedSearchInvoker.merge(Arrays.asList(),
+                                                                   Arrays.asList(doc(1, 9.0), doc(2, 5.0), doc(3, 1.0)),
+                                                                   7, 4);
+        assertEquals(3, merged.size());
+        assertEquals(7, merged.get(0).getDistributionKey());
+
+        merged = InterleavedSearchInvoker.merge(merged, Arrays.asList(doc(4, 8.0), doc(5, 5.0), doc(6, 0.5)), 8, 4);
+        assertEquals(4, merged.size());
+        assertDocument(1, 9.0, 7, merged.get(0));
+        assertDocument(4, 8.0, 8, merged.get(1));
+        assertDocument(2, 5.0, 7, merged.get(2)); // ties are resolved in favor of the earliest response
+        assertDocument(5, 5.0, 8, merged.get(3));
+    }
+
+    private void assertDocument(int id, double relevance, int distributionKey, DocumentInfo document) {
+        assertEquals(new GlobalId(new byte[] { (byte)id, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 }), document.getGlobalId());
+        assertEquals(relevance, document.getMetric(), 0.000001);
+        assertEquals(distributionKey, document.getDistributionKey());
+    }
+
+    private DocumentInfo doc(int id, double relevance) {
+        return new DocumentInfo(new GlobalId(new byte[] { (byte)id, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 }), relevance, 0, 0);
+    }
+
+}
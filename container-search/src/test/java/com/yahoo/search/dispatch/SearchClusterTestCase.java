@@ -0,0 +1,159 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.yahoo.container.handler.VipStatus;
+import com.yahoo.prelude.fastsearch.test.fs4mock.MockFS4ResourcePool;
+import com.yahoo.test.ManualClock;
+import com.yahoo.vespa.config.search.DispatchConfig;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Tests selection of the group to dispatch queries to
+ *
+ * @author agent
+ */
+public class SearchClusterTestCase {
+
+    @Test
+    public void testLeastLoadedGroupIsSelected() {
+        SearchCluster cluster = new SearchClusterTester("a:0", "b:1").cluster();
+        started(cluster.groups().get(0));
+        for (int i = 0; i < 4; i++)
+            assertEquals(1, cluster.groupForQuery().get().id());
+
+        started(cluster.groups().get(1));
+        started(cluster.groups().get(1));
+        for (int i = 0; i < 4; i++)
+            assertEquals(0, cluster.groupForQuery().get().id());
+    }
+
+    @Test
+    public void testGroupWithLowerLatencyIsSelected() {
+        SearchCluster cluster = new SearchClusterTester("a:0", "b:1").cluster();
+        started(cluster.groups().get(0));
+        completed(cluster.groups().get(0), 100);
+        started(cluster.groups().get(1));
+        completed(cluster.groups().get(1), 10);
+        assertEquals(100.0, cluster.groups().get(0).averageLatency(), 1.0); // decays with time
+        assertEquals(0, cluster.groups().get(0).inFlightQueries());
+        for (int i = 0; i < 4; i++)
+            assertEquals(1, cluster.groupForQuery().get().id());
+    }
+
+    @Test
+    public void testGroupWithInsufficientCoverageIsAvoided() {
+        SearchClusterTester tester = new SearchClusterTester("a:0", "b:1", "c:2");
+        tester.setActiveDocuments("a", 100);
+        tester.setActiveDocuments("b", 100);
+        tester.setActiveDocuments("c", 50);
+        started(tester.cluster().groups().get(0));
+        started(tester.cluster().groups().get(1));
+        for (int i = 0; i < 4; i++)
+            assertNotEquals(2, tester.cluster().groupForQuery().get().id());
+    }
+
+    @Test
+    public void testGroupWithNodeDownIsAvoided() {
+        SearchClusterTester tester = new SearchClusterTester("a:0", "b:0", "c:1", "d:1");
+        tester.setResponding("b", false);
+        started(tester.cluster().groups().get(1));
+        for (int i = 0; i < 4; i++)
+            assertEquals(1, tester.cluster().groupForQuery().get().id());
+    }
+
+    @Test
+    public void testRoundRobinPolicy() {
+        SearchCluster cluster = new SearchClusterTester(DispatchConfig.DistributionPolicy.ROUNDROBIN,
+                                                        "a:0", "b:1", "c:2").cluster();
+        started(cluster.groups().get(0));
+        Set<Integer> selected = new HashSet<>();
+        for (int i = 0; i < 3; i++)
+            selected.add(cluster.groupForQuery().get().id());
+        assertEquals("All groups are selected in turn regardless of load", 3, selected.size());
+    }
+
+    @Test
+    public void testLatencyDecaysWhenNotUpdated() {
+        ManualClock clock = new ManualClock();
+        QueryLoad load = new QueryLoad(clock);
+        load.started();
+        load.completed(100);
+        assertEquals(100.0, load.averageLatency(), 0.0001);
+
+        clock.advance(Duration.ofSeconds(5));
+        assertEquals("Halved after the half life", 50.0, load.averageLatency(), 0.0001);
+
+        load.started();
+        load.completed(10);
+        assertEquals("The decayed average has less weight than when fresh",
+                     0.45 * 100 + 0.55 * 10, load.averageLatency(), 0.0001);
+    }
+
+    @Test
+    public void testGroupLoadIsTheLoadOfItsMostLoadedNode() {
+        SearchCluster cluster = new SearchClusterTester("a:0", "b:0", "c:1", "d:1").cluster();
+        SearchCluster.Node b = cluster.groups().get(0).nodes().get(1);
+        b.load().started();
+        b.load().completed(100);
+        assertEquals(100.0, cluster.groups().get(0).averageLatency(), 1.0); // decays with time
+        for (int i = 0; i < 4; i++)
+            assertEquals(1, cluster.groupForQuery().get().id());
+    }
+
+    private void started(SearchCluster.Group group) {
+        group.nodes().forEach(node -> node.load().started());
+    }
+
+    private void completed(SearchCluster.Group group, long latencyMillis) {
+        group.nodes().forEach(node -> node.load().completed(latencyMillis));
+    }
+
+    private static class SearchClusterTester {
+
+        private final MockFS4ResourcePool fs4ResourcePool = new MockFS4ResourcePool();
+        private final SearchCluster cluster;
+
+        SearchClusterTester(String ... hostAndGroupStrings) {
+            this(DispatchConfig.DistributionPolicy.ADAPTIVE, hostAndGroupStrings);
+        }
+
+        SearchClusterTester(DispatchConfig.DistributionPolicy.Enum policy, String ... hostAndGroupStrings) {
+            List<SearchCluster.Node> nodes = new ArrayList<>();
+            int key = 0;
+            for (String hostAndGroup : hostAndGroupStrings) {
+                String[] parts = hostAndGroup.split(":");
+                nodes.add(new SearchCluster.Node(key++, parts[0], 9999, Integer.parseInt(parts[1])));
+            }
+            cluster = new SearchCluster(97.0, policy, nodes, fs4ResourcePool, 1, new VipStatus());
+        }
+
+        SearchCluster cluster() { return cluster; }
+
+        void setActiveDocuments(String hostname, long activeDocuments) {
+            fs4ResourcePool.setActiveDocuments(hostname, activeDocuments);
+            cluster.ping(node(hostname), MoreExecutors.directExecutor());
+            cluster.pingIterationCompleted();
+        }
+
+        void setResponding(String hostname, boolean responding) {
+            fs4ResourcePool.setResponding(hostname, responding);
+            cluster.ping(node(hostname), MoreExecutors.directExecutor());
+        }
+
+        private SearchCluster.Node node(String hostname) {
+            return cluster.nodesByHost().get(hostname).iterator().next();
+        }
+
+    }
+
+}
@@ -938,6 +938,72 @@ public class JsonRendererTestCase {
         assertEqualJson(expected, summary);
     }
 
+    @Test
+    public void testStructuredDataOfAllTypes() throws InterruptedException, ExecutionException, IOException {
+        String expected = "{\n"
+                + "    \"root\": {\n"
+                + "        \"children\": [\n"
+                + "            {\n"
+                + "                \"fields\": {\n"
+                + "                    \"structured\": {\n"
+                + "                        \"nix\": null,\n"
+                + "                        \"bool\": true,\n"
+                + "                        \"long\": -7,\n"
+                + "                        \"double\": 0.5,\n"
+                + "                        \"infinity\": null,\n"
+                + "                        \"string\": \"bl\u00e5b\u00e6r \\\"quoted\\\"\",\n"
+                + "                        \"data\": \"0x01AB\",\n"
+                + "                        \"array\": [ 1, { \"inner\": [] } ]\n"
+                + "                    }\n"
+                + "                },\n"
+                + "                \"id\": \"structured\",\n"
+                + "                \"relevance\": 1.0\n"
+                + "            }\n"
+                + "        ],\n"
+                + "        \"fields\": {\n"
+                + "            \"totalCount\": 0\n"
+                + "        },\n"
+                + "        \"id\": \"toplevel\",\n"
+                + "        \"relevance\": 1.0\n"
+                + "    }\n"
+                + "}\n";
+        Slime slime = new Slime();
+        Cursor c = slime.setObject();
+        c.setNix("nix");
+        c.setBool("bool", true);
+        c.setLong("long", -7);
+        c.setDouble("double", 0.5);
+        c.setDouble("infinity", Double.POSITIVE_INFINITY);
+        c.setString("string", "bl\u00e5b\u00e6r \"quoted\"");
+        c.setData("data", new byte[] { 1, (byte)0xab });
+        Cursor array = c.setArray("array");
+        array.addLong(1);
+        array.addObject().setArray("inner");
+        Result r = newEmptyResult();
+        Hit h = new Hit("structured");
+        h.setField("structured", new StructuredData(new SlimeAdapter(slime.get())));
+        r.hits().add(h);
+        assertEqualJson(expected, render(r));
+    }
+
+    @Test
+    public void testLargeResultsAreFlushedWhileRendering() throws InterruptedException, ExecutionException, IOException {
+        Result r = newEmptyResult();
+        for (int i = 0; i < 250; i++)
+            r.hits().add(new Hit("hit" + i, 1.0 / (i + 1)));
+
+        class FlushCountingStream extends ByteArrayOutputStream {
+            int flushes = 0;
+            @Override
+            public void flush() { flushes++; }
+        }
+        FlushCountingStream stream = new FlushCountingStream();
+        ListenableFuture<Boolean> f = renderer.render(stream, r, new Execution(Execution.Context.createContextStub()), null);
+        assertTrue(f.get());
+        assertEquals("Flushed after each 100 hits, and when each list is completed", 4, stream.flushes);
+        assertEquals(250, new ObjectMapper().readTree(stream.toByteArray()).get("root").get("children").size());
+    }
+
     @Test
     public final void testFieldValueInHit() throws IOException, InterruptedException, ExecutionException, JSONException {
         String expected = "{\n"
@@ -54,6 +54,7 @@ import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -129,6 +130,25 @@ public class QueryTestCase {
         assertNotSame(q.getModel().getQueryTree(), p.getModel().getQueryTree());
     }
 
+    @Test
+    public void testCreateNewQuery() {
+        Query q = new Query(httpEncode("/sdfsd.html?query=this+is+a+simple+query&aParameter&hits=13&ranking=myProfile"));
+        Query p = Query.createNewQuery(q);
+        assertEquals(q, p);
+        assertEquals("myProfile", p.getRanking().getProfile());
+        assertEquals(13, p.getHits());
+
+        assertNotSame(q.getRanking(), p.getRanking());
+        assertNotSame(q.getPresentation(), p.getPresentation());
+        assertNotSame(q.getModel(), p.getModel());
+        assertNotSame(q.getModel().getQueryTree(), p.getModel().getQueryTree());
+        assertNotSame(q.getSelect(), p.getSelect());
+        assertSame(p, p.getModel().getParent());
+
+        p.getSelect().setWhere("{}");
+        assertEquals(Query.Type.SELECT, p.getModel().getType());
+    }
+
     private boolean isA(String s) {
         return (s.equals("a"));
     }
@@ -0,0 +1,60 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.yql;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * @author agent
+ */
+public class ProgramCacheTestCase {
+
+    private static final String program1 = "select * from sources * where userInput(@myInput);";
+    private static final String program2 = "select * from sources * where title contains \"madonna\";";
+    private static final String program3 = "select * from sources * where userQuery();";
+
+    @Test
+    public void testCaching() throws Exception {
+        ProgramCache cache = new ProgramCache(2);
+        OperatorNode<StatementOperator> parsed1 = cache.parse(program1);
+        assertEquals(new ProgramParser().parse("query", program1), parsed1);
+        assertSame(parsed1, cache.parse(program1));
+        assertEquals(1, cache.size());
+
+        cache.parse(program2);
+        cache.parse(program1);
+        cache.parse(program3); // evicts program2, the least recently used
+        assertEquals(2, cache.size());
+        assertSame(parsed1, cache.parse(program1));
+    }
+
+    @Test
+    public void testLongProgramsAreNotCached() throws Exception {
+        StringBuilder b = new StringBuilder("select * from sources * where weightedSet(tags, {");
+        for (int i = 0; b.length() < ProgramCache.maxProgramLength; i++)
+            b.append("\"tag").append(i).append("\":").append(i).append(", ");
+        b.append("\"last\":1});");
+        String program = b.toString();
+
+        ProgramCache cache = new ProgramCache(10);
+        assertNotSame(cache.parse(program), cache.parse(program));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testInvalidProgramsAreNotCached() throws Exception {
+        ProgramCache cache = new ProgramCache(10);
+        try {
+            cache.parse("select * from sources * where");
+            fail("Expected exception");
+        }
+        catch (ProgramCompileException expected) {
+        }
+        assertEquals(0, cache.size());
+    }
+
+}
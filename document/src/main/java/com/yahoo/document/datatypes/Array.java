@@ -14,7 +14,12 @@ import com.yahoo.document.serialization.XmlStream;
 import java.util.*;
 
 /**
- * FieldValue which encapsulates a Array value
+ * FieldValue which encapsulates a Array value.
+ * <p>
+ * Arrays of numeric types store their elements as primitives in a {@link PrimitiveList}.
+ * The elements returned by such an array are backed by it as with other arrays, such that modifying them
+ * changes the array, but the values added to it are copied, such that modifying a value after adding it
+ * does not change the array.
  *
  * @author Einar M R Rosenvinge
  */
@@ -28,7 +33,13 @@ public final class Array<T extends FieldValue> extends CollectionFieldValue<T> i
 
     public Array(DataType type, int initialCapacity) {
         super((ArrayDataType) type);
-        this.values = new ArrayList<>(initialCapacity);
+        this.values = createValues(((ArrayDataType) type).getNestedType(), initialCapacity);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends FieldValue> List<T> createValues(DataType nestedType, int initialCapacity) {
+        List<T> primitiveValues = (List<T>) PrimitiveList.create(nestedType, initialCapacity);
+        return primitiveValues != null ? primitiveValues : new ArrayList<>(initialCapacity);
     }
 
     public Array(DataType type, List<T> values) {
@@ -55,6 +66,10 @@ public final class Array<T extends FieldValue> extends CollectionFieldValue<T> i
     @Override
     public Array<T> clone() {
         Array<T> array = (Array<T>) super.clone();
+        if (values instanceof PrimitiveList) {
+            array.values = ((PrimitiveList<T>) values).copy();
+            return array;
+        }
         array.values = new ArrayList<>(values.size());
         for (T fval : values) {
             array.values.add((T) fval.clone());
@@ -0,0 +1,297 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.datatypes;
+
+import com.yahoo.document.DataType;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * A list of numeric field values which stores the values in a primitive array rather than as field value objects.
+ * This is used as the storage of arrays of numeric types, where it uses a fraction of the memory of a list of
+ * field values.
+ * <p>
+ * The field values returned by this are created on first access and kept, such that they are backed by the list:
+ * Modifying a returned element changes the value at its index. Values added or set are copied into the list,
+ * so modifying those afterwards does not change the list.
+ *
+ * @author agent
+ */
+public abstract class PrimitiveList<T extends FieldValue> extends AbstractList<T> implements RandomAccess {
+
+    private int size = 0;
+
+    /**
+     * The field values which have been returned by this, at their index, or null if none has been returned.
+     * When present, an element holds the current value at its index rather than the primitive array.
+     */
+    private FieldValue[] elements = null;
+
+    private PrimitiveList() {}
+
+    /** Returns a primitive list which can hold values of the given type, or null if the type is not numeric */
+    static PrimitiveList<? extends FieldValue> create(DataType type, int initialCapacity) {
+        if (type.equals(DataType.INT)) return new Ints(initialCapacity);
+        if (type.equals(DataType.LONG)) return new Longs(initialCapacity);
+        if (type.equals(DataType.FLOAT)) return new Floats(initialCapacity);
+        if (type.equals(DataType.DOUBLE)) return new Doubles(initialCapacity);
+        if (type.equals(DataType.BYTE)) return new Bytes(initialCapacity);
+        return null;
+    }
+
+    @Override
+    public T get(int index) {
+        checkIndex(index);
+        return element(index);
+    }
+
+    @Override
+    public T set(int index, T value) {
+        checkIndex(index);
+        T previous = element(index);
+        setValueAt(index, value);
+        elements[index] = null;
+        return previous;
+    }
+
+    @Override
+    public void add(int index, T value) {
+        if (index < 0 || index > size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        ensureCapacity(size + 1);
+        System.arraycopy(array(), index, array(), index + 1, size - index);
+        if (elements != null) {
+            System.arraycopy(elements, index, elements, index + 1, size - index);
+            elements[index] = null;
+        }
+        setValueAt(index, value);
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public T remove(int index) {
+        checkIndex(index);
+        T previous = element(index);
+        System.arraycopy(array(), index + 1, array(), index, size - index - 1);
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        elements[size] = null;
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        elements = null;
+        modCount++;
+    }
+
+    @Override
+    public int size() { return size; }
+
+    /** Ensures that this can hold at least the given number of values without reallocating */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > capacity()) {
+            resize(Math.max(minCapacity, capacity() * 2));
+            if (elements != null)
+                elements = Arrays.copyOf(elements, capacity());
+        }
+    }
+
+    /** Returns a copy of this */
+    abstract PrimitiveList<T> copy();
+
+    /** Returns the index to write an appended value to, after making room for it */
+    int append() {
+        ensureCapacity(size + 1);
+        modCount++;
+        return size++;
+    }
+
+    void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+    }
+
+    /** Returns the primitive array holding the values of this */
+    abstract Object array();
+
+    abstract int capacity();
+
+    abstract void resize(int capacity);
+
+    /** Returns the element at the given index, which is created from the primitive value if not already present */
+    @SuppressWarnings("unchecked")
+    private synchronized T element(int index) {
+        if (elements == null)
+            elements = new FieldValue[capacity()];
+        if (elements[index] == null)
+            elements[index] = createValue(index);
+        return (T) elements[index];
+    }
+
+    /** Returns the element at the given index if it has been returned by this, or null otherwise */
+    @SuppressWarnings("unchecked")
+    synchronized T elementAt(int index) {
+        return elements == null ? null : (T) elements[index];
+    }
+
+    /** Returns a new field value holding the primitive value at the given index */
+    abstract T createValue(int index);
+
+    abstract void setValueAt(int index, T value);
+
+    public static final class Ints extends PrimitiveList<IntegerFieldValue> {
+
+        private int[] values;
+
+        Ints(int initialCapacity) { values = new int[initialCapacity]; }
+
+        public int getInt(int index) {
+            checkIndex(index);
+            IntegerFieldValue element = elementAt(index);
+            return element != null ? element.getInteger() : values[index];
+        }
+
+        public void addInt(int value) { values[append()] = value; }
+
+        @Override
+        Ints copy() {
+            Ints copy = new Ints(size());
+            for (int i = 0; i < size(); i++)
+                copy.addInt(getInt(i));
+            return copy;
+        }
+
+        @Override Object array() { return values; }
+        @Override int capacity() { return values.length; }
+        @Override void resize(int capacity) { values = Arrays.copyOf(values, capacity); }
+        @Override IntegerFieldValue createValue(int index) { return new IntegerFieldValue(values[index]); }
+        @Override void setValueAt(int index, IntegerFieldValue value) { values[index] = value.getInteger(); }
+
+    }
+
+    public static final class Longs extends PrimitiveList<LongFieldValue> {
+
+        private long[] values;
+
+        Longs(int initialCapacity) { values = new long[initialCapacity]; }
+
+        public long getLong(int index) {
+            checkIndex(index);
+            LongFieldValue element = elementAt(index);
+            return element != null ? element.getLong() : values[index];
+        }
+
+        public void addLong(long value) { values[append()] = value; }
+
+        @Override
+        Longs copy() {
+            Longs copy = new Longs(size());
+            for (int i = 0; i < size(); i++)
+                copy.addLong(getLong(i));
+            return copy;
+        }
+
+        @Override Object array() { return values; }
+        @Override int capacity() { return values.length; }
+        @Override void resize(int capacity) { values = Arrays.copyOf(values, capacity); }
+        @Override LongFieldValue createValue(int index) { return new LongFieldValue(values[index]); }
+        @Override void setValueAt(int index, LongFieldValue value) { values[index] = value.getLong(); }
+
+    }
+
+    public static final class Floats extends PrimitiveList<FloatFieldValue> {
+
+        private float[] values;
+
+        Floats(int initialCapacity) { values = new float[initialCapacity]; }
+
+        public float getFloat(int index) {
+            checkIndex(index);
+            FloatFieldValue element = elementAt(index);
+            return element != null ? element.getFloat() : values[index];
+        }
+
+        public void addFloat(float value) { values[append()] = value; }
+
+        @Override
+        Floats copy() {
+            Floats copy = new Floats(size());
+            for (int i = 0; i < size(); i++)
+                copy.addFloat(getFloat(i));
+            return copy;
+        }
+
+        @Override Object array() { return values; }
+        @Override int capacity() { return values.length; }
+        @Override void resize(int capacity) { values = Arrays.copyOf(values, capacity); }
+        @Override FloatFieldValue createValue(int index) { return new FloatFieldValue(values[index]); }
+        @Override void setValueAt(int index, FloatFieldValue value) { values[index] = value.getFloat(); }
+
+    }
+
+    public static final class Doubles extends PrimitiveList<DoubleFieldValue> {
+
+        private double[] values;
+
+        Doubles(int initialCapacity) { values = new double[initialCapacity]; }
+
+        public double getDouble(int index) {
+            checkIndex(index);
+            DoubleFieldValue element = elementAt(index);
+            return element != null ? element.getDouble() : values[index];
+        }
+
+        public void addDouble(double value) { values[append()] = value; }
+
+        @Override
+        Doubles copy() {
+            Doubles copy = new Doubles(size());
+            for (int i = 0; i < size(); i++)
+                copy.addDouble(getDouble(i));
+            return copy;
+        }
+
+        @Override Object array() { return values; }
+        @Override int capacity() { return values.length; }
+        @Override void resize(int capacity) { values = Arrays.copyOf(values, capacity); }
+        @Override DoubleFieldValue createValue(int index) { return new DoubleFieldValue(values[index]); }
+        @Override void setValueAt(int index, DoubleFieldValue value) { values[index] = value.getDouble(); }
+
+    }
+
+    public static final class Bytes extends PrimitiveList<ByteFieldValue> {
+
+        private byte[] values;
+
+        Bytes(int initialCapacity) { values = new byte[initialCapacity]; }
+
+        public byte getByte(int index) {
+            checkIndex(index);
+            ByteFieldValue element = elementAt(index);
+            return element != null ? element.getByte() : values[index];
+        }
+
+        public void addByte(byte value) { values[append()] = value; }
+
+        @Override
+        Bytes copy() {
+            Bytes copy = new Bytes(size());
+            for (int i = 0; i < size(); i++)
+                copy.addByte(getByte(i));
+            return copy;
+        }
+
+        @Override Object array() { return values; }
+        @Override int capacity() { return values.length; }
+        @Override void resize(int capacity) { values = Arrays.copyOf(values, capacity); }
+        @Override ByteFieldValue createValue(int index) { return new ByteFieldValue(values[index]); }
+        @Override void setValueAt(int index, ByteFieldValue value) { values[index] = value.getByte(); }
+
+    }
+
+}
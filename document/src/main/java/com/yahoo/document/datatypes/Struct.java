@@ -5,6 +5,7 @@ import com.yahoo.collections.Hashlet;
 import com.yahoo.document.*;
 import com.yahoo.document.serialization.FieldReader;
 import com.yahoo.document.serialization.FieldWriter;
+import com.yahoo.document.serialization.SerializedFieldValue;
 import com.yahoo.document.serialization.XmlSerializationHelper;
 import com.yahoo.document.serialization.XmlStream;
 import com.yahoo.vespa.objects.Ids;
@@ -20,17 +21,29 @@ public class Struct extends StructuredFieldValue {
 
     public static final int classId = registerClass(Ids.document + 33, Struct.class);
     private Hashlet<Integer, FieldValue> values = new Hashlet<>();
+    /**
+     * Values which are deserialized when first accessed, by field id. Never overlaps values. Null if none.
+     * Neither this nor values are modified by reading, so a struct can be read by multiple threads.
+     */
+    private Map<Integer, SerializedFieldValue> serializedValues = null;
     private int [] order = null;
 
     private int version;
 
     private int [] getInOrder() {
+        int [] order = this.order;
         if (order == null) {
-            order = new int[values.size()];
+            order = new int[getFieldCount()];
             for (int i = 0; i < values.size(); i++) {
                 order[i] = values.key(i);
             }
+            if (serializedValues != null) {
+                int i = values.size();
+                for (int id : serializedValues.keySet())
+                    order[i++] = id;
+            }
             Arrays.sort(order);
+            this.order = order;
         }
         return order;
     }
@@ -86,15 +99,80 @@ public class Struct extends StructuredFieldValue {
         for (int i = 0; i < values.size(); i++) {
             struct.values.put(values.key(i), values.value(i).clone());
         }
+        if (serializedValues != null) {
+            struct.serializedValues = new HashMap<>();
+            for (Map.Entry<Integer, SerializedFieldValue> entry : serializedValues.entrySet()) {
+                if (entry.getValue().isDeserialized())
+                    struct.values.put(entry.getKey(), getFieldValue(entry.getKey()).clone());
+                else
+                    struct.serializedValues.put(entry.getKey(), entry.getValue().copy());
+            }
+            if (struct.serializedValues.isEmpty())
+                struct.serializedValues = null;
+        }
         return struct;
     }
 
     @Override
     public void clear() {
         values = new Hashlet<>();
+        serializedValues = null;
         invalidateOrder();
     }
 
+    /**
+     * Sets the serialized form of the value of a field. The value will be deserialized when it is first accessed.
+     * This is used by deserializers to avoid deserializing fields which are never accessed.
+     */
+    public void setSerializedFieldValue(Field field, SerializedFieldValue value) {
+        if (getDataType().getField(field.getId()) == null) {
+            throw new IllegalArgumentException("No such field in " + getDataType() + " : " + field.getName());
+        }
+        int index = values.getIndexOfKey(field.getId());
+        if (index != -1) {
+            removeFieldValue(field);
+        }
+        if (serializedValues == null) {
+            serializedValues = new HashMap<>();
+        }
+        if (serializedValues.put(field.getId(), value) == null) {
+            invalidateOrder();
+        }
+    }
+
+    /**
+     * Returns the serialized form of the value of the given field if it was set by
+     * {@link #setSerializedFieldValue} and has not been accessed since, and null otherwise.
+     * A value which is returned from this is unmodified since it was deserialized.
+     */
+    public SerializedFieldValue getSerializedFieldValue(Field field) {
+        if (serializedValues == null) return null;
+        SerializedFieldValue serialized = serializedValues.get(field.getId());
+        if (serialized == null || serialized.isDeserialized()) return null;
+        return serialized;
+    }
+
+    /** Returns the value of the given field id, deserializing it if necessary, or null if none */
+    private FieldValue getFieldValue(int id) {
+        FieldValue value = values.get(id);
+        if (value == null && serializedValues != null) {
+            SerializedFieldValue serialized = serializedValues.get(id);
+            if (serialized != null)
+                value = serialized.getValue(getDataType().getField(id));
+        }
+        return value;
+    }
+
+    /** Removes the serialized value of the given field id and returns it, or returns null if there is none */
+    private SerializedFieldValue removeSerializedFieldValue(int id) {
+        if (serializedValues == null) return null;
+        SerializedFieldValue removed = serializedValues.remove(id);
+        if (serializedValues.isEmpty()) {
+            serializedValues = null;
+        }
+        return removed;
+    }
+
     @Override
     public Iterator<Map.Entry<Field, FieldValue>> iterator() {
         return new FieldSet().iterator();
@@ -119,7 +197,7 @@ public class Struct extends StructuredFieldValue {
 
     @Override
     public FieldValue getFieldValue(Field field) {
-        return values.get(field.getId());
+        return getFieldValue(field.getId());
     }
 
 
@@ -130,7 +208,7 @@ public class Struct extends StructuredFieldValue {
 
     @Override
     public int getFieldCount() {
-        return values.size();
+        return values.size() + (serializedValues == null ? 0 : serializedValues.size());
     }
 
     @Override
@@ -156,6 +234,9 @@ public class Struct extends StructuredFieldValue {
                     "Inconsistent field: " + field);
         }
 
+        if (removeSerializedFieldValue(field.getId()) != null) {
+            invalidateOrder();
+        }
         int index = values.getIndexOfKey(field.getId());
         if (index == -1) {
             values.put(field.getId(), value);
@@ -167,8 +248,8 @@ public class Struct extends StructuredFieldValue {
 
     @Override
     public FieldValue removeFieldValue(Field field) {
-        FieldValue found = values.get(field.getId());
-        if (found != null) {
+        FieldValue found = getFieldValue(field.getId());
+        if (found != null && removeSerializedFieldValue(field.getId()) == null) {
             Hashlet<Integer, FieldValue> copy = new Hashlet<>();
             copy.reserve(values.size() - 1);
             for (int i=0; i < values.size(); i++) {
@@ -177,6 +258,8 @@ public class Struct extends StructuredFieldValue {
                 }
             }
             values = copy;
+        }
+        if (found != null) {
             invalidateOrder();
         }
         return found;
@@ -215,13 +298,26 @@ public class Struct extends StructuredFieldValue {
         if (!super.equals(o)) return false;
 
         Struct struct = (Struct) o;
-        return values.equals(struct.values);
+        if (serializedValues == null && struct.serializedValues == null) {
+            return values.equals(struct.values);
+        }
+        if (getFieldCount() != struct.getFieldCount()) return false;
+        for (int id : getInOrder()) {
+            if ( ! getFieldValue(id).equals(struct.getFieldValue(id))) return false;
+        }
+        return true;
     }
 
     @Override
     public int hashCode() {
         int result = super.hashCode();
-        result = 31 * result + values.hashCode();
+        int valuesHashCode = values.hashCode();
+        if (serializedValues != null) { // add the serialized values as Hashlet.hashCode does
+            for (int id : serializedValues.keySet()) {
+                valuesHashCode += Integer.hashCode(id) + getFieldValue(id).hashCode();
+            }
+        }
+        result = 31 * result + valuesHashCode;
         return result;
     }
 
@@ -232,7 +328,7 @@ public class Struct extends StructuredFieldValue {
         int [] increasing = getInOrder();
         for (int i = 0; i < increasing.length; i++) {
             int id = increasing[i];
-            retVal.append(getDataType().getField(id)).append("=").append(values.get(id)).append(", ");
+            retVal.append(getDataType().getField(id)).append("=").append(getFieldValue(id)).append(", ");
         }
         return retVal.toString();
     }
@@ -249,7 +345,7 @@ public class Struct extends StructuredFieldValue {
             return cmp;
         }
         Struct rhs = (Struct)obj;
-        cmp = values.size() - rhs.values.size();
+        cmp = getFieldCount() - rhs.getFieldCount();
         if (cmp != 0) {
             return cmp;
         }
@@ -290,7 +386,7 @@ public class Struct extends StructuredFieldValue {
         }
 
         public FieldValue getValue() {
-            return values.get(id);
+            return getFieldValue(id);
         }
 
         public FieldValue setValue(FieldValue value) {
@@ -298,6 +394,12 @@ public class Struct extends StructuredFieldValue {
                 throw new NullPointerException("Null values in Struct not supported, use removeFieldValue() to remove value instead.");
             }
 
+            if (serializedValues != null && serializedValues.containsKey(id)) {
+                FieldValue retVal = getFieldValue(id);
+                removeSerializedFieldValue(id);
+                values.put(id, value); // the set of field ids is unchanged, so the order is still valid
+                return retVal;
+            }
             int index = values.getIndexOfKey(id);
             FieldValue retVal = null;
             if (index == -1) {
@@ -327,7 +429,7 @@ public class Struct extends StructuredFieldValue {
     private class FieldSet extends AbstractSet<Map.Entry<Field, FieldValue>> {
         @Override
         public int size() {
-            return values.size();
+            return getFieldCount();
         }
 
         @Override
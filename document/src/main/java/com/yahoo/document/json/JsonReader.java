@@ -62,20 +62,16 @@ public class JsonReader {
      */
     public DocumentOperation readSingleDocument(DocumentParser.SupportedOperation operationType, String docIdString) {
         DocumentId docId = new DocumentId(docIdString);
+        DocumentParser documentParser = new DocumentParser(parser, true);
         final DocumentParseInfo documentParseInfo;
         try {
-            DocumentParser documentParser = new DocumentParser(parser);
             documentParseInfo = documentParser.parse(Optional.of(docId)).get();
         } catch (IOException e) {
             state = END_OF_FEED;
             throw new RuntimeException(e);
         }
         documentParseInfo.operationType = operationType;
-        VespaJsonDocumentReader vespaJsonDocumentReader = new VespaJsonDocumentReader();
-        DocumentOperation operation = vespaJsonDocumentReader.createDocumentOperation(
-                getDocumentTypeFromString(documentParseInfo.documentId.getDocType(), typeManager), documentParseInfo);
-        operation.setCondition(TestAndSetCondition.fromConditionString(documentParseInfo.condition));
-        return operation;
+        return createDocumentOperation(documentParser, documentParseInfo);
     }
 
     /** Returns the next document operation, or null if we have reached the end */
@@ -91,9 +87,10 @@ public class JsonReader {
             case READING:
                 break;
         }
+        DocumentParser documentParser = new DocumentParser(parser, true);
         Optional<DocumentParseInfo> documentParseInfo;
         try {
-            documentParseInfo = parseDocument();
+            documentParseInfo = documentParser.parse(Optional.empty());
         } catch (IOException r) {
             // Jackson is not able to recover from structural parse errors
             state = END_OF_FEED;
@@ -103,14 +100,49 @@ public class JsonReader {
             state = END_OF_FEED;
             return null;
         }
+        return createDocumentOperation(documentParser, documentParseInfo.get());
+    }
+
+    /**
+     * Creates the operation of a parsed document. If the fields of the document are streamed, they are
+     * read from the parser here, after which the rest of the document is parsed.
+     */
+    private DocumentOperation createDocumentOperation(DocumentParser documentParser, DocumentParseInfo documentParseInfo) {
         VespaJsonDocumentReader vespaJsonDocumentReader = new VespaJsonDocumentReader();
-        DocumentOperation operation = vespaJsonDocumentReader.createDocumentOperation(
-                getDocumentTypeFromString(documentParseInfo.get().documentId.getDocType(), typeManager),
-                documentParseInfo.get());
-        operation.setCondition(TestAndSetCondition.fromConditionString(documentParseInfo.get().condition));
+        DocumentOperation operation;
+        try {
+            operation = vespaJsonDocumentReader.createDocumentOperation(
+                    getDocumentTypeFromString(documentParseInfo.documentId.getDocType(), typeManager), documentParseInfo);
+        } catch (RuntimeException e) {
+            if (documentParseInfo.fieldsBuffer.isStreaming())
+                skipRemaining(documentParser, documentParseInfo); // so that the next operation can be read
+            throw e;
+        }
+        if (documentParseInfo.fieldsBuffer.isStreaming()) {
+            parseRemaining(documentParser, documentParseInfo);
+            vespaJsonDocumentReader.setCreateIfNonExistent(operation, documentParseInfo);
+        }
+        operation.setCondition(TestAndSetCondition.fromConditionString(documentParseInfo.condition));
         return operation;
     }
 
+    private void parseRemaining(DocumentParser documentParser, DocumentParseInfo documentParseInfo) {
+        try {
+            documentParser.parseRemaining(documentParseInfo);
+        } catch (IOException e) {
+            // Jackson is not able to recover from structural parse errors
+            state = END_OF_FEED;
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void skipRemaining(DocumentParser documentParser, DocumentParseInfo documentParseInfo) {
+        try {
+            documentParser.parseRemaining(documentParseInfo);
+        } catch (IOException | RuntimeException e) {
+            state = END_OF_FEED;
+        }
+    }
 
     public DocumentType readDocumentType(DocumentId docId) {
         return getDocumentTypeFromString(docId.getDocType(), typeManager);
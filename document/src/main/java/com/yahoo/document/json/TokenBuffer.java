@@ -12,6 +12,9 @@ import com.google.common.base.Preconditions;
 
 /**
  * Helper class to enable lookahead in the token stream.
+ * <p>
+ * A token buffer either holds all the tokens of a JSON struct, or streams the tokens of a struct directly from
+ * a parser, in which case tokens are only buffered when lookahead is requested.
  *
  * @author Steinar Knutsen
  */
@@ -32,22 +35,52 @@ public class TokenBuffer {
     private Deque<Token> buffer;
     private int nesting = 0;
 
+    /** The parser tokens are read from when the buffer is empty, or null if this only reads buffered tokens */
+    private final JsonParser source;
+
+    /** Whether the end of the struct streamed from the source has been passed */
+    private boolean sourceEnd = false;
+
     public TokenBuffer() {
         this(new ArrayDeque<>());
     }
 
     private TokenBuffer(Deque<Token> buffer) {
         this.buffer = buffer;
+        this.source = null;
         if (buffer.size() > 0) {
             updateNesting(buffer.peekFirst().token);
         }
     }
 
+    private TokenBuffer(JsonParser source) {
+        Preconditions.checkArgument(source.currentToken() != null && source.currentToken().isStructStart(),
+                                    "Expected start of JSON struct, got %s.", source.currentToken());
+        this.buffer = new ArrayDeque<>();
+        this.source = source;
+        updateNesting(source.currentToken());
+    }
+
+    /**
+     * Returns a token buffer which reads the JSON struct starting at the current token of the given parser
+     * directly from the parser, without buffering tokens unless lookahead is requested.
+     * The parser is not advanced past the end of the struct.
+     */
+    public static TokenBuffer streaming(JsonParser parser) {
+        return new TokenBuffer(parser);
+    }
+
+    /** Returns whether this reads tokens directly from a parser */
+    public boolean isStreaming() { return source != null; }
+
     /** Returns whether any tokens are available in this */
     public boolean isEmpty() { return size() == 0; }
 
     public JsonToken next() {
-        buffer.removeFirst();
+        if ( ! buffer.isEmpty())
+            buffer.removeFirst();
+        if (readsFromSource())
+            return nextFromSource();
         Token t = buffer.peekFirst();
         if (t == null) {
             return null;
@@ -58,6 +91,7 @@ public class TokenBuffer {
 
     /** Returns the current token without changing position, or null if none */
     public JsonToken currentToken() {
+        if (readsFromSource()) return sourceEnd ? null : source.currentToken();
         Token token = buffer.peekFirst();
         if (token == null) return null;
         return token.token;
@@ -65,6 +99,7 @@ public class TokenBuffer {
 
     /** Returns the current token name without changing position, or null if none */
     public String currentName() {
+        if (readsFromSource()) return sourceEnd ? null : currentNameFromSource();
         Token token = buffer.peekFirst();
         if (token == null) return null;
         return token.name;
@@ -72,15 +107,76 @@ public class TokenBuffer {
 
     /** Returns the current token text without changing position, or null if none */
     public String currentText() {
+        if (readsFromSource()) return sourceEnd ? null : currentTextFromSource();
         Token token = buffer.peekFirst();
         if (token == null) return null;
         return token.text;
     }
 
     public int size() {
+        if (readsFromSource()) return sourceEnd ? 0 : 1;
         return buffer.size();
     }
 
+    /** Skips all remaining tokens in this */
+    public void skipRemaining() {
+        while (next() != null) { }
+    }
+
+    private boolean readsFromSource() {
+        return source != null && buffer.isEmpty();
+    }
+
+    private JsonToken nextFromSource() {
+        if (sourceEnd || nesting == 0) { // the streamed struct is complete: Leave the parser at its end
+            sourceEnd = true;
+            return null;
+        }
+        JsonToken t = nextValue(source);
+        updateNesting(t);
+        return t;
+    }
+
+    private String currentNameFromSource() {
+        try {
+            return source.getCurrentName();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private String currentTextFromSource() {
+        try {
+            return source.getText();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * When streaming, reads the tokens following the current one from the source into the buffer,
+     * up to the end of the struct containing the current token, so that they can be looked ahead at.
+     */
+    private void bufferRestOfStruct() {
+        if ( ! isStreaming() || sourceEnd) return;
+        if (buffer.isEmpty())
+            addFromParser(source.currentToken(), source);
+
+        int barrier = nesting() - (buffer.peekFirst().token.isStructStart() ? 1 : 0);
+        int localNesting = nesting();
+        Iterator<Token> i = buffer.iterator();
+        i.next(); // the nesting effect of the current token is already included
+        while (i.hasNext()) {
+            localNesting += nestingOffset(i.next().token);
+            if (localNesting < barrier || localNesting == 0) return;
+        }
+        while (localNesting >= barrier && localNesting > 0) {
+            JsonToken t = nextValue(source);
+            addFromParser(t, source);
+            localNesting += nestingOffset(t);
+        }
+    }
+
     private void add(JsonToken token, String name, String text) {
         buffer.addLast(new Token(token, name, text));
     }
@@ -168,6 +264,7 @@ public class TokenBuffer {
     }
 
     public TokenBuffer prefetchCurrentElement() {
+        bufferRestOfStruct();
         Deque<Token> copy = new ArrayDeque<>();
 
         if (currentToken().isScalarValue()) {
@@ -187,6 +284,7 @@ public class TokenBuffer {
     }
 
     public Token prefetchScalar(String name) {
+        bufferRestOfStruct();
         int localNesting = nesting();
         int nestingBarrier = localNesting;
         Token toReturn = null;
@@ -4,6 +4,7 @@ package com.yahoo.document.json.document;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import com.yahoo.document.DocumentId;
+import com.yahoo.document.json.TokenBuffer;
 import com.yahoo.document.json.readers.DocumentParseInfo;
 
 import java.io.IOException;
@@ -27,10 +28,25 @@ public class DocumentParser {
     public static final String FIELDS = "fields";
     public static final String REMOVE = "remove";
     private final JsonParser parser;
+    private final boolean streamFields;
     private  long indentLevel;
+    private boolean docIdAndOperationIsSetExternally;
 
     public DocumentParser(JsonParser parser) {
+        this(parser, false);
+    }
+
+    /**
+     * Creates a document parser
+     *
+     * @param parser the parser to read from
+     * @param streamFields whether fields should be left to be read directly from the parser when the document id
+     *                     is known before them, rather than be buffered. If so, parsing stops at the fields,
+     *                     and {@link #parseRemaining} must be called after reading them.
+     */
+    public DocumentParser(JsonParser parser, boolean streamFields) {
         this.parser = parser;
+        this.streamFields = streamFields;
     }
 
     /**
@@ -39,12 +55,13 @@ public class DocumentParser {
      */
     public Optional<DocumentParseInfo> parse(Optional<DocumentId> documentIdArg) throws IOException {
         indentLevel = 0;
+        docIdAndOperationIsSetExternally = documentIdArg.isPresent();
         DocumentParseInfo documentParseInfo = new DocumentParseInfo();
         documentIdArg.ifPresent(documentId -> documentParseInfo.documentId = documentId);
         boolean foundItems = false;
         do {
-            foundItems |= parseOneItem(documentParseInfo, documentIdArg.isPresent() /* doc id set externally */);
-        } while (indentLevel > 0L);
+            foundItems |= parseOneItem(documentParseInfo);
+        } while (indentLevel > 0L && ! documentParseInfo.fieldsBuffer.isStreaming());
 
         if (documentParseInfo.documentId == null) {
             if (foundItems)
@@ -55,17 +72,28 @@ public class DocumentParser {
         return Optional.of(documentParseInfo);
     }
 
+    /**
+     * Parses the rest of a document whose fields are streamed, after the fields are read.
+     * Any fields which are not read are skipped.
+     */
+    public void parseRemaining(DocumentParseInfo documentParseInfo) throws IOException {
+        documentParseInfo.fieldsBuffer.skipRemaining();
+        processIndent(); // the end of the fields
+        while (indentLevel > 0L)
+            parseOneItem(documentParseInfo);
+    }
+
     /**
      * Parses one item from the stream.
      *
      * @return whether an item was found
      */
-    private boolean parseOneItem(DocumentParseInfo documentParseInfo, boolean docIdAndOperationIsSetExternally) throws IOException {
+    private boolean parseOneItem(DocumentParseInfo documentParseInfo) throws IOException {
         parser.nextValue();
         processIndent();
         if (parser.getCurrentName() == null) return false;
         if (indentLevel == 1L) {
-            handleIdentLevelOne(documentParseInfo, docIdAndOperationIsSetExternally);
+            handleIdentLevelOne(documentParseInfo);
         } else if (indentLevel == 2L) {
             handleIdentLevelTwo(documentParseInfo);
         }
@@ -93,8 +121,7 @@ public class DocumentParser {
         }
     }
 
-    private void handleIdentLevelOne(DocumentParseInfo documentParseInfo, boolean docIdAndOperationIsSetExternally)
-            throws IOException {
+    private void handleIdentLevelOne(DocumentParseInfo documentParseInfo) throws IOException {
         JsonToken currentToken = parser.getCurrentToken();
         if (currentToken == JsonToken.VALUE_TRUE || currentToken == JsonToken.VALUE_FALSE) {
             try {
@@ -126,8 +153,12 @@ public class DocumentParser {
             JsonToken currentToken = parser.getCurrentToken();
             // "fields" opens a dictionary and is therefore on level two which might be surprising.
             if (currentToken == JsonToken.START_OBJECT && FIELDS.equals(parser.getCurrentName())) {
-                documentParseInfo.fieldsBuffer.bufferObject(currentToken, parser);
-                processIndent();
+                if (streamFields && documentParseInfo.documentId != null) { // no lookahead needed to resolve the type
+                    documentParseInfo.fieldsBuffer = TokenBuffer.streaming(parser);
+                } else {
+                    documentParseInfo.fieldsBuffer.bufferObject(currentToken, parser);
+                    processIndent();
+                }
             }
         } catch (IOException e) {
             throw new RuntimeException("Got IO exception while parsing document", e);
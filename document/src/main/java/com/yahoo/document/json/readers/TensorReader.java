@@ -3,8 +3,10 @@ package com.yahoo.document.json.readers;
 
 import com.yahoo.document.datatypes.TensorFieldValue;
 import com.yahoo.document.json.TokenBuffer;
+import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.MappedTensor;
 import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
 
 import static com.yahoo.document.json.readers.JsonParserHelpers.*;
 
@@ -18,6 +20,7 @@ public class TensorReader {
     public static final String TENSOR_DIMENSIONS = "dimensions";
     public static final String TENSOR_CELLS = "cells";
     public static final String TENSOR_VALUE = "value";
+    public static final String TENSOR_VALUES = "values";
 
     public static void fillTensor(TokenBuffer buffer, TensorFieldValue tensorFieldValue) {
         Tensor.Builder tensorBuilder = Tensor.Builder.of(tensorFieldValue.getDataType().getTensorType());
@@ -27,6 +30,8 @@ public class TensorReader {
         for (buffer.next(); buffer.nesting() >= initNesting; buffer.next()) {
             if (TensorReader.TENSOR_CELLS.equals(buffer.currentName()))
                 readTensorCells(buffer, tensorBuilder);
+            else if (TensorReader.TENSOR_VALUES.equals(buffer.currentName()))
+                readTensorValues(buffer, tensorBuilder);
         }
         expectObjectEnd(buffer.currentToken());
         tensorFieldValue.assign(tensorBuilder.build());
@@ -50,13 +55,42 @@ public class TensorReader {
             if (TensorReader.TENSOR_ADDRESS.equals(currentName)) {
                 readTensorAddress(buffer, cellBuilder);
             } else if (TensorReader.TENSOR_VALUE.equals(currentName)) {
-                cellValue = Double.valueOf(buffer.currentText());
+                cellValue = Double.parseDouble(buffer.currentText());
             }
         }
         expectObjectEnd(buffer.currentToken());
         cellBuilder.value(cellValue);
     }
 
+    /**
+     * Reads the cell values of a dense tensor given as a flat array in row-major order of the dimensions,
+     * directly into the cells of the tensor builder.
+     */
+    public static void readTensorValues(TokenBuffer buffer, Tensor.Builder tensorBuilder) {
+        if ( ! (tensorBuilder instanceof IndexedTensor.BoundBuilder))
+            throw new IllegalArgumentException("The 'values' form can only be used with dense tensors, but got " +
+                                               tensorBuilder.type());
+        IndexedTensor.BoundBuilder boundBuilder = (IndexedTensor.BoundBuilder)tensorBuilder;
+        long size = 1;
+        for (TensorType.Dimension dimension : tensorBuilder.type().dimensions())
+            size *= dimension.size().get();
+
+        expectArrayStart(buffer.currentToken());
+        int initNesting = buffer.nesting();
+        long index = 0;
+        for (buffer.next(); buffer.nesting() >= initNesting; buffer.next()) {
+            expectScalarValue(buffer.currentToken());
+            if (index == size)
+                throw new IllegalArgumentException("A tensor of type " + tensorBuilder.type() + " must have " +
+                                                   size + " values, but got more");
+            boundBuilder.cellByDirectIndex(index++, Double.parseDouble(buffer.currentText()));
+        }
+        expectCompositeEnd(buffer.currentToken());
+        if (index != size)
+            throw new IllegalArgumentException("A tensor of type " + tensorBuilder.type() + " must have " +
+                                               size + " values, but got " + index);
+    }
+
     public static void readTensorAddress(TokenBuffer buffer, MappedTensor.Builder.CellBuilder cellBuilder) {
         expectObjectStart(buffer.currentToken());
         int initNesting = buffer.nesting();
@@ -18,6 +18,9 @@ public class AttributeNode implements ExpressionNode {
     private ExpressionNode value;
     private final List<Item> items = new ArrayList<Item>();
 
+    // The field path last resolved by this, reused when evaluating on documents of the same type
+    private volatile ResolvedFieldPath lastResolvedFieldPath = null;
+
     public AttributeNode(ExpressionNode value, List items) {
         this.value = value;
         for (Object obj : items) {
@@ -50,14 +53,13 @@ public class AttributeNode implements ExpressionNode {
 
     // Inherit doc from ExpressionNode.
     public Object evaluate(Context context) {
-        String pos = value.toString();
         Object obj = value.evaluate(context);
 
         StringBuilder builder = new StringBuilder();
         for (Item item : items) {
             if (obj == null) {
-                throw new IllegalStateException("Can not invoke '" + item + "' on '" + pos + "' because that term " +
-                                                "evaluated to null.");
+                throw new IllegalStateException("Can not invoke '" + item + "' on '" + positionOf(item) +
+                                                "' because that term evaluated to null.");
             }
             if (item.getType() != Item.FUNCTION) {
                 if (builder.length() > 0) {
@@ -73,8 +75,6 @@ public class AttributeNode implements ExpressionNode {
 
                 obj = evaluateFunction(item.getName(), obj);
             }
-
-            pos = pos + "." + item;
         }
 
         if (builder.length() > 0) {
@@ -83,6 +83,16 @@ public class AttributeNode implements ExpressionNode {
         return obj;
     }
 
+    /** Returns the string form of the term to which the given item of this is applied */
+    private String positionOf(Item item) {
+        StringBuilder position = new StringBuilder(value.toString());
+        for (Item preceding : items) {
+            if (preceding == item) break;
+            position.append(".").append(preceding);
+        }
+        return position.toString();
+    }
+
     public static class VariableValueList extends ArrayList<ResultList.VariableValue> {
 
     }
@@ -121,10 +131,10 @@ public class AttributeNode implements ExpressionNode {
         throw new IllegalStateException("Function '" + function + "' is not supported.");
     }
 
-    private static Object evaluateFieldPath(String fieldPth, Object value) {
+    private Object evaluateFieldPath(String fieldPth, Object value) {
         if (value instanceof DocumentPut) {
             final Document doc = ((DocumentPut) value).getDocument();
-            FieldPath fieldPath = doc.getDataType().buildFieldPath(fieldPth);
+            FieldPath fieldPath = resolveFieldPath(doc.getDataType(), fieldPth);
             IteratorHandler handler = new IteratorHandler();
             doc.iterateNested(fieldPath, 0, handler);
             if (handler.values.isEmpty()) {
@@ -139,6 +149,16 @@ public class AttributeNode implements ExpressionNode {
         return Result.FALSE;
     }
 
+    /** Returns the given field path in the given type, reusing the last resolved path if possible */
+    private FieldPath resolveFieldPath(DocumentType type, String path) {
+        ResolvedFieldPath resolved = lastResolvedFieldPath;
+        if (resolved == null || resolved.type != type || ! resolved.path.equals(path)) {
+            resolved = new ResolvedFieldPath(type, path, type.buildFieldPath(path));
+            lastResolvedFieldPath = resolved;
+        }
+        return resolved.fieldPath;
+    }
+
     private static Object evaluateFunction(String function, Object value) {
         if (value instanceof VariableValueList) {
             VariableValueList retVal = new VariableValueList();
@@ -206,4 +226,19 @@ public class AttributeNode implements ExpressionNode {
             return name + (type == FUNCTION ? "()" : "");
         }
     }
+
+    private static class ResolvedFieldPath {
+
+        private final DocumentType type;
+        private final String path;
+        private final FieldPath fieldPath;
+
+        ResolvedFieldPath(DocumentType type, String path, FieldPath fieldPath) {
+            this.type = type;
+            this.path = path;
+            this.fieldPath = fieldPath;
+        }
+
+    }
+
 }
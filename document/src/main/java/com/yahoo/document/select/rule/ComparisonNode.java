@@ -23,6 +23,9 @@ public class ComparisonNode implements ExpressionNode {
     // The operator string for this.
     private String operator;
 
+    // The pattern last compiled by this, reused as long as the right-hand-side is the same (typically a literal).
+    private volatile CompiledPattern lastPattern = null;
+
     /**
      * Constructs a new comparison node.
      *
@@ -386,11 +389,18 @@ public class ComparisonNode implements ExpressionNode {
     private Result evaluateString(Object lhs, Object rhs) {
         String left = "" + lhs; // Allows null objects to evaluate to string.
         String right = "" + rhs;
-        if (operator.equals("=~")) {
-            return Result.toResult(Pattern.compile(right).matcher(left).find());
-        } else {
-            return Result.toResult(Pattern.compile(globToRegex(right)).matcher(left).find());
+        return Result.toResult(patternOf(right).matcher(left).find());
+    }
+
+    /** Returns the compiled regex or glob pattern of the given right hand side, reusing the last one if possible */
+    private Pattern patternOf(String right) {
+        CompiledPattern compiled = lastPattern;
+        if (compiled == null || ! compiled.operator.equals(operator) || ! compiled.source.equals(right)) {
+            compiled = new CompiledPattern(operator, right,
+                                           Pattern.compile(operator.equals("=~") ? right : globToRegex(right)));
+            lastPattern = compiled;
         }
+        return compiled.pattern;
     }
 
     /**
@@ -449,4 +459,19 @@ public class ComparisonNode implements ExpressionNode {
     public String toString() {
         return lhs + " " + operator + " " + rhs;
     }
+
+    private static class CompiledPattern {
+
+        private final String operator;
+        private final String source;
+        private final Pattern pattern;
+
+        CompiledPattern(String operator, String source, Pattern pattern) {
+            this.operator = operator;
+            this.source = source;
+            this.pattern = pattern;
+        }
+
+    }
+
 }
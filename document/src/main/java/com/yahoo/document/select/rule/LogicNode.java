@@ -5,6 +5,7 @@ import com.yahoo.document.BucketIdFactory;
 import com.yahoo.document.select.BucketSet;
 import com.yahoo.document.select.Context;
 import com.yahoo.document.select.OrderingSpecification;
+import com.yahoo.document.select.Result;
 import com.yahoo.document.select.ResultList;
 import com.yahoo.document.select.Visitor;
 
@@ -32,6 +33,9 @@ public class LogicNode implements ExpressionNode {
     // The items contained in this.
     private final List<NodeItem> items = new ArrayList<NodeItem>();
 
+    // Whether this may bind field path variables, or null if not determined yet
+    private Boolean mayBindVariables = null;
+
     /**
      * Construct an empty logic expression.
      */
@@ -162,6 +166,58 @@ public class LogicNode implements ExpressionNode {
     // Inherit doc from ExpressionNode.
     @Override
     public Object evaluate(Context context) {
+        if (mayBindVariables())
+            return evaluateAll(context);
+
+        // Without variables every result pair is independent, so we can stop evaluating once the result is known
+        ResultList orValue = null; // the disjunction of the preceding and-groups
+        ResultList andValue = null; // the conjunction of the current and-group
+        for (NodeItem item : items) {
+            if (item.operator == OR) {
+                orValue = orValue == null ? andValue : orValue.combineOR(andValue);
+                andValue = null;
+                if (containsTrue(orValue)) return orValue;
+            }
+            else if (andValue != null && item.operator == AND && containsOnlyFalse(andValue)) {
+                continue; // the rest of this and-group cannot change its value
+            }
+
+            ResultList value = ResultList.toResultList(item.node.evaluate(context));
+            if (andValue == null)
+                andValue = value;
+            else if (item.operator == AND)
+                andValue = andValue.combineAND(value);
+            else
+                throw new IllegalStateException("Arithmetic operator " + item.operator + " not supported.");
+        }
+        return orValue == null ? andValue : orValue.combineOR(andValue);
+    }
+
+    /**
+     * Returns whether this may bind field path variables, in which case all items must be evaluated
+     * as the variables of each result affect how it is combined with the others.
+     */
+    private boolean mayBindVariables() {
+        if (mayBindVariables == null)
+            mayBindVariables = toString().indexOf('$') >= 0; // conservative: Also true for '$' in literals
+        return mayBindVariables;
+    }
+
+    private static boolean containsTrue(ResultList value) {
+        for (ResultList.ResultPair pair : value.getResults())
+            if (pair.getResult() == Result.TRUE) return true;
+        return false;
+    }
+
+    private static boolean containsOnlyFalse(ResultList value) {
+        if (value.getResults().isEmpty()) return false;
+        for (ResultList.ResultPair pair : value.getResults())
+            if (pair.getResult() != Result.FALSE) return false;
+        return true;
+    }
+
+    /** Evaluates all the items of this using a stack */
+    private Object evaluateAll(Context context) {
         Stack<ValueItem> buf = new Stack<>();
         for (NodeItem item : items) {
             if ( ! buf.isEmpty()) {
@@ -0,0 +1,80 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.serialization;
+
+import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.document.Field;
+import com.yahoo.document.datatypes.FieldValue;
+import com.yahoo.io.GrowableByteBuffer;
+
+/**
+ * The serialized form, on the current head format, of a struct field value which is deserialized on first access.
+ * This is thread safe.
+ *
+ * @author agent
+ */
+public final class SerializedFieldValue {
+
+    private final DocumentTypeManager manager;
+    private final byte[] data;
+    private final int offset;
+    private final int length;
+
+    /** The deserialized value of this, or null if it is not deserialized yet */
+    private FieldValue value = null;
+
+    /**
+     * Creates a serialized field value
+     *
+     * @param manager the document type manager to use when deserializing
+     * @param data the array containing the serialized value. This must not be modified after this call
+     * @param offset the offset of the serialized value in the data array
+     * @param length the length of the serialized value in bytes
+     */
+    public SerializedFieldValue(DocumentTypeManager manager, byte[] data, int offset, int length) {
+        this.manager = manager;
+        this.data = data;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Returns the value of this as a value of the given field, which is deserialized on the first call.
+     * All calls return the same instance.
+     */
+    public synchronized FieldValue getValue(Field field) {
+        if (value == null)
+            value = deserialize(field);
+        return value;
+    }
+
+    /**
+     * Returns whether the value of this has been deserialized. If not, the value is known to be unmodified
+     * since it was serialized.
+     */
+    public synchronized boolean isDeserialized() {
+        return value != null;
+    }
+
+    /** Returns a serialized value of the same bytes as this, which is not deserialized */
+    public SerializedFieldValue copy() {
+        return new SerializedFieldValue(manager, data, offset, length);
+    }
+
+    private FieldValue deserialize(Field field) {
+        FieldValue value = field.getDataType().createFieldValue();
+        VespaDocumentDeserializerHead deserializer =
+                new VespaDocumentDeserializerHead(manager, GrowableByteBuffer.wrap(data, offset, length));
+        deserializer.setLazyFieldDeserialization(true);
+        value.deserialize(field, deserializer);
+        return value;
+    }
+
+    /** Writes the serialized bytes of this to the given buffer */
+    public void writeTo(GrowableByteBuffer buffer) {
+        buffer.put(data, offset, length);
+    }
+
+    /** Returns the length of this in bytes */
+    public int length() { return length; }
+
+}
@@ -36,6 +36,7 @@ import com.yahoo.document.datatypes.IntegerFieldValue;
 import com.yahoo.document.datatypes.LongFieldValue;
 import com.yahoo.document.datatypes.MapFieldValue;
 import com.yahoo.document.datatypes.PredicateFieldValue;
+import com.yahoo.document.datatypes.PrimitiveList;
 import com.yahoo.document.datatypes.Raw;
 import com.yahoo.document.datatypes.ReferenceFieldValue;
 import com.yahoo.document.datatypes.StringFieldValue;
@@ -90,6 +91,7 @@ public class VespaDocumentDeserializer42 extends VespaDocumentSerializer42 imple
     private List<SpanNode> spanNodes;
     private List<Annotation> annotations;
     private int[] stringPositions;
+    private boolean lazyFieldDeserialization = false;
 
     VespaDocumentDeserializer42(DocumentTypeManager manager, GrowableByteBuffer header, GrowableByteBuffer body, short version) {
         super(header);
@@ -108,6 +110,15 @@ public class VespaDocumentDeserializer42 extends VespaDocumentSerializer42 imple
 
     final public DocumentTypeManager getDocumentTypeManager() { return manager; }
 
+    /**
+     * Sets whether struct fields (including document fields) on the current serialization version should be
+     * kept serialized until they are accessed, rather than be deserialized when the struct is read.
+     * Default is false.
+     */
+    void setLazyFieldDeserialization(boolean lazyFieldDeserialization) {
+        this.lazyFieldDeserialization = lazyFieldDeserialization;
+    }
+
     public void read(Document document) {
          read(null, document);
     }
@@ -166,6 +177,10 @@ public class VespaDocumentDeserializer42 extends VespaDocumentSerializer42 imple
 
     public <T extends FieldValue> void read(FieldBase field, Array<T> array) {
         int numElements = getNumCollectionElems();
+        if (version >= 7 && array.getValues() instanceof PrimitiveList) {
+            readPrimitives(numElements, (PrimitiveList<T>) array.getValues());
+            return;
+        }
         ArrayList<T> list = new ArrayList<T>(numElements);
         ArrayDataType type = array.getDataType();
         for (int i = 0; i < numElements; i++) {
@@ -180,6 +195,35 @@ public class VespaDocumentDeserializer42 extends VespaDocumentSerializer42 imple
         array.addAll(list);
     }
 
+    /** Reads array elements directly into a primitive list, without creating field values */
+    private void readPrimitives(int numElements, PrimitiveList<?> values) {
+        values.clear();
+        values.ensureCapacity(numElements);
+        if (values instanceof PrimitiveList.Ints) {
+            PrimitiveList.Ints ints = (PrimitiveList.Ints) values;
+            for (int i = 0; i < numElements; i++)
+                ints.addInt(getInt(null));
+        } else if (values instanceof PrimitiveList.Longs) {
+            PrimitiveList.Longs longs = (PrimitiveList.Longs) values;
+            for (int i = 0; i < numElements; i++)
+                longs.addLong(getLong(null));
+        } else if (values instanceof PrimitiveList.Floats) {
+            PrimitiveList.Floats floats = (PrimitiveList.Floats) values;
+            for (int i = 0; i < numElements; i++)
+                floats.addFloat(getFloat(null));
+        } else if (values instanceof PrimitiveList.Doubles) {
+            PrimitiveList.Doubles doubles = (PrimitiveList.Doubles) values;
+            for (int i = 0; i < numElements; i++)
+                doubles.addDouble(getDouble(null));
+        } else if (values instanceof PrimitiveList.Bytes) {
+            PrimitiveList.Bytes bytes = (PrimitiveList.Bytes) values;
+            for (int i = 0; i < numElements; i++)
+                bytes.addByte(getByte(null));
+        } else {
+            throw new IllegalArgumentException("Unknown primitive list " + values.getClass());
+        }
+    }
+
     public <K extends FieldValue, V extends FieldValue> void read(FieldBase field, MapFieldValue<K, V> map) {
         int numElements = getNumCollectionElems();
         Map<K,V> hash = new HashMap<>();
@@ -358,11 +402,16 @@ public class VespaDocumentDeserializer42 extends VespaDocumentSerializer42 imple
 
         s.clear();
         StructDataType type = s.getDataType();
+        boolean lazy = lazyFieldDeserialization && version == Document.SERIALIZED_VERSION;
         for (int i=0; i<numberOfFields; ++i) {
             Field structField = type.getField(fieldIdsAndLengths.get(i).first, version);
             if (structField == null) {
                 //ignoring unknown field:
                 position(position() + fieldIdsAndLengths.get(i).second.intValue());
+            } else if (lazy) {
+                int length = fieldIdsAndLengths.get(i).second.intValue();
+                s.setSerializedFieldValue(structField, new SerializedFieldValue(manager, destination, position(), length));
+                position(position() + length);
             } else {
                 int posBefore = position();
                 FieldValue value = structField.getDataType().createFieldValue();
@@ -121,12 +121,43 @@ public class VespaDocumentSerializer42 extends BufferSerializer implements Docum
         buf.putInt1_2_4Bytes(array.size());
 
         List<T> lst = array.getValues();
+        if (lst instanceof PrimitiveList) {
+            writePrimitives((PrimitiveList<T>) lst);
+            return;
+        }
         for (FieldValue value : lst) {
             value.serialize(this);
         }
 
     }
 
+    /** Writes the values of a primitive list directly, without creating field values */
+    private void writePrimitives(PrimitiveList<?> values) {
+        if (values instanceof PrimitiveList.Ints) {
+            PrimitiveList.Ints ints = (PrimitiveList.Ints) values;
+            for (int i = 0; i < ints.size(); i++)
+                buf.putInt(ints.getInt(i));
+        } else if (values instanceof PrimitiveList.Longs) {
+            PrimitiveList.Longs longs = (PrimitiveList.Longs) values;
+            for (int i = 0; i < longs.size(); i++)
+                buf.putLong(longs.getLong(i));
+        } else if (values instanceof PrimitiveList.Floats) {
+            PrimitiveList.Floats floats = (PrimitiveList.Floats) values;
+            for (int i = 0; i < floats.size(); i++)
+                buf.putFloat(floats.getFloat(i));
+        } else if (values instanceof PrimitiveList.Doubles) {
+            PrimitiveList.Doubles doubles = (PrimitiveList.Doubles) values;
+            for (int i = 0; i < doubles.size(); i++)
+                buf.putDouble(doubles.getDouble(i));
+        } else if (values instanceof PrimitiveList.Bytes) {
+            PrimitiveList.Bytes bytes = (PrimitiveList.Bytes) values;
+            for (int i = 0; i < bytes.size(); i++)
+                buf.put(bytes.getByte(i));
+        } else {
+            throw new IllegalArgumentException("Unknown primitive list " + values.getClass());
+        }
+    }
+
     public <K extends FieldValue, V extends FieldValue> void write(FieldBase field, MapFieldValue<K, V> map) {
         buf.putInt1_2_4Bytes(map.size());
         for (Map.Entry<K, V> e : map.entrySet()) {
@@ -313,7 +344,11 @@ public class VespaDocumentSerializer42 extends BufferSerializer implements Docum
         for (Map.Entry<Field, FieldValue> value : s.getFields()) {
 
             int startPos = buffer.position();
-            value.getValue().serialize(value.getKey(), this);
+            SerializedFieldValue serializedValue = s.getSerializedFieldValue(value.getKey());
+            if (serializedValue != null) // never deserialized, so unmodified: Copy the original bytes
+                serializedValue.writeTo(buffer);
+            else
+                value.getValue().serialize(value.getKey(), this);
 
             fieldLengths.add(buffer.position() - startPos);
             fieldIds.add(value.getKey().getId(s.getVersion()));
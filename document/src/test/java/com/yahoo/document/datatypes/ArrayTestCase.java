@@ -269,4 +269,59 @@ public class ArrayTestCase {
         assertTrue(Arrays.equals(expected, array.toArray(new StringFieldValue[0])));
     }
 
+    @Test
+    public void testNumericArrayIsStoredAsPrimitives() {
+        Array<FloatFieldValue> array = new Array<>(DataType.getArray(DataType.FLOAT));
+        assertTrue(array.getValues() instanceof PrimitiveList.Floats);
+        array.add(new FloatFieldValue(1.0f));
+        array.add(new FloatFieldValue(3.0f));
+        array.add(1, new FloatFieldValue(2.0f));
+        assertEquals(Arrays.asList(new FloatFieldValue(1.0f), new FloatFieldValue(2.0f), new FloatFieldValue(3.0f)),
+                     array.getValues());
+        assertTrue(array.contains(new FloatFieldValue(2.0f)));
+        assertEquals(2, array.indexOf(new FloatFieldValue(3.0f)));
+
+        array.get(0).assign(5.0f); // elements are backed by the array
+        assertEquals(new FloatFieldValue(5.0f), array.get(0));
+        assertEquals(5.0f, ((PrimitiveList.Floats) array.getValues()).getFloat(0), 0);
+        FloatFieldValue iterated = array.iterator().next();
+        assertSame(array.get(0), iterated);
+        iterated.assign(6.0f);
+        assertEquals(new FloatFieldValue(6.0f), array.get(0));
+
+        FloatFieldValue replaced = array.get(0);
+        FloatFieldValue added = new FloatFieldValue(7.0f);
+        assertEquals(new FloatFieldValue(6.0f), array.set(0, added));
+        added.assign(8.0f); // added values are copied
+        replaced.assign(9.0f); // replaced elements are no longer backed by the array
+        assertEquals(new FloatFieldValue(7.0f), array.get(0));
+
+        FloatFieldValue last = array.get(2);
+        array.remove(0);
+        last.assign(10.0f); // elements follow their value when others are removed
+        assertEquals(new FloatFieldValue(10.0f), array.get(1));
+        array.add(0, new FloatFieldValue(7.0f));
+        last.assign(3.0f); // and when others are inserted
+        assertEquals(Arrays.asList(new FloatFieldValue(7.0f), new FloatFieldValue(2.0f), new FloatFieldValue(3.0f)),
+                     array.getValues());
+
+        Array<FloatFieldValue> clone = array.clone();
+        assertEquals(array, clone);
+        assertEquals(new FloatFieldValue(2.0f), array.remove(1));
+        assertEquals(2, array.size());
+        assertEquals(3, clone.size());
+        assertFalse(array.equals(clone));
+
+        try {
+            array.get(2);
+            fail("Expected an exception");
+        } catch (IndexOutOfBoundsException e) {
+            assertEquals("Index: 2, size: 2", e.getMessage());
+        }
+
+        Array<FloatFieldValue> fieldValueArray = new Array<>(DataType.getArray(DataType.FLOAT));
+        fieldValueArray.assign(Arrays.asList(7.0f, 3.0f));
+        assertEquals(fieldValueArray, array);
+    }
+
 }
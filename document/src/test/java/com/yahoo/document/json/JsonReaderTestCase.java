@@ -150,6 +150,8 @@ public class JsonReaderTestCase {
                                  new TensorDataType(new TensorType.Builder().mapped("x").mapped("y").build())));
             x.addField(new Field("indexedtensorfield",
                                  new TensorDataType(new TensorType.Builder().indexed("x").indexed("y").build())));
+            x.addField(new Field("densetensorfield",
+                                 new TensorDataType(new TensorType.Builder().indexed("x", 2).indexed("y", 3).build())));
             types.registerDocumentType(x);
         }
         {
@@ -789,6 +791,48 @@ public class JsonReaderTestCase {
     }
 
 
+    @Test
+    public final void testStreamedUpdateMatch() {
+        InputStream rawDoc = new ByteArrayInputStream(
+                Utf8.toBytes("[{\"update\": \"id:unittest:testset::whee\","
+                        + " \"fields\": { \"actualset\": {"
+                        + " \"match\": { \"element\": \"person\", \"increment\": 13 }}},"
+                        + " \"create\": true},"
+                        + "{\"remove\": \"id:unittest:smoke::whee\"}]"));
+        JsonReader r = new JsonReader(types, rawDoc, parserFactory);
+
+        DocumentUpdate update = (DocumentUpdate) r.next();
+        MapValueUpdate match = (MapValueUpdate) update.getFieldUpdate("actualset").getValueUpdate(0);
+        assertEquals(new StringFieldValue("person"), match.getValue());
+        assertEquals(13.0, ((ArithmeticValueUpdate) match.getUpdate()).getOperand().doubleValue(), 0.0);
+        assertThat(update.getCreateIfNonExistent(), is(true));
+
+        assertTrue(r.next() instanceof DocumentRemove);
+        assertNull(r.next());
+    }
+
+    @Test
+    public final void testReadingContinuesAfterFailingOperation() {
+        InputStream rawDoc = new ByteArrayInputStream(
+                Utf8.toBytes("[{\"put\": \"id:unittest:smoke::whee\","
+                        + " \"fields\": { \"nosuchfield\": { \"a\": [ 1, 2 ] },"
+                        + " \"something\": \"smoketest\"},"
+                        + " \"condition\": \"bla\"},"
+                        + "{\"put\": \"id:unittest:smoke::whee\","
+                        + " \"fields\": { \"something\": \"smoketest\","
+                        + " \"nalle\": \"bamse\"}}]"));
+        JsonReader r = new JsonReader(types, rawDoc, parserFactory);
+        try {
+            r.next();
+            fail("Expected exception");
+        }
+        catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("nosuchfield"));
+        }
+        smokeTestDoc(((DocumentPut) r.next()).getDocument());
+        assertNull(r.next());
+    }
+
     @Test(expected=RuntimeException.class)
     public final void testCreateIfNonExistentInPut() {
         InputStream rawDoc = new ByteArrayInputStream(
@@ -1217,6 +1261,26 @@ public class JsonReaderTestCase {
         assertTrue(tensor instanceof IndexedTensor); // this matters for performance
     }
 
+    @Test
+    public void testParsingOfDenseTensorWithValues() {
+        Tensor tensor = assertTensorField("tensor(x[2],y[3]):{{x:0,y:0}:1.0,{x:0,y:1}:2.0,{x:0,y:2}:3.0," +
+                                                             "{x:1,y:0}:4.0,{x:1,y:1}:5.0,{x:1,y:2}:6.0}",
+                                          createPutWithTensor("{ \"values\": [ 1.0, 2.0, 3, 4.0, 5, 6.0 ] }",
+                                                              "densetensorfield"), "densetensorfield");
+        assertTrue(tensor instanceof IndexedTensor);
+    }
+
+    @Test
+    public void testParsingOfDenseTensorWithTooFewValues() {
+        try {
+            createPutWithTensor("{ \"values\": [ 1.0, 2.0, 3.0 ] }", "densetensorfield");
+            fail("Expected exception");
+        }
+        catch (JsonReaderException e) {
+            assertEquals("A tensor of type tensor(x[2],y[3]) must have 6 values, but got 3", e.getCause().getMessage());
+        }
+    }
+
     @Test
     public void testParsingOfTensorWithSingleCellInDifferentJsonOrder() {
         assertMappedTensorField("{{x:a,y:b}:2.0}",
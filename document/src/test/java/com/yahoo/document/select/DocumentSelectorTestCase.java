@@ -702,6 +702,29 @@ public class DocumentSelectorTestCase {
         assertEquals(Result.FALSE, evaluate("test.structarrmap{$x}.key == 17 AND test.stringweightedset{$x}", documents.get(1)));
     }
 
+    @Test
+    public void testLogicalExpressionsOnlyEvaluateWhatIsNeeded() throws ParseException {
+        List<DocumentPut> documents = createDocs();
+        assertEquals(Result.FALSE, evaluate("false and null.hash() == 1", documents.get(0)));
+        assertEquals(Result.TRUE, evaluate("true or null.hash() == 1", documents.get(0)));
+        assertEquals(Result.TRUE, evaluate("false and null.hash() == 1 or true", documents.get(0)));
+        assertEquals(Result.TRUE, evaluate("test.hstring == \"foo\" or null.hash() == 1 and true", documents.get(0)));
+        assertError("true and null.hash() == 1", documents.get(0), "Can not invoke 'hash()' on 'null'");
+        assertError("false or null.hash() == 1", documents.get(0), "Can not invoke 'hash()' on 'null'");
+        assertError("false and true or null.hash() == 1", documents.get(0), "Can not invoke 'hash()' on 'null'");
+    }
+
+    @Test
+    public void testSelectorCanBeReusedOverDocuments() throws ParseException {
+        List<DocumentPut> documents = createDocs();
+        DocumentSelector selector = new DocumentSelector("test.hstring = \"*o*\" or test.hstring =~ \"^Y\"");
+        assertEquals(Result.TRUE, selector.accepts(documents.get(0)));
+        assertEquals(Result.FALSE, selector.accepts(documents.get(1)));
+        assertEquals(Result.TRUE, selector.accepts(documents.get(3)));
+        assertEquals(Result.TRUE, selector.accepts(documents.get(0)));
+        assertEquals(Result.INVALID, selector.accepts(documents.get(7)));
+    }
+
     @Test
     public void testTicket1769674() {
         assertParseError("music.uri=\"junk",
@@ -11,16 +11,33 @@ import com.yahoo.document.DocumentTypeManager;
 import com.yahoo.document.Field;
 import com.yahoo.document.MapDataType;
 import com.yahoo.document.StructDataType;
+import com.yahoo.document.datatypes.Array;
+import com.yahoo.document.datatypes.ByteFieldValue;
+import com.yahoo.document.datatypes.DoubleFieldValue;
+import com.yahoo.document.datatypes.FieldValue;
+import com.yahoo.document.datatypes.FloatFieldValue;
 import com.yahoo.document.datatypes.IntegerFieldValue;
+import com.yahoo.document.datatypes.LongFieldValue;
 import com.yahoo.document.datatypes.MapFieldValue;
 import com.yahoo.document.datatypes.PredicateFieldValue;
+import com.yahoo.document.datatypes.PrimitiveList;
 import com.yahoo.document.datatypes.StringFieldValue;
 import com.yahoo.document.datatypes.Struct;
 import com.yahoo.io.GrowableByteBuffer;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -57,6 +74,46 @@ public class VespaDocumentSerializerTestCase {
         Mockito.verify(predicate, Mockito.times(1)).serialize(Mockito.same(field), Mockito.any(FieldWriter.class));
     }
 
+    @Test
+    public void numeric_arrays_are_serialized_from_and_deserialized_to_primitives() {
+        DocumentTypeManager manager = new DocumentTypeManager();
+        DocumentType docType = new DocumentType("numeric_arrays");
+        docType.addField("ints", DataType.getArray(DataType.INT));
+        docType.addField("longs", DataType.getArray(DataType.LONG));
+        docType.addField("floats", DataType.getArray(DataType.FLOAT));
+        docType.addField("doubles", DataType.getArray(DataType.DOUBLE));
+        docType.addField("bytes", DataType.getArray(DataType.BYTE));
+        docType.addField("strings", DataType.getArray(DataType.STRING));
+        manager.register(docType);
+
+        Document doc = new Document(docType, "id:ns:numeric_arrays::0");
+        Array<IntegerFieldValue> ints = new Array<>(docType.getField("ints").getDataType());
+        Array<LongFieldValue> longs = new Array<>(docType.getField("longs").getDataType());
+        Array<FloatFieldValue> floats = new Array<>(docType.getField("floats").getDataType());
+        Array<DoubleFieldValue> doubles = new Array<>(docType.getField("doubles").getDataType());
+        Array<ByteFieldValue> bytes = new Array<>(docType.getField("bytes").getDataType());
+        Array<StringFieldValue> strings = new Array<>(docType.getField("strings").getDataType());
+        for (int i = 0; i < 1000; i++) {
+            ints.add(new IntegerFieldValue(i - 500));
+            longs.add(new LongFieldValue(Long.MAX_VALUE - i));
+            floats.add(new FloatFieldValue(i / 3.0f));
+            doubles.add(new DoubleFieldValue(i / 7.0));
+            bytes.add(new ByteFieldValue((byte)i));
+            strings.add(new StringFieldValue("s" + i));
+        }
+        doc.setFieldValue("ints", ints);
+        doc.setFieldValue("longs", longs);
+        doc.setFieldValue("floats", floats);
+        doc.setFieldValue("doubles", doubles);
+        doc.setFieldValue("bytes", bytes);
+        doc.setFieldValue("strings", strings);
+
+        Document result = manager.createDocument(CompressionFixture.asSerialized(doc));
+        assertEquals(doc, result);
+        assertTrue(((Array<?>)result.getFieldValue("floats")).getValues() instanceof PrimitiveList.Floats);
+        assertEquals(new LongFieldValue(Long.MAX_VALUE - 999), ((Array<?>)result.getFieldValue("longs")).get(999));
+    }
+
     static class CompressionFixture {
 
         static final String COMPRESSABLE_STRING = "zippy zip mc zippington the 3rd zippy zip";
@@ -129,4 +186,99 @@ public class VespaDocumentSerializerTestCase {
         // rounded up to 4096 bytes.
         assertTrue(buf.remaining() < 4096);
     }
+
+    @Test
+    public void lazily_deserialized_fields_are_deserialized_on_access() {
+        CompressionFixture fixture = new CompressionFixture();
+        Document doc = createMapOfStructsDocument(fixture);
+        Document lazyDoc = new Document(DocumentDeserializerFactory.createLazyHead(fixture.manager,
+                                                                                  CompressionFixture.asSerialized(doc)));
+
+        Field mapField = fixture.docType.getField("map");
+        assertNotNull(lazyDoc.getHeader().getSerializedFieldValue(mapField));
+        assertEquals(1, lazyDoc.getFieldCount());
+        assertEquals(doc.getFieldValue(mapField), lazyDoc.getFieldValue(mapField));
+        assertNull(lazyDoc.getHeader().getSerializedFieldValue(mapField));
+        assertEquals(doc, lazyDoc);
+    }
+
+    @Test
+    public void unaccessed_lazily_deserialized_fields_are_serialized_by_copying() {
+        CompressionFixture fixture = new CompressionFixture();
+        Document doc = createMapOfStructsDocument(fixture);
+        GrowableByteBuffer serialized = CompressionFixture.asSerialized(doc);
+        byte[] original = new byte[serialized.remaining()];
+        serialized.get(original);
+        serialized.flip();
+
+        Document lazyDoc = new Document(DocumentDeserializerFactory.createLazyHead(fixture.manager, serialized));
+        GrowableByteBuffer reserialized = CompressionFixture.asSerialized(lazyDoc);
+        byte[] copy = new byte[reserialized.remaining()];
+        reserialized.get(copy);
+        assertArrayEquals(original, copy);
+        assertNotNull(lazyDoc.getHeader().getSerializedFieldValue(fixture.docType.getField("map")));
+        assertEquals(doc, fixture.roundtripSerialize(lazyDoc));
+    }
+
+    @Test
+    public void modified_lazily_deserialized_fields_are_serialized() {
+        CompressionFixture fixture = new CompressionFixture();
+        Document doc = createMapOfStructsDocument(fixture);
+        Document lazyDoc = new Document(DocumentDeserializerFactory.createLazyHead(fixture.manager,
+                                                                                  CompressionFixture.asSerialized(doc)));
+        @SuppressWarnings("unchecked")
+        MapFieldValue<StringFieldValue, Struct> map = (MapFieldValue<StringFieldValue, Struct>)lazyDoc.getFieldValue("map");
+        map.remove(new StringFieldValue("bar"));
+        Document result = fixture.roundtripSerialize(lazyDoc);
+        assertEquals(1, ((MapFieldValue<?, ?>)result.getFieldValue("map")).size());
+        assertEquals(lazyDoc, result);
+    }
+
+    @Test
+    public void lazily_deserialized_fields_can_be_read_concurrently() throws Exception {
+        CompressionFixture fixture = new CompressionFixture();
+        Document doc = createMapOfStructsDocument(fixture);
+        Field mapField = fixture.docType.getField("map");
+        for (int round = 0; round < 20; round++) {
+            Document lazyDoc = new Document(DocumentDeserializerFactory.createLazyHead(fixture.manager,
+                                                                                      CompressionFixture.asSerialized(doc)));
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            List<Future<FieldValue>> reads = new ArrayList<>();
+            for (int i = 0; i < 4; i++)
+                reads.add(executor.submit(() -> lazyDoc.getFieldValue(mapField)));
+            for (Future<FieldValue> read : reads)
+                assertSame(reads.get(0).get(), read.get());
+            executor.shutdown();
+            assertEquals(doc.getFieldValue(mapField), reads.get(0).get());
+        }
+    }
+
+    @Test
+    public void clones_of_lazily_deserialized_documents_are_independent() {
+        CompressionFixture fixture = new CompressionFixture();
+        Document doc = createMapOfStructsDocument(fixture);
+        Document lazyDoc = new Document(DocumentDeserializerFactory.createLazyHead(fixture.manager,
+                                                                                  CompressionFixture.asSerialized(doc)));
+        Document clone = lazyDoc.clone();
+        ((MapFieldValue<?, ?>)lazyDoc.getFieldValue("map")).remove(new StringFieldValue("bar"));
+        assertEquals(2, ((MapFieldValue<?, ?>)clone.getFieldValue("map")).size());
+        assertEquals(doc, clone);
+
+        Document cloneOfAccessed = lazyDoc.clone();
+        ((MapFieldValue<?, ?>)lazyDoc.getFieldValue("map")).remove(new StringFieldValue("foo"));
+        assertEquals(1, ((MapFieldValue<?, ?>)cloneOfAccessed.getFieldValue("map")).size());
+    }
+
+    private static Document createMapOfStructsDocument(CompressionFixture fixture) {
+        Document doc = new Document(fixture.docType, "id:foo:map_of_structs::flarn");
+        Struct nested = new Struct(fixture.nestedType);
+        nested.setFieldValue("str", new StringFieldValue(CompressionFixture.COMPRESSABLE_STRING));
+
+        MapFieldValue<StringFieldValue, Struct> map = new MapFieldValue<StringFieldValue, Struct>(fixture.mapType);
+        map.put(new StringFieldValue("foo"), nested);
+        map.put(new StringFieldValue("bar"), nested);
+        doc.setFieldValue("map", map);
+        return doc;
+    }
+
 }
@@ -0,0 +1,162 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.models.evaluation;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.ExpressionCompiler;
+import com.yahoo.searchlib.rankingexpression.rule.CompositeNode;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.searchlib.rankingexpression.rule.ReferenceNode;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * An evaluator which evaluates a function returning a double over a batch of rows of double input values.
+ * <p>
+ * If the function only consists of operations on doubles, it is compiled once by the {@link ExpressionCompiler},
+ * and the compiled form is evaluated column by column: Each operation of the function, and of the functions it
+ * references, is computed over all the rows in a single loop over primitive arrays.
+ * Otherwise each row is evaluated separately in a context.
+ * <p>
+ * This is immutable and multithread safe, and should be reused for all evaluations of the function.
+ * Usage: <code>double[] scores = model.batchEvaluatorOf("myFunction").evaluate(columns)</code>, where columns holds
+ * an array of values for each variable, indexed by variable name.
+ *
+ * @author agent
+ */
+public class BatchEvaluator {
+
+    private final ExpressionFunction function;
+    private final LazyArrayContext contextPrototype;
+    private final Model model;
+
+    /** The variables which can be bound in this */
+    private final ImmutableSet<String> variables;
+
+    /** The compiled function, or null if it cannot be compiled */
+    private final ExpressionCompiler.Evaluator compiled;
+
+    /**
+     * The compiled functions referenced by the function, each following the functions it references,
+     * indexed by the index of their value. Null if the function cannot be compiled.
+     */
+    private final ImmutableMap<Integer, ExpressionCompiler.Evaluator> compiledReferences;
+
+    BatchEvaluator(ExpressionFunction function, LazyArrayContext contextPrototype, Model model) {
+        this.function = function;
+        this.contextPrototype = contextPrototype;
+        this.model = model;
+
+        ImmutableSet.Builder<String> variables = new ImmutableSet.Builder<>();
+        for (String name : contextPrototype.names())
+            if ( ! FunctionReference.fromSerial(name).isPresent())
+                variables.add(name);
+        this.variables = variables.build();
+
+        ExpressionCompiler.Evaluator compiled = null;
+        ImmutableMap<Integer, ExpressionCompiler.Evaluator> compiledReferences = null;
+        try {
+            // Use the indexes of the context prototype, as optimized functions may refer to values by index
+            Map<String, Integer> nameToIndex = new HashMap<>();
+            for (String name : contextPrototype.names())
+                nameToIndex.put(name, contextPrototype.getIndex(name));
+            ExpressionCompiler compiler = new ExpressionCompiler();
+            Map<Integer, ExpressionCompiler.Evaluator> references = new LinkedHashMap<>();
+            compileReferences(function.getBody().getRoot(), compiler, nameToIndex, references);
+            compiled = compiler.compile(function.getBody().getRoot(), nameToIndex);
+            compiledReferences = ImmutableMap.copyOf(references);
+        }
+        catch (UnsupportedOperationException e) {
+            // Evaluate each row in a context
+        }
+        this.compiled = compiled;
+        this.compiledReferences = compiledReferences;
+    }
+
+    /** Compiles the functions referenced from the given node, such that each follows the functions it references */
+    private void compileReferences(ExpressionNode node, ExpressionCompiler compiler, Map<String, Integer> nameToIndex,
+                                   Map<Integer, ExpressionCompiler.Evaluator> references) {
+        if (node instanceof ReferenceNode) {
+            Optional<FunctionReference> reference = FunctionReference.fromSerial(node.toString());
+            if ( ! reference.isPresent()) return;
+            Integer index = nameToIndex.get(reference.get().serialForm());
+            if (index == null)
+                throw new UnsupportedOperationException("'" + node + "' is not bound");
+            if (references.containsKey(index)) return;
+            ExpressionNode body = model.requireReferencedFunction(reference.get()).getBody().getRoot();
+            compileReferences(body, compiler, nameToIndex, references);
+            references.put(index, compiler.compile(body, nameToIndex));
+        }
+        else if (node instanceof CompositeNode) {
+            for (ExpressionNode child : ((CompositeNode)node).children())
+                compileReferences(child, compiler, nameToIndex, references);
+        }
+    }
+
+    /** Returns the names of the variables which may be bound in evaluations of this */
+    public Set<String> variables() { return variables; }
+
+    /**
+     * Evaluates the function of this over a batch of rows.
+     *
+     * @param columns the values of each variable in each row, indexed by variable name.
+     *                All the columns must have the same length, which is the number of rows.
+     *                Variables which are not given are 0 in all rows. The columns are not modified.
+     * @return the value of the function for each row
+     * @throws IllegalArgumentException if a column is given for a variable not present in the function,
+     *                                  or the columns have different lengths
+     */
+    public double[] evaluate(Map<String, double[]> columns) {
+        int rows = validate(columns);
+        if (compiled != null)
+            return evaluateCompiled(columns, rows);
+
+        LazyArrayContext context = contextPrototype.copy();
+        double[] result = new double[rows];
+        for (int row = 0; row < rows; row++) {
+            for (Map.Entry<String, double[]> column : columns.entrySet())
+                context.put(column.getKey(), new DoubleValue(column.getValue()[row]));
+            context.clearComputedValues();
+            result[row] = function.getBody().evaluate(context).asDouble();
+        }
+        return result;
+    }
+
+    private double[] evaluateCompiled(Map<String, double[]> columns, int rows) {
+        double[][] columnValues = new double[contextPrototype.size()][];
+        for (Map.Entry<String, double[]> column : columns.entrySet())
+            columnValues[contextPrototype.getIndex(column.getKey())] = column.getValue();
+        for (Map.Entry<Integer, ExpressionCompiler.Evaluator> reference : compiledReferences.entrySet())
+            columnValues[reference.getKey()] = reference.getValue().evaluate(columnValues, rows);
+
+        double[] result = compiled.evaluate(columnValues, rows);
+        for (double[] column : columns.values())
+            if (result == column) return result.clone(); // the function returns an input variable as-is
+        return result;
+    }
+
+    private int validate(Map<String, double[]> columns) {
+        int rows = -1;
+        for (Map.Entry<String, double[]> column : columns.entrySet()) {
+            if ( ! variables.contains(column.getKey()))
+                throw new IllegalArgumentException("Value '" + column.getKey() + "' can not be bound in " + this +
+                                                   ". Variables: " + variables);
+            if (rows >= 0 && rows != column.getValue().length)
+                throw new IllegalArgumentException("All columns must have the same length, but '" + column.getKey() +
+                                                   "' has " + column.getValue().length + " values, while the previous " +
+                                                   "columns have " + rows);
+            rows = column.getValue().length;
+        }
+        return Math.max(rows, 0);
+    }
+
+    @Override
+    public String toString() { return "batch evaluator of " + function + " in " + model; }
+
+}
@@ -0,0 +1,153 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.models.evaluation;
+
+import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.rule.CompositeNode;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.searchlib.rankingexpression.rule.ReferenceNode;
+import com.yahoo.searchlib.rankingexpression.rule.TensorFunctionNode;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Replaces tensor expressions which occur multiple times in the functions of a model by references to
+ * a new function computing the expression. As referenced functions are computed at most once per evaluation
+ * (see {@link LazyValue}), each such expression is then computed once per evaluation, rather than once per occurrence.
+ * <p>
+ * Only tensor function expressions are shared, as it is cheaper to recompute scalar expressions than to look them up.
+ *
+ * @author agent
+ */
+class CommonSubexpressionEliminator {
+
+    private static final String sharedFunctionPrefix = "shared_expression_";
+
+    private final List<ExpressionFunction> functions;
+    private final Map<FunctionReference, ExpressionFunction> referencedFunctions;
+
+    private final Set<String> functionNames = new HashSet<>();
+
+    /** Creates an eliminator operating on copies of the given functions */
+    CommonSubexpressionEliminator(Collection<ExpressionFunction> functions,
+                                  Map<FunctionReference, ExpressionFunction> referencedFunctions) {
+        this.functions = new ArrayList<>(functions);
+        this.referencedFunctions = new LinkedHashMap<>(referencedFunctions);
+        functions.forEach(function -> functionNames.add(function.getName()));
+        referencedFunctions.keySet().forEach(reference -> functionNames.add(reference.functionName()));
+    }
+
+    /** Replaces all shared tensor expressions by references to functions, starting with the largest ones */
+    void eliminate() {
+        Optional<ExpressionNode> shared;
+        while ((shared = largestSharedExpression()).isPresent()) {
+            String name = uniqueFunctionName();
+            FunctionReference reference = FunctionReference.fromSerial("rankingExpression(" + name + ")").get();
+            ReferenceNode referenceNode = new ReferenceNode("rankingExpression",
+                                                            Collections.singletonList(new ReferenceNode(name)),
+                                                            null);
+
+            // Functions may share bodies (a free function is also referenceable), so keep them shared when replacing
+            Map<RankingExpression, RankingExpression> replacedBodies = new IdentityHashMap<>();
+            for (int i = 0; i < functions.size(); i++)
+                functions.set(i, replace(functions.get(i), shared.get(), referenceNode, replacedBodies));
+            for (Map.Entry<FunctionReference, ExpressionFunction> function : referencedFunctions.entrySet())
+                function.setValue(replace(function.getValue(), shared.get(), referenceNode, replacedBodies));
+            referencedFunctions.put(reference,
+                                    new ExpressionFunction(reference.serialForm(),
+                                                           Collections.emptyList(),
+                                                           new RankingExpression(name, shared.get())));
+        }
+    }
+
+    /** Returns the free functions of this, where shared expressions are replaced */
+    List<ExpressionFunction> functions() { return functions; }
+
+    /** Returns the referenced functions of this, including the functions computing shared expressions */
+    Map<FunctionReference, ExpressionFunction> referencedFunctions() { return referencedFunctions; }
+
+    /** Returns the longest tensor expression occurring at least twice in the distinct function bodies, if any */
+    private Optional<ExpressionNode> largestSharedExpression() {
+        Map<ExpressionNode, Integer> occurrences = new HashMap<>();
+        for (RankingExpression body : distinctBodies())
+            countTensorExpressions(body.getRoot(), true, occurrences);
+
+        ExpressionNode largest = null;
+        int largestLength = 0;
+        for (Map.Entry<ExpressionNode, Integer> expression : occurrences.entrySet()) {
+            if (expression.getValue() < 2) continue;
+            int length = expression.getKey().toString().length();
+            if (length > largestLength) {
+                largest = expression.getKey();
+                largestLength = length;
+            }
+        }
+        return Optional.ofNullable(largest);
+    }
+
+    /** Counts the tensor expressions in the given node, except the node itself if it is the root of a function */
+    private void countTensorExpressions(ExpressionNode node, boolean isRoot, Map<ExpressionNode, Integer> occurrences) {
+        if (node instanceof TensorFunctionNode && ! isRoot)
+            occurrences.merge(node, 1, Integer::sum);
+        if (node instanceof CompositeNode)
+            for (ExpressionNode child : ((CompositeNode)node).children())
+                countTensorExpressions(child, false, occurrences);
+    }
+
+    private ExpressionFunction replace(ExpressionFunction function, ExpressionNode expression, ExpressionNode replacement,
+                                      Map<RankingExpression, RankingExpression> replacedBodies) {
+        RankingExpression body = function.getBody();
+        if (body.getRoot().equals(expression)) return function; // this function computes the shared expression
+        RankingExpression replacedBody = replacedBodies.computeIfAbsent(body, __ -> replace(body, expression, replacement));
+        if (replacedBody == body) return function;
+        return function.withBody(replacedBody);
+    }
+
+    private RankingExpression replace(RankingExpression body, ExpressionNode expression, ExpressionNode replacement) {
+        ExpressionNode replacedRoot = replace(body.getRoot(), expression, replacement);
+        if (replacedRoot == body.getRoot()) return body;
+        return new RankingExpression(body.getName(), replacedRoot);
+    }
+
+    /** Returns the given node with all occurrences of the given expression replaced, or the node itself if none */
+    private ExpressionNode replace(ExpressionNode node, ExpressionNode expression, ExpressionNode replacement) {
+        if (node.equals(expression)) return replacement;
+        if ( ! (node instanceof CompositeNode)) return node;
+
+        CompositeNode composite = (CompositeNode)node;
+        boolean replaced = false;
+        List<ExpressionNode> children = new ArrayList<>();
+        for (ExpressionNode child : composite.children()) {
+            ExpressionNode replacedChild = replace(child, expression, replacement);
+            replaced |= replacedChild != child;
+            children.add(replacedChild);
+        }
+        return replaced ? composite.setChildren(children) : node;
+    }
+
+    /** Returns the bodies of all the functions of this, where a body shared by multiple functions is included once */
+    private Set<RankingExpression> distinctBodies() {
+        Set<RankingExpression> bodies = Collections.newSetFromMap(new IdentityHashMap<>());
+        functions.forEach(function -> bodies.add(function.getBody()));
+        referencedFunctions.values().forEach(function -> bodies.add(function.getBody()));
+        return bodies;
+    }
+
+    private String uniqueFunctionName() {
+        for (int i = 0; ; i++) {
+            String name = sharedFunctionPrefix + i;
+            if (functionNames.add(name)) return name;
+        }
+    }
+
+}
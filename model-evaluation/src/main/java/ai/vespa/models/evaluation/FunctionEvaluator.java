@@ -6,6 +6,8 @@ import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * An evaluator which can be used to evaluate a single function once.
  *
@@ -49,6 +51,17 @@ public class FunctionEvaluator {
         return bind(name, Tensor.Builder.of(TensorType.empty).cell(value).build());
     }
 
+    /**
+     * Sets the pool to use to evaluate large dense tensor functions in parallel, or null (default) to
+     * evaluate everything in the calling thread.
+     *
+     * @return this for chaining
+     */
+    public FunctionEvaluator executor(ForkJoinPool executor) {
+        context.setExecutor(executor);
+        return this;
+    }
+
     public Tensor evaluate() {
         evaluated = true;
         return function.getBody().evaluate(context).asTensor();
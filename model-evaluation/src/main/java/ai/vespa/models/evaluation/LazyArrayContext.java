@@ -120,6 +120,14 @@ final class LazyArrayContext extends Context implements ContextIndex {
         return new LazyArrayContext(indexedBindings);
     }
 
+    /**
+     * Discards the values computed by the functions referenced in this, such that they are computed again
+     * from the current values when used. This allows reusing this for another evaluation after re-binding values.
+     */
+    void clearComputedValues() {
+        indexedBindings.clearComputedValues();
+    }
+
     private static class IndexedBindings {
 
         /** The mapping from variable name to index */
@@ -201,6 +209,12 @@ final class LazyArrayContext extends Context implements ContextIndex {
         Set<String> names() { return nameToIndex.keySet(); }
         Integer indexOf(String name) { return nameToIndex.get(name); }
 
+        void clearComputedValues() {
+            for (Value value : values)
+                if (value instanceof LazyValue)
+                    ((LazyValue)value).clearComputedValue();
+        }
+
         IndexedBindings copy(Context context) {
             Value[] valueCopy = new Value[values.length];
             for (int i = 0; i < values.length; i++)
@@ -38,7 +38,11 @@ public class Model {
     }
 
     Model(String name, Collection<ExpressionFunction> functions, Map<FunctionReference, ExpressionFunction> referencedFunctions) {
-        // TODO: Optimize functions
+        CommonSubexpressionEliminator eliminator = new CommonSubexpressionEliminator(functions, referencedFunctions);
+        eliminator.eliminate();
+        functions = eliminator.functions();
+        referencedFunctions = eliminator.referencedFunctions();
+
         this.name = name;
         this.functions = ImmutableList.copyOf(functions);
 
@@ -55,9 +59,11 @@ public class Model {
 
         ImmutableMap.Builder<FunctionReference, ExpressionFunction> functionsBuilder = new ImmutableMap.Builder<>();
         for (Map.Entry<FunctionReference, ExpressionFunction> function : referencedFunctions.entrySet()) {
-            ExpressionFunction optimizedFunction = optimize(function.getValue(),
-                                                            contextPrototypes.get(function.getKey().functionName()));
-            functionsBuilder.put(function.getKey(), optimizedFunction);
+            LazyArrayContext contextPrototype = contextPrototypes.get(function.getKey().functionName());
+            if (contextPrototype == null) // a shared expression, which is a tensor expression not subject to optimization
+                functionsBuilder.put(function.getKey(), function.getValue());
+            else
+                functionsBuilder.put(function.getKey(), optimize(function.getValue(), contextPrototype));
         }
         this.referencedFunctions = functionsBuilder.build();
     }
@@ -126,6 +132,19 @@ public class Model {
         return new FunctionEvaluator(requireFunction(function), requireContextProprotype(function).copy());
     }
 
+    /**
+     * Returns an evaluator which can be used to evaluate the given function over batches of rows of double values.
+     * The returned evaluator is multithread safe and should be reused.
+     *
+     * Usage:
+     * <code>double[] result = model.batchEvaluatorOf("myFunction").evaluate(columns)</code>
+     *
+     * @throws IllegalArgumentException if the function is not present
+     */
+    public BatchEvaluator batchEvaluatorOf(String function) {
+        return new BatchEvaluator(requireFunction(function), requireContextProprotype(function), this);
+    }
+
     @Override
     public String toString() { return "model '" + name + "'"; }
 
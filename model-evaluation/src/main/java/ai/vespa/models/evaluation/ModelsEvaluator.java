@@ -34,6 +34,16 @@ public class ModelsEvaluator {
         return requireModel(modelName).evaluatorOf(functionName);
     }
 
+    /**
+     * Returns a multithread safe evaluator which can be used to evaluate the given function in the given model
+     * over batches of rows of double values
+     *
+     * @throws IllegalArgumentException if the function or model is not present
+     */
+    public BatchEvaluator batchEvaluatorOf(String modelName, String functionName) {
+        return requireModel(modelName).batchEvaluatorOf(functionName);
+    }
+
     /** Returns the given model, or throws a IllegalArgumentException if it does not exist */
     Model requireModel(String name) {
         Model model = models.get(name);
@@ -1,14 +1,22 @@
 // Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package ai.vespa.models.evaluation;
 
+import com.google.common.collect.ImmutableSet;
 import com.yahoo.config.subscription.ConfigGetter;
 import com.yahoo.config.subscription.FileSource;
+import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.parser.ParseException;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.vespa.config.search.RankProfilesConfig;
 import org.junit.Test;
 
 import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 /**
@@ -42,6 +50,100 @@ public class ModelsEvaluatorTest {
         assertEquals(32.0, function.evaluate().asDouble(), delta);
     }
 
+    @Test
+    public void testBatchEvaluation() {
+        ModelsEvaluator models = createModels();
+        BatchEvaluator function = models.batchEvaluatorOf("macros", "secondphase");
+        assertEquals(ImmutableSet.of("match", "rankBoost"), function.variables());
+        Map<String, double[]> columns = new HashMap<>();
+        columns.put("match", new double[] { 3, 1, 0 });
+        columns.put("rankBoost", new double[] { 5, 2, -1 });
+        assertArrayEquals(new double[] { 32.0, 12.0, -4.0 }, function.evaluate(columns), delta);
+        assertArrayEquals(new double[] { 32.0, 12.0, -4.0 }, function.evaluate(columns), delta); // reusable
+    }
+
+    @Test
+    public void testBatchEvaluationEqualsSingleEvaluation() {
+        ModelsEvaluator models = createModels();
+        BatchEvaluator batchEvaluator = models.batchEvaluatorOf("macros", "firstphase");
+        Map<String, double[]> columns = new HashMap<>();
+        columns.put("match", new double[] { 3, 0.5 });
+        columns.put("fieldMatch(title)", new double[] { 0.5, 0.25 });
+        columns.put("fieldMatch(title).completeness", new double[] { 0.7, 1.0 });
+        columns.put("fieldMatch(title).earliness", new double[] { 0.1, 0.9 });
+        columns.put("fieldMatch(description).earliness", new double[] { 0.3, 0.0 });
+        double[] result = batchEvaluator.evaluate(columns);
+        for (int row = 0; row < 2; row++) {
+            FunctionEvaluator function = models.evaluatorOf("macros", "firstphase");
+            for (Map.Entry<String, double[]> column : columns.entrySet())
+                function.bind(column.getKey(), column.getValue()[row]);
+            assertEquals(function.evaluate().asDouble(), result[row], delta);
+        }
+    }
+
+    @Test
+    public void testBatchEvaluationOfNonVectorizableFunction() throws ParseException {
+        ExpressionFunction function = new ExpressionFunction("test", Collections.emptyList(),
+                                                             new RankingExpression("if (a in [\"foo\", 2], 1, 0) + a"));
+        Model model = new Model("test", Collections.singletonList(function));
+        Map<String, double[]> columns = new HashMap<>();
+        columns.put("a", new double[] { 1, 2, 3 });
+        assertArrayEquals(new double[] { 1, 3, 3 }, model.batchEvaluatorOf("test").evaluate(columns), delta);
+    }
+
+    @Test
+    public void testBatchEvaluationOfNonVectorizableFunctionWithReferencedFunction() throws ParseException {
+        FunctionReference reference = FunctionReference.fromSerial("rankingExpression(double)").get();
+        Map<FunctionReference, ExpressionFunction> referencedFunctions = new HashMap<>();
+        referencedFunctions.put(reference, new ExpressionFunction(reference.serialForm(), Collections.emptyList(),
+                                                                  new RankingExpression("a * 2")));
+        ExpressionFunction function = new ExpressionFunction("test", Collections.emptyList(),
+                                                             new RankingExpression("if (a in [\"foo\", 2], 1, 0) + " +
+                                                                                   "rankingExpression(double)"));
+        Model model = new Model("test", Collections.singletonList(function), referencedFunctions);
+        Map<String, double[]> columns = new HashMap<>();
+        columns.put("a", new double[] { 1, 2, 3 });
+        assertArrayEquals("Referenced functions are computed for each row",
+                          new double[] { 2, 5, 6 }, model.batchEvaluatorOf("test").evaluate(columns), delta);
+    }
+
+    @Test
+    public void testSharedTensorExpressions() throws ParseException {
+        String product = "join(var1, var2, f(a,b)(a * b))";
+        ExpressionFunction function = new ExpressionFunction("test", Collections.emptyList(),
+                                                             new RankingExpression("reduce(" + product + ", sum) + " +
+                                                                                   "reduce(" + product + ", max)"));
+        Model model = new Model("test", Collections.singletonList(function));
+        assertEquals("reduce(rankingExpression(shared_expression_0), sum) + reduce(rankingExpression(shared_expression_0), max)",
+                     model.requireFunction("test").getBody().getRoot().toString());
+        assertEquals(1, model.referencedFunctions().size());
+
+        FunctionEvaluator evaluator = model.evaluatorOf("test");
+        evaluator.bind("var1", Tensor.from("{{x:0}:3,{x:1}:5}"));
+        evaluator.bind("var2", Tensor.from("{{x:0}:7,{x:1}:11}"));
+        assertEquals(21 + 55 + 55, evaluator.evaluate().asDouble(), delta);
+    }
+
+    @Test
+    public void testSingleUseTensorExpressionInReferenceableFunctionIsNotShared() throws ParseException {
+        String expression = "reduce(join(var1, var2, f(a,b)(a * b)), sum)";
+        RankingExpression body = new RankingExpression(expression);
+        ExpressionFunction function = new ExpressionFunction("test", Collections.emptyList(), body);
+        FunctionReference reference = FunctionReference.fromSerial("rankingExpression(test)").get();
+        Map<FunctionReference, ExpressionFunction> referencedFunctions = new HashMap<>();
+        referencedFunctions.put(reference, new ExpressionFunction(reference.serialForm(), Collections.emptyList(), body));
+        Model model = new Model("test", Collections.singletonList(function), referencedFunctions);
+        assertEquals(expression, model.requireFunction("test").getBody().getRoot().toString());
+        assertEquals(1, model.referencedFunctions().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBatchEvaluationWithUnknownVariable() {
+        Map<String, double[]> columns = new HashMap<>();
+        columns.put("nosuch", new double[] { 1 });
+        createModels().batchEvaluatorOf("macros", "secondphase").evaluate(columns);
+    }
+
     // TODO: Test argument-less function
     // TODO: Test that binding nonexisting variable doesn't work
     // TODO: Test that rebinding doesn't work
@@ -54,6 +54,12 @@ public abstract class AbstractArrayContext extends Context implements Cloneable,
     protected final double[] doubleValues() { return indexedBindings.doubleValues(); }
     protected final boolean ignoreUnknownValues() { return ignoreUnknownValues; }
 
+    /**
+     * Returns whether all the values of this are currently double values, such that doubleValues()
+     * holds their exact values. This default implementation returns false.
+     */
+    protected boolean hasOnlyDoubleValues() { return false; }
+
     @Override
     public Set<String> names() {
         return indexedBindings.names();
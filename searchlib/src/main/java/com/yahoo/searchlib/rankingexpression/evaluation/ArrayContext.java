@@ -19,6 +19,9 @@ public class ArrayContext extends AbstractArrayContext implements Cloneable {
     /** The current values set */
     private Value[] values;
 
+    /** The number of values currently set which are not DoubleValues */
+    private int nonDoubleValues = 0;
+
     private static DoubleValue constantZero = DoubleValue.frozen(0);
 
     /**
@@ -73,7 +76,11 @@ public class ArrayContext extends AbstractArrayContext implements Cloneable {
      * The value will be frozen if it isn't already.
      */
     public final void put(int index, Value value) {
+        if ( ! (values[index] instanceof DoubleValue))
+            nonDoubleValues--;
         values[index] = value.freeze();
+        if ( ! (values[index] instanceof DoubleValue))
+            nonDoubleValues++;
         try {
             doubleValues()[index] = value.asDouble();
         }
@@ -82,6 +89,9 @@ public class ArrayContext extends AbstractArrayContext implements Cloneable {
         }
     }
 
+    @Override
+    protected final boolean hasOnlyDoubleValues() { return nonDoubleValues == 0; }
+
     @Override
     public TensorType getType(Reference reference) {
         Integer index = nameToIndex().get(reference.toString());
@@ -119,7 +129,8 @@ public class ArrayContext extends AbstractArrayContext implements Cloneable {
     public ArrayContext clone() {
         ArrayContext clone = (ArrayContext)super.clone();
         clone.values = new Value[nameToIndex().size()];
-        Arrays.fill(values, constantZero);
+        Arrays.fill(clone.values, constantZero);
+        clone.nonDoubleValues = 0;
         return clone;
     }
 
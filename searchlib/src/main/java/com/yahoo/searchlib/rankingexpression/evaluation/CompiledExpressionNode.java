@@ -0,0 +1,82 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation;
+
+import com.yahoo.searchlib.rankingexpression.Reference;
+import com.yahoo.searchlib.rankingexpression.rule.CompositeNode;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.searchlib.rankingexpression.rule.SerializationContext;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.TypeContext;
+
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * An expression compiled by {@link ExpressionCompiler} to operate directly on the double values of an array context.
+ * <p>
+ * When evaluated with an array context holding only double values this evaluates the compiled form,
+ * without creating any intermediate values. Otherwise it evaluates the expression it was compiled from,
+ * which is its only child. This serializes to the same string as the expression it was compiled from.
+ *
+ * @author agent
+ */
+public final class CompiledExpressionNode extends CompositeNode {
+
+    /** The compiled form of the expression, or null if this was deserialized or its expression was replaced */
+    private final transient ExpressionCompiler.Evaluator compiled;
+
+    /** The expression this was compiled from */
+    private final ExpressionNode expression;
+
+    CompiledExpressionNode(ExpressionCompiler.Evaluator compiled, ExpressionNode expression) {
+        this.compiled = compiled;
+        this.expression = expression;
+    }
+
+    /**
+     * Evaluates the compiled form of this.
+     *
+     * @param values the values of the variables of this, indexed as in the context used to compile this
+     * @throws IllegalStateException if this has no compiled form
+     */
+    public double evaluate(double[] values) {
+        if (compiled == null)
+            throw new IllegalStateException("The compiled form of '" + expression + "' is not available");
+        return compiled.evaluate(values);
+    }
+
+    @Override
+    public Value evaluate(Context context) {
+        if (compiled != null && context instanceof AbstractArrayContext) {
+            AbstractArrayContext arrayContext = (AbstractArrayContext)context;
+            if (arrayContext.hasOnlyDoubleValues())
+                return new DoubleValue(compiled.evaluate(arrayContext.doubleValues()));
+        }
+        return expression.evaluate(context);
+    }
+
+    @Override
+    public List<ExpressionNode> children() { return Collections.singletonList(expression); }
+
+    /**
+     * Returns a copy of this where the expression is replaced. As the compiled form is not
+     * a compilation of the new expression, the copy has no compiled form and always evaluates the expression.
+     */
+    @Override
+    public CompiledExpressionNode setChildren(List<ExpressionNode> children) {
+        if (children.size() != 1)
+            throw new IllegalArgumentException("Expected 1 child but got " + children.size());
+        if (children.get(0) == expression) return this;
+        return new CompiledExpressionNode(null, children.get(0));
+    }
+
+    @Override
+    public TensorType type(TypeContext<Reference> context) { return expression.type(context); }
+
+    @Override
+    public StringBuilder toString(StringBuilder string, SerializationContext context, Deque<String> path, CompositeNode parent) {
+        return expression.toString(string, context, path, parent);
+    }
+
+}
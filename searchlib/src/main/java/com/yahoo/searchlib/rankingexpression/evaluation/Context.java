@@ -8,7 +8,9 @@ import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.evaluation.EvaluationContext;
 
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 /**
@@ -18,6 +20,8 @@ import java.util.stream.Collectors;
  */
 public abstract class Context implements EvaluationContext<Reference> {
 
+    private ForkJoinPool executor = null;
+
     /**
      * Returns the value of a simple variable name.
      *
@@ -35,6 +39,15 @@ public abstract class Context implements EvaluationContext<Reference> {
     @Override
     public Tensor getTensor(String name) { return get(name).asTensor(); }
 
+    /**
+     * Sets the pool to use to evaluate large dense tensor functions in parallel in this context,
+     * or null (default) to evaluate everything in the calling thread.
+     */
+    public void setExecutor(ForkJoinPool executor) { this.executor = executor; }
+
+    @Override
+    public Optional<ForkJoinPool> executor() { return Optional.ofNullable(executor); }
+
     /**
      * <p>Returns the value of a <i>structured variable</i> on the form
      * <code>name(argument*)(.output)?</code>, where <i>argument</i> is any
@@ -68,6 +68,10 @@ public class DoubleOnlyArrayContext extends AbstractArrayContext {
         }
     }
 
+    /** Returns true, as this only holds double values */
+    @Override
+    protected final boolean hasOnlyDoubleValues() { return true; }
+
     @Override
     public TensorType getType(Reference reference) {
         return TensorType.empty; // Double only
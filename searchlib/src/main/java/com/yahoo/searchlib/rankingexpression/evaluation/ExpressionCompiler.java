@@ -0,0 +1,430 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation;
+
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTForestNode;
+import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTNode;
+import com.yahoo.searchlib.rankingexpression.rule.ArithmeticNode;
+import com.yahoo.searchlib.rankingexpression.rule.ArithmeticOperator;
+import com.yahoo.searchlib.rankingexpression.rule.ComparisonNode;
+import com.yahoo.searchlib.rankingexpression.rule.ConstantNode;
+import com.yahoo.searchlib.rankingexpression.rule.EmbracedNode;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.searchlib.rankingexpression.rule.Function;
+import com.yahoo.searchlib.rankingexpression.rule.FunctionNode;
+import com.yahoo.searchlib.rankingexpression.rule.IfNode;
+import com.yahoo.searchlib.rankingexpression.rule.NegativeNode;
+import com.yahoo.searchlib.rankingexpression.rule.NotNode;
+import com.yahoo.searchlib.rankingexpression.rule.ReferenceNode;
+import com.yahoo.searchlib.rankingexpression.rule.SetMembershipNode;
+import com.yahoo.searchlib.rankingexpression.rule.TruthOperator;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Compiles expressions which only operate on doubles into a tree of evaluators which reads variables
+ * directly from the double values of an array context, and replaces the root of the expression by a
+ * {@link CompiledExpressionNode} holding the result.
+ * <p>
+ * Compiled expressions do not create any values or other objects during evaluation, and constant subexpressions
+ * are evaluated once during compilation. They can also be evaluated over a batch of rows given as columns of
+ * values, where each operation is computed over all the rows in a single loop.
+ * Expressions containing tensor or string values, or any other kind of node which cannot be evaluated as a double, are left as-is.
+ * <p>
+ * This should run after the GBDT optimizers, as the trees they produce are evaluated as part of the compiled expression.
+ *
+ * @author agent
+ */
+public class ExpressionCompiler extends Optimizer {
+
+    @Override
+    public void optimize(RankingExpression expression, ContextIndex context, OptimizationReport report) {
+        if ( ! isEnabled()) return;
+        if (expression.getRoot() instanceof CompiledExpressionNode) return;
+
+        if ( ! (context instanceof AbstractArrayContext)) {
+            report.note("Can not compile expressions for a context which is not an array context: " + context);
+            return;
+        }
+        try {
+            Evaluator compiled = compile(expression.getRoot(), ((AbstractArrayContext)context).nameToIndex());
+            expression.setRoot(new CompiledExpressionNode(compiled, expression.getRoot()));
+            report.incMetric("Compiled expressions", 1);
+            report.note("Expression compilation done");
+        }
+        catch (UnsupportedOperationException e) {
+            report.note("Can not compile " + expression + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns an evaluator of the given node
+     *
+     * @param nameToIndex the index of the value of each variable in the values passed to the returned evaluator
+     * @throws UnsupportedOperationException if the node cannot be compiled
+     */
+    public Evaluator compile(ExpressionNode node, Map<String, Integer> nameToIndex) {
+        if (node instanceof ConstantNode)
+            return compileConstant((ConstantNode)node);
+        if (node instanceof ReferenceNode)
+            return compileReference((ReferenceNode)node, nameToIndex);
+        if (node instanceof EmbracedNode)
+            return compile(((EmbracedNode)node).getValue(), nameToIndex);
+        if (node instanceof NegativeNode)
+            return compileNegative(compile(((NegativeNode)node).getValue(), nameToIndex));
+        if (node instanceof NotNode)
+            return compileNot(compile(((NotNode)node).getValue(), nameToIndex));
+        if (node instanceof ArithmeticNode)
+            return compileArithmetic((ArithmeticNode)node, nameToIndex);
+        if (node instanceof ComparisonNode)
+            return compileComparison((ComparisonNode)node, nameToIndex);
+        if (node instanceof IfNode)
+            return compileIf((IfNode)node, nameToIndex);
+        if (node instanceof FunctionNode)
+            return compileFunction((FunctionNode)node, nameToIndex);
+        if (node instanceof SetMembershipNode)
+            return compileSetMembership((SetMembershipNode)node, nameToIndex);
+        if (node instanceof GBDTNode) {
+            double[] tree = ((GBDTNode)node).values();
+            return values -> GBDTNode.evaluate(tree, 0, values);
+        }
+        if (node instanceof GBDTForestNode)
+            return ((GBDTForestNode)node)::evaluate;
+        throw new UnsupportedOperationException(node.getClass().getSimpleName() + " '" + node + "' is not supported");
+    }
+
+    private Evaluator compileConstant(ConstantNode node) {
+        if ( ! (node.getValue() instanceof DoubleCompatibleValue))
+            throw new UnsupportedOperationException("Constant " + node + " is not a double");
+        return new Constant(node.getValue().asDouble());
+    }
+
+    private Evaluator compileReference(ReferenceNode node, Map<String, Integer> nameToIndex) {
+        Integer index = nameToIndex.get(node.toString());
+        if (index == null)
+            throw new UnsupportedOperationException("'" + node + "' is not bound");
+        return new Variable(index);
+    }
+
+    private Evaluator compileNegative(Evaluator argument) {
+        return foldIfConstant(new Unary(argument, x -> - x), argument, argument);
+    }
+
+    private Evaluator compileNot(Evaluator argument) {
+        return foldIfConstant(new Unary(argument, x -> x != 0 ? 0 : 1), argument, argument);
+    }
+
+    /** Compiles the children of the arithmetic node in the same order of precedence as it is evaluated */
+    private Evaluator compileArithmetic(ArithmeticNode node, Map<String, Integer> nameToIndex) {
+        Iterator<ExpressionNode> child = node.children().iterator();
+        Deque<Operand> stack = new ArrayDeque<>();
+        stack.push(new Operand(ArithmeticOperator.OR, compile(child.next(), nameToIndex)));
+        for (Iterator<ArithmeticOperator> it = node.operators().iterator(); it.hasNext() && child.hasNext();) {
+            ArithmeticOperator op = it.next();
+            while (stack.peek().op.hasPrecedenceOver(op))
+                reduce(stack);
+            stack.push(new Operand(op, compile(child.next(), nameToIndex)));
+        }
+        while (stack.size() > 1)
+            reduce(stack);
+        return stack.getFirst().evaluator;
+    }
+
+    private void reduce(Deque<Operand> stack) {
+        Operand rhs = stack.pop();
+        Operand lhs = stack.peek();
+        lhs.evaluator = foldIfConstant(new Arithmetic(rhs.op, lhs.evaluator, rhs.evaluator), lhs.evaluator, rhs.evaluator);
+    }
+
+    private Evaluator compileComparison(ComparisonNode node, Map<String, Integer> nameToIndex) {
+        Evaluator x = compile(node.getLeftCondition(), nameToIndex);
+        Evaluator y = compile(node.getRightCondition(), nameToIndex);
+        TruthOperator op = node.getOperator();
+        Evaluator result;
+        if (y instanceof Constant) { // the common case
+            double c = y.evaluate(null);
+            switch (op) {
+                case SMALLER: result = new Unary(x, a -> a < c ? 1 : 0); break;
+                case SMALLEREQUAL: result = new Unary(x, a -> a <= c ? 1 : 0); break;
+                case EQUAL: result = new Unary(x, a -> a == c ? 1 : 0); break;
+                case LARGER: result = new Unary(x, a -> a > c ? 1 : 0); break;
+                case LARGEREQUAL: result = new Unary(x, a -> a >= c ? 1 : 0); break;
+                case NOTEQUAL: result = new Unary(x, a -> a != c ? 1 : 0); break;
+                default: result = new Unary(x, a -> op.evaluate(a, c) ? 1 : 0);
+            }
+        }
+        else {
+            result = new Binary(x, y, (a, b) -> op.evaluate(a, b) ? 1 : 0);
+        }
+        return foldIfConstant(result, x, y);
+    }
+
+    private Evaluator compileIf(IfNode node, Map<String, Integer> nameToIndex) {
+        Evaluator condition = compile(node.getCondition(), nameToIndex);
+        Evaluator trueExpression = compile(node.getTrueExpression(), nameToIndex);
+        Evaluator falseExpression = compile(node.getFalseExpression(), nameToIndex);
+        if (condition instanceof Constant)
+            return condition.evaluate(null) != 0 ? trueExpression : falseExpression;
+        return new Conditional(condition, trueExpression, falseExpression);
+    }
+
+    private Evaluator compileFunction(FunctionNode node, Map<String, Integer> nameToIndex) {
+        Function function = node.getFunction();
+        List<ExpressionNode> arguments = node.children();
+        Evaluator x = arguments.size() > 0 ? compile(arguments.get(0), nameToIndex) : new Constant(0);
+        Evaluator y = arguments.size() > 1 ? compile(arguments.get(1), nameToIndex) : new Constant(0);
+        if (arguments.size() > 1)
+            return foldIfConstant(new Binary(x, y, function::evaluate), x, y);
+        return foldIfConstant(new Unary(x, a -> function.evaluate(a, 0)), x, y);
+    }
+
+    /**
+     * Compiles set membership tests of a variable in a set of double constants.
+     * Other set membership tests depend on the type of the values compared.
+     */
+    private Evaluator compileSetMembership(SetMembershipNode node, Map<String, Integer> nameToIndex) {
+        if ( ! (node.getTestValue() instanceof ReferenceNode))
+            throw new UnsupportedOperationException("Set membership of " + node.getTestValue() + " is not supported");
+        Evaluator testValue = compile(node.getTestValue(), nameToIndex);
+        double[] set = new double[node.getSetValues().size()];
+        for (int i = 0; i < set.length; i++) {
+            ExpressionNode setValue = node.getSetValues().get(i);
+            if ( ! (setValue instanceof ConstantNode) || ! (((ConstantNode)setValue).getValue() instanceof DoubleValue))
+                throw new UnsupportedOperationException("Set value " + setValue + " is not a double constant");
+            set[i] = ((ConstantNode)setValue).getValue().asDouble();
+        }
+        return new Unary(testValue, value -> {
+            for (double setValue : set) {
+                if (value == setValue) return 1;
+            }
+            return 0;
+        });
+    }
+
+    /** Returns the given result evaluated to a constant if the arguments are constants, and the result itself otherwise */
+    private Evaluator foldIfConstant(Evaluator result, Evaluator x, Evaluator y) {
+        if (x instanceof Constant && y instanceof Constant)
+            return new Constant(result.evaluate(null));
+        return result;
+    }
+
+    /** A compiled expression */
+    @FunctionalInterface
+    public interface Evaluator {
+
+        /** Returns the value of this given the values of the variables, indexed as given when compiling this */
+        double evaluate(double[] values);
+
+        /**
+         * Returns the value of this in each row of a batch.
+         * This implementation evaluates each row separately. Evaluators of the operations on doubles override this
+         * to compute each operation over all the rows in a single loop.
+         *
+         * @param columns the values of each variable in each row, indexed as given when compiling this and then by row.
+         *                A null column means that the variable is 0 in all rows
+         * @param rows the number of rows in the batch
+         * @return the value of this in each row. This may be one of the given columns, and must not be modified
+         */
+        default double[] evaluate(double[][] columns, int rows) {
+            double[] values = new double[columns.length];
+            double[] result = new double[rows];
+            for (int row = 0; row < rows; row++) {
+                for (int i = 0; i < columns.length; i++)
+                    values[i] = columns[i] != null ? columns[i][row] : 0;
+                result[row] = evaluate(values);
+            }
+            return result;
+        }
+
+    }
+
+    private static final class Constant implements Evaluator {
+
+        private final double value;
+
+        Constant(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double evaluate(double[] values) { return value; }
+
+        @Override
+        public double[] evaluate(double[][] columns, int rows) {
+            double[] result = new double[rows];
+            if (value != 0)
+                Arrays.fill(result, value);
+            return result;
+        }
+
+    }
+
+    private static final class Variable implements Evaluator {
+
+        private final int index;
+
+        Variable(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public double evaluate(double[] values) { return values[index]; }
+
+        @Override
+        public double[] evaluate(double[][] columns, int rows) {
+            return columns[index] != null ? columns[index] : new double[rows];
+        }
+
+    }
+
+    private static final class Unary implements Evaluator {
+
+        private final Evaluator x;
+        private final DoubleUnaryOperator function;
+
+        Unary(Evaluator x, DoubleUnaryOperator function) {
+            this.x = x;
+            this.function = function;
+        }
+
+        @Override
+        public double evaluate(double[] values) { return function.applyAsDouble(x.evaluate(values)); }
+
+        @Override
+        public double[] evaluate(double[][] columns, int rows) {
+            double[] xs = x.evaluate(columns, rows);
+            double[] result = new double[rows];
+            for (int i = 0; i < rows; i++)
+                result[i] = function.applyAsDouble(xs[i]);
+            return result;
+        }
+
+    }
+
+    private static final class Binary implements Evaluator {
+
+        private final Evaluator x;
+        private final Evaluator y;
+        private final DoubleBinaryOperator function;
+
+        Binary(Evaluator x, Evaluator y, DoubleBinaryOperator function) {
+            this.x = x;
+            this.y = y;
+            this.function = function;
+        }
+
+        @Override
+        public double evaluate(double[] values) { return function.applyAsDouble(x.evaluate(values), y.evaluate(values)); }
+
+        @Override
+        public double[] evaluate(double[][] columns, int rows) {
+            double[] xs = x.evaluate(columns, rows);
+            double[] ys = y.evaluate(columns, rows);
+            double[] result = new double[rows];
+            for (int i = 0; i < rows; i++)
+                result[i] = function.applyAsDouble(xs[i], ys[i]);
+            return result;
+        }
+
+    }
+
+    /** Arithmetic is separate from Binary to compute each operator with its own loop over the rows of a batch */
+    private static final class Arithmetic implements Evaluator {
+
+        private final ArithmeticOperator op;
+        private final Evaluator x;
+        private final Evaluator y;
+
+        Arithmetic(ArithmeticOperator op, Evaluator x, Evaluator y) {
+            this.op = op;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public double evaluate(double[] values) {
+            switch (op) {
+                case OR: return x.evaluate(values) != 0 || y.evaluate(values) != 0 ? 1 : 0;
+                case AND: return x.evaluate(values) != 0 && y.evaluate(values) != 0 ? 1 : 0;
+                case PLUS: return x.evaluate(values) + y.evaluate(values);
+                case MINUS: return x.evaluate(values) - y.evaluate(values);
+                case MULTIPLY: return x.evaluate(values) * y.evaluate(values);
+                case DIVIDE: return x.evaluate(values) / y.evaluate(values);
+                case MODULO: return x.evaluate(values) % y.evaluate(values);
+                case POWER: return Math.pow(x.evaluate(values), y.evaluate(values));
+                default: throw new UnsupportedOperationException("Arithmetic operator " + op + " is not supported");
+            }
+        }
+
+        @Override
+        public double[] evaluate(double[][] columns, int rows) {
+            double[] xs = x.evaluate(columns, rows);
+            double[] ys = y.evaluate(columns, rows);
+            double[] result = new double[rows];
+            switch (op) {
+                case OR: for (int i = 0; i < rows; i++) result[i] = xs[i] != 0 || ys[i] != 0 ? 1 : 0; break;
+                case AND: for (int i = 0; i < rows; i++) result[i] = xs[i] != 0 && ys[i] != 0 ? 1 : 0; break;
+                case PLUS: for (int i = 0; i < rows; i++) result[i] = xs[i] + ys[i]; break;
+                case MINUS: for (int i = 0; i < rows; i++) result[i] = xs[i] - ys[i]; break;
+                case MULTIPLY: for (int i = 0; i < rows; i++) result[i] = xs[i] * ys[i]; break;
+                case DIVIDE: for (int i = 0; i < rows; i++) result[i] = xs[i] / ys[i]; break;
+                case MODULO: for (int i = 0; i < rows; i++) result[i] = xs[i] % ys[i]; break;
+                case POWER: for (int i = 0; i < rows; i++) result[i] = Math.pow(xs[i], ys[i]); break;
+                default: throw new UnsupportedOperationException("Arithmetic operator " + op + " is not supported");
+            }
+            return result;
+        }
+
+    }
+
+    private static final class Conditional implements Evaluator {
+
+        private final Evaluator condition;
+        private final Evaluator trueExpression;
+        private final Evaluator falseExpression;
+
+        Conditional(Evaluator condition, Evaluator trueExpression, Evaluator falseExpression) {
+            this.condition = condition;
+            this.trueExpression = trueExpression;
+            this.falseExpression = falseExpression;
+        }
+
+        @Override
+        public double evaluate(double[] values) {
+            return condition.evaluate(values) != 0 ? trueExpression.evaluate(values) : falseExpression.evaluate(values);
+        }
+
+        /** Evaluates both expressions in all rows, which is cheaper than selecting rows as they have no side effects */
+        @Override
+        public double[] evaluate(double[][] columns, int rows) {
+            double[] conditions = condition.evaluate(columns, rows);
+            double[] trueValues = trueExpression.evaluate(columns, rows);
+            double[] falseValues = falseExpression.evaluate(columns, rows);
+            double[] result = new double[rows];
+            for (int i = 0; i < rows; i++)
+                result[i] = conditions[i] != 0 ? trueValues[i] : falseValues[i];
+            return result;
+        }
+
+    }
+
+    private static final class Operand {
+
+        final ArithmeticOperator op;
+        Evaluator evaluator;
+
+        Operand(ArithmeticOperator op, Evaluator evaluator) {
+            this.op = op;
+            this.evaluator = evaluator;
+        }
+
+    }
+
+}
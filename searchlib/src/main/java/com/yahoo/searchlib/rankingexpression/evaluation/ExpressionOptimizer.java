@@ -35,12 +35,16 @@ public class ExpressionOptimizer {
 
     private GBDTForestOptimizer gbdtForestOptimizer = new GBDTForestOptimizer();
 
+    private ExpressionCompiler expressionCompiler = new ExpressionCompiler();
+
     /** Gets an optimizer instance used by this by class name, or null if the optimizer is not known */
     public Optimizer getOptimizer(Class<?> clazz) {
         if (clazz == gbdtOptimizer.getClass())
             return gbdtOptimizer;
         if (clazz == gbdtForestOptimizer.getClass())
             return gbdtForestOptimizer;
+        if (clazz == expressionCompiler.getClass())
+            return expressionCompiler;
         return null;
     }
 
@@ -49,6 +53,7 @@ public class ExpressionOptimizer {
         // Note: Order of optimizations matter
         gbdtOptimizer.optimize(expression, contextIndex, report);
         gbdtForestOptimizer.optimize(expression, contextIndex, report);
+        expressionCompiler.optimize(expression, contextIndex, report);
         return report;
     }
 
@@ -41,6 +41,18 @@ public class GBDTForestNode extends ExpressionNode {
         return new DoubleValue(treeSum);
     }
 
+    /** Returns the sum of the trees of this, reading variables from an array indexed as the context used to create this */
+    public final double evaluate(double[] variables) {
+        int pc = 0;
+        double treeSum = 0;
+        while (pc < values.length) {
+            int nextTree = (int)values[pc++];
+            treeSum += GBDTNode.evaluate(values, pc, variables);
+            pc += nextTree;
+        }
+        return treeSum;
+    }
+
     /** Returns (optimized sum of condition trees) */
     public StringBuilder toString(StringBuilder string, SerializationContext context, Deque<String> path, CompositeNode parent) {
         return string.append("(optimized sum of condition trees of size ").append(values.length*8).append(" bytes)");
@@ -96,6 +96,47 @@ public final class GBDTNode extends ExpressionNode {
         }
     }
 
+    /**
+     * Same as evaluate(values, startOffset, context), but reads the variables directly from an array
+     * indexed as the context used to create this.
+     */
+    public static double evaluate(double[] values, int startOffset, double[] variables) {
+        int pc = startOffset;
+        while (true) {
+            double nextValue = values[pc++];
+            if (nextValue >= MAX_LEAF_VALUE) { // a condition node
+                int offset = (int)nextValue - MAX_LEAF_VALUE;
+                boolean comparisonIsTrue = false;
+                if (offset < MAX_VARIABLES) {
+                    comparisonIsTrue = variables[offset]<values[pc++];
+                }
+                else if (offset < MAX_VARIABLES*2) {
+                    comparisonIsTrue = variables[offset-MAX_VARIABLES]==values[pc++];
+                }
+                else { // offset<MAX_VARIABLES*3
+                    double testValue = variables[offset-MAX_VARIABLES*2];
+                    int setValuesLeft = (int)values[pc++];
+                    while (setValuesLeft > 0) { // test each value in the set
+                        setValuesLeft--;
+                        if (testValue == values[pc++]) {
+                            comparisonIsTrue=true;
+                            break;
+                        }
+                    }
+                    pc += setValuesLeft; // jump to after the set
+                }
+
+                if (comparisonIsTrue)
+                    pc++; // true branch - skip the jump value
+                else
+                    pc += values[pc]; // false branch - jump
+            }
+            else { // a leaf
+                return nextValue;
+            }
+        }
+    }
+
     /** Returns "(optimized condition tree)" */
     @Override
     public StringBuilder toString(StringBuilder string, SerializationContext context, Deque<String> path, CompositeNode parent) {
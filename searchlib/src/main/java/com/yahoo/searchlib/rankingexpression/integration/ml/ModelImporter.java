@@ -5,6 +5,7 @@ import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
 import com.yahoo.searchlib.rankingexpression.evaluation.Value;
 import com.yahoo.searchlib.rankingexpression.integration.ml.importer.IntermediateGraph;
 import com.yahoo.searchlib.rankingexpression.integration.ml.importer.OrderedTensorType;
+import com.yahoo.searchlib.rankingexpression.integration.ml.importer.TensorFunctionOptimizer;
 import com.yahoo.searchlib.rankingexpression.integration.ml.importer.operations.Constant;
 import com.yahoo.searchlib.rankingexpression.integration.ml.importer.operations.IntermediateOperation;
 import com.yahoo.searchlib.rankingexpression.parser.ParseException;
@@ -167,6 +168,7 @@ public abstract class ModelImporter {
                         function = new Rename(function, renameFrom, renameTo);
                     }
                 }
+                function = TensorFunctionOptimizer.optimize(function);
 
                 try {
                     // We add all intermediate nodes imported as separate expressions. Only
@@ -193,7 +195,7 @@ public abstract class ModelImporter {
 
     private static void importMacroExpression(IntermediateOperation operation, ImportedModel model) {
         if (operation.macro().isPresent()) {
-            TensorFunction function = operation.macro().get();
+            TensorFunction function = TensorFunctionOptimizer.optimize(operation.macro().get());
             try {
                 model.macro(operation.macroName(), new RankingExpression(operation.macroName(), function.toString()));
             }
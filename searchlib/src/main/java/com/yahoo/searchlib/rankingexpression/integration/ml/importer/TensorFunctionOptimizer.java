@@ -0,0 +1,232 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.integration.ml.importer;
+
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.parser.ParseException;
+import com.yahoo.searchlib.rankingexpression.rule.CompositeNode;
+import com.yahoo.searchlib.rankingexpression.rule.ConstantNode;
+import com.yahoo.searchlib.rankingexpression.rule.EmbracedNode;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.searchlib.rankingexpression.rule.FunctionNode;
+import com.yahoo.searchlib.rankingexpression.rule.LambdaFunctionNode;
+import com.yahoo.searchlib.rankingexpression.rule.ReferenceNode;
+import com.yahoo.tensor.functions.Join;
+import com.yahoo.tensor.functions.Map;
+import com.yahoo.tensor.functions.Reduce;
+import com.yahoo.tensor.functions.Rename;
+import com.yahoo.tensor.functions.ScalarFunctions;
+import com.yahoo.tensor.functions.TensorFunction;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * Rewrites the tensor functions of an imported model to equivalent functions with fewer steps:
+ * <ul>
+ *     <li>Renames of renames become a single rename, and renames which do not change any names are removed.
+ *     <li>Reduces of reduces with the same aggregator (where this is equivalent) become a single reduce.
+ *     <li>Maps of joins become a single join, and maps of maps a single map. This fuses activation functions
+ *     into the join adding the bias to the product of inputs and weights, for example.
+ * </ul>
+ *
+ * This produces smaller ranking expressions which are evaluated with fewer intermediate tensors.
+ *
+ * @author agent
+ */
+public class TensorFunctionOptimizer {
+
+    private TensorFunctionOptimizer() {}
+
+    /** Returns an optimized function which is equivalent to the given function */
+    public static TensorFunction optimize(TensorFunction function) {
+        List<TensorFunction> arguments = function.arguments();
+        List<TensorFunction> optimizedArguments = arguments.stream()
+                                                           .map(TensorFunctionOptimizer::optimize)
+                                                           .collect(Collectors.toList());
+        if ( ! optimizedArguments.equals(arguments))
+            function = function.withArguments(optimizedArguments);
+
+        if (function instanceof Rename)
+            return optimize((Rename)function);
+        if (function instanceof Reduce)
+            return optimize((Reduce)function);
+        if (function instanceof Map)
+            return optimize((Map)function);
+        return function;
+    }
+
+    private static TensorFunction optimize(Rename rename) {
+        java.util.Map<String, String> renames = new LinkedHashMap<>();
+        for (int i = 0; i < rename.fromDimensions().size(); i++)
+            renames.put(rename.fromDimensions().get(i), rename.toDimensions().get(i));
+
+        TensorFunction argument = rename.arguments().get(0);
+        if (argument instanceof Rename) {
+            Rename inner = (Rename)argument;
+            java.util.Map<String, String> combined = new LinkedHashMap<>();
+            for (int i = 0; i < inner.fromDimensions().size(); i++) {
+                String to = inner.toDimensions().get(i);
+                combined.put(inner.fromDimensions().get(i), renames.getOrDefault(to, to));
+            }
+            for (java.util.Map.Entry<String, String> outer : renames.entrySet()) {
+                if (inner.toDimensions().contains(outer.getKey())) continue; // already combined
+                if (inner.fromDimensions().contains(outer.getKey())) return rename; // renames a name which is gone
+                combined.put(outer.getKey(), outer.getValue());
+            }
+            renames = combined;
+            argument = inner.arguments().get(0);
+        }
+
+        renames.entrySet().removeIf(entry -> entry.getKey().equals(entry.getValue()));
+        if (renames.isEmpty()) return argument;
+        return new Rename(argument, new ArrayList<>(renames.keySet()), new ArrayList<>(renames.values()));
+    }
+
+    private static TensorFunction optimize(Reduce reduce) {
+        if ( ! (reduce.argument() instanceof Reduce)) return reduce;
+        Reduce inner = (Reduce)reduce.argument();
+        if (inner.aggregator() != reduce.aggregator()) return reduce;
+        if ( ! isDecomposable(reduce.aggregator())) return reduce;
+        if (inner.dimensions().isEmpty()) // reducing a scalar again is a no-op for these aggregators
+            return reduce.dimensions().isEmpty() ? inner : reduce;
+        if (reduce.dimensions().isEmpty()) return new Reduce(inner.argument(), reduce.aggregator());
+
+        List<String> dimensions = new ArrayList<>(inner.dimensions());
+        dimensions.addAll(reduce.dimensions());
+        return new Reduce(inner.argument(), reduce.aggregator(), dimensions);
+    }
+
+    /** Returns whether reducing in multiple steps with this aggregator is equivalent to reducing in a single step */
+    private static boolean isDecomposable(Reduce.Aggregator aggregator) {
+        switch (aggregator) {
+            case sum: case prod: case max: case min: return true;
+            default: return false;
+        }
+    }
+
+    private static TensorFunction optimize(Map map) {
+        Optional<LambdaFunctionNode> mapper = toLambda(map.mapper());
+        if ( ! mapper.isPresent() || mapper.get().arguments().size() != 1) return map;
+
+        if (map.argument() instanceof Map) {
+            Map inner = (Map)map.argument();
+            Optional<LambdaFunctionNode> innerMapper = toLambda(inner.mapper());
+            if ( ! innerMapper.isPresent()) return map;
+            return new Map(inner.argument(), new ComposedUnaryOperator(map.mapper(), inner.mapper(),
+                                                                       compose(mapper.get(), innerMapper.get())));
+        }
+        if (map.argument() instanceof Join) {
+            Join join = (Join)map.argument();
+            Optional<LambdaFunctionNode> combinator = toLambda(join.combinator());
+            if ( ! combinator.isPresent()) return map;
+            return new Join(join.arguments().get(0), join.arguments().get(1),
+                            new ComposedBinaryOperator(map.mapper(), join.combinator(),
+                                                       compose(mapper.get(), combinator.get())));
+        }
+        return map;
+    }
+
+    /** Returns the lambda outer(inner(arguments)) */
+    private static LambdaFunctionNode compose(LambdaFunctionNode outer, LambdaFunctionNode inner) {
+        return new LambdaFunctionNode(inner.arguments(),
+                                      substitute(outer.functionExpression(),
+                                                 outer.arguments().get(0),
+                                                 embraced(inner.functionExpression())));
+    }
+
+    /** Returns the given node with all references to the given name replaced by the given replacement */
+    private static ExpressionNode substitute(ExpressionNode node, String name, ExpressionNode replacement) {
+        if (node instanceof ReferenceNode) {
+            ReferenceNode reference = (ReferenceNode)node;
+            if (reference.getName().equals(name) && reference.getArguments().isEmpty() && reference.getOutput() == null)
+                return replacement;
+        }
+        if (node instanceof CompositeNode) {
+            CompositeNode composite = (CompositeNode)node;
+            List<ExpressionNode> children = new ArrayList<>();
+            for (ExpressionNode child : composite.children())
+                children.add(substitute(child, name, replacement));
+            return composite.setChildren(children);
+        }
+        return node;
+    }
+
+    private static ExpressionNode embraced(ExpressionNode node) {
+        if (node instanceof ReferenceNode || node instanceof ConstantNode ||
+            node instanceof FunctionNode || node instanceof EmbracedNode)
+            return node;
+        return new EmbracedNode(node);
+    }
+
+    /** Returns the given operator as a lambda function node if it is a lambda, and empty otherwise */
+    private static Optional<LambdaFunctionNode> toLambda(Object operator) {
+        if ( ! (operator instanceof ScalarFunctions.Lambda)) return Optional.empty();
+        ScalarFunctions.Lambda lambda = (ScalarFunctions.Lambda)operator;
+        try {
+            return Optional.of(new LambdaFunctionNode(lambda.arguments(),
+                                                      new RankingExpression(lambda.expression()).getRoot()));
+        }
+        catch (ParseException e) {
+            return Optional.empty();
+        }
+    }
+
+    /** Applies two operators in sequence, using the lambda of the composition as its string form only */
+    private static class ComposedUnaryOperator implements DoubleUnaryOperator, ScalarFunctions.Lambda {
+
+        private final DoubleUnaryOperator outer, inner;
+        private final LambdaFunctionNode lambda;
+
+        ComposedUnaryOperator(DoubleUnaryOperator outer, DoubleUnaryOperator inner, LambdaFunctionNode lambda) {
+            this.outer = outer;
+            this.inner = inner;
+            this.lambda = lambda;
+        }
+
+        @Override
+        public double applyAsDouble(double operand) { return outer.applyAsDouble(inner.applyAsDouble(operand)); }
+
+        @Override
+        public List<String> arguments() { return lambda.arguments(); }
+
+        @Override
+        public String expression() { return lambda.functionExpression().toString(); }
+
+        @Override
+        public String toString() { return lambda.toString(); }
+
+    }
+
+    /** Applies an operator to the result of a binary operator, using the lambda of the composition as its string form only */
+    private static class ComposedBinaryOperator implements DoubleBinaryOperator, ScalarFunctions.Lambda {
+
+        private final DoubleUnaryOperator outer;
+        private final DoubleBinaryOperator inner;
+        private final LambdaFunctionNode lambda;
+
+        ComposedBinaryOperator(DoubleUnaryOperator outer, DoubleBinaryOperator inner, LambdaFunctionNode lambda) {
+            this.outer = outer;
+            this.inner = inner;
+            this.lambda = lambda;
+        }
+
+        @Override
+        public double applyAsDouble(double left, double right) { return outer.applyAsDouble(inner.applyAsDouble(left, right)); }
+
+        @Override
+        public List<String> arguments() { return lambda.arguments(); }
+
+        @Override
+        public String expression() { return lambda.functionExpression().toString(); }
+
+        @Override
+        public String toString() { return lambda.toString(); }
+
+    }
+
+}
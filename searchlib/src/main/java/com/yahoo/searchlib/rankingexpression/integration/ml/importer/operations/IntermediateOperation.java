@@ -3,6 +3,8 @@
 package com.yahoo.searchlib.rankingexpression.integration.ml.importer.operations;
 
 import com.yahoo.searchlib.rankingexpression.Reference;
+import com.yahoo.searchlib.rankingexpression.evaluation.MapContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
 import com.yahoo.searchlib.rankingexpression.evaluation.Value;
 import com.yahoo.searchlib.rankingexpression.integration.ml.importer.DimensionRenamer;
 import com.yahoo.searchlib.rankingexpression.integration.ml.importer.OrderedTensorType;
@@ -115,9 +117,32 @@ public abstract class IntermediateOperation {
         if (constantValueFunction != null) {
             return Optional.of(constantValueFunction.apply(type));
         }
+        if (isConstant() && ! inputs.isEmpty()) {
+            constantValue = evaluateAsConstant();
+            return Optional.ofNullable(constantValue);
+        }
         return Optional.empty();
     }
 
+    /**
+     * Computes the value of this from the values of its constant inputs, such that the result can be
+     * imported as a single constant instead of as a function over constants.
+     * Returns null if this or any input has no value.
+     */
+    private Value evaluateAsConstant() {
+        if ( ! type().isPresent()) return null;
+        TensorFunction function = lazyGetFunction();
+        if (function == null) return null;
+
+        MapContext context = new MapContext();
+        for (IntermediateOperation input : inputs) {
+            Optional<Value> value = input.getConstantValue();
+            if ( ! value.isPresent()) return null;
+            context.put("constant(" + input.vespaName() + ")", value.get());
+        }
+        return new TensorValue(function.evaluate(context));
+    }
+
     /** Set the constant value function */
     public void setConstantValueFunction(Function<OrderedTensorType, Value> func) { this.constantValueFunction = func; }
 
@@ -8,6 +8,7 @@ import com.yahoo.searchlib.rankingexpression.evaluation.MapContext;
 import com.yahoo.searchlib.rankingexpression.evaluation.Value;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.evaluation.TypeContext;
+import com.yahoo.tensor.functions.ScalarFunctions;
 
 import java.util.Collections;
 import java.util.Deque;
@@ -31,6 +32,12 @@ public class LambdaFunctionNode extends CompositeNode {
         this.functionExpression = functionExpression;
     }
 
+    /** Returns the names of the arguments of this */
+    public List<String> arguments() { return arguments; }
+
+    /** Returns the expression computing the value of this from the arguments */
+    public ExpressionNode functionExpression() { return functionExpression; }
+
     @Override
     public List<ExpressionNode> children() {
         return Collections.singletonList(functionExpression);
@@ -93,7 +100,7 @@ public class LambdaFunctionNode extends CompositeNode {
         return new DoubleBinaryLambda();
     }
 
-    private class DoubleUnaryLambda implements DoubleUnaryOperator {
+    private class DoubleUnaryLambda implements DoubleUnaryOperator, ScalarFunctions.Lambda {
 
         @Override
         public double applyAsDouble(double operand) {
@@ -103,6 +110,12 @@ public class LambdaFunctionNode extends CompositeNode {
             return evaluate(context).asDouble();
         }
 
+        @Override
+        public List<String> arguments() { return arguments; }
+
+        @Override
+        public String expression() { return functionExpression.toString(); }
+
         @Override
         public String toString() {
             return LambdaFunctionNode.this.toString();
@@ -110,7 +123,7 @@ public class LambdaFunctionNode extends CompositeNode {
 
     }
 
-    private class DoubleBinaryLambda implements DoubleBinaryOperator {
+    private class DoubleBinaryLambda implements DoubleBinaryOperator, ScalarFunctions.Lambda {
 
         @Override
         public double applyAsDouble(double left, double right) {
@@ -122,6 +135,12 @@ public class LambdaFunctionNode extends CompositeNode {
             return evaluate(context).asDouble();
         }
 
+        @Override
+        public List<String> arguments() { return arguments; }
+
+        @Override
+        public String expression() { return functionExpression.toString(); }
+
         @Override
         public String toString() {
             return LambdaFunctionNode.this.toString();
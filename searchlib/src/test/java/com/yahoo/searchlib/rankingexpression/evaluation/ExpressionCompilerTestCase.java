@@ -0,0 +1,153 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation;
+
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.parser.ParseException;
+import com.yahoo.tensor.Tensor;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent
+ */
+public class ExpressionCompilerTestCase {
+
+    @Test
+    public void testCompiledExpressionsEvaluatesAsInterpreted() throws ParseException {
+        assertCompiled("1 + 2 * 3 - 4 / 2 ^ 2 % 3", 0, 0);
+        assertCompiled("a - b - 3 * a / b + a ^ 2", 3, 2);
+        assertCompiled("(a - b) * (a + b)", 3, 2);
+        assertCompiled("-a + -(b * 2)", 3, 2);
+        assertCompiled("!(a > b) + !(a < b)", 3, 2);
+        assertCompiled("a && b || 0 && a", 3, 0);
+        assertCompiled("a || b && 0", 0, 2);
+        assertCompiled("if (a < 2.5, 1, 2) + if (a >= b, 10, 20) + if (a != 3, 100, 200) + if (a == b, 1000, 2000)", 3, 2);
+        assertCompiled("if (a <= 3, 1, 2) + if (a ~= 3.000001, 10, 20)", 3, 2);
+        assertCompiled("if (a in [1, 2, 3], b, 0) + if (b in [4, 5], 1, 7)", 3, 2);
+        assertCompiled("max(a, b) + min(a, b) + pow(a, b) + sqrt(a) + exp(b) + log(a) + fmod(a, b) + relu(-a)", 3, 2);
+        assertCompiled("isNan(a) + tanh(b) + sigmoid(a) + atan2(a, b) + floor(a / b)", 3, 2);
+        assertCompiled("if (1 > 2, a, b) + 2 * 3 + max(1, 2)", 3, 2);
+    }
+
+    @Test
+    public void testBatchEvaluation() throws ParseException {
+        RankingExpression expression = new RankingExpression("if (a > b, a * 2, b) + c - 1");
+        ArrayContext context = new ArrayContext(expression);
+        ExpressionCompiler.Evaluator compiled = new ExpressionCompiler().compile(expression.getRoot(),
+                                                                                 context.nameToIndex());
+        double[][] columns = new double[context.size()][];
+        columns[context.getIndex("a")] = new double[] { 3, 1, 5 };
+        columns[context.getIndex("b")] = new double[] { 2, 4, 5 };
+        double[] result = compiled.evaluate(columns, 3);
+        assertEquals(3, result.length);
+        assertEquals("c is 0 when its column is missing", 5, result[0], delta);
+        assertEquals(3, result[1], delta);
+        assertEquals(4, result[2], delta);
+    }
+
+    @Test
+    public void testCompilationIsReported() throws ParseException {
+        RankingExpression expression = new RankingExpression("a + b");
+        OptimizationReport report = new ExpressionOptimizer().optimize(expression, new ArrayContext(expression));
+        assertEquals(1, report.getMetric("Compiled expressions"));
+        assertTrue(expression.getRoot() instanceof CompiledExpressionNode);
+        assertEquals("a + b", expression.toString());
+    }
+
+    @Test
+    public void testUnsupportedExpressionsAreNotCompiled() throws ParseException {
+        assertNotCompiled("max(a, if (a in [\"foo\", 2], 1, 0))");
+        assertNotCompiled("sum(tensor0 * a)");
+        assertNotCompiled("a + \"foo\"");
+    }
+
+    @Test
+    public void testFallbackWithNonDoubleValues() throws ParseException {
+        RankingExpression expression = new RankingExpression("if (a == b, 1, 2) + c");
+        ArrayContext context = new ArrayContext(expression);
+        new ExpressionOptimizer().optimize(expression, context);
+        assertTrue(expression.getRoot() instanceof CompiledExpressionNode);
+
+        context.put("a", new StringValue("foo"));
+        context.put("b", new StringValue("foo"));
+        context.put("c", 3);
+        assertEquals(4, expression.evaluate(context).asDouble(), delta);
+
+        context.put("b", new StringValue("bar"));
+        assertEquals(5, expression.evaluate(context).asDouble(), delta);
+
+        context.put("a", 1);
+        context.put("b", 1);
+        assertEquals(4, expression.evaluate(context).asDouble(), delta);
+
+        context.put("c", new TensorValue(Tensor.from("{{x:0}:1.0}")));
+        assertFalse(expression.evaluate(context).hasDouble());
+    }
+
+    @Test
+    public void testReplacingTheExpressionDiscardsTheCompiledForm() throws ParseException {
+        RankingExpression expression = new RankingExpression("a + b");
+        ArrayContext context = new ArrayContext(expression);
+        new ExpressionOptimizer().optimize(expression, context);
+        CompiledExpressionNode compiled = (CompiledExpressionNode)expression.getRoot();
+        assertTrue(compiled == compiled.setChildren(compiled.children()));
+
+        CompiledExpressionNode replaced =
+                compiled.setChildren(Collections.singletonList(new RankingExpression("a - b").getRoot()));
+        context.put("a", 3);
+        context.put("b", 2);
+        assertEquals(5, compiled.evaluate(context).asDouble(), delta);
+        assertEquals(1, replaced.evaluate(context).asDouble(), delta);
+        assertEquals("a - b", replaced.toString());
+    }
+
+    private void assertCompiled(String expressionString, double a, double b) throws ParseException {
+        RankingExpression expression = new RankingExpression(expressionString);
+        MapContext mapContext = new MapContext();
+        mapContext.put("a", a);
+        mapContext.put("b", b);
+        double expected = expression.evaluate(mapContext).asDouble();
+
+        for (AbstractArrayContext context : new AbstractArrayContext[] { new ArrayContext(expression, true),
+                                                                         new DoubleOnlyArrayContext(expression, true) }) {
+            RankingExpression compiled = new RankingExpression(expressionString);
+            new ExpressionOptimizer().optimize(compiled, context);
+            assertTrue(compiled.getRoot() instanceof CompiledExpressionNode);
+
+            context.put("a", a);
+            context.put("b", b);
+            assertEquals(expressionString, expected, compiled.evaluate(context).asDouble(), delta);
+            assertEquals(expressionString, expected,
+                         ((CompiledExpressionNode)compiled.getRoot()).evaluate(context.doubleValues()), delta);
+        }
+
+        ArrayContext context = new ArrayContext(expression, true);
+        ExpressionCompiler.Evaluator evaluator = new ExpressionCompiler().compile(expression.getRoot(),
+                                                                                  context.nameToIndex());
+        double[][] columns = new double[context.size()][];
+        if (context.names().contains("a"))
+            columns[context.getIndex("a")] = new double[] { a, b };
+        if (context.names().contains("b"))
+            columns[context.getIndex("b")] = new double[] { b, a };
+        mapContext.put("a", b);
+        mapContext.put("b", a);
+        double[] result = evaluator.evaluate(columns, 2);
+        assertEquals(expressionString, expected, result[0], delta);
+        assertEquals(expressionString, expression.evaluate(mapContext).asDouble(), result[1], delta);
+    }
+
+    private void assertNotCompiled(String expressionString) throws ParseException {
+        RankingExpression expression = new RankingExpression(expressionString);
+        new ExpressionOptimizer().optimize(expression, new ArrayContext(expression));
+        assertFalse(expression.getRoot() instanceof CompiledExpressionNode);
+        assertEquals(new RankingExpression(expressionString).toString(), expression.toString());
+    }
+
+    private static final double delta = 0.0000001;
+
+}
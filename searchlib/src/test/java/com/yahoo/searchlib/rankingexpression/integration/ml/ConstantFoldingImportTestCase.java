@@ -0,0 +1,61 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.integration.ml;
+
+import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
+import com.yahoo.searchlib.rankingexpression.integration.ml.importer.IntermediateGraph;
+import com.yahoo.searchlib.rankingexpression.integration.ml.importer.OrderedTensorType;
+import com.yahoo.searchlib.rankingexpression.integration.ml.importer.operations.Constant;
+import com.yahoo.searchlib.rankingexpression.integration.ml.importer.operations.IntermediateOperation;
+import com.yahoo.searchlib.rankingexpression.integration.ml.importer.operations.Join;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.functions.ScalarFunctions;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that operations having only constant inputs are imported as a single constant.
+ *
+ * @author agent
+ */
+public class ConstantFoldingImportTestCase {
+
+    @Test
+    public void testJoinOfConstantsIsImportedAsConstant() {
+        IntermediateGraph graph = new IntermediateGraph("test");
+        IntermediateOperation a = constant("a", 1.0, 2.0);
+        IntermediateOperation b = constant("b", 3.0, 5.0);
+        IntermediateOperation sum = new Join("test", "sum", Arrays.asList(a, b), ScalarFunctions.add());
+        graph.put("a", a);
+        graph.put("b", b);
+        graph.put("sum", sum);
+        graph.outputs(graph.defaultSignature()).put("output", "sum");
+
+        assertTrue(sum.isConstant());
+        ImportedModel model = ModelImporter.convertIntermediateGraphToModel(graph);
+
+        assertEquals(Tensor.from("tensor(d0[2]):{{d0:0}:4.0,{d0:1}:7.0}"), model.largeConstants().get("sum"));
+        assertFalse("The inputs are folded into the constant", model.largeConstants().containsKey("test_a"));
+        assertFalse("The inputs are folded into the constant", model.largeConstants().containsKey("test_b"));
+        assertEquals("constant(sum)", sum.function().get().toString());
+    }
+
+    private IntermediateOperation constant(String name, double ... values) {
+        OrderedTensorType type = new OrderedTensorType.Builder().add(TensorType.Dimension.indexed("d0", values.length))
+                                                                .build();
+        Constant constant = new Constant("test", name, type);
+        constant.setConstantValueFunction(renamedType -> {
+            Tensor.Builder builder = Tensor.Builder.of(renamedType.type());
+            for (int i = 0; i < values.length; i++)
+                builder.cell(values[i], i);
+            return new TensorValue(builder.build());
+        });
+        return constant;
+    }
+
+}
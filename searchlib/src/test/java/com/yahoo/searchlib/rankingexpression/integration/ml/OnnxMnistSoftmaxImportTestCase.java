@@ -49,7 +49,7 @@ public class OnnxMnistSoftmaxImportTestCase {
         RankingExpression output = model.defaultSignature().outputExpression("add");
         assertNotNull(output);
         assertEquals("add", output.getName());
-        assertEquals("join(reduce(join(rename(Placeholder, (d0, d1), (d0, d2)), constant(test_Variable), f(a,b)(a * b)), sum, d2), constant(test_Variable_1), f(a,b)(a + b))",
+        assertEquals("join(reduce(join(rename(Placeholder, d1, d2), constant(test_Variable), f(a,b)(a * b)), sum, d2), constant(test_Variable_1), f(a,b)(a + b))",
                 output.getRoot().toString());
     }
 
@@ -0,0 +1,103 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.integration.ml;
+
+import com.yahoo.searchlib.rankingexpression.integration.ml.importer.TensorFunctionOptimizer;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.evaluation.MapEvaluationContext;
+import com.yahoo.tensor.evaluation.VariableTensor;
+import com.yahoo.tensor.functions.Join;
+import com.yahoo.tensor.functions.Map;
+import com.yahoo.tensor.functions.Reduce;
+import com.yahoo.tensor.functions.Rename;
+import com.yahoo.tensor.functions.ScalarFunctions;
+import com.yahoo.tensor.functions.TensorFunction;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author agent
+ */
+public class TensorFunctionOptimizerTestCase {
+
+    private static final Tensor x = Tensor.from("tensor(d0[2],d1[3]):{{d0:0,d1:0}:1,{d0:0,d1:1}:-2,{d0:0,d1:2}:3," +
+                                                                            "{d0:1,d1:0}:-4,{d0:1,d1:1}:5,{d0:1,d1:2}:-6}");
+    private static final Tensor y = Tensor.from("tensor(d1[3]):{{d1:0}:0.5,{d1:1}:-1.5,{d1:2}:2}");
+
+    @Test
+    public void testRenameOptimization() {
+        assertOptimized("x",
+                        new Rename(new VariableTensor("x"), "d0", "d0"));
+        assertOptimized("rename(x, d1, d2)",
+                        new Rename(new VariableTensor("x"), Arrays.asList("d0", "d1"), Arrays.asList("d0", "d2")));
+        assertOptimized("rename(x, (d0, d1), (d3, d2))",
+                        new Rename(new Rename(new VariableTensor("x"), "d0", "d3"), "d1", "d2"));
+        assertOptimized("x",
+                        new Rename(new Rename(new VariableTensor("x"), "d0", "d5"), "d5", "d0"));
+        assertOptimized("rename(x, (d0, d1), (d1, d0))",
+                        new Rename(new Rename(new VariableTensor("x"), "d0", "d5"),
+                                   Arrays.asList("d1", "d5"), Arrays.asList("d0", "d1")));
+    }
+
+    @Test
+    public void testReduceOptimization() {
+        assertOptimized("reduce(x, sum, d0, d1)",
+                        new Reduce(new Reduce(new VariableTensor("x"), Reduce.Aggregator.sum, "d0"),
+                                   Reduce.Aggregator.sum, "d1"));
+        assertOptimized("reduce(x, max)",
+                        new Reduce(new Reduce(new VariableTensor("x"), Reduce.Aggregator.max, "d1"),
+                                   Reduce.Aggregator.max));
+        assertOptimized("reduce(reduce(x, avg, d0), avg, d1)",
+                        new Reduce(new Reduce(new VariableTensor("x"), Reduce.Aggregator.avg, "d0"),
+                                   Reduce.Aggregator.avg, "d1"));
+        assertOptimized("reduce(reduce(x, sum, d0), max, d1)",
+                        new Reduce(new Reduce(new VariableTensor("x"), Reduce.Aggregator.sum, "d0"),
+                                   Reduce.Aggregator.max, "d1"));
+    }
+
+    @Test
+    public void testFusion() {
+        assertOptimized("join(x, y, f(a,b)(max(0,(a + b))))",
+                        new Map(new Join(new VariableTensor("x"), new VariableTensor("y"), ScalarFunctions.add()),
+                                ScalarFunctions.relu()));
+        assertOptimized("join(x, y, f(a,b)(1 / (1 + exp(-(a * b)))))",
+                        new Map(new Join(new VariableTensor("x"), new VariableTensor("y"), ScalarFunctions.multiply()),
+                                ScalarFunctions.sigmoid()));
+        assertOptimized("map(x, f(a)(exp(fabs(a))))",
+                        new Map(new Map(new VariableTensor("x"), ScalarFunctions.abs()), ScalarFunctions.exp()));
+        assertOptimized("map(x, f(a)(max(0,(-exp(a)))))",
+                        new Map(new Map(new Map(new VariableTensor("x"), ScalarFunctions.exp()),
+                                        ScalarFunctions.neg()),
+                                ScalarFunctions.relu()));
+    }
+
+    @Test
+    public void testOptimizationOfNestedFunctions() {
+        assertOptimized("reduce(join(rename(x, d1, d2), y, f(a,b)(max(0,(a - b)))), sum, d0, d1)",
+                        new Reduce(new Reduce(new Map(new Join(new Rename(new Rename(new VariableTensor("x"),
+                                                                                     "d0", "d0"),
+                                                                          "d1", "d2"),
+                                                               new VariableTensor("y"),
+                                                               ScalarFunctions.subtract()),
+                                                      ScalarFunctions.relu()),
+                                              Reduce.Aggregator.sum, "d0"),
+                                   Reduce.Aggregator.sum, "d1"));
+    }
+
+    /** Asserts that the given function optimizes to the expected string, and that the result is unchanged */
+    private void assertOptimized(String expected, TensorFunction function) {
+        TensorFunction optimized = TensorFunctionOptimizer.optimize(function);
+        assertEquals(expected, optimized.toString());
+        assertEquals(function.evaluate(context()), optimized.evaluate(context()));
+    }
+
+    private MapEvaluationContext context() {
+        MapEvaluationContext context = new MapEvaluationContext();
+        context.put("x", x);
+        context.put("y", y);
+        return context;
+    }
+
+}
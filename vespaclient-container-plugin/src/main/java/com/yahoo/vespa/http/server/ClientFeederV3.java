@@ -26,8 +26,14 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Optional;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
@@ -41,6 +47,9 @@ import static com.yahoo.messagebus.ErrorCode.SEND_QUEUE_FULL;
  * avoid using a threadpool that has no effect with all the extra that comes with it. V2 has one instance per thread
  * on the client, while this is one instance for all threads.
  *
+ * The operations of a request are read and sent in order by the request thread, while the parsing of them is done
+ * ahead, in parallel, by an executor shared by all clients.
+ *
  * @author dybis
  */
 class ClientFeederV3 {
@@ -48,6 +57,8 @@ class ClientFeederV3 {
     protected static final Logger log = Logger.getLogger(ClientFeederV3.class.getName());
     // This is for all clients on this gateway, for load balancing from client.
     private final static AtomicInteger outstandingOperations = new AtomicInteger(0);
+    // The max number of operations of a request which are read and being parsed ahead of the one being sent.
+    private final static int maxPendingMessages = 2 * Runtime.getRuntime().availableProcessors();
     private final BlockingQueue<OperationStatus> feedReplies = new LinkedBlockingQueue<>();
     private final ReferencedResource<SharedSourceSession> sourceSession;
     private final String clientId;
@@ -58,6 +69,7 @@ class ClientFeederV3 {
 
     private final Object monitor = new Object();
     private final StreamReaderV3 streamReaderV3;
+    private final Executor parsingExecutor;
     private final AtomicInteger ongoingRequests = new AtomicInteger(0);
     private String hostName;
     private AtomicInteger threadsAvailableForFeeding;
@@ -69,13 +81,15 @@ class ClientFeederV3 {
             String clientId,
             Metric metric,
             ReplyHandler feedReplyHandler,
-            AtomicInteger threadsAvailableForFeeding) {
+            AtomicInteger threadsAvailableForFeeding,
+            Executor parsingExecutor) {
         this.sourceSession = sourceSession;
         this.clientId = clientId;
         this.feedReplyHandler = feedReplyHandler;
         this.metric = metric;
         this.threadsAvailableForFeeding = threadsAvailableForFeeding;
         this.streamReaderV3 = new StreamReaderV3(feedReaderFactory, docTypeManager);
+        this.parsingExecutor = parsingExecutor;
         this.hostName = HostName.getLocalhost();
     }
 
@@ -136,7 +150,7 @@ class ClientFeederV3 {
             InputStream inputStream = StreamReaderV3.unzipStreamIfNeeded(request);
             BlockingQueue<OperationStatus> replies = new LinkedBlockingQueue<>();
             try {
-                feed(feederSettings, inputStream, replies, threadsAvailableForFeeding);
+                feed(feederSettings, inputStream, request.getData(), replies, threadsAvailableForFeeding);
                 synchronized (monitor) {
                     // Handshake requests do not have DATA_FORMAT, we do not want to give responses to
                     // handshakes as it won't be processed by the client.
@@ -166,7 +180,11 @@ class ClientFeederV3 {
         return 429;
     }
 
-    private Optional<DocumentOperationMessageV3> pullMessageFromRequest(
+    /**
+     * Reads the next operation in the stream and starts parsing it, or returns empty if the stream is exhausted.
+     * Operations which cannot be read are reported as errors and skipped.
+     */
+    private Optional<PendingMessage> readNextMessage(
             FeederSettings settings, InputStream requestInputStream, BlockingQueue<OperationStatus> repliesFromOldMessages) {
         while (true) {
             Optional<String> operationId;
@@ -182,21 +200,37 @@ class ClientFeederV3 {
                 return Optional.empty();
             }
 
-            DocumentOperationMessageV3 message;
+            Callable<DocumentOperationMessageV3> parser;
             try {
-                message = getNextMessage(operationId.get(), requestInputStream, settings);
+                parser = readNextOperation(operationId.get(), requestInputStream, settings);
             } catch (Exception e) {
-                if (log.isLoggable(LogLevel.DEBUG)) {
-                    log.log(LogLevel.DEBUG, Exceptions.toMessageString(e), e);
-                }
-                repliesFromOldMessages.add(new OperationStatus(
-                        Exceptions.toMessageString(e), operationId.get(), ErrorCode.ERROR, false, ""));
-
+                addParseError(operationId.get(), e, repliesFromOldMessages);
                 continue;
             }
-            if (message != null)
-                setRoute(message, settings);
-            return Optional.ofNullable(message);
+            PendingMessage message = new PendingMessage(operationId.get(), parser);
+            parsingExecutor.execute(message.parsing);
+            return Optional.of(message);
+        }
+    }
+
+    private void addParseError(String operationId, Throwable e, BlockingQueue<OperationStatus> repliesFromOldMessages) {
+        if (log.isLoggable(LogLevel.DEBUG)) {
+            log.log(LogLevel.DEBUG, Exceptions.toMessageString(e), e);
+        }
+        repliesFromOldMessages.add(new OperationStatus(
+                Exceptions.toMessageString(e), operationId, ErrorCode.ERROR, false, ""));
+    }
+
+    /**
+     * Returns whether more data can be read from the given raw request stream without blocking.
+     * This must not be given a decompressing stream, as e.g. InflaterInputStream reports data as available
+     * until the end of the stream is reached.
+     */
+    private boolean hasAvailableData(InputStream rawInputStream) {
+        try {
+            return rawInputStream.available() > 0;
+        } catch (IOException e) {
+            return false;
         }
     }
 
@@ -221,45 +255,83 @@ class ClientFeederV3 {
         return result;
     }
 
+    /**
+     * Feeds the operations of the given stream. The operations are read on this thread and parsed in parallel
+     * by the parsing executor, while they are sent in the order of the stream, which preserves the
+     * order of the operations on each document.
+     *
+     * @param requestInputStream the stream to read operations from
+     * @param rawInputStream the stream of the request as received, used to decide whether to read ahead.
+     *                       This is the same as requestInputStream unless the request is compressed.
+     */
     private void feed(
             FeederSettings settings,
             InputStream requestInputStream,
+            InputStream rawInputStream,
             BlockingQueue<OperationStatus> repliesFromOldMessages,
             AtomicInteger threadsAvailableForFeeding) throws InterruptedException {
-        while (true) {
+        Deque<PendingMessage> pendingMessages = new ArrayDeque<>();
+        try {
+            boolean endOfStream = false;
+            while (true) {
+                // Read ahead while data is available, such that the following operations are parsed while we send
+                while ( ! endOfStream &&
+                        (pendingMessages.isEmpty() ||
+                         (pendingMessages.size() < maxPendingMessages && hasAvailableData(rawInputStream)))) {
+                    Optional<PendingMessage> pending = readNextMessage(settings, requestInputStream, repliesFromOldMessages);
+                    if (pending.isPresent())
+                        pendingMessages.add(pending.get());
+                    else
+                        endOfStream = true;
+                }
+                if (pendingMessages.isEmpty()) {
+                    break;
+                }
 
-            Optional<DocumentOperationMessageV3> msg = pullMessageFromRequest(settings, requestInputStream, repliesFromOldMessages);
+                PendingMessage pending = pendingMessages.poll();
+                DocumentOperationMessageV3 msg;
+                try {
+                    msg = pending.parsing.get();
+                } catch (ExecutionException e) {
+                    addParseError(pending.operationId, e.getCause(), repliesFromOldMessages);
+                    continue;
+                }
+                if (msg == null) { // typical end of feed
+                    break;
+                }
+                setRoute(msg, settings);
+                setMessageParameters(msg, settings);
 
-            if (! msg.isPresent()) {
-                break;
-            }
-            setMessageParameters(msg.get(), settings);
+                Result result;
+                try {
+                    result = sendMessage(settings, msg, threadsAvailableForFeeding);
 
-            Result result;
-            try {
-                result = sendMessage(settings, msg.get(), threadsAvailableForFeeding);
+                } catch  (RuntimeException e) {
+                    repliesFromOldMessages.add(createOperationStatus(msg.getOperationId(), Exceptions.toMessageString(e),
+                            ErrorCode.ERROR, false, msg.getMessage()));
+                    continue;
+                }
 
-            } catch  (RuntimeException e) {
-                repliesFromOldMessages.add(createOperationStatus(msg.get().getOperationId(), Exceptions.toMessageString(e),
-                        ErrorCode.ERROR, false, msg.get().getMessage()));
-                continue;
+                if (result.isAccepted()) {
+                    outstandingOperations.incrementAndGet();
+                    updateOpsPerSec();
+                    log(LogLevel.DEBUG, "Sent message successfully, document id: ", msg.getOperationId());
+                } else if (!result.getError().isFatal()) {
+                    repliesFromOldMessages.add(createOperationStatus(msg.getOperationId(), result.getError().getMessage(),
+                            ErrorCode.TRANSIENT_ERROR, false, msg.getMessage()));
+                    continue;
+                } else {
+                    // should probably not happen, but everybody knows stuff that
+                    // shouldn't happen, happens all the time
+                    boolean isConditionNotMet = result.getError().getCode() == DocumentProtocol.ERROR_TEST_AND_SET_CONDITION_FAILED;
+                    repliesFromOldMessages.add(createOperationStatus(msg.getOperationId(), result.getError().getMessage(),
+                            ErrorCode.ERROR, isConditionNotMet, msg.getMessage()));
+                    continue;
+                }
             }
-
-            if (result.isAccepted()) {
-                outstandingOperations.incrementAndGet();
-                updateOpsPerSec();
-                log(LogLevel.DEBUG, "Sent message successfully, document id: ", msg.get().getOperationId());
-            } else if (!result.getError().isFatal()) {
-                repliesFromOldMessages.add(createOperationStatus(msg.get().getOperationId(), result.getError().getMessage(),
-                        ErrorCode.TRANSIENT_ERROR, false, msg.get().getMessage()));
-                continue;
-            } else {
-                // should probably not happen, but everybody knows stuff that
-                // shouldn't happen, happens all the time
-                boolean isConditionNotMet = result.getError().getCode() == DocumentProtocol.ERROR_TEST_AND_SET_CONDITION_FAILED;
-                repliesFromOldMessages.add(createOperationStatus(msg.get().getOperationId(), result.getError().getMessage(),
-                        ErrorCode.ERROR, isConditionNotMet, msg.get().getMessage()));
-                continue;
+        } finally {
+            for (PendingMessage pending : pendingMessages) {
+                pending.parsing.cancel(false);
             }
         }
     }
@@ -273,10 +345,20 @@ class ClientFeederV3 {
     }
 
     // protected for mocking
-    /** Returns the next message in the stream, or null if none */
-    protected DocumentOperationMessageV3 getNextMessage(
+    /**
+     * Reads the next operation in the stream and returns a task parsing it into a message,
+     * where the task returns null if the operation marks the end of the feed
+     */
+    protected Callable<DocumentOperationMessageV3> readNextOperation(
             String operationId, InputStream requestInputStream, FeederSettings settings) throws Exception {
-        VespaXMLFeedReader.Operation operation = streamReaderV3.getNextOperation(requestInputStream, settings);
+        byte[] operationData = streamReaderV3.getNextOperationData(requestInputStream);
+        return () -> parseMessage(operationId, operationData, settings);
+    }
+
+    /** Returns the message of the given operation data, or null if it marks the end of the feed */
+    private DocumentOperationMessageV3 parseMessage(
+            String operationId, byte[] operationData, FeederSettings settings) throws Exception {
+        VespaXMLFeedReader.Operation operation = streamReaderV3.parseOperation(operationData, settings);
 
         // This is a bit hard to set up while testing, so we accept that things are not perfect.
         if (sourceSession.getResource().session() != null) {
@@ -350,4 +432,17 @@ class ClientFeederV3 {
         }
     }
 
+    /** An operation which has been read from the stream and is being parsed */
+    private static class PendingMessage {
+
+        private final String operationId;
+        private final FutureTask<DocumentOperationMessageV3> parsing;
+
+        PendingMessage(String operationId, Callable<DocumentOperationMessageV3> parser) {
+            this.operationId = operationId;
+            this.parsing = new FutureTask<>(parser);
+        }
+
+    }
+
 }
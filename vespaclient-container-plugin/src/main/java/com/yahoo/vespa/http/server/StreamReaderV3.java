@@ -8,6 +8,8 @@ import com.yahoo.vespa.http.server.util.ByteLimitedInputStream;
 import com.yahoo.vespaxmlparser.FeedReader;
 import com.yahoo.vespaxmlparser.VespaXMLFeedReader;
 
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Optional;
@@ -43,6 +45,34 @@ public class StreamReaderV3 {
         return op;
     }
 
+    /**
+     * Reads the data of the next operation in the stream without parsing it.
+     * This is cheap compared to parsing, so it can be done on the request thread while parsing is done elsewhere.
+     */
+    public byte[] getNextOperationData(InputStream requestInputStream) throws IOException {
+        int length = readByteLength(requestInputStream);
+        byte[] data = new byte[length];
+        int read = 0;
+        while (read < length) {
+            int count = requestInputStream.read(data, read, length - read);
+            if (count == -1) {
+                throw new EOFException("Expected " + length + " bytes of operation data, but got " + read);
+            }
+            read += count;
+        }
+        return data;
+    }
+
+    /** Parses operation data read by {@link #getNextOperationData}. This is thread safe. */
+    public VespaXMLFeedReader.Operation parseOperation(byte[] data, FeederSettings settings) throws Exception {
+        VespaXMLFeedReader.Operation op = new VespaXMLFeedReader.Operation();
+        try (InputStream dataStream = new ByteArrayInputStream(data)) {
+            FeedReader reader = feedReaderFactory.createReader(dataStream, docTypeManager, settings.dataFormat);
+            reader.read(op);
+        }
+        return op;
+    }
+
     public Optional<String> getNextOperationId(InputStream requestInputStream) throws IOException {
         StringBuilder idBuf = new StringBuilder(100);
         int c;
@@ -29,6 +29,7 @@ import com.yahoo.container.jdisc.HttpRequest;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 
@@ -65,6 +66,17 @@ public class FeedTesterV3 {
         assertThat(Splitter.on("\n").splitToList(result).size(), is(101));
     }
 
+    @Test
+    public void feedManyDocumentsIsInOrder() throws Exception {
+        final FeedHandlerV3 feedHandlerV3 = setupFeederHandler();
+        HttpResponse httpResponse = feedHandlerV3.handle(createRequest(100));
+        ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+        httpResponse.render(outStream);
+        List<String> lines = Splitter.on("\n").splitToList(Utf8.toString(outStream.toByteArray()));
+        for (int i = 0; i < 100; i++)
+            assertThat(OperationStatus.parse(lines.get(i)).operationId, is("123" + i));
+    }
+
     DocumentTypeManager createDoctypeManager() {
         DocumentTypeManager docTypeManager = new DocumentTypeManager();
         DocumentType documentType = new DocumentType("testdocument");
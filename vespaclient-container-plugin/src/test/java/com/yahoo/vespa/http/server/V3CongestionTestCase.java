@@ -28,6 +28,7 @@ import java.io.IOException;
 import java.io.InputStream;
 
 
+import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertTrue;
@@ -43,7 +44,7 @@ public class V3CongestionTestCase {
         private final DocumentOperationMessageV3 docOp;
 
         ClientFeederWithMocks(ReferencedResource<SharedSourceSession> sourceSession, FeedReaderFactory feedReaderFactory, DocumentTypeManager docTypeManager, String clientId, Metric metric, ReplyHandler feedReplyHandler, AtomicInteger threadsAvailableForFeeding) {
-            super(sourceSession, feedReaderFactory, docTypeManager, clientId, metric, feedReplyHandler, threadsAvailableForFeeding);
+            super(sourceSession, feedReaderFactory, docTypeManager, clientId, metric, feedReplyHandler, threadsAvailableForFeeding, Runnable::run);
             // The operation to return from the client feeder.
             VespaXMLFeedReader.Operation op = new VespaXMLFeedReader.Operation();
             docOp = DocumentOperationMessageV3.newRemoveMessage(op, "operation id");
@@ -51,7 +52,7 @@ public class V3CongestionTestCase {
         }
 
         @Override
-        protected DocumentOperationMessageV3 getNextMessage(
+        protected Callable<DocumentOperationMessageV3> readNextOperation(
                 String operationId, InputStream requestInputStream, FeederSettings settings) throws Exception {
             while (true) {
                 int data = requestInputStream.read();
@@ -59,7 +60,7 @@ public class V3CongestionTestCase {
                     break;
                 }
             }
-            return docOp;
+            return () -> docOp;
         }
     }
 
@@ -3,6 +3,8 @@ package com.yahoo.compress;
 
 import net.jpountz.lz4.LZ4Compressor;
 import net.jpountz.lz4.LZ4Factory;
+
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Optional;
 
@@ -124,6 +126,41 @@ public class Compressor {
                 throw new IllegalArgumentException(compression + " is not supported");
         }
     }
+
+    /**
+     * Decompresses some data read from a buffer, which may be a direct buffer.
+     * This does not copy the compressed data into an intermediate array.
+     *
+     * @param compression the compression type used
+     * @param compressedData the compressed data, starting at the position of the buffer.
+     *                       The position of the buffer is advanced past the compressed data
+     * @param expectedUncompressedSize the uncompressed size in bytes of this data
+     * @param expectedCompressedSize the expected compressed size of the data in bytes
+     * @return the uncompressed data, of the given size
+     * @throws IllegalArgumentException if the compression type is not supported
+     * @throws IllegalStateException if the expected compressed size is different from the actual size
+     */
+    public byte[] decompress(CompressionType compression, ByteBuffer compressedData,
+                             int expectedUncompressedSize, int expectedCompressedSize) {
+        switch (compression) {
+            case NONE: case INCOMPRESSIBLE: // return a copy of the requested slize of the input buffer
+                byte[] copy = new byte[expectedCompressedSize];
+                compressedData.get(copy);
+                return copy;
+            case LZ4:
+                byte[] uncompressedLZ4Data = new byte[expectedUncompressedSize];
+                int compressedSize = factory.fastDecompressor().decompress(compressedData, compressedData.position(),
+                                                                           ByteBuffer.wrap(uncompressedLZ4Data), 0,
+                                                                           expectedUncompressedSize);
+                if (compressedSize != expectedCompressedSize)
+                    throw new IllegalStateException("Compressed size mismatch. Expected " + compressedSize + ". Got " + expectedCompressedSize);
+                compressedData.position(compressedData.position() + compressedSize);
+                return uncompressedLZ4Data;
+            default:
+                throw new IllegalArgumentException(compression + " is not supported");
+        }
+    }
+
     /** Decompresses some data */
     public byte[] decompress(byte[] compressedData, CompressionType compressionType, int uncompressedSize) {
         return decompress(compressionType, compressedData, 0, uncompressedSize, Optional.empty());
@@ -0,0 +1,369 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.slime;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static com.yahoo.slime.BinaryFormat.decode_double;
+import static com.yahoo.slime.BinaryFormat.decode_zigzag;
+
+/**
+ * A read only view of Slime data in binary format, which inspects the binary data directly
+ * instead of decoding it into a Slime object first.
+ * <p>
+ * Creating a view reads the symbol table and makes a single pass over the data to record where each value is,
+ * without allocating any values. Each value is then read from the binary data when it is accessed,
+ * such that values which are never accessed are never decoded.
+ * The binary data must not be modified while a view of it is in use.
+ *
+ * @author agent
+ */
+public final class BinaryView implements Inspector {
+
+    /** The number of ints used to describe each value in the index */
+    private static final int slotSize = 4;
+
+    /** Offsets of the value information in each index slot */
+    private static final int positionOffset = 0; // the position of the type and meta byte of the value
+    private static final int firstChildOffset = 1; // the slot of the first child of an array or object
+    private static final int childCountOffset = 2; // the number of children of an array or object
+    private static final int symbolOffset = 3; // the symbol of a field value, or -1 if not a field value
+
+    private static final byte[] emptyData = new byte[0];
+
+    private final byte[] data;
+    private final SymbolTable names;
+
+    /** The information of all the values of this, where the children of each array or object are adjacent */
+    private final int[] index;
+
+    /** The slot of the value of this view */
+    private final int slot;
+
+    private BinaryView(byte[] data, SymbolTable names, int[] index, int slot) {
+        this.data = data;
+        this.names = names;
+        this.index = index;
+        this.slot = slot;
+    }
+
+    /**
+     * Returns a view of the given data, which is assumed to be the binary representation
+     * obtained by {@link BinaryFormat#encode}.
+     *
+     * @throws IllegalArgumentException if the data is not valid Slime in binary format
+     */
+    public static Inspector inspect(byte[] data) {
+        return inspect(data, 0, data.length);
+    }
+
+    /**
+     * Returns a view of the given data, which is assumed to be the binary representation
+     * obtained by {@link BinaryFormat#encode}.
+     *
+     * @param data the array containing the data to inspect
+     * @param offset where in the array the data starts
+     * @param length the number of bytes of the data
+     * @throws IllegalArgumentException if the data is not valid Slime in binary format
+     */
+    public static Inspector inspect(byte[] data, int offset, int length) {
+        Indexer indexer = new Indexer(data, offset, length);
+        return new BinaryView(data, indexer.names, indexer.index, 0);
+    }
+
+    private int position() { return index[slot * slotSize + positionOffset]; }
+    private int firstChild() { return index[slot * slotSize + firstChildOffset]; }
+    private int childCount() { return index[slot * slotSize + childCountOffset]; }
+    private int symbol(int slot) { return index[slot * slotSize + symbolOffset]; }
+
+    private byte tag() { return data[position()]; }
+    private int meta() { return (tag() & 0xff) >>> 3; }
+
+    private BinaryView child(int i) {
+        return new BinaryView(data, names, index, firstChild() + i);
+    }
+
+    @Override
+    public boolean valid() { return true; }
+
+    @Override
+    public Type type() { return BinaryFormat.decode_type(tag()); }
+
+    @Override
+    public int children() {
+        Type type = type();
+        return type == Type.ARRAY || type == Type.OBJECT ? childCount() : 0;
+    }
+
+    @Override
+    public int entries() { return type() == Type.ARRAY ? childCount() : 0; }
+
+    @Override
+    public int fields() { return type() == Type.OBJECT ? childCount() : 0; }
+
+    @Override
+    public boolean asBool() { return type() == Type.BOOL && meta() != 0; }
+
+    @Override
+    public long asLong() {
+        switch (type()) {
+            case LONG: return decode_zigzag(readBytesLittleEndian(position() + 1, meta()));
+            case DOUBLE: return (long)decode_double(readBytesBigEndian(position() + 1, meta()));
+            default: return 0;
+        }
+    }
+
+    @Override
+    public double asDouble() {
+        switch (type()) {
+            case LONG: return (double)decode_zigzag(readBytesLittleEndian(position() + 1, meta()));
+            case DOUBLE: return decode_double(readBytesBigEndian(position() + 1, meta()));
+            default: return 0.0;
+        }
+    }
+
+    @Override
+    public String asString() {
+        if (type() != Type.STRING) return "";
+        long sizeAndStart = sizeAndStart();
+        return Utf8Codec.decode(data, (int)sizeAndStart, (int)(sizeAndStart >>> 32));
+    }
+
+    @Override
+    public byte[] asUtf8() {
+        if (type() != Type.STRING) return emptyData;
+        return copyPayload();
+    }
+
+    @Override
+    public byte[] asData() {
+        if (type() != Type.DATA) return emptyData;
+        return copyPayload();
+    }
+
+    @Override
+    public void accept(Visitor v) {
+        switch (type()) {
+            case NIX: v.visitNix(); break;
+            case BOOL: v.visitBool(asBool()); break;
+            case LONG: v.visitLong(asLong()); break;
+            case DOUBLE: v.visitDouble(asDouble()); break;
+            case STRING: v.visitString(asUtf8()); break;
+            case DATA: v.visitData(asData()); break;
+            case ARRAY: v.visitArray(this); break;
+            case OBJECT: v.visitObject(this); break;
+        }
+    }
+
+    @Override
+    public void traverse(ArrayTraverser at) {
+        int entries = entries();
+        for (int i = 0; i < entries; i++)
+            at.entry(i, child(i));
+    }
+
+    @Override
+    public void traverse(ObjectSymbolTraverser ot) {
+        int fields = fields();
+        for (int i = 0; i < fields; i++)
+            ot.field(symbol(firstChild() + i), child(i));
+    }
+
+    @Override
+    public void traverse(ObjectTraverser ot) {
+        int fields = fields();
+        for (int i = 0; i < fields; i++)
+            ot.field(names.inspect(symbol(firstChild() + i)), child(i));
+    }
+
+    @Override
+    public Inspector entry(int idx) {
+        if (idx < 0 || idx >= entries()) return NixValue.invalid();
+        return child(idx);
+    }
+
+    @Override
+    public Inspector field(int sym) {
+        int fields = fields();
+        int firstChild = firstChild();
+        for (int i = 0; i < fields; i++) {
+            if (symbol(firstChild + i) == sym)
+                return child(i);
+        }
+        return NixValue.invalid();
+    }
+
+    @Override
+    public Inspector field(String name) {
+        if (type() != Type.OBJECT) return NixValue.invalid();
+        int sym = names.lookup(name);
+        if (sym == SymbolTable.INVALID) return NixValue.invalid();
+        return field(sym);
+    }
+
+    /** Returns the size of a string or data payload in the upper 32 bits and its start in the lower 32 bits */
+    private long sizeAndStart() {
+        int position = position() + 1;
+        int meta = meta();
+        long size = meta - 1;
+        if (meta == 0) {
+            size = 0;
+            int shift = 0;
+            byte next;
+            do {
+                next = data[position++];
+                size |= (long)(next & 0x7f) << shift;
+                shift += 7;
+            } while ((next & 0x80) != 0);
+        }
+        return (size << 32) | position;
+    }
+
+    private byte[] copyPayload() {
+        long sizeAndStart = sizeAndStart();
+        int start = (int)sizeAndStart;
+        return Arrays.copyOfRange(data, start, start + (int)(sizeAndStart >>> 32));
+    }
+
+    private long readBytesLittleEndian(int position, int bytes) {
+        long value = 0;
+        for (int i = 0; i < bytes; i++)
+            value |= (data[position + i] & 0xffL) << (i * 8);
+        return value;
+    }
+
+    private long readBytesBigEndian(int position, int bytes) {
+        long value = 0;
+        for (int i = 0; i < bytes; i++)
+            value |= (data[position + i] & 0xffL) << (56 - i * 8);
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        try {
+            ByteArrayOutputStream a = new ByteArrayOutputStream();
+            new JsonFormat(true).encode(a, this);
+            byte[] utf8 = a.toByteArray();
+            return Utf8Codec.decode(utf8, 0, utf8.length);
+        } catch (Exception e) {
+            return "null";
+        }
+    }
+
+    /** Reads the symbol table and records the position of each value of some binary data */
+    private static final class Indexer {
+
+        private final byte[] data;
+        private final int end;
+        private int position;
+
+        private final SymbolTable names = new SymbolTable();
+        private int[] index = new int[16 * slotSize];
+        private int slots = 0;
+
+        Indexer(byte[] data, int offset, int length) {
+            if (offset < 0 || length < 0 || offset + length > data.length)
+                throw new IllegalArgumentException("Offset " + offset + " and length " + length +
+                                                   " is outside the data of length " + data.length);
+            this.data = data;
+            this.position = offset;
+            this.end = offset + length;
+            readSymbolTable();
+            int root = allocate(1);
+            setSymbol(root, -1);
+            indexValue(root);
+        }
+
+        private void readSymbolTable() {
+            long symbolCount = readSize(0);
+            for (int i = 0; i < symbolCount; i++) {
+                int size = (int)readSize(0);
+                skip(size);
+                if (names.insert(Utf8Codec.decode(data, position - size, size)) != i)
+                    throw new IllegalArgumentException("Duplicate symbols in symbol table");
+            }
+        }
+
+        /** Records the value starting at the current position in the given slot, and moves past it */
+        private void indexValue(int slot) {
+            index[slot * slotSize + positionOffset] = position;
+            byte tag = nextByte();
+            int meta = (tag & 0xff) >>> 3;
+            switch (BinaryFormat.decode_type(tag)) {
+                case NIX: case BOOL:
+                    break;
+                case LONG: case DOUBLE:
+                    skip(meta);
+                    break;
+                case STRING: case DATA:
+                    skip(readSize(meta));
+                    break;
+                case ARRAY:
+                    indexChildren(slot, readSize(meta), false);
+                    break;
+                case OBJECT:
+                    indexChildren(slot, readSize(meta), true);
+                    break;
+            }
+        }
+
+        private void indexChildren(int slot, long count, boolean isObject) {
+            if (count > end - position)
+                throw new IllegalArgumentException("Container of " + count + " values does not fit in the data");
+            int firstChild = allocate((int)count);
+            index[slot * slotSize + firstChildOffset] = firstChild;
+            index[slot * slotSize + childCountOffset] = (int)count;
+            for (int i = 0; i < count; i++) {
+                if (isObject) {
+                    long symbol = readSize(0);
+                    if (symbol >= names.symbols())
+                        throw new IllegalArgumentException("Symbol " + symbol + " is not in the symbol table");
+                    setSymbol(firstChild + i, (int)symbol);
+                }
+                else {
+                    setSymbol(firstChild + i, -1);
+                }
+                indexValue(firstChild + i);
+            }
+        }
+
+        /** Returns the first of the given number of new, adjacent slots */
+        private int allocate(int count) {
+            int first = slots;
+            slots += count;
+            if (slots * slotSize > index.length)
+                index = Arrays.copyOf(index, Math.max(index.length * 2, slots * slotSize));
+            return first;
+        }
+
+        private void setSymbol(int slot, int symbol) {
+            index[slot * slotSize + symbolOffset] = symbol;
+        }
+
+        private long readSize(int meta) {
+            if (meta != 0) return meta - 1;
+            long value = 0;
+            int shift = 0;
+            byte next;
+            do {
+                next = nextByte();
+                value |= (long)(next & 0x7f) << shift;
+                shift += 7;
+            } while ((next & 0x80) != 0);
+            return value;
+        }
+
+        private byte nextByte() {
+            if (position >= end) throw new IllegalArgumentException("Underflow at position " + position);
+            return data[position++];
+        }
+
+        private void skip(long size) {
+            if (size > end - position) throw new IllegalArgumentException("Underflow at position " + position);
+            position += size;
+        }
+
+    }
+
+}
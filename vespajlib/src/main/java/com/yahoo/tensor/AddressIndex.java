@@ -0,0 +1,102 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash index from tensor addresses to the consecutive integers 0..size()-1,
+ * assigned in the order the addresses are added. This is used to store the cells of sparse tensors
+ * in primitive arrays indexed by the number of their address, without creating any objects per cell
+ * beyond the address itself.
+ * <p>
+ * This is mutable while it is being built and must not be modified after it is passed to a tensor.
+ *
+ * @author agent
+ */
+final class AddressIndex {
+
+    /** The addresses of this, in the order they were added */
+    private TensorAddress[] addresses;
+
+    /** The hash slots of this, holding the number of an address plus one, or 0 if the slot is empty */
+    private int[] slots;
+
+    private int size = 0;
+
+    AddressIndex() {
+        this(16);
+    }
+
+    /** Creates an index with room for the given number of addresses before it needs to grow */
+    AddressIndex(int expectedSize) {
+        addresses = new TensorAddress[Math.max(expectedSize, 1)];
+        slots = new int[slotCountFor(addresses.length)];
+    }
+
+    /** Returns the number of addresses in this */
+    int size() { return size; }
+
+    /** Returns the address with the given number */
+    TensorAddress address(int number) { return addresses[number]; }
+
+    /** Returns the number of the given address, or -1 if it is not present in this */
+    int indexOf(TensorAddress address) {
+        int mask = slots.length - 1;
+        for (int slot = hash(address) & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots[slot];
+            if (entry == 0) return -1;
+            if (addresses[entry - 1].equals(address)) return entry - 1;
+        }
+    }
+
+    /** Adds the given address if it is not already present, and returns the number of it in either case */
+    int add(TensorAddress address) {
+        int mask = slots.length - 1;
+        int slot = hash(address) & mask;
+        for (; slots[slot] != 0; slot = (slot + 1) & mask) {
+            if (addresses[slots[slot] - 1].equals(address)) return slots[slot] - 1;
+        }
+        if (size == addresses.length) {
+            grow();
+            return add(address);
+        }
+        addresses[size] = address;
+        slots[slot] = ++size;
+        return size - 1;
+    }
+
+    /** Returns a copy of this which can be modified independently */
+    AddressIndex copy() {
+        AddressIndex copy = new AddressIndex(0);
+        copy.addresses = Arrays.copyOf(addresses, addresses.length);
+        copy.slots = Arrays.copyOf(slots, slots.length);
+        copy.size = size;
+        return copy;
+    }
+
+        /** Returns the current capacity of this, i.e the length required of arrays holding a value per address */
+    int capacity() { return addresses.length; }
+
+    private void grow() {
+        addresses = Arrays.copyOf(addresses, addresses.length * 2);
+        slots = new int[slotCountFor(addresses.length)];
+        int mask = slots.length - 1;
+        for (int number = 0; number < size; number++) {
+            int slot = hash(addresses[number]) & mask;
+            while (slots[slot] != 0)
+                slot = (slot + 1) & mask;
+            slots[slot] = number + 1;
+        }
+    }
+
+    /** Returns a power of two at least twice the given number of addresses, to keep the load factor at most 0.5 */
+    private static int slotCountFor(int addressCount) {
+        return Integer.highestOneBit(Math.max(addressCount, 1) * 2 - 1) << 1;
+    }
+
+    private static int hash(TensorAddress address) {
+        int hash = address.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+}
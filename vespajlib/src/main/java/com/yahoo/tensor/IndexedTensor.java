@@ -15,7 +15,8 @@ import java.util.Optional;
 import java.util.Set;
 
 /**
- * An indexed (dense) tensor backed by a double array.
+ * An indexed (dense) tensor backed by a double array, or by a float array if the value type
+ * of the tensor is less precise than double.
  *
  * @author bratseth
  */
@@ -27,17 +28,29 @@ public class IndexedTensor implements Tensor {
     /** The sizes of the dimensions of this in the order of the dimensions of the type */
     private final DimensionSizes dimensionSizes;
 
+    /** The cell values of this, or null if this has float values */
     private final double[] values;
 
+    /** The cell values of this if the value type of this is less precise than double, null otherwise */
+    private final float[] floatValues;
+
     private IndexedTensor(TensorType type, DimensionSizes dimensionSizes, double[] values) {
         this.type = type;
         this.dimensionSizes = dimensionSizes;
         this.values = values;
+        this.floatValues = null;
+    }
+
+    private IndexedTensor(TensorType type, DimensionSizes dimensionSizes, float[] floatValues) {
+        this.type = type;
+        this.dimensionSizes = dimensionSizes;
+        this.values = null;
+        this.floatValues = floatValues;
     }
 
     @Override
     public long size() {
-        return values.length;
+        return values != null ? values.length : floatValues.length;
     }
 
     /**
@@ -101,7 +114,7 @@ public class IndexedTensor implements Tensor {
      * @throws IndexOutOfBoundsException if any of the indexes are out of bound or a wrong number of indexes are given
      */
     public double get(long ... indexes) {
-        return values[(int)toValueIndex(indexes, dimensionSizes)];
+        return get(toValueIndex(indexes, dimensionSizes));
     }
 
     /** Returns the value at this address, or NaN if there is no value at this address */
@@ -109,14 +122,27 @@ public class IndexedTensor implements Tensor {
     public double get(TensorAddress address) {
         // optimize for fast lookup within bounds:
         try {
-            return values[(int)toValueIndex(address, dimensionSizes)];
+            return get(toValueIndex(address, dimensionSizes));
         }
         catch (IndexOutOfBoundsException e) {
             return Double.NaN;
         }
     }
 
-    private double get(long valueIndex) { return values[(int)valueIndex]; }
+    private double get(long valueIndex) {
+        return values != null ? values[(int)valueIndex] : floatValues[(int)valueIndex];
+    }
+
+    /**
+     * Returns the value at the given index in the internal layout of cells in this, which is the order
+     * of the value iterator. This requires knowledge of the internal layout of cells in this implementation,
+     * but is fast, as it does not create any objects.
+     *
+     * @throws IndexOutOfBoundsException if the index is not smaller than the size of this
+     */
+    public double getByDirectIndex(long index) {
+        return get(index);
+    }
 
     private static long toValueIndex(long[] indexes, DimensionSizes sizes) {
         if (indexes.length == 1) return indexes[0]; // for speed
@@ -162,19 +188,26 @@ public class IndexedTensor implements Tensor {
     @Override
     public Map<TensorAddress, Double> cells() {
         if (dimensionSizes.dimensions() == 0)
-            return Collections.singletonMap(TensorAddress.of(), values[0]);
+            return Collections.singletonMap(TensorAddress.of(), get(0));
 
         ImmutableMap.Builder<TensorAddress, Double> builder = new ImmutableMap.Builder<>();
-        Indexes indexes = Indexes.of(dimensionSizes, dimensionSizes, values.length);
-        for (long i = 0; i < values.length; i++) {
+        Indexes indexes = Indexes.of(dimensionSizes, dimensionSizes, size());
+        for (long i = 0; i < size(); i++) {
             indexes.next();
-            builder.put(indexes.toAddress(), values[(int)i]);
+            builder.put(indexes.toAddress(), get(i));
         }
         return builder.build();
     }
 
     @Override
-    public int hashCode() { return Arrays.hashCode(values); }
+    public int hashCode() {
+        if (values != null) return Arrays.hashCode(values);
+
+        int hashCode = 1; // same as for the equivalent double array
+        for (float value : floatValues)
+            hashCode = 31 * hashCode + Double.hashCode(value);
+        return hashCode;
+    }
 
     @Override
     public String toString() { return Tensor.toStandardString(this); }
@@ -231,11 +264,12 @@ public class IndexedTensor implements Tensor {
 
     }
 
-    /** A bound builder can create the double array directly */
+    /** A bound builder can create the double or float array directly */
     public static class BoundBuilder extends Builder {
 
         private DimensionSizes sizes;
         private double[] values;
+        private float[] floatValues;
 
         private BoundBuilder(TensorType type) {
             this(type, dimensionSizesOf(type));
@@ -253,12 +287,15 @@ public class IndexedTensor implements Tensor {
             if ( sizes.dimensions() != type.dimensions().size())
                 throw new IllegalArgumentException("Must have a dimension size entry for each dimension in " + type);
             this.sizes = sizes;
-            values = new double[(int)sizes.totalSize()];
+            if (type.valueType() == TensorType.Value.DOUBLE)
+                values = new double[(int)sizes.totalSize()];
+            else
+                floatValues = new float[(int)sizes.totalSize()];
         }
 
         @Override
         public BoundBuilder cell(double value, long ... indexes) {
-            values[(int)toValueIndex(indexes, sizes)] = value;
+            set(toValueIndex(indexes, sizes), value);
             return this;
         }
 
@@ -269,16 +306,18 @@ public class IndexedTensor implements Tensor {
 
         @Override
         public Builder cell(TensorAddress address, double value) {
-            values[(int)toValueIndex(address, sizes)] = value;
+            set(toValueIndex(address, sizes), value);
             return this;
         }
 
         @Override
         public IndexedTensor build() {
-            IndexedTensor tensor = new IndexedTensor(type, sizes, values);
+            IndexedTensor tensor = values != null ? new IndexedTensor(type, sizes, values)
+                                                  : new IndexedTensor(type, sizes, floatValues);
             // prevent further modification
             sizes = null;
             values = null;
+            floatValues = null;
             return tensor;
         }
 
@@ -286,7 +325,7 @@ public class IndexedTensor implements Tensor {
         public Builder cell(Cell cell, double value) {
             long directIndex = cell.getDirectIndex();
             if (directIndex >= 0) // optimization
-                values[(int)directIndex] = value;
+                set(directIndex, value);
             else
                 super.cell(cell, value);
             return this;
@@ -298,7 +337,14 @@ public class IndexedTensor implements Tensor {
          * probably not be used (but when it can be used it is fast).
          */
         public void cellByDirectIndex(long index, double value) {
-            values[(int)index] = value;
+            set(index, value);
+        }
+
+        private void set(long index, double value) {
+            if (values != null)
+                values[(int)index] = value;
+            else
+                floatValues[(int)index] = (float)type.valueType().convert(value);
         }
 
     }
@@ -321,12 +367,22 @@ public class IndexedTensor implements Tensor {
             if (firstDimension == null) throw new IllegalArgumentException("Tensor of type " + type() + " has no values");
 
             if (type.dimensions().isEmpty()) // single number
-                return new IndexedTensor(type, new DimensionSizes.Builder(type.dimensions().size()).build(), new double[] {(Double) firstDimension.get(0) });
+                return create(new DimensionSizes.Builder(type.dimensions().size()).build(), new double[] {(Double) firstDimension.get(0) });
 
             DimensionSizes dimensionSizes = findDimensionSizes(firstDimension);
             double[] values = new double[(int)dimensionSizes.totalSize()];
             fillValues(0, 0, firstDimension, dimensionSizes, values);
-            return new IndexedTensor(type, dimensionSizes, values);
+            return create(dimensionSizes, values);
+        }
+
+        private IndexedTensor create(DimensionSizes dimensionSizes, double[] values) {
+            if (type.valueType() == TensorType.Value.DOUBLE)
+                return new IndexedTensor(type, dimensionSizes, values);
+
+            float[] floatValues = new float[values.length];
+            for (int i = 0; i < values.length; i++)
+                floatValues[i] = (float)type.valueType().convert(values[i]);
+            return new IndexedTensor(type, dimensionSizes, floatValues);
         }
 
         private DimensionSizes findDimensionSizes(List<Object> firstDimension) {
@@ -433,7 +489,7 @@ public class IndexedTensor implements Tensor {
     private final class CellIterator implements Iterator<Cell> {
 
         private long count = 0;
-        private final Indexes indexes = Indexes.of(dimensionSizes, dimensionSizes, values.length);
+        private final Indexes indexes = Indexes.of(dimensionSizes, dimensionSizes, size());
         private final LazyCell reusedCell = new LazyCell(indexes, Double.NaN);
 
         @Override
@@ -458,13 +514,13 @@ public class IndexedTensor implements Tensor {
 
         @Override
         public boolean hasNext() {
-            return count < values.length;
+            return count < size();
         }
 
         @Override
         public Double next() {
             try {
-                return values[(int)count++];
+                return get(count++);
             }
             catch (IndexOutOfBoundsException e) {
                 throw new NoSuchElementException("No element at position " + count);
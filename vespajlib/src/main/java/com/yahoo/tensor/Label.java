@@ -0,0 +1,49 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor;
+
+/**
+ * Ids of tensor address labels, which allow addresses to be hashed and mostly compared as arrays of longs.
+ * Labels which are non-negative integers on canonical form (no leading zeros) have themselves as id.
+ * Other labels have a negative id derived from their hash code. As these ids are not unique, addresses
+ * also keep the labels which are not numeric, to compare them when their ids are equal.
+ * <p>
+ * This keeps no state, so labels do not use memory beyond the addresses holding them.
+ *
+ * @author agent
+ */
+final class Label {
+
+    /** The largest number of digits a label can have and still be parsed as a non-negative long */
+    private static final int maxNumericLength = 18;
+
+    private Label() {}
+
+    /** Returns the id of the given label */
+    static long toId(String label) {
+        if (isNumeric(label)) return Long.parseLong(label);
+        return Long.MIN_VALUE | (label.hashCode() & 0xffffffffL);
+    }
+
+    /** Returns the id of the given numeric label */
+    static long toId(long label) {
+        if (label >= 0) return label;
+        return toId(String.valueOf(label));
+    }
+
+    /** Returns whether the given id is the id of a numeric label, which is then identified by the id alone */
+    static boolean isNumeric(long id) {
+        return id >= 0;
+    }
+
+    private static boolean isNumeric(String label) {
+        int length = label.length();
+        if (length == 0 || length > maxNumericLength) return false;
+        if (length > 1 && label.charAt(0) == '0') return false;
+        for (int i = 0; i < length; i++) {
+            char c = label.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+
+}
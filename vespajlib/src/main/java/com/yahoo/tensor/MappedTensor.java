@@ -3,11 +3,13 @@ package com.yahoo.tensor;
 
 import com.google.common.collect.ImmutableMap;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 /**
- * A sparse implementation of a tensor backed by a Map of cells to values.
+ * A sparse implementation of a tensor backed by a hash index from cell addresses to a primitive array of values.
  *
  * @author bratseth
  */
@@ -15,34 +17,60 @@ public class MappedTensor implements Tensor {
 
     private final TensorType type;
 
-    private final ImmutableMap<TensorAddress, Double> cells;
+    /** The addresses of the cells of this */
+    private final AddressIndex index;
+
+    /** The values of the cells of this, indexed by the number of their address in the index */
+    private final double[] values;
+
+    /** The cells of this as a map, created on the first call to cells() */
+    private volatile ImmutableMap<TensorAddress, Double> cells = null;
 
     /** Creates a sparse tensor. The cell addresses must match the type. */
-    private MappedTensor(TensorType type, Map<TensorAddress, Double> cells) {
+    private MappedTensor(TensorType type, AddressIndex index, double[] values) {
         this.type = type;
-        this.cells = ImmutableMap.copyOf(cells);
+        this.index = index;
+        this.values = values;
     }
 
     @Override
     public TensorType type() { return type; }
 
     @Override
-    public long size() { return cells.size(); }
+    public long size() { return index.size(); }
 
     @Override
-    public double get(TensorAddress address) { return cells.getOrDefault(address, Double.NaN); }
+    public double get(TensorAddress address) {
+        int number = index.indexOf(address);
+        return number < 0 ? Double.NaN : values[number];
+    }
 
     @Override
-    public Iterator<Cell> cellIterator() { return new CellIteratorAdaptor(cells.entrySet().iterator()); }
+    public Iterator<Cell> cellIterator() { return new CellIterator(); }
 
     @Override
-    public Iterator<Double> valueIterator() { return cells.values().iterator(); }
+    public Iterator<Double> valueIterator() { return new ValueIterator(); }
 
     @Override
-    public Map<TensorAddress, Double> cells() { return cells; }
+    public Map<TensorAddress, Double> cells() {
+        ImmutableMap<TensorAddress, Double> cells = this.cells;
+        if (cells == null) {
+            ImmutableMap.Builder<TensorAddress, Double> builder = new ImmutableMap.Builder<>();
+            for (int i = 0; i < index.size(); i++)
+                builder.put(index.address(i), values[i]);
+            this.cells = cells = builder.build();
+        }
+        return cells;
+    }
 
+    /** Returns the same hash code as cells().hashCode() */
     @Override
-    public int hashCode() { return cells.hashCode(); }
+    public int hashCode() {
+        int hashCode = 0;
+        for (int i = 0; i < index.size(); i++)
+            hashCode += index.address(i).hashCode() ^ Double.hashCode(values[i]);
+        return hashCode;
+    }
 
     @Override
     public String toString() { return Tensor.toStandardString(this); }
@@ -56,7 +84,11 @@ public class MappedTensor implements Tensor {
     public static class Builder implements Tensor.Builder {
 
         private final TensorType type;
-        private final ImmutableMap.Builder<TensorAddress, Double> cells = new ImmutableMap.Builder<>();
+        private AddressIndex index = new AddressIndex();
+        private double[] values = new double[index.capacity()];
+
+        /** Whether the index and values are owned by a tensor built by this, such that they must be copied on write */
+        private boolean built = false;
 
         public static Builder of(TensorType type) { return new Builder(type); }
 
@@ -71,40 +103,70 @@ public class MappedTensor implements Tensor {
         @Override
         public TensorType type() { return type; }
 
+        /**
+         * Sets the value of a cell.
+         *
+         * @throws IllegalArgumentException if the cell is already set
+         */
         @Override
         public Builder cell(TensorAddress address, double value) {
-            cells.put(address, value);
+            if (built) {
+                index = index.copy();
+                values = Arrays.copyOf(values, index.capacity());
+                built = false;
+            }
+            int sizeBefore = index.size();
+            int number = index.add(address);
+            if (number < sizeBefore)
+                throw new IllegalArgumentException("Multiple values for cell " + address + ": " +
+                                                   values[number] + " and " + value);
+            if (number >= values.length)
+                values = Arrays.copyOf(values, index.capacity());
+            values[number] = type.valueType().convert(value);
             return this;
         }
 
         @Override
         public Builder cell(double value, long... labels) {
-            cells.put(TensorAddress.of(labels), value);
-            return this;
+            return cell(TensorAddress.of(labels), value);
         }
 
         @Override
         public MappedTensor build() {
-            return new MappedTensor(type, cells.build());
+            built = true;
+            return new MappedTensor(type, index, values);
         }
 
     }
 
-    private static class CellIteratorAdaptor implements Iterator<Cell> {
+    private class CellIterator implements Iterator<Cell> {
 
-        private final Iterator<Map.Entry<TensorAddress, Double>> adaptedIterator;
+        private int next = 0;
 
-        private CellIteratorAdaptor(Iterator<Map.Entry<TensorAddress, Double>> adaptedIterator) {
-            this.adaptedIterator = adaptedIterator;
+        @Override
+        public boolean hasNext() { return next < index.size(); }
+
+        @Override
+        public Cell next() {
+            if ( ! hasNext()) throw new NoSuchElementException("No cell at " + next);
+            Cell cell = new Cell(index.address(next), values[next]);
+            next++;
+            return cell;
         }
 
+    }
+
+    private class ValueIterator implements Iterator<Double> {
+
+        private int next = 0;
+
         @Override
-        public boolean hasNext() { return adaptedIterator.hasNext(); }
+        public boolean hasNext() { return next < index.size(); }
 
         @Override
-        public Cell next() {
-            Map.Entry<TensorAddress, Double> entry = adaptedIterator.next();
-            return new Cell(entry.getKey(), entry.getValue());
+        public Double next() {
+            if ( ! hasNext()) throw new NoSuchElementException("No cell at " + next);
+            return values[next++];
         }
 
     }
@@ -2,13 +2,13 @@
 
 package com.yahoo.tensor;
 
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.stream.Collectors;
 
 /**
@@ -27,15 +27,19 @@ public class MixedTensor implements Tensor {
     /** The dimension specification for this tensor */
     private final TensorType type;
 
-    /** The list of cells in the tensor */
-    private final ImmutableList<Cell> cells;
+    /** The addresses of the cells in the tensor */
+    private final TensorAddress[] addresses;
 
-    /** An index structure over the cell list */
+    /** The values of the cells in the tensor, in the same order as the addresses */
+    private final double[] values;
+
+    /** An index structure over the cells */
     private final Index index;
 
-    private MixedTensor(TensorType type, ImmutableList<Cell> cells, Index index) {
+    private MixedTensor(TensorType type, TensorAddress[] addresses, double[] values, Index index) {
         this.type = type;
-        this.cells = ImmutableList.copyOf(cells);
+        this.addresses = addresses;
+        this.values = values;
         this.index = index;
     }
 
@@ -45,17 +49,16 @@ public class MixedTensor implements Tensor {
 
     /** Returns the size of the tensor measured in number of cells */
     @Override
-    public long size() { return cells.size(); }
+    public long size() { return values.length; }
 
     /** Returns the value at the given address */
     @Override
     public double get(TensorAddress address) {
-        long cellIndex = index.indexOf(address);
-        Cell cell = cells.get((int)cellIndex);
-        if (!address.equals(cell.getKey())) {
+        int cellIndex = (int)index.indexOf(address);
+        if (!address.equals(addresses[cellIndex])) {
             throw new IllegalStateException("Unable to find correct cell by direct index.");
         }
-        return cell.getValue();
+        return values[cellIndex];
     }
 
     /**
@@ -67,7 +70,20 @@ public class MixedTensor implements Tensor {
      */
     @Override
     public Iterator<Cell> cellIterator() {
-        return cells.iterator();
+        return new Iterator<Cell>() {
+            int next = 0;
+            @Override
+            public boolean hasNext() {
+                return next < values.length;
+            }
+            @Override
+            public Cell next() {
+                if ( ! hasNext()) throw new NoSuchElementException("No cell at " + next);
+                Cell cell = new Cell(addresses[next], values[next]);
+                next++;
+                return cell;
+            }
+        };
     }
 
     /**
@@ -77,14 +93,15 @@ public class MixedTensor implements Tensor {
     @Override
     public Iterator<Double> valueIterator() {
         return new Iterator<Double>() {
-            Iterator<Cell> cellIterator = cellIterator();
+            int next = 0;
             @Override
             public boolean hasNext() {
-                return cellIterator.hasNext();
+                return next < values.length;
             }
             @Override
             public Double next() {
-                return cellIterator.next().getValue();
+                if ( ! hasNext()) throw new NoSuchElementException("No cell at " + next);
+                return values[next++];
             }
         };
     }
@@ -92,14 +109,20 @@ public class MixedTensor implements Tensor {
     @Override
     public Map<TensorAddress, Double> cells() {
         ImmutableMap.Builder<TensorAddress, Double> builder = new ImmutableMap.Builder<>();
-        for (Cell cell : cells) {
-            builder.put(cell.getKey(), cell.getValue());
+        for (int i = 0; i < values.length; i++) {
+            builder.put(addresses[i], values[i]);
         }
         return builder.build();
     }
 
+    /** Returns the same hash code as cells().hashCode() */
     @Override
-    public int hashCode() { return cells.hashCode(); }
+    public int hashCode() {
+        int hashCode = 0;
+        for (int i = 0; i < values.length; i++)
+            hashCode += addresses[i].hashCode() ^ Double.hashCode(values[i]);
+        return hashCode;
+    }
 
     @Override
     public String toString() { return Tensor.toStandardString(this); }
@@ -193,34 +216,36 @@ public class MixedTensor implements Tensor {
             TensorAddress sparsePart = index.sparsePartialAddress(address);
             long denseOffset = index.denseOffset(address);
             double[] denseSubspace = denseSubspace(sparsePart);
-            denseSubspace[(int)denseOffset] = value;
+            denseSubspace[(int)denseOffset] = type.valueType().convert(value);
             return this;
         }
 
         public Tensor.Builder block(TensorAddress sparsePart, double[] values) {
             double[] denseSubspace = denseSubspace(sparsePart);
-            System.arraycopy(values, 0, denseSubspace, 0, (int)denseSubspaceSize());
+            for (int i = 0; i < denseSubspaceSize(); i++)
+                denseSubspace[i] = type.valueType().convert(values[i]);
             return this;
         }
 
         @Override
         public MixedTensor build() {
-            long count = 0;
-            ImmutableList.Builder<Cell> builder = new ImmutableList.Builder<>();
+            int count = 0;
+            int size = denseSubspaceMap.size() * (int)denseSubspaceSize();
+            TensorAddress[] addresses = new TensorAddress[size];
+            double[] values = new double[size];
 
             for (Map.Entry<TensorAddress, double[]> entry : denseSubspaceMap.entrySet()) {
                 TensorAddress sparsePart = entry.getKey();
-                indexBuilder.put(sparsePart, count);
+                indexBuilder.put(sparsePart);
 
                 double[] denseSubspace = entry.getValue();
                 for (long offset = 0; offset < denseSubspace.length; ++offset) {
-                    TensorAddress cellAddress = index.addressOf(sparsePart, offset);
-                    double value = denseSubspace[(int)offset];
-                    builder.add(new Cell(cellAddress, value));
+                    addresses[count] = index.addressOf(sparsePart, offset);
+                    values[count] = denseSubspace[(int)offset];
                     count++;
                 }
             }
-            return new MixedTensor(type, builder.build(), indexBuilder.build());
+            return new MixedTensor(type, addresses, values, indexBuilder.build());
         }
 
     }
@@ -272,7 +297,7 @@ public class MixedTensor implements Tensor {
         }
 
         public TensorType createBoundType() {
-            TensorType.Builder typeBuilder = new TensorType.Builder();
+            TensorType.Builder typeBuilder = new TensorType.Builder(type.valueType());
             for (int i = 0; i < type.dimensions().size(); ++i) {
                 TensorType.Dimension dimension = type.dimensions().get(i);
                 if (!dimension.isIndexed()) {
@@ -301,7 +326,14 @@ public class MixedTensor implements Tensor {
         private final List<TensorType.Dimension> mappedDimensions;
         private final List<TensorType.Dimension> indexedDimensions;
 
-        private ImmutableMap<TensorAddress, Long> sparseMap;
+        /** The index in the type of each mapped dimension */
+        private final int[] mappedIndexes;
+
+        /** The index in the type of each indexed dimension */
+        private final int[] indexedIndexes;
+
+        /** The sparse partial addresses of this. The dense subspace of address number n starts at n * denseSubspaceSize */
+        private AddressIndex sparseIndex;
         private long denseSubspaceSize = -1;
 
         private Index(TensorType type) {
@@ -310,14 +342,24 @@ public class MixedTensor implements Tensor {
             this.indexedDimensions = type.dimensions().stream().filter(d -> d.isIndexed()).collect(Collectors.toList());
             this.sparseType = createPartialType(mappedDimensions);
             this.denseType = createPartialType(indexedDimensions);
+            this.mappedIndexes = indexesOf(mappedDimensions);
+            this.indexedIndexes = indexesOf(indexedDimensions);
+        }
+
+        private int[] indexesOf(List<TensorType.Dimension> dimensions) {
+            int[] indexes = new int[dimensions.size()];
+            for (int i = 0; i < indexes.length; i++)
+                indexes[i] = type.indexOfDimension(dimensions.get(i).name()).get();
+            return indexes;
         }
 
         public long indexOf(TensorAddress address) {
             TensorAddress sparsePart = sparsePartialAddress(address);
-            if ( ! sparseMap.containsKey(sparsePart)) {
+            int sparseNumber = sparseIndex.indexOf(sparsePart);
+            if (sparseNumber < 0) {
                 throw new IllegalArgumentException("Address not found");
             }
-            long base = sparseMap.get(sparsePart);
+            long base = sparseNumber * denseSubspaceSize();
             long offset = denseOffset(address);
             return base + offset;
         }
@@ -325,19 +367,20 @@ public class MixedTensor implements Tensor {
         public static class Builder {
 
             private final Index index;
-            private final ImmutableMap.Builder<TensorAddress, Long> builder;
+            private final AddressIndex sparseIndex;
 
             public Builder(TensorType type) {
                 index = new Index(type);
-                builder = new ImmutableMap.Builder<>();
+                sparseIndex = new AddressIndex();
             }
 
-            public void put(TensorAddress address, long index) {
-                builder.put(address, index);
+            /** Adds the given sparse address, whose dense subspace must follow that of the previous one added */
+            public void put(TensorAddress address) {
+                sparseIndex.add(address);
             }
 
             public Index build() {
-                index.sparseMap = builder.build();
+                index.sparseIndex = sparseIndex;
                 return index;
             }
 
@@ -364,14 +407,7 @@ public class MixedTensor implements Tensor {
             if (type.dimensions().size() != address.size()) {
                 throw new IllegalArgumentException("Tensor type and address are not of same size.");
             }
-            TensorAddress.Builder builder = new TensorAddress.Builder(sparseType);
-            for (int i = 0; i < type.dimensions().size(); ++i) {
-                TensorType.Dimension dimension = type.dimensions().get(i);
-                if (!dimension.isIndexed()) {
-                    builder.add(dimension.name(), address.label(i));
-                }
-            }
-            return builder.build();
+            return address.partialCopy(mappedIndexes);
         }
 
         private long denseOffset(TensorAddress address) {
@@ -412,19 +448,7 @@ public class MixedTensor implements Tensor {
 
         private TensorAddress addressOf(TensorAddress sparsePart, long denseOffset) {
             TensorAddress densePart = denseOffsetToAddress(denseOffset);
-            String[] labels = new String[type.dimensions().size()];
-            int mappedIndex = 0;
-            int indexedIndex = 0;
-            for (TensorType.Dimension d : type.dimensions()) {
-                if (d.isIndexed()) {
-                    labels[mappedIndex + indexedIndex] = densePart.label(indexedIndex);
-                    indexedIndex++;
-                } else {
-                    labels[mappedIndex + indexedIndex] = sparsePart.label(mappedIndex);
-                    mappedIndex++;
-                }
-            }
-            return TensorAddress.of(labels);
+            return TensorAddress.combine(sparsePart, mappedIndexes, densePart, indexedIndexes, type.dimensions().size());
         }
 
     }
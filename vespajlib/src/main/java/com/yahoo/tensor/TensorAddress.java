@@ -15,11 +15,74 @@ import java.util.regex.Pattern;
 public abstract class TensorAddress implements Comparable<TensorAddress> {
 
     public static TensorAddress of(String[] labels) {
-        return new StringTensorAddress(labels);
+        long[] ids = new long[labels.length];
+        String[] nonNumericLabels = null;
+        for (int i = 0; i < labels.length; i++) {
+            ids[i] = Label.toId(labels[i]);
+            if ( ! Label.isNumeric(ids[i])) {
+                if (nonNumericLabels == null)
+                    nonNumericLabels = new String[labels.length];
+                nonNumericLabels[i] = labels[i];
+            }
+        }
+        return new LabelIdTensorAddress(ids, nonNumericLabels);
     }
 
     public static TensorAddress of(long ... labels) {
-        return new NumericTensorAddress(labels);
+        long[] ids = Arrays.copyOf(labels, labels.length);
+        String[] nonNumericLabels = null;
+        for (int i = 0; i < ids.length; i++) {
+            if ( ! Label.isNumeric(ids[i])) {
+                if (nonNumericLabels == null)
+                    nonNumericLabels = new String[ids.length];
+                nonNumericLabels[i] = String.valueOf(labels[i]);
+                ids[i] = Label.toId(labels[i]);
+            }
+        }
+        return new LabelIdTensorAddress(ids, nonNumericLabels);
+    }
+
+    /**
+     * Returns an address of the given size which has the labels of both the given addresses,
+     * or null if they have different labels at the same position.
+     *
+     * @param a the first address to take labels from
+     * @param aToIndexes the index in the returned address of each label in a
+     * @param b the second address to take labels from
+     * @param bToIndexes the index in the returned address of each label in b
+     * @param size the size of the returned address. Each index must be given a label by at least one of a and b
+     */
+    public static TensorAddress combine(TensorAddress a, int[] aToIndexes, TensorAddress b, int[] bToIndexes, int size) {
+        long[] ids = new long[size];
+        String[] labels = null;
+        boolean[] fromA = new boolean[size];
+        for (int i = 0; i < a.size(); i++) {
+            int toIndex = aToIndexes[i];
+            ids[toIndex] = a.labelId(i);
+            if ( ! Label.isNumeric(ids[toIndex])) {
+                if (labels == null)
+                    labels = new String[size];
+                labels[toIndex] = a.label(i);
+            }
+            fromA[toIndex] = true;
+        }
+        for (int i = 0; i < b.size(); i++) {
+            int toIndex = bToIndexes[i];
+            long id = b.labelId(i);
+            if (fromA[toIndex]) {
+                if (ids[toIndex] != id) return null;
+                if ( ! Label.isNumeric(id) && ! labels[toIndex].equals(b.label(i))) return null;
+            }
+            else {
+                ids[toIndex] = id;
+                if ( ! Label.isNumeric(id)) {
+                    if (labels == null)
+                        labels = new String[size];
+                    labels[toIndex] = b.label(i);
+                }
+            }
+        }
+        return new LabelIdTensorAddress(ids, labels);
     }
 
     /** Returns the number of labels in this */
@@ -40,14 +103,37 @@ public abstract class TensorAddress implements Comparable<TensorAddress> {
      */
     public abstract long numericLabel(int i);
 
+    /** Returns the id of the i'th label in this, as given by {@link Label#toId} */
+    abstract long labelId(int i);
+
     public abstract TensorAddress withLabel(int labelIndex, long label);
 
+    /**
+     * Returns an address containing a selection of the labels of this
+     *
+     * @param indexes the index in this of each label of the returned address
+     */
+    public TensorAddress partialCopy(int[] indexes) {
+        long[] ids = new long[indexes.length];
+        String[] labels = null;
+        for (int i = 0; i < indexes.length; i++) {
+            ids[i] = labelId(indexes[i]);
+            if ( ! Label.isNumeric(ids[i])) {
+                if (labels == null)
+                    labels = new String[indexes.length];
+                labels[i] = label(indexes[i]);
+            }
+        }
+        return new LabelIdTensorAddress(ids, labels);
+    }
+
     public final boolean isEmpty() { return size() == 0; }
 
     @Override
     public int compareTo(TensorAddress other) {
         // TODO: Formal issue (only): Ordering with different address sizes
         for (int i = 0; i < size(); i++) {
+            if (this.labelId(i) == other.labelId(i) && Label.isNumeric(this.labelId(i))) continue;
             int elementComparison = this.label(i).compareTo(other.label(i));
             if (elementComparison != 0) return elementComparison;
         }
@@ -58,7 +144,7 @@ public abstract class TensorAddress implements Comparable<TensorAddress> {
     public int hashCode() {
         int result = 1;
         for (int i = 0; i < size(); i++)
-            result = 31 * result + label(i).hashCode();
+            result = 31 * result + Long.hashCode(labelId(i));
         return result;
     }
 
@@ -68,9 +154,11 @@ public abstract class TensorAddress implements Comparable<TensorAddress> {
         if ( ! (o instanceof TensorAddress)) return false;
         TensorAddress other = (TensorAddress)o;
         if (other.size() != this.size()) return false;
-        for (int i = 0; i < this.size(); i++)
-            if ( ! this.label(i).equals(other.label(i)))
-                return false;
+        for (int i = 0; i < this.size(); i++) {
+            long id = this.labelId(i);
+            if (id != other.labelId(i)) return false;
+            if ( ! Label.isNumeric(id) && ! this.label(i).equals(other.label(i))) return false;
+        }
         return true;
     }
 
@@ -87,24 +175,34 @@ public abstract class TensorAddress implements Comparable<TensorAddress> {
         return b.toString();
     }
 
-    private static final class StringTensorAddress extends TensorAddress {
+    /** An address storing the ids of its labels, and the labels which are not numeric */
+    private static final class LabelIdTensorAddress extends TensorAddress {
+
+        private final long[] labelIds;
 
+        /** The labels which are not numeric, at their index, or null if all labels are numeric */
         private final String[] labels;
 
-        private StringTensorAddress(String ... labels) {
-            this.labels = Arrays.copyOf(labels, labels.length);
+        /** Creates an address from arrays which are owned by this */
+        private LabelIdTensorAddress(long[] labelIds, String[] labels) {
+            this.labelIds = labelIds;
+            this.labels = labels;
         }
 
         @Override
-        public int size() { return labels.length; }
+        public int size() { return labelIds.length; }
 
         @Override
-        public String label(int i) { return labels[i]; }
+        public String label(int i) {
+            if (Label.isNumeric(labelIds[i])) return String.valueOf(labelIds[i]);
+            return labels[i];
+        }
 
         @Override
         public long numericLabel(int i) {
+            if (Label.isNumeric(labelIds[i])) return labelIds[i];
             try {
-                return Long.parseLong(labels[i]);
+                return Long.parseLong(label(i));
             }
             catch (NumberFormatException e) {
                 throw new IllegalArgumentException("Expected a long label in " + this + " at position " + i);
@@ -112,46 +210,33 @@ public abstract class TensorAddress implements Comparable<TensorAddress> {
         }
 
         @Override
-        public TensorAddress withLabel(int index, long label) {
-            String[] labels = Arrays.copyOf(this.labels, this.labels.length);
-            labels[index] = String.valueOf(label);
-            return new StringTensorAddress(labels);
-        }
-
-        @Override
-        public String toString() {
-            return Arrays.toString(labels);
-        }
-
-    }
-
-    private static final class NumericTensorAddress extends TensorAddress {
-
-        private final long[] labels;
-
-        private NumericTensorAddress(long[] labels) {
-            this.labels = Arrays.copyOf(labels, labels.length);
-        }
-
-        @Override
-        public int size() { return labels.length; }
-
-        @Override
-        public String label(int i) { return String.valueOf(labels[i]); }
-
-        @Override
-        public long numericLabel(int i) { return labels[i]; }
+        long labelId(int i) { return labelIds[i]; }
 
         @Override
         public TensorAddress withLabel(int index, long label) {
-            long[] labels = Arrays.copyOf(this.labels, this.labels.length);
-            labels[index] = label;
-            return new NumericTensorAddress(labels);
+            long[] labelIds = Arrays.copyOf(this.labelIds, this.labelIds.length);
+            labelIds[index] = Label.toId(label);
+            String[] labels = this.labels == null ? null : Arrays.copyOf(this.labels, this.labels.length);
+            if ( ! Label.isNumeric(labelIds[index])) {
+                if (labels == null)
+                    labels = new String[labelIds.length];
+                labels[index] = String.valueOf(label);
+            }
+            else if (labels != null) {
+                labels[index] = null;
+            }
+            return new LabelIdTensorAddress(labelIds, labels);
         }
 
         @Override
         public String toString() {
-            return Arrays.toString(labels);
+            StringBuilder b = new StringBuilder("[");
+            for (int i = 0; i < labelIds.length; i++) {
+                if (i > 0)
+                    b.append(", ");
+                b.append(label(i));
+            }
+            return b.append("]").toString();
         }
 
     }
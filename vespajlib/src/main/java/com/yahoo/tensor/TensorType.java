@@ -4,6 +4,7 @@ package com.yahoo.tensor;
 import com.google.common.collect.ImmutableList;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -24,13 +25,66 @@ import java.util.stream.Collectors;
  */
 public class TensorType {
 
+    /** The permissible cell value types. Default is double. */
+    public enum Value {
+
+        // Types must be ordered from most to least precise
+        DOUBLE("double"), FLOAT("float"), INT8("int8");
+
+        private final String id;
+
+        Value(String id) { this.id = id; }
+
+        /** Returns the name of this value type as used in type specs */
+        public String id() { return id; }
+
+        /** Returns the given value converted to the precision of this value type */
+        public double convert(double value) {
+            switch (this) {
+                case DOUBLE: return value;
+                case FLOAT: return (float)value;
+                case INT8:
+                    if (Double.isNaN(value)) return 0;
+                    return Math.max(Byte.MIN_VALUE, Math.min(Byte.MAX_VALUE, Math.round(value)));
+                default: throw new IllegalStateException("Unknown value type " + this);
+            }
+        }
+
+        /** Returns the most precise of the two given value types */
+        public static Value largestOf(Value value1, Value value2) {
+            return value1.ordinal() <= value2.ordinal() ? value1 : value2;
+        }
+
+        /**
+         * Returns the value type having the given id
+         *
+         * @throws IllegalArgumentException if there is no value type with this id
+         */
+        public static Value fromId(String id) {
+            for (Value value : values())
+                if (value.id.equals(id))
+                    return value;
+            throw new IllegalArgumentException("A tensor value type must be one of " +
+                                               Arrays.stream(values()).map(Value::id).collect(Collectors.joining(", ")) +
+                                               ", not '" + id + "'");
+        }
+
+        @Override
+        public String toString() { return id; }
+
+    }
+
     /** The empty tensor type - which is the same as a double */
-    public static final TensorType empty = new TensorType(Collections.emptyList());
+    public static final TensorType empty = new TensorType(Value.DOUBLE, Collections.emptyList());
+
+    /** The type of the values of the cells of tensors of this type */
+    private final Value valueType;
 
     /** Sorted list of the dimensions of this */
     private final ImmutableList<Dimension> dimensions;
 
-    private TensorType(Collection<Dimension> dimensions) {
+    private TensorType(Value valueType, Collection<Dimension> dimensions) {
+        this.valueType = valueType;
         List<Dimension> dimensionList = new ArrayList<>(dimensions);
         Collections.sort(dimensionList);
         this.dimensions = ImmutableList.copyOf(dimensionList);
@@ -38,8 +92,9 @@ public class TensorType {
 
     /**
      * Returns a tensor type instance from a string on the format
-     * <code>tensor(dimension1, dimension2, ...)</code>
-     * where each dimension is either
+     * <code>tensor&lt;value-type&gt;(dimension1, dimension2, ...)</code>
+     * where the value type is optional and one of double (default), float and int8,
+     * and each dimension is either
      * <ul>
      *     <li><code>dimension-name[]</code> - an unbound indexed dimension
      *     <li><code>dimension-name[int]</code> - an bound indexed dimension
@@ -51,6 +106,9 @@ public class TensorType {
         return TensorTypeParser.fromSpec(specString);
     }
 
+    /** Returns the type of the cell values of tensors of this type */
+    public Value valueType() { return valueType; }
+
     /** Returns the number of dimensions of this: dimensions().size() */
     public int rank() { return dimensions.size(); }
 
@@ -85,6 +143,7 @@ public class TensorType {
     /**
      * Returns whether this type can be assigned to the given type,
      * i.e if the given type is a generalization of this type.
+     * Value types are not considered, as cell values are converted on assignment.
      */
     public boolean isAssignableTo(TensorType generalization) {
         return isConvertibleOrAssignableTo(generalization, false);
@@ -123,14 +182,16 @@ public class TensorType {
 
     @Override
     public String toString() {
-        return "tensor(" + dimensions.stream().map(Dimension::toString).collect(Collectors.joining(",")) + ")";
+        return "tensor" + (valueType == Value.DOUBLE ? "" : "<" + valueType.id() + ">") +
+               "(" + dimensions.stream().map(Dimension::toString).collect(Collectors.joining(",")) + ")";
     }
 
     @Override
     public boolean equals(Object other) {
         if (this == other) return true;
         if (other == null || getClass() != other.getClass()) return false;
-        return dimensions.equals(((TensorType)other).dimensions);
+        TensorType otherType = (TensorType)other;
+        return valueType == otherType.valueType && dimensions.equals(otherType.dimensions);
     }
 
     /** Returns whether the given type has the same dimension names as this */
@@ -151,7 +212,7 @@ public class TensorType {
         if (this.equals(other)) return Optional.of(this); // shortcut
         if (this.dimensions.size() != other.dimensions.size()) return Optional.empty();
 
-        Builder b = new Builder();
+        Builder b = new Builder(Value.largestOf(this.valueType, other.valueType));
         for (int i = 0; i < dimensions.size(); i++) {
             Dimension thisDim = this.dimensions().get(i);
             Dimension otherDim = other.dimensions().get(i);
@@ -184,7 +245,7 @@ public class TensorType {
 
     @Override
     public int hashCode() {
-        return dimensions.hashCode();
+        return Objects.hash(valueType, dimensions);
     }
 
     /**
@@ -364,8 +425,16 @@ public class TensorType {
 
         private final Map<String, Dimension> dimensions = new LinkedHashMap<>();
 
-        /** Creates an empty builder */
+        private final Value valueType;
+
+        /** Creates an empty builder with cells of type double */
         public Builder() {
+            this(Value.DOUBLE);
+        }
+
+        /** Creates an empty builder with cells of the given type */
+        public Builder(Value valueType) {
+            this.valueType = valueType;
         }
 
         /**
@@ -374,16 +443,30 @@ public class TensorType {
          * If the same dimension is indexed with different size restrictions the largest size will be used.
          * If it is size restricted in one argument but not the other it will not be size restricted.
          * If it is indexed in one and mapped in the other it will become mapped.
+         *
+         * The value type will be the most precise value type of the given types.
          */
         public Builder(TensorType ... types) {
-            for (TensorType type : types)
+            Value valueType = types.length == 0 ? Value.DOUBLE : types[0].valueType();
+            for (TensorType type : types) {
+                valueType = Value.largestOf(valueType, type.valueType());
                 addDimensionsOf(type);
+            }
+            this.valueType = valueType;
         }
 
         /**
-         * Creates a builder from the given dimensions.
+         * Creates a builder from the given dimensions, having cells of type double.
          */
         public Builder(Iterable<Dimension> dimensions) {
+            this(Value.DOUBLE, dimensions);
+        }
+
+        /**
+         * Creates a builder from the given value type and dimensions.
+         */
+        public Builder(Value valueType, Iterable<Dimension> dimensions) {
+            this.valueType = valueType;
             for (TensorType.Dimension dimension : dimensions) {
                 dimension(dimension);
             }
@@ -481,8 +564,11 @@ public class TensorType {
             return this;
         }
 
+        /** Returns the value type of the type this is building */
+        public Value valueType() { return valueType; }
+
         public TensorType build() {
-            return new TensorType(dimensions.values());
+            return new TensorType(valueType, dimensions.values());
         }
 
     }
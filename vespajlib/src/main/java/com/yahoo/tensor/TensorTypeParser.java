@@ -14,22 +14,29 @@ import java.util.regex.Pattern;
  */
 public class TensorTypeParser {
 
-    private final static String START_STRING = "tensor(";
+    private final static String START_STRING = "tensor";
     private final static String END_STRING = ")";
 
     private static final Pattern indexedPattern = Pattern.compile("(\\w+)\\[(\\d*)\\]");
     private static final Pattern mappedPattern = Pattern.compile("(\\w+)\\{\\}");
 
     public static TensorType fromSpec(String specString) {
-        return new TensorType.Builder(dimensionsFromSpec(specString)).build();
+        return new TensorType.Builder(valueTypeFromSpec(specString), dimensionsFromSpec(specString)).build();
+    }
+
+    /** Returns the value type given in a type spec, or double if none is given */
+    public static TensorType.Value valueTypeFromSpec(String specString) {
+        validate(specString);
+        String valueTypeSpec = specString.substring(START_STRING.length(), specString.indexOf('('));
+        if (valueTypeSpec.isEmpty()) return TensorType.Value.DOUBLE;
+        if ( ! valueTypeSpec.startsWith("<") || ! valueTypeSpec.endsWith(">"))
+            throw new IllegalArgumentException("Expected the value type of '" + specString + "' to be given as <value-type>");
+        return TensorType.Value.fromId(valueTypeSpec.substring(1, valueTypeSpec.length() - 1).trim());
     }
 
     public static List<TensorType.Dimension> dimensionsFromSpec(String specString) {
-        if ( ! specString.startsWith(START_STRING) || !specString.endsWith(END_STRING)) {
-            throw new IllegalArgumentException("Tensor type spec must start with '" + START_STRING + "'" +
-                                               " and end with '" + END_STRING + "', but was '" + specString + "'");
-        }
-        String dimensionsSpec = specString.substring(START_STRING.length(), specString.length() - END_STRING.length());
+        validate(specString);
+        String dimensionsSpec = specString.substring(specString.indexOf('(') + 1, specString.length() - END_STRING.length());
         if (dimensionsSpec.isEmpty()) return Collections.emptyList();
 
         List<TensorType.Dimension> dimensions = new ArrayList<>();
@@ -44,6 +51,13 @@ public class TensorTypeParser {
         return dimensions;
     }
 
+    private static void validate(String specString) {
+        if ( ! specString.startsWith(START_STRING) || ! specString.endsWith(END_STRING) || specString.indexOf('(') < 0) {
+            throw new IllegalArgumentException("Tensor type spec must start with '" + START_STRING + "('" +
+                                               " and end with '" + END_STRING + "', but was '" + specString + "'");
+        }
+    }
+
     private static boolean tryParseIndexedDimension(String element, List<TensorType.Dimension> dimensions) {
         Matcher matcher = indexedPattern.matcher(element);
         if (matcher.matches()) {
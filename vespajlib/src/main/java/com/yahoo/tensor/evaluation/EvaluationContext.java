@@ -3,6 +3,9 @@ package com.yahoo.tensor.evaluation;
 
 import com.yahoo.tensor.Tensor;
 
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * An evaluation context which is passed down to all nested functions during evaluation.
  *
@@ -13,4 +16,12 @@ public interface EvaluationContext<NAMETYPE extends TypeContext.Name> extends Ty
     /** Returns the tensor bound to this name, or null if none */
     Tensor getTensor(String name);
 
+    /**
+     * Returns the pool to use for splitting the evaluation of large dense tensor functions across multiple threads,
+     * or empty (the default) to evaluate everything in the calling thread.
+     * Parallel evaluation produces the same results as evaluating in a single thread, but requires all
+     * map and generate functions to be thread safe.
+     */
+    default Optional<ForkJoinPool> executor() { return Optional.empty(); }
+
 }
@@ -5,6 +5,8 @@ import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 
 import java.util.HashMap;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * @author bratseth
@@ -13,8 +15,16 @@ public class MapEvaluationContext implements EvaluationContext<TypeContext.Name>
 
     private final java.util.Map<String, Tensor> bindings = new HashMap<>();
 
+    private ForkJoinPool executor = null;
+
     public void put(String name, Tensor tensor) { bindings.put(name, tensor); }
 
+    /** Sets the pool to use to evaluate large dense tensor functions in parallel, or null (default) to not do so */
+    public void setExecutor(ForkJoinPool executor) { this.executor = executor; }
+
+    @Override
+    public Optional<ForkJoinPool> executor() { return Optional.ofNullable(executor); }
+
     @Override
     public TensorType getType(String name) {
         return getType(new Name(name));
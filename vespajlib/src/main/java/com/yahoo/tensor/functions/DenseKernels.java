@@ -0,0 +1,393 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.functions;
+
+import com.yahoo.tensor.DimensionSizes;
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+
+/**
+ * Join and reduce of dense tensors computed by walking the cell arrays of the arguments with strides,
+ * without creating any addresses or cells. This also computes reduce(join(a, b, f), aggregator, dimensions)
+ * in a single pass without creating the joined tensor, which is the inner loop of matrix multiplication
+ * and dot products.
+ *
+ * @author agent
+ */
+final class DenseKernels {
+
+    /** The least amount of work (in points of the iteration space) which is worth running as a parallel task */
+    private static final long parallelThreshold = 64 * 1024;
+
+    private DenseKernels() {}
+
+    /** Returns whether the given tensors can be joined by these kernels */
+    static boolean canJoin(Tensor a, Tensor b) {
+        return a instanceof IndexedTensor && b instanceof IndexedTensor;
+    }
+
+    /** Returns join(a, b, combinator), which must have the given type */
+    static Tensor join(IndexedTensor a, IndexedTensor b, TensorType joinedType, DoubleBinaryOperator combinator,
+                       ForkJoinPool executor) {
+        long[] sizes = joinedSizes(joinedType, a, b);
+        long[] outStrides = strides(sizes);
+        return compute(a, b, combinator, null, joinedType, sizes, joinedType, outStrides, sizes, executor);
+    }
+
+    /**
+     * Returns reduce(join(a, b, combinator), aggregator, reduceDimensions), which must have the given type,
+     * or null if this cannot be computed by this as some joined dimension is empty.
+     */
+    static Tensor joinReduce(IndexedTensor a, IndexedTensor b, TensorType joinedType, DoubleBinaryOperator combinator,
+                             Reduce.Aggregator aggregator, List<String> reduceDimensions, TensorType reducedType,
+                             ForkJoinPool executor) {
+        long[] sizes = joinedSizes(joinedType, a, b);
+        return reduce(a, b, combinator, aggregator, joinedType, sizes, reduceDimensions, reducedType, executor);
+    }
+
+    /**
+     * Returns reduce(argument, aggregator, reduceDimensions), which must have the given type,
+     * or null if this cannot be computed by this as some dimension is empty.
+     */
+    static Tensor reduce(IndexedTensor argument, Reduce.Aggregator aggregator, List<String> reduceDimensions,
+                         TensorType reducedType, ForkJoinPool executor) {
+        long[] sizes = new long[argument.dimensionSizes().dimensions()];
+        for (int i = 0; i < sizes.length; i++)
+            sizes[i] = argument.dimensionSizes().size(i);
+        return reduce(argument, null, null, aggregator, argument.type(), sizes, reduceDimensions, reducedType, executor);
+    }
+
+    private static Tensor reduce(IndexedTensor a, IndexedTensor b, DoubleBinaryOperator combinator,
+                                 Reduce.Aggregator aggregator, TensorType type, long[] sizes,
+                                 List<String> reduceDimensions, TensorType reducedType, ForkJoinPool executor) {
+        for (long size : sizes)
+            if (size == 0) return null; // the reduced tensor has no cells, but dense tensors cannot express that
+
+        long[] reducedSizes = new long[reducedType.dimensions().size()];
+        long[] outStrides = new long[sizes.length];
+        for (int i = 0, reducedIndex = 0; i < sizes.length; i++) {
+            if (isReduced(type.dimensions().get(i).name(), reduceDimensions)) continue;
+            reducedSizes[reducedIndex++] = sizes[i];
+        }
+        long[] reducedStrides = strides(reducedSizes);
+        for (int i = 0, reducedIndex = 0; i < sizes.length; i++) {
+            if (isReduced(type.dimensions().get(i).name(), reduceDimensions)) continue;
+            outStrides[i] = reducedStrides[reducedIndex++];
+        }
+        return compute(a, b, combinator, aggregator, type, sizes, reducedType, outStrides, reducedSizes, executor);
+    }
+
+    private static boolean isReduced(String dimension, List<String> reduceDimensions) {
+        return reduceDimensions.isEmpty() || reduceDimensions.contains(dimension);
+    }
+
+    /**
+     * Walks the iteration space given by the type and sizes, computing combinator(a, b), or just a if b is null,
+     * for each point, and assigns or (if an aggregator is given) aggregates the result into the output cell
+     * given by the out strides.
+     */
+    private static Tensor compute(IndexedTensor a, IndexedTensor b, DoubleBinaryOperator combinator,
+                                  Reduce.Aggregator aggregator, TensorType type, long[] sizes,
+                                  TensorType outType, long[] outStrides, long[] outSizes, ForkJoinPool executor) {
+        long outSize = 1;
+        for (long size : outSizes)
+            outSize *= size;
+        long totalSize = 1;
+        for (long size : sizes)
+            totalSize *= size;
+
+        double[] out = new double[(int)outSize];
+        if (totalSize > 0) {
+            if (aggregator != null)
+                Arrays.fill(out, identityOf(aggregator));
+            Walk walk = new Walk(a, stridesIn(type, a), b, b == null ? null : stridesIn(type, b),
+                                 combinator, aggregator, sizes, outStrides, out);
+            int splitDimension = splitDimension(sizes, outStrides);
+            if (splitDimension < 0)
+                walk.run(-1, 0, 0);
+            else
+                forEachRange(executor, sizes[splitDimension], totalSize / sizes[splitDimension],
+                             (from, to) -> walk.run(splitDimension, from, to));
+            if (aggregator == Reduce.Aggregator.avg)
+                for (int i = 0; i < out.length; i++)
+                    out[i] /= (totalSize / outSize);
+            else if (aggregator == Reduce.Aggregator.count)
+                Arrays.fill(out, totalSize / outSize);
+        }
+        return toTensor(outType, outSizes, out);
+    }
+
+    /**
+     * Returns the outermost dimension which is not reduced, or -1 if all are.
+     * Splitting the work on this dimension assigns each output cell to a single task, such that parallel evaluation
+     * aggregates values in the same order as serial evaluation, producing identical results.
+     */
+    private static int splitDimension(long[] sizes, long[] outStrides) {
+        for (int i = 0; i < sizes.length; i++)
+            if (outStrides[i] != 0) return i;
+        return -1;
+    }
+
+    /** Returns map(argument, mapper) */
+    static Tensor map(IndexedTensor argument, DoubleUnaryOperator mapper, ForkJoinPool executor) {
+        double[] out = new double[(int)argument.size()];
+        forEachRange(executor, out.length, 1, (from, to) -> {
+            for (long i = from; i < to; i++)
+                out[(int)i] = mapper.applyAsDouble(argument.getByDirectIndex(i));
+        });
+        long[] sizes = new long[argument.dimensionSizes().dimensions()];
+        for (int i = 0; i < sizes.length; i++)
+            sizes[i] = argument.dimensionSizes().size(i);
+        return toTensor(argument.type(), sizes, out);
+    }
+
+    /** Returns a tensor of the given type and sizes where each cell value is generator(indexes of the cell) */
+    static Tensor generate(TensorType type, DimensionSizes dimensionSizes, Function<List<Long>, Double> generator,
+                           ForkJoinPool executor) {
+        long[] sizes = new long[dimensionSizes.dimensions()];
+        for (int i = 0; i < sizes.length; i++)
+            sizes[i] = dimensionSizes.size(i);
+        long[] strides = strides(sizes);
+        double[] out = new double[(int)dimensionSizes.totalSize()];
+        forEachRange(executor, out.length, 1, (from, to) -> {
+            Long[] indexes = new Long[sizes.length];
+            for (long i = from; i < to; i++) {
+                for (int d = 0; d < sizes.length; d++)
+                    indexes[d] = (i / strides[d]) % sizes[d];
+                out[(int)i] = generator.apply(Arrays.asList(indexes.clone()));
+            }
+        });
+        return toTensor(type, sizes, out);
+    }
+
+    private static Tensor toTensor(TensorType type, long[] sizes, double[] values) {
+        if (type.dimensions().isEmpty())
+            return Tensor.Builder.of(TensorType.empty).cell(values[0]).build();
+        DimensionSizes.Builder sizesBuilder = new DimensionSizes.Builder(sizes.length);
+        for (int i = 0; i < sizes.length; i++)
+            sizesBuilder.set(i, sizes[i]);
+        IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder)IndexedTensor.Builder.of(type, sizesBuilder.build());
+        for (int i = 0; i < values.length; i++)
+            builder.cellByDirectIndex(i, values[i]);
+        return builder.build();
+    }
+
+    /**
+     * Runs the given action over the range 0 to size. If an executor is given and the work is large enough,
+     * the range is split into subranges which are run in parallel in the executor.
+     *
+     * @param pointsPerIndex the amount of work per index in the range, used to decide whether and how to split
+     */
+    private static void forEachRange(ForkJoinPool executor, long size, long pointsPerIndex, RangeAction action) {
+        if (executor == null || size < 2 || size * pointsPerIndex < 2 * parallelThreshold)
+            action.run(0, size);
+        else
+            executor.invoke(new RangeTask(action, 0, size, pointsPerIndex));
+    }
+
+    @FunctionalInterface
+    private interface RangeAction {
+
+        /** Runs this on the range from (inclusive) to (exclusive) */
+        void run(long from, long to);
+
+    }
+
+    @SuppressWarnings("serial")
+    private static final class RangeTask extends RecursiveAction {
+
+        private final RangeAction action;
+        private final long from, to, pointsPerIndex;
+
+        RangeTask(RangeAction action, long from, long to, long pointsPerIndex) {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+            this.pointsPerIndex = pointsPerIndex;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from < 2 || (to - from) * pointsPerIndex < 2 * parallelThreshold) {
+                action.run(from, to);
+            }
+            else {
+                long middle = from + (to - from) / 2;
+                invokeAll(new RangeTask(action, from, middle, pointsPerIndex),
+                          new RangeTask(action, middle, to, pointsPerIndex));
+            }
+        }
+
+    }
+
+    /** A walk over (a part of) an iteration space */
+    private static final class Walk {
+
+        private final IndexedTensor a, b;
+        private final long[] aStrides, bStrides;
+        private final DoubleBinaryOperator combinator;
+        private final Reduce.Aggregator aggregator;
+        private final long[] sizes, outStrides;
+        private final double[] out;
+
+        Walk(IndexedTensor a, long[] aStrides, IndexedTensor b, long[] bStrides,
+             DoubleBinaryOperator combinator, Reduce.Aggregator aggregator,
+             long[] sizes, long[] outStrides, double[] out) {
+            if (sizes.length == 0) { // a single point
+                sizes = new long[] { 1 };
+                aStrides = new long[] { 0 };
+                bStrides = new long[] { 0 };
+                outStrides = new long[] { 0 };
+            }
+            this.a = a;
+            this.aStrides = aStrides;
+            this.b = b;
+            this.bStrides = bStrides;
+            this.combinator = combinator;
+            this.aggregator = aggregator;
+            this.sizes = sizes;
+            this.outStrides = outStrides;
+            this.out = out;
+        }
+
+        /**
+         * Walks the part of the space where the index of the given dimension is in the range from to (exclusive),
+         * or the whole space if the dimension is -1
+         */
+        void run(int rangeDimension, long from, long to) {
+            long[] sizes = this.sizes;
+            if (rangeDimension < 0) {
+                rangeDimension = 0;
+                from = 0;
+            }
+            else {
+                sizes = Arrays.copyOf(this.sizes, this.sizes.length);
+                sizes[rangeDimension] = to - from;
+            }
+
+            int inner = sizes.length - 1;
+            long innerSize = sizes[inner];
+            long aInnerStride = aStrides[inner];
+            long bInnerStride = b == null ? 0 : bStrides[inner];
+            long outInnerStride = outStrides[inner];
+
+            long[] index = new long[inner];
+            long aOffset = from * aStrides[rangeDimension];
+            long bOffset = b == null ? 0 : from * bStrides[rangeDimension];
+            long outOffset = from * outStrides[rangeDimension];
+            while (true) {
+                if (outInnerStride == 0 && aggregator == Reduce.Aggregator.sum) { // dot product: accumulate in a local
+                    double sum = out[(int)outOffset];
+                    for (long i = 0; i < innerSize; i++)
+                        sum += value(a, aOffset + i * aInnerStride, b, bOffset + i * bInnerStride, combinator);
+                    out[(int)outOffset] = sum;
+                }
+                else {
+                    for (long i = 0; i < innerSize; i++) {
+                        double value = value(a, aOffset + i * aInnerStride, b, bOffset + i * bInnerStride, combinator);
+                        int outIndex = (int)(outOffset + i * outInnerStride);
+                        out[outIndex] = aggregator == null ? value : aggregate(aggregator, out[outIndex], value);
+                    }
+                }
+
+                // advance to the next inner row
+                int dimension = inner - 1;
+                for (; dimension >= 0; dimension--) {
+                    index[dimension]++;
+                    aOffset += aStrides[dimension];
+                    if (b != null)
+                        bOffset += bStrides[dimension];
+                    outOffset += outStrides[dimension];
+                    if (index[dimension] < sizes[dimension]) break;
+
+                    aOffset -= aStrides[dimension] * sizes[dimension];
+                    if (b != null)
+                        bOffset -= bStrides[dimension] * sizes[dimension];
+                    outOffset -= outStrides[dimension] * sizes[dimension];
+                    index[dimension] = 0;
+                }
+                if (dimension < 0) return;
+            }
+        }
+
+    }
+
+    private static double value(IndexedTensor a, long aIndex, IndexedTensor b, long bIndex,
+                                DoubleBinaryOperator combinator) {
+        if (b == null) return a.getByDirectIndex(aIndex);
+        return combinator.applyAsDouble(a.getByDirectIndex(aIndex), b.getByDirectIndex(bIndex));
+    }
+
+    private static double identityOf(Reduce.Aggregator aggregator) {
+        switch (aggregator) {
+            case prod : return 1.0;
+            case max : return Double.NEGATIVE_INFINITY;
+            case min : return Double.POSITIVE_INFINITY;
+            default : return 0.0;
+        }
+    }
+
+    private static double aggregate(Reduce.Aggregator aggregator, double aggregated, double value) {
+        switch (aggregator) {
+            case avg : case sum : return aggregated + value;
+            case prod : return aggregated * value;
+            case max : return value > aggregated ? value : aggregated;
+            case min : return value < aggregated ? value : aggregated;
+            case count : return aggregated;
+            default: throw new UnsupportedOperationException("Aggregator " + aggregator + " is not implemented");
+        }
+    }
+
+    /** Returns the sizes of the dimensions of the joined type: The smallest size of each dimension in a and b */
+    private static long[] joinedSizes(TensorType joinedType, IndexedTensor a, IndexedTensor b) {
+        long[] sizes = new long[joinedType.dimensions().size()];
+        for (int i = 0; i < sizes.length; i++) {
+            String dimension = joinedType.dimensions().get(i).name();
+            sizes[i] = Math.min(sizeOf(dimension, a), sizeOf(dimension, b));
+        }
+        return sizes;
+    }
+
+    private static long sizeOf(String dimension, IndexedTensor tensor) {
+        return tensor.type().indexOfDimension(dimension).map(index -> tensor.dimensionSizes().size(index))
+                                                        .orElse(Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns the strides of the given tensor in the space of the given type,
+     * where the stride of dimensions not present in the tensor is 0
+     */
+    private static long[] stridesIn(TensorType type, IndexedTensor tensor) {
+        long[] tensorStrides = new long[tensor.dimensionSizes().dimensions()];
+        for (int i = 0; i < tensorStrides.length; i++)
+            tensorStrides[i] = tensor.dimensionSizes().size(i);
+        tensorStrides = strides(tensorStrides);
+
+        long[] strides = new long[type.dimensions().size()];
+        for (int i = 0; i < strides.length; i++) {
+            int index = tensor.type().indexOfDimension(type.dimensions().get(i).name()).orElse(-1);
+            strides[i] = index < 0 ? 0 : tensorStrides[index];
+        }
+        return strides;
+    }
+
+    /** Returns the row-major strides of a dense array with the given sizes */
+    private static long[] strides(long[] sizes) {
+        long[] strides = new long[sizes.length];
+        long stride = 1;
+        for (int i = sizes.length - 1; i >= 0; i--) {
+            strides[i] = stride;
+            stride *= sizes[i];
+        }
+        return strides;
+    }
+
+}
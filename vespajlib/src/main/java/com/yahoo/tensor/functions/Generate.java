@@ -2,7 +2,6 @@
 package com.yahoo.tensor.functions;
 
 import com.yahoo.tensor.DimensionSizes;
-import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.evaluation.EvaluationContext;
@@ -28,7 +27,8 @@ public class Generate extends PrimitiveTensorFunction {
      *
      * @param type the type of the tensor
      * @param generator the function generating values from a list of numbers specifying the indexes of the
-     *                  tensor cell which will receive the value
+     *                  tensor cell which will receive the value. This must be thread safe if evaluation
+     *                  is parallelized, see {@link EvaluationContext#executor}
      * @throws IllegalArgumentException if any of the tensor dimensions are not indexed bound
      */
     public Generate(TensorType type, Function<List<Long>, Double> generator) {
@@ -63,13 +63,7 @@ public class Generate extends PrimitiveTensorFunction {
 
     @Override
     public <NAMETYPE extends TypeContext.Name> Tensor evaluate(EvaluationContext<NAMETYPE> context) {
-        Tensor.Builder builder = Tensor.Builder.of(type);
-        IndexedTensor.Indexes indexes = IndexedTensor.Indexes.of(dimensionSizes(type));
-        for (int i = 0; i < indexes.size(); i++) {
-            indexes.next();
-            builder.cell(generator.apply(indexes.toList()), indexes.indexesForReading());
-        }
-        return builder.build();
+        return DenseKernels.generate(type, dimensionSizes(type), generator, context.executor().orElse(null));
     }
 
     private DimensionSizes dimensionSizes(TensorType type) {
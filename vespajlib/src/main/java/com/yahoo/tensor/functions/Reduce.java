@@ -11,12 +11,11 @@ import com.yahoo.tensor.evaluation.TypeContext;
 
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * The <i>reduce</i> tensor operation returns a tensor produced from the argument tensor where some dimensions
@@ -70,6 +69,10 @@ public class Reduce extends PrimitiveTensorFunction {
     }
 
     public TensorFunction argument() { return argument; }
+    public Aggregator aggregator() { return aggregator; }
+
+    /** Returns the dimensions reduced over. An empty list means that all dimensions are reduced. */
+    public List<String> dimensions() { return dimensions; }
 
     @Override
     public List<TensorFunction> arguments() { return Collections.singletonList(argument); }
@@ -114,25 +117,48 @@ public class Reduce extends PrimitiveTensorFunction {
 
     @Override
     public <NAMETYPE extends TypeContext.Name> Tensor evaluate(EvaluationContext<NAMETYPE> context) {
-        Tensor argument = this.argument.evaluate(context);
+        ForkJoinPool executor = context.executor().orElse(null);
+        if (argument instanceof Join) { // avoid creating the joined tensor if possible
+            Join join = (Join)argument;
+            Tensor a = join.arguments().get(0).evaluate(context);
+            Tensor b = join.arguments().get(1).evaluate(context);
+            if (DenseKernels.canJoin(a, b)) {
+                TensorType joinedType = Join.outputType(a.type(), b.type());
+                if (joinedType.dimensionNames().containsAll(dimensions)) {
+                    Tensor reduced = DenseKernels.joinReduce((IndexedTensor)a, (IndexedTensor)b, joinedType,
+                                                             join.combinator(), aggregator, dimensions,
+                                                             type(joinedType), executor);
+                    if (reduced != null) return reduced;
+                }
+            }
+            return evaluate(join.evaluate(a, b, executor), executor);
+        }
+        return evaluate(argument.evaluate(context), executor);
+    }
+
+    private Tensor evaluate(Tensor argument, ForkJoinPool executor) {
         if ( ! dimensions.isEmpty() && ! argument.type().dimensionNames().containsAll(dimensions))
             throw new IllegalArgumentException("Cannot reduce " + argument + " over dimensions " +
                                                dimensions + ": Not all those dimensions are present in this tensor");
 
+        if (argument instanceof IndexedTensor) {
+            Tensor reduced = DenseKernels.reduce((IndexedTensor)argument, aggregator, dimensions, type(argument.type()),
+                                                    executor);
+            if (reduced != null) return reduced;
+        }
+
         // Special case: Reduce all
         if (dimensions.isEmpty() || dimensions.size() == argument.type().dimensions().size())
-            if (argument.type().dimensions().size() == 1 && argument instanceof IndexedTensor)
-                return reduceIndexedVector((IndexedTensor)argument);
-            else
-                return reduceAllGeneral(argument);
+            return reduceAllGeneral(argument);
 
         TensorType reducedType = type(argument.type());
 
         // Reduce cells
+        int[] retainedIndexes = retainedIndexes(argument.type(), reducedType);
         Map<TensorAddress, ValueAggregator> aggregatingCells = new HashMap<>();
         for (Iterator<Tensor.Cell> i = argument.cellIterator(); i.hasNext(); ) {
             Map.Entry<TensorAddress, Double> cell = i.next();
-            TensorAddress reducedAddress = reduceDimensions(cell.getKey(), argument.type(), reducedType);
+            TensorAddress reducedAddress = reduceDimensions(cell.getKey(), retainedIndexes);
             aggregatingCells.putIfAbsent(reducedAddress, ValueAggregator.ofType(aggregator));
             aggregatingCells.get(reducedAddress).aggregate(cell.getValue());
         }
@@ -143,17 +169,16 @@ public class Reduce extends PrimitiveTensorFunction {
         return reducedBuilder.build();
     }
 
-    private TensorAddress reduceDimensions(TensorAddress address, TensorType argumentType, TensorType reducedType) {
-        Set<Integer> indexesToRemove = new HashSet<>();
-        for (String dimensionToRemove : this.dimensions)
-            indexesToRemove.add(argumentType.indexOfDimension(dimensionToRemove).get());
-
-        String[] reducedLabels = new String[reducedType.dimensions().size()];
-        int reducedLabelIndex = 0;
-        for (int i = 0; i < address.size(); i++)
-            if ( ! indexesToRemove.contains(i))
-                reducedLabels[reducedLabelIndex++] = address.label(i);
-        return TensorAddress.of(reducedLabels);
+    /** Returns the indexes in the argument type of the dimensions of the reduced type */
+    private int[] retainedIndexes(TensorType argumentType, TensorType reducedType) {
+        int[] retainedIndexes = new int[reducedType.dimensions().size()];
+        for (int i = 0; i < retainedIndexes.length; i++)
+            retainedIndexes[i] = argumentType.indexOfDimension(reducedType.dimensions().get(i).name()).get();
+        return retainedIndexes;
+    }
+
+    private TensorAddress reduceDimensions(TensorAddress address, int[] retainedIndexes) {
+        return address.partialCopy(retainedIndexes);
     }
 
     private Tensor reduceAllGeneral(Tensor argument) {
@@ -163,13 +188,6 @@ public class Reduce extends PrimitiveTensorFunction {
         return Tensor.Builder.of(TensorType.empty).cell((valueAggregator.aggregatedValue())).build();
     }
 
-    private Tensor reduceIndexedVector(IndexedTensor argument) {
-        ValueAggregator valueAggregator = ValueAggregator.ofType(aggregator);
-        for (int i = 0; i < argument.dimensionSizes().size(0); i++)
-            valueAggregator.aggregate(argument.get(i));
-        return Tensor.Builder.of(TensorType.empty).cell((valueAggregator.aggregatedValue())).build();
-    }
-
     private static abstract class ValueAggregator {
 
         private static ValueAggregator ofType(Aggregator aggregator) {
@@ -261,7 +279,7 @@ public class Reduce extends PrimitiveTensorFunction {
 
     private static class MaxAggregator extends ValueAggregator {
 
-        private double maxValue = Double.MIN_VALUE;
+        private double maxValue = Double.NEGATIVE_INFINITY;
 
         @Override
         public void aggregate(double value) {
@@ -278,7 +296,7 @@ public class Reduce extends PrimitiveTensorFunction {
 
     private static class MinAggregator extends ValueAggregator {
 
-        private double minValue = Double.MAX_VALUE;
+        private double minValue = Double.POSITIVE_INFINITY;
 
         @Override
         public void aggregate(double value) {
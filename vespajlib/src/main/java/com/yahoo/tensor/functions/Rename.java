@@ -87,30 +87,23 @@ public class Rename extends PrimitiveTensorFunction {
 
         TensorType renamedType = type(tensor.type());
 
-        // an array which lists the index of each label in the renamed type
-        int[] toIndexes = new int[tensor.type().dimensions().size()];
+        // an array which lists the index in the argument type of each label in the renamed type
+        int[] fromIndexes = new int[tensor.type().dimensions().size()];
         for (int i = 0; i < tensor.type().dimensions().size(); i++) {
             String dimensionName = tensor.type().dimensions().get(i).name();
             String newDimensionName = fromToMap.getOrDefault(dimensionName, dimensionName);
-            toIndexes[i] = renamedType.indexOfDimension(newDimensionName).get();
+            fromIndexes[renamedType.indexOfDimension(newDimensionName).get()] = i;
         }
 
         Tensor.Builder builder = Tensor.Builder.of(renamedType);
         for (Iterator<Tensor.Cell> i = tensor.cellIterator(); i.hasNext(); ) {
             Map.Entry<TensorAddress, Double> cell = i.next();
-            TensorAddress renamedAddress = rename(cell.getKey(), toIndexes);
+            TensorAddress renamedAddress = cell.getKey().partialCopy(fromIndexes);
             builder.cell(renamedAddress, cell.getValue());
         }
         return builder.build();
     }
 
-    private TensorAddress rename(TensorAddress address, int[] toIndexes) {
-        String[] reorderedLabels = new String[toIndexes.length];
-        for (int i = 0; i < toIndexes.length; i++)
-            reorderedLabels[toIndexes[i]] = address.label(i);
-        return TensorAddress.of(reorderedLabels);
-    }
-
     @Override
     public String toString(ToStringContext context) {
         return "rename(" + argument.toString(context) + ", " +
@@ -58,243 +58,270 @@ public class ScalarFunctions {
     public static Function<List<Long>, Double> equal(List<String> argumentNames) { return new EqualElements(argumentNames); }
     public static Function<List<Long>, Double> sum(List<String> argumentNames) { return new SumElements(argumentNames); }
 
+    /** A scalar function which can be written as the lambda f(arguments)(expression) */
+    public interface Lambda {
+
+        /** Returns the names of the arguments of this */
+        List<String> arguments();
+
+        /** Returns the expression computing the value of this from the arguments */
+        String expression();
+
+    }
+
+    /** A unary operator taking the argument a */
+    public static abstract class UnaryLambda implements DoubleUnaryOperator, Lambda {
+        @Override
+        public List<String> arguments() { return ImmutableList.of("a"); }
+        @Override
+        public String toString() { return "f(a)(" + expression() + ")"; }
+    }
+
+    /** A binary operator taking the arguments a and b */
+    public static abstract class BinaryLambda implements DoubleBinaryOperator, Lambda {
+        @Override
+        public List<String> arguments() { return ImmutableList.of("a", "b"); }
+        @Override
+        public String toString() { return "f(a,b)(" + expression() + ")"; }
+    }
+
     // Binary operators -----------------------------------------------------------------------------
 
-    public static class Add implements DoubleBinaryOperator {
+    public static class Add extends BinaryLambda {
         @Override
         public double applyAsDouble(double left, double right) { return left + right; }
         @Override
-        public String toString() { return "f(a,b)(a + b)"; }
+        public String expression() { return "a + b"; }
     }
 
-    public static class Equal implements DoubleBinaryOperator {
+    public static class Equal extends BinaryLambda {
         @Override
         public double applyAsDouble(double left, double right) { return left == right ? 1 : 0; }
         @Override
-        public String toString() { return "f(a,b)(a==b)"; }
+        public String expression() { return "a==b"; }
     }
 
-    public static class Greater implements DoubleBinaryOperator {
+    public static class Greater extends BinaryLambda {
         @Override
         public double applyAsDouble(double left, double right) { return left > right ? 1 : 0; }
         @Override
-        public String toString() { return "f(a,b)(a > b)"; }
+        public String expression() { return "a > b"; }
     }
 
-    public static class Less implements DoubleBinaryOperator {
+    public static class Less extends BinaryLambda {
         @Override
         public double applyAsDouble(double left, double right) { return left < right ? 1 : 0; }
         @Override
-        public String toString() { return "f(a,b)(a < b)"; }
+        public String expression() { return "a < b"; }
     }
 
-    public static class Max implements DoubleBinaryOperator {
+    public static class Max extends BinaryLambda {
         @Override
         public double applyAsDouble(double left, double right) { return Math.max(left, right); }
         @Override
-        public String toString() { return "f(a,b)(max(a, b))"; }
+        public String expression() { return "max(a, b)"; }
     }
 
-    public static class Min implements DoubleBinaryOperator {
+    public static class Min extends BinaryLambda {
         @Override
         public double applyAsDouble(double left, double right) { return Math.min(left, right); }
         @Override
-        public String toString() { return "f(a,b)(min(a, b))"; }
+        public String expression() { return "min(a, b)"; }
     }
 
-    public static class Mean implements DoubleBinaryOperator {
+    public static class Mean extends BinaryLambda {
         @Override
         public double applyAsDouble(double left, double right) { return (left + right) / 2; }
         @Override
-        public String toString() { return "f(a,b)((a + b) / 2)"; }
+        public String expression() { return "(a + b) / 2"; }
     }
 
-    public static class Multiply implements DoubleBinaryOperator {
+    public static class Multiply extends BinaryLambda {
         @Override
         public double applyAsDouble(double left, double right) { return left * right; }
         @Override
-        public String toString() { return "f(a,b)(a * b)"; }
+        public String expression() { return "a * b"; }
     }
 
-    public static class Pow implements DoubleBinaryOperator {
+    public static class Pow extends BinaryLambda {
         @Override
         public double applyAsDouble(double left, double right) { return Math.pow(left, right); }
         @Override
-        public String toString() { return "f(a,b)(pow(a, b))"; }
+        public String expression() { return "pow(a, b)"; }
     }
 
-    public static class Divide implements DoubleBinaryOperator {
+    public static class Divide extends BinaryLambda {
         @Override
         public double applyAsDouble(double left, double right) { return left / right; }
         @Override
-        public String toString() { return "f(a,b)(a / b)"; }
+        public String expression() { return "a / b"; }
     }
 
-    public static class SquaredDifference implements DoubleBinaryOperator {
+    public static class SquaredDifference extends BinaryLambda {
         @Override
         public double applyAsDouble(double left, double right) { return (left - right) * (left - right); }
         @Override
-        public String toString() { return "f(a,b)((a-b) * (a-b))"; }
+        public String expression() { return "(a-b) * (a-b)"; }
     }
 
-    public static class Subtract implements DoubleBinaryOperator {
+    public static class Subtract extends BinaryLambda {
         @Override
         public double applyAsDouble(double left, double right) { return left - right; }
         @Override
-        public String toString() { return "f(a,b)(a - b)"; }
+        public String expression() { return "a - b"; }
     }
 
 
     // Unary operators ------------------------------------------------------------------------------
 
-    public static class Abs implements DoubleUnaryOperator {
+    public static class Abs extends UnaryLambda {
         @Override
         public double applyAsDouble(double operand) { return Math.abs(operand); }
         @Override
-        public String toString() { return "f(a)(fabs(a))"; }
+        public String expression() { return "fabs(a)"; }
     }
 
-    public static class Acos implements DoubleUnaryOperator {
+    public static class Acos extends UnaryLambda {
         @Override
         public double applyAsDouble(double operand) { return Math.acos(operand); }
         @Override
-        public String toString() { return "f(a)(acos(a))"; }
+        public String expression() { return "acos(a)"; }
     }
 
-    public static class Asin implements DoubleUnaryOperator {
+    public static class Asin extends UnaryLambda {
         @Override
         public double applyAsDouble(double operand) { return Math.asin(operand); }
         @Override
-        public String toString() { return "f(a)(asin(a))"; }
+        public String expression() { return "asin(a)"; }
     }
 
-    public static class Atan implements DoubleUnaryOperator {
+    public static class Atan extends UnaryLambda {
         @Override
         public double applyAsDouble(double operand) { return Math.atan(operand); }
         @Override
-        public String toString() { return "f(a)(atan(a))"; }
+        public String expression() { return "atan(a)"; }
     }
 
-    public static class Ceil implements DoubleUnaryOperator {
+    public static class Ceil extends UnaryLambda {
         @Override
         public double applyAsDouble(double operand) { return Math.ceil(operand); }
         @Override
-        public String toString() { return "f(a)(ceil(a))"; }
+        public String expression() { return "ceil(a)"; }
     }
 
-    public static class Cos implements DoubleUnaryOperator {
+    public static class Cos extends UnaryLambda {
         @Override
         public double applyAsDouble(double operand) { return Math.cos(operand); }
         @Override
-        public String toString() { return "f(a)(cos(a))"; }
+        public String expression() { return "cos(a)"; }
     }
 
-    public static class Elu implements DoubleUnaryOperator {
+    public static class Elu extends UnaryLambda {
         @Override
         public double applyAsDouble(double operand) { return operand < 0 ? Math.exp(operand) -1 : operand; }
         @Override
-        public String toString() { return "f(a)(if(a < 0, exp(a)-1, a))"; }
+        public String expression() { return "if(a < 0, exp(a)-1, a)"; }
     }
 
-    public static class Exp implements DoubleUnaryOperator {
+    public static class Exp extends UnaryLambda {
         @Override
         public double applyAsDouble(double operand) { return Math.exp(operand); }
         @Override
-        public String toString() { return "f(a)(exp(a))"; }
+        public String expression() { return "exp(a)"; }
     }
 
-    public static class Floor implements DoubleUnaryOperator {
+    public static class Floor extends UnaryLambda {
         @Override
         public double applyAsDouble(double operand) { return Math.floor(operand); }
         @Override
-        public String toString() { return "f(a)(floor(a))"; }
+        public String expression() { return "floor(a)"; }
     }
 
-    public static class Log implements DoubleUnaryOperator {
+    public static class Log extends UnaryLambda {
         @Override
         public double applyAsDouble(double operand) { return Math.log(operand); }
         @Override
-        public String toString() { return "f(a)(log(a))"; }
+        public String expression() { return "log(a)"; }
     }
 
-    public static class Neg implements DoubleUnaryOperator {
+    public static class Neg extends UnaryLambda {
         @Override
         public double applyAsDouble(double operand) { return -operand; }
         @Override
-        public String toString() { return "f(a)(-a)"; }
+        public String expression() { return "-a"; }
     }
 
-    public static class Reciprocal implements DoubleUnaryOperator {
+    public static class Reciprocal extends UnaryLambda {
         @Override
         public double applyAsDouble(double operand) { return 1.0 / operand; }
         @Override
-        public String toString() { return "f(a)(1 / a)"; }
+        public String expression() { return "1 / a"; }
     }
 
-    public static class Relu implements DoubleUnaryOperator {
+    public static class Relu extends UnaryLambda {
         @Override
         public double applyAsDouble(double operand) { return Math.max(operand, 0); }
         @Override
-        public String toString() { return "f(a)(max(0, a))"; }
+        public String expression() { return "max(0, a)"; }
     }
 
-    public static class Selu implements DoubleUnaryOperator {
+    public static class Selu extends UnaryLambda {
         // See https://arxiv.org/abs/1706.02515
         private static final double scale = 1.0507009873554804934193349852946;
         private static final double alpha = 1.6732632423543772848170429916717;
         @Override
         public double applyAsDouble(double operand) { return scale * (operand >= 0.0 ? operand : alpha * (Math.exp(operand)-1)); }
         @Override
-        public String toString() { return String.format("f(a)(%f * if(a >= 0, a, %f*(exp(a)-1)))", scale, alpha); }
+        public String expression() { return String.format("%f * if(a >= 0, a, %f*(exp(a)-1))", scale, alpha); }
     }
 
-    public static class Sin implements DoubleUnaryOperator {
+    public static class Sin extends UnaryLambda {
         @Override
         public double applyAsDouble(double operand) { return Math.sin(operand); }
         @Override
-        public String toString() { return "f(a)(sin(a))"; }
+        public String expression() { return "sin(a)"; }
     }
 
-    public static class Rsqrt implements DoubleUnaryOperator {
+    public static class Rsqrt extends UnaryLambda {
         @Override
         public double applyAsDouble(double operand) { return 1.0 / Math.sqrt(operand); }
         @Override
-        public String toString() { return "f(a)(1.0 / sqrt(a))"; }
+        public String expression() { return "1.0 / sqrt(a)"; }
     }
 
-    public static class Sigmoid implements DoubleUnaryOperator {
+    public static class Sigmoid extends UnaryLambda {
         @Override
         public double applyAsDouble(double operand) { return 1.0 / (1.0 + Math.exp(-operand)); }
         @Override
-        public String toString() { return "f(a)(1 / (1 + exp(-a)))"; }
+        public String expression() { return "1 / (1 + exp(-a))"; }
     }
 
-    public static class Sqrt implements DoubleUnaryOperator {
+    public static class Sqrt extends UnaryLambda {
         @Override
         public double applyAsDouble(double operand) { return Math.sqrt(operand); }
         @Override
-        public String toString() { return "f(a)(sqrt(a))"; }
+        public String expression() { return "sqrt(a)"; }
     }
 
-    public static class Square implements DoubleUnaryOperator {
+    public static class Square extends UnaryLambda {
         @Override
         public double applyAsDouble(double operand) { return operand * operand; }
         @Override
-        public String toString() { return "f(a)(a * a)"; }
+        public String expression() { return "a * a"; }
     }
 
-    public static class Tan implements DoubleUnaryOperator {
+    public static class Tan extends UnaryLambda {
         @Override
         public double applyAsDouble(double operand) { return Math.tan(operand); }
         @Override
-        public String toString() { return "f(a)(tan(a))"; }
+        public String expression() { return "tan(a)"; }
     }
 
-    public static class Tanh implements DoubleUnaryOperator {
+    public static class Tanh extends UnaryLambda {
         @Override
         public double applyAsDouble(double operand) { return Math.tanh(operand); }
         @Override
-        public String toString() { return "f(a)(tanh(a))"; }
+        public String expression() { return "tanh(a)"; }
     }
 
 
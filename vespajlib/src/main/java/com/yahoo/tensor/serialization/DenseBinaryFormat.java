@@ -7,7 +7,6 @@ import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 
-import java.util.Iterator;
 import java.util.Optional;
 
 /**
@@ -17,6 +16,7 @@ import java.util.Optional;
  * Cell_values = [double, double, double, ...]*
  * where values are encoded in order of increasing indexes in each dimension, increasing
  * indexes of later dimensions in the dimension type before earlier.
+ * Cells of other value types are encoded as doubles.
  *
  * @author bratseth
  */
@@ -27,7 +27,7 @@ public class DenseBinaryFormat implements BinaryFormat {
         if ( ! ( tensor instanceof IndexedTensor))
             throw new RuntimeException("The dense format is only supported for indexed tensors");
         encodeDimensions(buffer, (IndexedTensor)tensor);
-        encodeCells(buffer, tensor);
+        encodeCells(buffer, (IndexedTensor)tensor);
     }
 
     private void encodeDimensions(GrowableByteBuffer buffer, IndexedTensor tensor) {
@@ -38,10 +38,9 @@ public class DenseBinaryFormat implements BinaryFormat {
         }
     }
 
-    private void encodeCells(GrowableByteBuffer buffer, Tensor tensor) {
-        Iterator<Double> i = tensor.valueIterator();
-        while (i.hasNext())
-            buffer.putDouble(i.next());
+    private void encodeCells(GrowableByteBuffer buffer, IndexedTensor tensor) {
+        for (long i = 0; i < tensor.size(); i++)
+            buffer.putDouble(tensor.getByDirectIndex(i));
     }
 
     @Override
@@ -1,7 +1,13 @@
 package com.yahoo.tensor.serialization;
 
+import com.yahoo.slime.ArrayTraverser;
 import com.yahoo.slime.Cursor;
+import com.yahoo.slime.Inspector;
+import com.yahoo.slime.JsonDecoder;
+import com.yahoo.slime.ObjectTraverser;
 import com.yahoo.slime.Slime;
+import com.yahoo.slime.Type;
+import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorAddress;
 import com.yahoo.tensor.TensorType;
@@ -9,11 +15,11 @@ import com.yahoo.tensor.TensorType;
 import java.util.Iterator;
 
 /**
- * Writes tensors on the JSON format used in Vespa tensor document fields:
- * A JSON map containing a 'cells' array.
+ * Writes and reads tensors on the JSON format used in Vespa tensor document fields:
+ * A JSON map containing a 'cells' array, or, for dense tensors, optionally a 'values' array
+ * containing all the cell values in row-major order of the dimensions of the tensor type.
  * See http://docs.vespa.ai/documentation/reference/document-json-put-format.html#tensor
  */
-// TODO: We should probably move reading of this format from the document module to here
 public class JsonFormat {
 
     /**
@@ -32,9 +38,93 @@ public class JsonFormat {
         return com.yahoo.slime.JsonFormat.toJsonBytes(slime);
     }
 
+    /**
+     * Serialize the given dense tensor into the short JSON format containing a 'values' array
+     *
+     * @throws IllegalArgumentException if the tensor type is not dense (having indexed bound dimensions only)
+     */
+    public static byte[] encodeDense(Tensor tensor) {
+        if ( ! isDense(tensor.type()))
+            throw new IllegalArgumentException("Only dense tensors can be encoded as values, but got " + tensor.type());
+        IndexedTensor indexedTensor = (IndexedTensor)tensor;
+        Slime slime = new Slime();
+        Cursor valuesArray = slime.setObject().setArray("values");
+        for (long i = 0; i < indexedTensor.size(); i++)
+            valuesArray.addDouble(indexedTensor.getByDirectIndex(i));
+        return com.yahoo.slime.JsonFormat.toJsonBytes(slime);
+    }
+
     private static void encodeAddress(TensorType type, TensorAddress address, Cursor addressObject) {
         for (int i = 0; i < address.size(); i++)
             addressObject.setString(type.dimensions().get(i).name(), address.label(i));
     }
 
+    /**
+     * Deserializes the given JSON bytes, on either the 'cells' or 'values' form, into a tensor of the given type
+     *
+     * @throws IllegalArgumentException if the JSON is not a valid tensor of the given type
+     */
+    public static Tensor decode(TensorType type, byte[] jsonTensor) {
+        Inspector root = new JsonDecoder().decode(new Slime(), jsonTensor).get();
+        if (root.type() != Type.OBJECT)
+            throw new IllegalArgumentException("A JSON tensor must be an object, but got " + root.type());
+
+        Tensor.Builder builder = Tensor.Builder.of(type);
+        Inspector cells = root.field("cells");
+        if (cells.valid())
+            decodeCells(cells, builder);
+        Inspector values = root.field("values");
+        if (values.valid())
+            decodeValues(values, builder);
+        return builder.build();
+    }
+
+    private static void decodeCells(Inspector cells, Tensor.Builder builder) {
+        if (cells.type() != Type.ARRAY)
+            throw new IllegalArgumentException("Expected 'cells' to be an array, but got " + cells.type());
+        cells.traverse((ArrayTraverser) (index, cell) -> decodeCell(cell, builder.cell()));
+    }
+
+    private static void decodeCell(Inspector cell, Tensor.Builder.CellBuilder cellBuilder) {
+        Inspector address = cell.field("address");
+        if (address.type() != Type.OBJECT)
+            throw new IllegalArgumentException("Expected a tensor cell to contain an 'address' object");
+        address.traverse((ObjectTraverser) (dimension, label) -> cellBuilder.label(dimension, label.asString()));
+
+        Inspector value = cell.field("value");
+        if (value.type() != Type.DOUBLE && value.type() != Type.LONG)
+            throw new IllegalArgumentException("Expected a tensor cell to contain a numeric 'value'");
+        cellBuilder.value(value.asDouble());
+    }
+
+    private static void decodeValues(Inspector values, Tensor.Builder builder) {
+        if ( ! (builder instanceof IndexedTensor.BoundBuilder))
+            throw new IllegalArgumentException("The 'values' form can only be used with dense tensors, but got " +
+                                               builder.type());
+        if (values.type() != Type.ARRAY)
+            throw new IllegalArgumentException("Expected 'values' to be an array, but got " + values.type());
+
+        IndexedTensor.BoundBuilder boundBuilder = (IndexedTensor.BoundBuilder)builder;
+        long size = sizeOf(builder.type());
+        if (values.entries() != size)
+            throw new IllegalArgumentException("A tensor of type " + builder.type() + " must have " + size +
+                                               " values, but got " + values.entries());
+        values.traverse((ArrayTraverser) (index, value) -> {
+            if (value.type() != Type.DOUBLE && value.type() != Type.LONG)
+                throw new IllegalArgumentException("Expected tensor values to be numbers, but got " + value.type());
+            boundBuilder.cellByDirectIndex(index, value.asDouble());
+        });
+    }
+
+    private static boolean isDense(TensorType type) {
+        return type.dimensions().stream().allMatch(d -> d.type() == TensorType.Dimension.Type.indexedBound);
+    }
+
+    private static long sizeOf(TensorType type) {
+        long size = 1;
+        for (TensorType.Dimension dimension : type.dimensions())
+            size *= dimension.size().get();
+        return size;
+    }
+
 }
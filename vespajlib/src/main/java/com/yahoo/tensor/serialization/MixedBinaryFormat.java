@@ -103,7 +103,6 @@ class MixedBinaryFormat implements BinaryFormat {
 
     private void decodeCells(GrowableByteBuffer buffer, MixedTensor.BoundBuilder builder, TensorType type) {
         List<TensorType.Dimension> sparseDimensions = type.dimensions().stream().filter(d -> !d.isIndexed()).collect(Collectors.toList());
-        TensorType sparseType = MixedTensor.createPartialType(sparseDimensions);
         long denseSubspaceSize = builder.denseSubspaceSize();
 
         int numBlocks = 1;
@@ -113,14 +112,14 @@ class MixedBinaryFormat implements BinaryFormat {
 
         double[] denseSubspace = new double[(int)denseSubspaceSize];
         for (int i = 0; i < numBlocks; ++i) {
-            TensorAddress.Builder sparseAddress = new TensorAddress.Builder(sparseType);
-            for (TensorType.Dimension sparseDimension : sparseDimensions) {
-                sparseAddress.add(sparseDimension.name(), buffer.getUtf8String());
+            String[] sparseLabels = new String[sparseDimensions.size()];
+            for (int d = 0; d < sparseLabels.length; d++) {
+                sparseLabels[d] = buffer.getUtf8String();
             }
             for (long denseOffset = 0; denseOffset < denseSubspaceSize; denseOffset++) {
                 denseSubspace[(int)denseOffset] = buffer.getDouble();
             }
-            builder.block(sparseAddress.build(), denseSubspace);
+            builder.block(TensorAddress.of(sparseLabels), denseSubspace);
         }
     }
 
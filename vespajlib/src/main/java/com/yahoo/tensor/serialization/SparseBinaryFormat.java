@@ -80,19 +80,21 @@ class SparseBinaryFormat implements BinaryFormat {
     private void decodeCells(GrowableByteBuffer buffer, Tensor.Builder builder, TensorType type) {
         long numCells = buffer.getInt1_4Bytes(); // XXX: Size truncation
         for (long i = 0; i < numCells; ++i) {
-            Tensor.Builder.CellBuilder cellBuilder = builder.cell();
-            decodeAddress(buffer, cellBuilder, type);
-            cellBuilder.value(buffer.getDouble());
+            TensorAddress address = decodeAddress(buffer, type);
+            builder.cell(address, buffer.getDouble());
         }
     }
 
-    private void decodeAddress(GrowableByteBuffer buffer, Tensor.Builder.CellBuilder builder, TensorType type) {
-        for (TensorType.Dimension dimension : type.dimensions()) {
+    private TensorAddress decodeAddress(GrowableByteBuffer buffer, TensorType type) {
+        String[] labels = new String[type.dimensions().size()];
+        for (int i = 0; i < labels.length; i++) {
             String label = buffer.getUtf8String();
-            if ( ! label.isEmpty()) {
-                builder.label(dimension.name(), label);
-            }
+            if (label.isEmpty())
+                throw new IllegalArgumentException("Missing a value for dimension " +
+                                                   type.dimensions().get(i).name() + " for " + type);
+            labels[i] = label;
         }
+        return TensorAddress.of(labels);
     }
 
 }
@@ -15,6 +15,8 @@ import java.util.Optional;
  *
  * The actual binary format used is not a concern for the client and
  * is hidden in this class and in the binary data.
+ * Cell values are always encoded as doubles, also when the tensor type has another value type,
+ * as that is what all readers of the format support.
  *
  * @author geirst
  */
@@ -3,6 +3,7 @@ package com.yahoo.compress;
 
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Optional;
 
@@ -22,4 +23,19 @@ public class LZ4CompressorTest {
         assertTrue(Arrays.equals(decompressed, Arrays.copyOf(toCompress, compressBytes)));
     }
 
+    @Test
+    public void can_decompress_from_direct_buffer() {
+        byte[] toCompress = "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa".getBytes();
+        Compressor compressor = new Compressor();
+        Compressor.Compression compressed = compressor.compress(CompressionType.LZ4, toCompress, Optional.empty());
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(compressed.data().length + 2);
+        buffer.put((byte)7).put(compressed.data()).put((byte)9).flip();
+        buffer.get();
+        byte[] decompressed = compressor.decompress(CompressionType.LZ4, buffer,
+                                                    compressed.uncompressedSize(), compressed.data().length);
+        assertTrue(Arrays.equals(toCompress, decompressed));
+        assertEquals("The buffer is positioned after the compressed data", 9, buffer.get());
+    }
+
 }
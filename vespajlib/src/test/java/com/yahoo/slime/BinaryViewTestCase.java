@@ -0,0 +1,121 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.slime;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author agent
+ */
+public class BinaryViewTestCase {
+
+    private Slime createSlime() {
+        Slime slime = new Slime();
+        Cursor root = slime.setObject();
+        root.setNix("nix");
+        root.setBool("bool", true);
+        root.setLong("long", -1234567890123L);
+        root.setLong("small", 3);
+        root.setDouble("double", 3.25);
+        root.setString("string", "Hello, wörld");
+        root.setString("long string", "A string long enough that its size does not fit in the meta bits");
+        root.setData("data", new byte[] { 1, 2, 3, 4 });
+        Cursor array = root.setArray("array");
+        array.addLong(1);
+        Cursor nested = array.addObject();
+        nested.setString("name", "nested");
+        nested.setArray("empty");
+        array.addString("last");
+        root.setObject("empty object");
+        root.setDouble("last", -0.5);
+        return slime;
+    }
+
+    @Test
+    public void testViewIsEquivalentToDecodedSlime() {
+        Slime slime = createSlime();
+        Inspector view = BinaryView.inspect(BinaryFormat.encode(slime));
+        assertEquivalent(slime.get(), view);
+        assertEquals(slime.get().toString(), view.toString());
+    }
+
+    @Test
+    public void testAccessors() {
+        Inspector view = BinaryView.inspect(BinaryFormat.encode(createSlime()));
+        assertEquals(Type.OBJECT, view.type());
+        assertEquals(11, view.fields());
+        assertEquals(Type.NIX, view.field("nix").type());
+        assertTrue(view.field("nix").valid());
+        assertTrue(view.field("bool").asBool());
+        assertEquals(-1234567890123L, view.field("long").asLong());
+        assertEquals(3.0, view.field("small").asDouble(), 0);
+        assertEquals(3, view.field("double").asLong());
+        assertEquals("Hello, wörld", view.field("string").asString());
+        assertArrayEquals(new byte[] { 1, 2, 3, 4 }, view.field("data").asData());
+        assertEquals("nested", view.field("array").entry(1).field("name").asString());
+        assertEquals("last", view.field("array").entry(2).asString());
+        assertEquals(0, view.field("array").entry(1).field("empty").entries());
+        assertEquals(-0.5, view.field("last").asDouble(), 0);
+
+        assertFalse(view.field("nonexisting").valid());
+        assertFalse(view.field("array").entry(3).valid());
+        assertFalse(view.field("array").field("name").valid());
+        assertFalse(view.entry(0).valid());
+        assertEquals("", view.field("long").asString());
+        assertEquals(0, view.field("string").asLong());
+    }
+
+    @Test
+    public void testViewOfPartOfArray() {
+        byte[] encoded = BinaryFormat.encode(createSlime());
+        byte[] padded = new byte[encoded.length + 10];
+        System.arraycopy(encoded, 0, padded, 5, encoded.length);
+        assertEquals(createSlime().get().toString(), BinaryView.inspect(padded, 5, encoded.length).toString());
+    }
+
+    @Test
+    public void testInvalidData() {
+        byte[] encoded = BinaryFormat.encode(createSlime());
+        for (int length : new int[] { 0, 1, encoded.length / 2, encoded.length - 1 }) {
+            try {
+                BinaryView.inspect(encoded, 0, length);
+                fail("Expected exception on " + length + " bytes");
+            }
+            catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    private void assertEquivalent(Inspector expected, Inspector actual) {
+        assertEquals(expected.valid(), actual.valid());
+        assertEquals(expected.type(), actual.type());
+        assertEquals(expected.children(), actual.children());
+        assertEquals(expected.entries(), actual.entries());
+        assertEquals(expected.fields(), actual.fields());
+        assertEquals(expected.asBool(), actual.asBool());
+        assertEquals(expected.asLong(), actual.asLong());
+        assertEquals(expected.asDouble(), actual.asDouble(), 0);
+        assertEquals(expected.asString(), actual.asString());
+        assertArrayEquals(expected.asUtf8(), actual.asUtf8());
+        assertArrayEquals(expected.asData(), actual.asData());
+        for (int i = 0; i < expected.entries(); i++)
+            assertEquivalent(expected.entry(i), actual.entry(i));
+
+        List<String> expectedNames = new ArrayList<>();
+        List<String> actualNames = new ArrayList<>();
+        expected.traverse((ObjectTraverser)(name, value) -> expectedNames.add(name));
+        actual.traverse((ObjectTraverser)(name, value) -> actualNames.add(name));
+        assertEquals(expectedNames, actualNames);
+        for (String name : expectedNames)
+            assertEquivalent(expected.field(name), actual.field(name));
+    }
+
+}
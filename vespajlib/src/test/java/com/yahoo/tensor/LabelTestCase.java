@@ -0,0 +1,74 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent
+ */
+public class LabelTestCase {
+
+    @Test
+    public void testLabelIds() {
+        assertEquals(0, Label.toId("0"));
+        assertEquals(17, Label.toId("17"));
+        assertEquals(17, Label.toId(17));
+        assertEquals(Label.toId("-3"), Label.toId(-3));
+        assertTrue(Label.toId("foo") < 0);
+        assertTrue(Label.toId("017") < 0);
+        assertTrue(Label.toId("12345678901234567890") < 0);
+        assertTrue(Label.toId("") < 0);
+        assertEquals(Label.toId("foo"), Label.toId("foo"));
+        assertNotEquals(Label.toId("foo"), Label.toId("bar"));
+    }
+
+    @Test
+    public void testAddressesWithLabelIds() {
+        TensorAddress numeric = TensorAddress.of(1, -2);
+        TensorAddress strings = TensorAddress.of(new String[] { "1", "-2" });
+        assertEquals(numeric, strings);
+        assertEquals(numeric.hashCode(), strings.hashCode());
+        assertEquals(-2, numeric.numericLabel(1));
+        assertEquals("-2", strings.label(1));
+        assertEquals("[1, -2]", numeric.toString());
+        assertEquals(TensorAddress.of(1, 5), numeric.withLabel(1, 5));
+        assertEquals(TensorAddress.of(1, -5), TensorAddress.of(1, 5).withLabel(1, -5));
+
+        // Ordering is still by label strings
+        assertTrue(TensorAddress.of(10).compareTo(TensorAddress.of(9)) < 0);
+        assertTrue(TensorAddress.of(new String[] { "a" }).compareTo(TensorAddress.of(new String[] { "b" })) < 0);
+    }
+
+    @Test
+    public void testLabelsWithEqualIdsAreDistinguished() {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        assertEquals(Label.toId("Aa"), Label.toId("BB"));
+        TensorAddress aa = TensorAddress.of(new String[] { "x", "Aa" });
+        TensorAddress bb = TensorAddress.of(new String[] { "x", "BB" });
+        assertFalse(aa.equals(bb));
+        assertEquals("Aa", aa.label(1));
+        assertTrue(aa.compareTo(bb) < 0);
+        assertEquals(aa, TensorAddress.of(new String[] { "x", "Aa" }));
+    }
+
+    @Test
+    public void testPartialCopyAndCombine() {
+        TensorAddress address = TensorAddress.of(new String[] { "a", "1", "b" });
+        assertEquals(TensorAddress.of(new String[] { "b", "a" }), address.partialCopy(new int[] { 2, 0 }));
+        assertEquals(TensorAddress.of(1), address.partialCopy(new int[] { 1 }));
+
+        TensorAddress first = TensorAddress.of(new String[] { "a", "Aa" });
+        assertEquals(TensorAddress.of(new String[] { "a", "Aa", "c" }),
+                     TensorAddress.combine(first, new int[] { 0, 1 },
+                                           TensorAddress.of(new String[] { "Aa", "c" }), new int[] { 1, 2 }, 3));
+        assertNull(TensorAddress.combine(first, new int[] { 0, 1 },
+                                         TensorAddress.of(new String[] { "BB", "c" }), new int[] { 1, 2 }, 3));
+    }
+
+}
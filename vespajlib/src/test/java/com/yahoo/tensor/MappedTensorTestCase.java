@@ -5,7 +5,9 @@ import com.google.common.collect.Sets;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Basic tensor tests. Tensor operations are tested in EvaluationTestCase
@@ -48,4 +50,28 @@ public class MappedTensorTestCase {
         assertEquals("{{x:0,y:0}:1.0,{x:1,y:0}:2.0}", tensor.toString());
     }
 
+    @Test
+    public void testDuplicateCellsAreRejected() {
+        TensorType type = new TensorType.Builder().mapped("x").build();
+        Tensor.Builder builder = Tensor.Builder.of(type).cell().label("x", "0").value(1);
+        try {
+            builder.cell().label("x", "0").value(2);
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals("Multiple values for cell [0]: 1.0 and 2.0", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testBuilderCanBeReused() {
+        TensorType type = new TensorType.Builder().mapped("x").build();
+        Tensor.Builder builder = Tensor.Builder.of(type).cell().label("x", "0").value(1);
+        Tensor first = builder.build();
+        Tensor second = builder.cell().label("x", "1").value(2).build();
+        assertEquals("{{x:0}:1.0}", first.toString());
+        assertEquals("{{x:0}:1.0,{x:1}:2.0}", second.toString());
+        assertSame(second.cells(), second.cells());
+    }
+
 }
@@ -64,6 +64,17 @@ public class TensorTypeTestCase {
         assertIllegalTensorType("tensor(x{10})", "Failed parsing element 'x{10}' in type spec 'tensor(x{10})'");
     }
 
+    @Test
+    public void requireThatValueTypesCanBeSpecified() {
+        assertTensorType("tensor<float>(x[5])");
+        assertTensorType("tensor<int8>(x{},y[3])");
+        assertTensorType("tensor(x[5])", "tensor<double>(x[5])");
+        assertEquals(TensorType.Value.FLOAT, TensorType.fromSpec("tensor<float>(x[5])").valueType());
+        assertFalse(TensorType.fromSpec("tensor<float>(x[5])").equals(TensorType.fromSpec("tensor(x[5])")));
+        assertIsAssignableTo("tensor<float>(x[5])", "tensor(x[])");
+        assertIllegalTensorType("tensor<bool>(x[5])", "A tensor value type must be one of");
+    }
+
     @Test
     public void testAssignableTo() {
         assertIsAssignableTo("tensor(x[])", "tensor(x[])");
@@ -0,0 +1,68 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.functions;
+
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.MapEvaluationContext;
+import com.yahoo.tensor.evaluation.VariableTensor;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that evaluating large dense tensor functions in parallel produces the same results as evaluating
+ * them in a single thread.
+ *
+ * @author agent
+ */
+public class ParallelEvaluationTestCase {
+
+    private static final ForkJoinPool executor = new ForkJoinPool(4);
+
+    private static final Tensor a = generate("tensor(x[500],y[400])").evaluate();
+    private static final Tensor b = generate("tensor(y[400],z[3])").evaluate();
+
+    @AfterClass
+    public static void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testParallelEvaluation() {
+        assertParallel(generate("tensor(x[500],y[400])"));
+        assertParallel(new Map(new VariableTensor("a"), value -> value * 3 + 1));
+        assertParallel(new Join(new VariableTensor("a"), new VariableTensor("b"), ScalarFunctions.multiply()));
+        for (Reduce.Aggregator aggregator : Reduce.Aggregator.values()) {
+            assertParallel(new Reduce(new VariableTensor("a"), aggregator, "y"));
+            assertParallel(new Reduce(new VariableTensor("a"), aggregator, "x"));
+            assertParallel(new Reduce(new VariableTensor("a"), aggregator, Collections.emptyList()));
+            assertParallel(new Reduce(new Join(new VariableTensor("a"), new VariableTensor("b"), ScalarFunctions.multiply()),
+                                      aggregator, Arrays.asList("y")));
+        }
+    }
+
+    private void assertParallel(TensorFunction function) {
+        Tensor expected = function.evaluate(context(null));
+        assertEquals(expected, function.evaluate(context(executor)));
+    }
+
+    private MapEvaluationContext context(ForkJoinPool executor) {
+        MapEvaluationContext context = new MapEvaluationContext();
+        context.put("a", a);
+        context.put("b", b);
+        context.setExecutor(executor);
+        return context;
+    }
+
+    /** Returns a function generating a tensor of the given type with varying, non-integer values */
+    private static TensorFunction generate(String type) {
+        return new Generate(TensorType.fromSpec(type),
+                            indexes -> indexes.stream().mapToDouble(i -> Math.sin(i + 1)).reduce(1, (x, y) -> x * y + y));
+    }
+
+}
@@ -0,0 +1,92 @@
+// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.functions;
+
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.evaluation.MapEvaluationContext;
+import com.yahoo.tensor.evaluation.VariableTensor;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests reduce and reduce of joins of dense tensors by comparing with the result of
+ * reducing mapped tensors with the same cells.
+ *
+ * @author agent
+ */
+public class ReduceTestCase {
+
+    private static final String a = "tensor(x[2],y[3]):{{x:0,y:0}:1,{x:0,y:1}:-2,{x:0,y:2}:3,{x:1,y:0}:4,{x:1,y:1}:5,{x:1,y:2}:-6}";
+    private static final String b = "tensor(y[2],z[2]):{{y:0,z:0}:7,{y:0,z:1}:-8,{y:1,z:0}:9,{y:1,z:1}:10}";
+
+    @Test
+    public void testReduce() {
+        for (Reduce.Aggregator aggregator : Reduce.Aggregator.values()) {
+            assertReduce(a, aggregator);
+            assertReduce(a, aggregator, "x");
+            assertReduce(a, aggregator, "y");
+            assertReduce(a, aggregator, "x", "y");
+            assertReduce("tensor(x[3]):{{x:0}:-1,{x:1}:-2,{x:2}:-3}", aggregator);
+        }
+    }
+
+    @Test
+    public void testReduceOfJoin() {
+        for (Reduce.Aggregator aggregator : Reduce.Aggregator.values()) {
+            assertReduceOfJoin(a, b, aggregator);
+            assertReduceOfJoin(a, b, aggregator, "y");
+            assertReduceOfJoin(a, b, aggregator, "x", "z");
+            assertReduceOfJoin(a, "tensor(y[3]):{{y:0}:2,{y:1}:3,{y:2}:4}", aggregator, "y");
+            assertReduceOfJoin(a, "tensor(z[2]):{{z:0}:2,{z:1}:3}", aggregator, "x");
+        }
+    }
+
+    @Test
+    public void testDotProduct() {
+        assertEquals(Tensor.from("{32}"),
+                     evaluate(new Reduce(new Join(new VariableTensor("a"), new VariableTensor("b"),
+                                                  ScalarFunctions.multiply()),
+                                         Reduce.Aggregator.sum),
+                              Tensor.from("tensor(x[3]):{{x:0}:1,{x:1}:2,{x:2}:3}"),
+                              Tensor.from("tensor(x[3]):{{x:0}:4,{x:1}:5,{x:2}:6}")));
+    }
+
+    private void assertReduce(String tensor, Reduce.Aggregator aggregator, String ... dimensions) {
+        Reduce reduce = new Reduce(new VariableTensor("a"), aggregator, Arrays.asList(dimensions));
+        assertEqualCells(evaluate(reduce, Tensor.from(mapped(tensor)), null),
+                         evaluate(reduce, Tensor.from(tensor), null));
+    }
+
+    private void assertReduceOfJoin(String tensorA, String tensorB, Reduce.Aggregator aggregator, String ... dimensions) {
+        Reduce reduce = new Reduce(new Join(new VariableTensor("a"), new VariableTensor("b"), ScalarFunctions.multiply()),
+                                   aggregator,
+                                   Arrays.asList(dimensions));
+        assertEqualCells(evaluate(reduce, Tensor.from(mapped(tensorA)), Tensor.from(mapped(tensorB))),
+                         evaluate(reduce, Tensor.from(tensorA), Tensor.from(tensorB)));
+    }
+
+    private Tensor evaluate(TensorFunction function, Tensor a, Tensor b) {
+        MapEvaluationContext context = new MapEvaluationContext();
+        context.put("a", a);
+        if (b != null)
+            context.put("b", b);
+        return function.evaluate(context);
+    }
+
+    private void assertEqualCells(Tensor expected, Tensor actual) {
+        assertEquals("Cell count of " + actual, expected.size(), actual.size());
+        for (Iterator<Tensor.Cell> i = expected.cellIterator(); i.hasNext(); ) {
+            Tensor.Cell cell = i.next();
+            assertEquals("Cell " + cell.getKey() + " of " + actual, cell.getValue(), actual.get(cell.getKey()), 0.000001);
+        }
+    }
+
+    /** Returns the given tensor string with all indexed dimensions replaced by mapped */
+    private String mapped(String tensor) {
+        return tensor.replaceAll("\\[\\d*\\]", "{}");
+    }
+
+}
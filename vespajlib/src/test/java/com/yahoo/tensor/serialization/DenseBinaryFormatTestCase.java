@@ -3,6 +3,7 @@ package com.yahoo.tensor.serialization;
 
 import com.yahoo.io.GrowableByteBuffer;
 import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorAddress;
 import com.yahoo.tensor.TensorType;
 import org.junit.Test;
 
@@ -53,6 +54,20 @@ public class DenseBinaryFormatTestCase {
                      Arrays.toString(TypedBinaryFormat.encode(Tensor.from("tensor(xy[],z[]):{{xy:0,z:0}:2.0,{xy:1,z:0}:3.0}"))));
     }
 
+    @Test
+    public void testSerializationOfFloatAndInt8Cells() {
+        Tensor floatTensor = Tensor.from("tensor<float>(x[2],y[2]):{{x:0,y:0}:1.5, {x:0,y:1}:-2.25, {x:1,y:0}:3.0, {x:1,y:1}:0.1}");
+        assertSerialization(floatTensor);
+        Tensor int8Tensor = Tensor.from("tensor<int8>(x[3]):{{x:0}:1.4, {x:1}:-200, {x:2}:127}");
+        assertEquals(-128.0, int8Tensor.get(TensorAddress.of(1)), 0);
+        assertSerialization(int8Tensor);
+
+        Tensor doubleTensor = Tensor.from("tensor(x[2],y[2]):{{x:0,y:0}:1.5, {x:0,y:1}:-2.25, {x:1,y:0}:3.0, {x:1,y:1}:" + (double)0.1f + "}");
+        assertEquals("Cells are encoded as doubles",
+                     Arrays.toString(TypedBinaryFormat.encode(doubleTensor)),
+                     Arrays.toString(TypedBinaryFormat.encode(floatTensor)));
+    }
+
     private void assertSerialization(String tensorString) {
         assertSerialization(Tensor.from(tensorString));
     }
@@ -7,6 +7,7 @@ import org.junit.Test;
 import java.nio.charset.StandardCharsets;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 /**
  * @author bratseth
@@ -45,4 +46,55 @@ public class JsonFormatTestCase {
                      new String(json, StandardCharsets.UTF_8));
     }
 
+    @Test
+    public void testJsonEncodingOfDenseTensorAsValues() {
+        Tensor tensor = Tensor.from("tensor(x[2],y[2]):{{x:0,y:0}:2.0,{x:0,y:1}:3.0,{x:1,y:0}:5.0,{x:1,y:1}:7.0}");
+        byte[] json = JsonFormat.encodeDense(tensor);
+        assertEquals("{\"values\":[2.0,3.0,5.0,7.0]}", new String(json, StandardCharsets.UTF_8));
+        assertEquals(tensor, JsonFormat.decode(tensor.type(), json));
+    }
+
+    @Test
+    public void testJsonDecoding() {
+        assertDecoded("tensor(x{},y{}):{{x:a,y:b}:2.0,{x:c,y:d}:3.0}",
+                      "{\"cells\":[" +
+                      "{\"address\":{\"x\":\"a\",\"y\":\"b\"},\"value\":2.0}," +
+                      "{\"address\":{\"x\":\"c\",\"y\":\"d\"},\"value\":3}" +
+                      "]}");
+        assertDecoded("tensor(x[2],y[2]):{{x:0,y:0}:2.0,{x:0,y:1}:3.0,{x:1,y:0}:5.0,{x:1,y:1}:7.0}",
+                      "{\"cells\":[" +
+                      "{\"address\":{\"x\":\"0\",\"y\":\"0\"},\"value\":2.0}," +
+                      "{\"address\":{\"x\":\"0\",\"y\":\"1\"},\"value\":3.0}," +
+                      "{\"address\":{\"x\":\"1\",\"y\":\"0\"},\"value\":5.0}," +
+                      "{\"address\":{\"x\":\"1\",\"y\":\"1\"},\"value\":7.0}" +
+                      "]}");
+        assertDecoded("tensor(x[2],y[3]):{{x:0,y:0}:1,{x:0,y:1}:2,{x:0,y:2}:3,{x:1,y:0}:4,{x:1,y:1}:5,{x:1,y:2}:6}",
+                      "{\"values\":[1, 2.0, 3, 4, 5.0, 6]}");
+    }
+
+    @Test
+    public void testIllegalValuesDecoding() {
+        assertDecodingFails("tensor(x{})", "{\"values\":[1.0, 2.0]}",
+                            "The 'values' form can only be used with dense tensors, but got tensor(x{})");
+        assertDecodingFails("tensor(x[3])", "{\"values\":[1.0, 2.0]}",
+                            "A tensor of type tensor(x[3]) must have 3 values, but got 2");
+        assertDecodingFails("tensor(x[2])", "{\"values\":[1.0, \"a\"]}",
+                            "Expected tensor values to be numbers, but got STRING");
+    }
+
+    private void assertDecoded(String expected, String json) {
+        Tensor expectedTensor = Tensor.from(expected);
+        assertEquals(expectedTensor, JsonFormat.decode(expectedTensor.type(), json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private void assertDecodingFails(String type, String json, String expectedMessage) {
+        try {
+            JsonFormat.decode(TensorType.fromSpec(type), json.getBytes(StandardCharsets.UTF_8));
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals(expectedMessage, e.getMessage());
+        }
+    }
+
 }